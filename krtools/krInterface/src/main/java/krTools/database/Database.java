@@ -17,6 +17,10 @@
 
 package krTools.database;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import krTools.KRInterface;
@@ -60,6 +64,49 @@ public interface Database {
 	 */
 	Set<Substitution> query(Query query) throws KRQueryFailedException;
 
+	/**
+	 * Checks whether a query has a solution, without computing (all of) its
+	 * solutions if possible.
+	 *
+	 * @return True iff {@link #query(Query)} would return a non-empty set.
+	 *
+	 * @throws KRQueryFailedException If performing the query failed for some
+	 *                                technical reason.
+	 */
+	default boolean exists(final Query query) throws KRQueryFailedException {
+		return !query(query).isEmpty();
+	}
+
+	/**
+	 * Performs a query and returns its solutions one by one, which allows a KR
+	 * language to compute a solution only when it is requested. The returned
+	 * object should be closed after use.
+	 *
+	 * @return The solutions of the query, i.e., the substitutions that would be
+	 *         returned by {@link #query(Query)}.
+	 *
+	 * @throws KRQueryFailedException If performing the query failed for some
+	 *                                technical reason.
+	 */
+	default Solutions solutions(final Query query) throws KRQueryFailedException {
+		final Iterator<Substitution> solutions = query(query).iterator();
+		return new Solutions() {
+			@Override
+			public boolean hasNext() {
+				return solutions.hasNext();
+			}
+
+			@Override
+			public Substitution next() {
+				return solutions.next();
+			}
+
+			@Override
+			public void close() {
+			}
+		};
+	}
+
 	/**
 	 * Inserts a formula into the database.
 	 *
@@ -94,6 +141,46 @@ public interface Database {
 	 */
 	boolean delete(DatabaseFormula formula) throws KRDatabaseException;
 
+	/**
+	 * Inserts formulas into the database, see {@link #insert(DatabaseFormula)}. A
+	 * KR language can use this to perform the insertions in bulk.
+	 *
+	 * @param formulas The database formulas to be added.
+	 * @return The formulas that were actually inserted (in order).
+	 *
+	 * @throws KRDatabaseException If something went whilst inserting the formulas.
+	 */
+	default List<DatabaseFormula> insertAll(final Collection<? extends DatabaseFormula> formulas)
+			throws KRDatabaseException {
+		final List<DatabaseFormula> inserted = new ArrayList<>(formulas.size());
+		for (final DatabaseFormula formula : formulas) {
+			if (insert(formula)) {
+				inserted.add(formula);
+			}
+		}
+		return inserted;
+	}
+
+	/**
+	 * Removes formulas from the database, see {@link #delete(DatabaseFormula)}. A
+	 * KR language can use this to perform the deletions in bulk.
+	 *
+	 * @param formulas The formulas to be removed.
+	 * @return The formulas that were actually deleted (in order).
+	 *
+	 * @throws KRDatabaseException If something went whilst deleting the formulas.
+	 */
+	default List<DatabaseFormula> deleteAll(final Collection<? extends DatabaseFormula> formulas)
+			throws KRDatabaseException {
+		final List<DatabaseFormula> deleted = new ArrayList<>(formulas.size());
+		for (final DatabaseFormula formula : formulas) {
+			if (delete(formula)) {
+				deleted.add(formula);
+			}
+		}
+		return deleted;
+	}
+
 	/**
 	 * Cleans up a database. Should free all memory used by the database.
 	 *
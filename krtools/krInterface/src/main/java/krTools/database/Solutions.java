@@ -0,0 +1,53 @@
+/**
+ * Knowledge Representation Tools. Copyright (C) 2014 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package krTools.database;
+
+import krTools.exceptions.KRQueryFailedException;
+import krTools.language.Substitution;
+
+/**
+ * The solutions of a query on a {@link Database}, which are (possibly) only
+ * computed when they are requested. A {@link Solutions} object should always be
+ * closed after use, also when not all solutions have been retrieved, in order
+ * to release the resources used for the query.
+ *
+ * <p>
+ * Also see: {@link Database#solutions(krTools.language.Query)}.
+ * </p>
+ */
+public interface Solutions extends AutoCloseable {
+	/**
+	 * @return True iff there is another solution.
+	 * @throws KRQueryFailedException If computing the next solution failed for
+	 *                                some technical reason.
+	 */
+	boolean hasNext() throws KRQueryFailedException;
+
+	/**
+	 * @return The next solution.
+	 * @throws KRQueryFailedException If computing the next solution failed for
+	 *                                some technical reason, or if there is no
+	 *                                next solution.
+	 */
+	Substitution next() throws KRQueryFailedException;
+
+	/**
+	 * Releases the resources used for the query.
+	 */
+	@Override
+	void close();
+}
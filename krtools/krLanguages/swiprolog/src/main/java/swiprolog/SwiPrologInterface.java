@@ -42,6 +42,7 @@ import krTools.parser.Parser;
 import krTools.parser.SourceInfo;
 import swiprolog.database.PrologDatabase;
 import swiprolog.language.PrologSubstitution;
+import swiprolog.language.impl.PrologImplFactory;
 import swiprolog.parser.Analyzer;
 import swiprolog.parser.KRInterfaceParser4;
 
@@ -55,6 +56,11 @@ public final class SwiPrologInterface implements KRInterface {
 	 * agent (by name).
 	 */
 	private final Map<String, Map<String, PrologDatabase>> databases = new ConcurrentHashMap<>();
+	/**
+	 * Whether agents share a pool of SWI Prolog engines instead of each having
+	 * their own engine; see {@link #setSharedEngines(boolean)}.
+	 */
+	private static volatile boolean sharedEngines = false;
 
 	/**
 	 * See {@link SwiInstaller#init(boolean)}.
@@ -67,12 +73,58 @@ public final class SwiPrologInterface implements KRInterface {
 		}
 	}
 
+	/**
+	 * By default, each owner gets its own SWI Prolog engine, and its databases
+	 * are made up of thread-local predicates. When engines are shared, databases
+	 * are not bound to an engine but only to their (owner-specific) module, so
+	 * that the databases of an owner can be used from any thread that has an
+	 * engine attached; see {@link #attachEngine()}. Should be set before any
+	 * database is created.
+	 *
+	 * @param shared
+	 *            Whether owners share the engines of a pool.
+	 */
+	public static void setSharedEngines(final boolean shared) {
+		sharedEngines = shared;
+		PrologImplFactory.setThreadLocal(!shared);
+	}
+
+	/**
+	 * @return Whether owners share the engines of a pool.
+	 */
+	public static boolean isSharedEngines() {
+		return sharedEngines;
+	}
+
+	/**
+	 * Attaches an engine from SWI Prolog's engine pool to the current thread,
+	 * which keeps it for as long as the thread lives. Intended for the
+	 * (long-living) threads that execute agents when engines are shared.
+	 */
+	public static void attachEngine() {
+		if (!Prolog.current_engine_is_pool()) {
+			Prolog.attach_pool_engine();
+		}
+	}
+
+	/**
+	 * Releases the engine that was attached to the current thread by
+	 * {@link #attachEngine()}, if any.
+	 */
+	public static void detachEngine() {
+		if (Prolog.current_engine_is_pool()) {
+			Prolog.release_pool_engine();
+		}
+	}
+
 	private Map<String, PrologDatabase> getOrCreateDatabasesForOwner(final String owner) {
 		Map<String, PrologDatabase> myDatabases = this.databases.get(owner);
 		if (myDatabases == null) {
 			myDatabases = new ConcurrentHashMap<>();
 			this.databases.put(owner, myDatabases);
-			Prolog.create_engine();
+			if (!sharedEngines) {
+				Prolog.create_engine();
+			}
 		}
 		return myDatabases;
 	}
@@ -112,7 +164,9 @@ public final class SwiPrologInterface implements KRInterface {
 				removed.destroy();
 				if (myDatabases.isEmpty()) {
 					this.databases.remove(db.getOwner());
-					Prolog.destroy_engine();
+					if (!sharedEngines) {
+						Prolog.destroy_engine();
+					}
 				}
 			}
 		}
@@ -17,14 +17,19 @@
 
 package swiprolog.database;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 
 import krTools.database.Database;
+import krTools.database.Solutions;
 import krTools.exceptions.KRDatabaseException;
 import krTools.exceptions.KRInitFailedException;
 import krTools.exceptions.KRQueryFailedException;
@@ -42,6 +47,19 @@ import swiprolog.language.PrologSubstitution;
 import swiprolog.language.impl.PrologImplFactory;
 
 public class PrologDatabase implements Database {
+	/**
+	 * The SWI Prolog modules into which knowledge has been compiled, indexed by
+	 * the (non-local) knowledge they contain (see {@link KnowledgeKey}). Modules
+	 * are global in SWI Prolog, so
+	 * these are shared by all databases (of all agents) that import the same
+	 * knowledge. A module is erased again when the last database that imports it
+	 * is destroyed.
+	 */
+	private static final Map<KnowledgeKey, KnowledgeModule> knowledgeModules = new HashMap<>();
+	/**
+	 * The number of knowledge modules created so far, used to name them.
+	 */
+	private static long knowledgeModuleCount;
 	private final String owner, name;
 	/**
 	 * The KRI that is managing this database.
@@ -62,10 +80,29 @@ public class PrologDatabase implements Database {
 	private final boolean isStatic;
 	/**
 	 * A cache of write operations. Insert or deletes are queued here until the next
-	 * query, at which point those operations are first all performed.
+	 * query, at which point those operations are first all performed (in order)
+	 * using a single call; see {@link #flushWriteCache()}.
+	 */
+	private final List<Term> writecache = new ArrayList<>();
+	/**
+	 * The modification version of this database, which is increased by every
+	 * (queued) insert or delete and by every flush of the write cache.
 	 */
-	private PrologCompound writecache;
-	private int cachecount = 0;
+	private final AtomicLong version = new AtomicLong();
+	/**
+	 * For static databases only: the module that the knowledge has been compiled
+	 * into, and the part of the knowledge that cannot be shared through that module
+	 * and thus needs to be added to every importing database itself. Both are
+	 * computed upon the first import; see {@link #importKnowledge(PrologDatabase)}.
+	 * The shared knowledge is replaced by the key of its module once that is
+	 * known, so later imports find the module by identity.
+	 */
+	private KnowledgeKey sharedKnowledge;
+	private List<PrologCompound> localKnowledge;
+	/**
+	 * The (shared) knowledge that this database imports from knowledge modules.
+	 */
+	private final List<KnowledgeKey> importedKnowledge = new ArrayList<>(1);
 
 	/**
 	 * @param kri   The interface instance that creates this database.
@@ -78,7 +115,10 @@ public class PrologDatabase implements Database {
 		this.kri = kri;
 		this.owner = owner;
 		this.name = name;
-		this.jplName = PrologImplFactory.getAtom(name, null);
+		// When engines are shared, a module is no longer local to the engine of
+		// its owner, so the owner is made part of its name.
+		this.jplName = PrologImplFactory
+				.getAtom(SwiPrologInterface.isSharedEngines() ? (owner + "$" + name) : name, null);
 		this.theory = new Theory();
 		this.isStatic = false;
 	}
@@ -107,6 +147,19 @@ public class PrologDatabase implements Database {
 		return PrologImplFactory.getCompound(":", new Term[] { this.jplName, term }, null);
 	}
 
+	/**
+	 * Qualifies a goal with the module that implements this database, i.e.
+	 * constructs <tt>&lt;database label>:&lt;goal></tt>. Can be used to combine
+	 * goals on several databases into a single query; see
+	 * {@link #query(PrologCompound, Collection)}.
+	 *
+	 * @param goal The goal to be qualified.
+	 * @return The goal qualified with the module of this database.
+	 */
+	public PrologCompound qualify(final Term goal) {
+		return prefix(goal);
+	}
+
 	@Override
 	public String getOwner() {
 		return this.owner;
@@ -128,6 +181,15 @@ public class PrologDatabase implements Database {
 		return this.theory;
 	}
 
+	/**
+	 * @return The modification version of this database. Two queries that are
+	 *         performed while the version is the same, are performed on the same
+	 *         content (unless a query itself modifies the database).
+	 */
+	public long getVersion() {
+		return this.version.get();
+	}
+
 	/**
 	 *
 	 * @return true iff this database is static i.e. it can not be modified.
@@ -144,6 +206,10 @@ public class PrologDatabase implements Database {
 		if (!this.isStatic) {
 			eraseContent();
 		}
+		for (final KnowledgeKey imported : this.importedKnowledge) {
+			releaseKnowledgeModule(imported);
+		}
+		this.importedKnowledge.clear();
 		this.kri.removeDatabase(this);
 	}
 
@@ -164,6 +230,90 @@ public class PrologDatabase implements Database {
 		return rawquery(db_query_final);
 	}
 
+	/**
+	 * Checks whether the query has a solution by performing <tt>once(db:query)</tt>.
+	 *
+	 * @param pQuery the query to be performed.
+	 * @return true iff the query has at least one solution.
+	 */
+	@Override
+	public boolean exists(final Query pQuery) throws KRQueryFailedException {
+		final PrologCompound query = ((PrologQuery) pQuery).getCompound();
+		final PrologQuery db_query_final = PrologImplFactory
+				.getQuery(PrologImplFactory.getCompound("once", new Term[] { prefix(query) }, null));
+		flushWriteCache();
+		try {
+			return db_query_final.hasSolution();
+		} catch (final org.jpl7.PrologException e) {
+			throw new PrologError(e);
+		} catch (final Throwable e) {
+			throw new KRQueryFailedException("swi prolog says the query " + db_query_final + " failed", e);
+		}
+	}
+
+	/**
+	 * Performs the query incrementally, i.e. the next solution is only computed
+	 * by SWI Prolog when it is requested. As the query remains open on the engine
+	 * until it is closed, no other query should be opened on this thread in the
+	 * meantime (nested queries have to be closed before this one).
+	 *
+	 * @param pQuery the query to be performed.
+	 * @return the solutions of the query.
+	 */
+	@Override
+	public Solutions solutions(final Query pQuery) throws KRQueryFailedException {
+		final PrologCompound query = ((PrologQuery) pQuery).getCompound();
+		final PrologQuery db_query_final = PrologImplFactory.getQuery(prefix(query));
+		flushWriteCache();
+		return new Solutions() {
+			@Override
+			public boolean hasNext() throws KRQueryFailedException {
+				try {
+					return db_query_final.hasMoreSolutions();
+				} catch (final org.jpl7.PrologException e) {
+					throw new PrologError(e);
+				} catch (final Throwable e) {
+					throw new KRQueryFailedException("swi prolog says the query " + db_query_final + " failed", e);
+				}
+			}
+
+			@Override
+			public Substitution next() throws KRQueryFailedException {
+				try {
+					return getSubstitution(db_query_final.nextSolution());
+				} catch (final org.jpl7.PrologException e) {
+					throw new PrologError(e);
+				} catch (final Throwable e) {
+					throw new KRQueryFailedException("swi prolog says the query " + db_query_final + " failed", e);
+				}
+			}
+
+			@Override
+			public void close() {
+				db_query_final.close();
+			}
+		};
+	}
+
+	/**
+	 * Performs a single query that spans multiple databases. The goal should
+	 * already be qualified with the module(s) it needs to be evaluated on, see
+	 * {@link #qualify(Term)}. Any pending writes on the given databases are
+	 * performed first, after which the goal is evaluated as a whole by SWI Prolog.
+	 *
+	 * @param goal      The (qualified) goal to be performed.
+	 * @param databases The databases that are referenced in the goal.
+	 * @return set of substitutions satisfying the goal.
+	 * @throws KRQueryFailedException
+	 */
+	public static Set<Substitution> query(final PrologCompound goal, final Collection<PrologDatabase> databases)
+			throws KRQueryFailedException {
+		for (final PrologDatabase database : databases) {
+			database.flushWriteCache();
+		}
+		return rawquery(PrologImplFactory.getQuery(goal));
+	}
+
 	/**
 	 * Check that this database can be modified
 	 *
@@ -192,6 +342,223 @@ public class PrologDatabase implements Database {
 		}
 	}
 
+	/**
+	 * Imports the content of a static (knowledge) database into this database.
+	 * Instead of inserting all knowledge again, like
+	 * {@link #addKnowledge(Set)}, the knowledge is compiled only once into a
+	 * shared, read-only SWI Prolog module that is added as an import module of
+	 * this database. The predicates in that module are module transparent, so
+	 * any predicates that knowledge rules refer to (e.g. beliefs) are still
+	 * resolved in this database.
+	 * <p>
+	 * Directives (i.e. declarations) and clauses of the predicates they declare
+	 * are still added to this database itself, as they concern predicates that
+	 * are local to each database.
+	 * </p>
+	 *
+	 * @param knowledge the static database holding the knowledge that should be
+	 *                  imposed on this database.
+	 * @throws KRDatabaseException
+	 */
+	public void importKnowledge(final PrologDatabase knowledge) throws KRDatabaseException {
+		checkModifyable();
+		knowledge.compileKnowledge();
+		for (final PrologCompound formula : knowledge.localKnowledge) {
+			insert(formula);
+		}
+		if (!knowledge.sharedKnowledge.clauses.isEmpty()) {
+			final KnowledgeModule known = acquireKnowledgeModule(knowledge);
+			this.importedKnowledge.add(known.key);
+			addToWriteCache(PrologImplFactory.getCompound("add_import_module",
+					new Term[] { this.jplName, known.module, PrologImplFactory.getAtom("start", null) }, null));
+		}
+	}
+
+	/**
+	 * Splits the content of this static database into local knowledge and
+	 * knowledge that can be shared, and makes sure the latter is available in a
+	 * knowledge module. Does nothing if this has already been done before.
+	 *
+	 * @throws KRDatabaseException
+	 */
+	private synchronized void compileKnowledge() throws KRDatabaseException {
+		if (this.localKnowledge != null) {
+			return;
+		}
+		// Collect the predicates that are declared by a directive.
+		final List<PrologCompound> local = new ArrayList<>();
+		final Set<String> declared = new LinkedHashSet<>();
+		for (final DatabaseFormula formula : this.theory.getFormulas()) {
+			final PrologCompound compound = ((PrologDBFormula) formula).getCompound();
+			if (compound.isDirective()) {
+				local.add(compound);
+				final PrologCompound declaration = (PrologCompound) compound.getArg(0);
+				if (declaration.getArity() == 1 && declaration.getArg(0) instanceof PrologCompound) {
+					for (final Term indicator : ((PrologCompound) declaration.getArg(0)).getOperands(",")) {
+						declared.add(indicator.getSignature());
+					}
+				}
+			}
+		}
+		// All other clauses can be shared.
+		final Set<PrologCompound> shared = new LinkedHashSet<>();
+		for (final DatabaseFormula formula : this.theory.getFormulas()) {
+			final PrologCompound compound = ((PrologDBFormula) formula).getCompound();
+			if (!compound.isDirective()) {
+				if (declared.contains(getHead(compound).getSignature())) {
+					local.add(compound);
+				} else {
+					shared.add(compound);
+				}
+			}
+		}
+		this.sharedKnowledge = new KnowledgeKey(shared);
+		this.localKnowledge = local;
+	}
+
+	/**
+	 * Returns the module that holds the shared knowledge of a static database,
+	 * compiling it into a new module first if there is no such module yet, and
+	 * counts the caller as a user of the module; see
+	 * {@link #releaseKnowledgeModule(KnowledgeKey)}.
+	 *
+	 * @param knowledge the static database holding the knowledge.
+	 * @return the (read-only) module holding the knowledge.
+	 * @throws KRDatabaseException
+	 */
+	private static KnowledgeModule acquireKnowledgeModule(final PrologDatabase knowledge)
+			throws KRDatabaseException {
+		synchronized (knowledgeModules) {
+			KnowledgeModule known = knowledgeModules.get(knowledge.sharedKnowledge);
+			if (known == null) {
+				final Set<PrologCompound> clauses = knowledge.sharedKnowledge.clauses;
+				final PrologCompound module = PrologImplFactory.getAtom("$knowledge" + knowledgeModuleCount++, null);
+				final List<PrologCompound> indicators = new ArrayList<>();
+				final Set<String> signatures = new LinkedHashSet<>();
+				final List<PrologCompound> goals = new ArrayList<>(clauses.size());
+				for (final PrologCompound clause : clauses) {
+					goals.add(PrologImplFactory.getCompound("assert",
+							new Term[] { PrologImplFactory.getCompound(":", new Term[] { module, clause }, null) },
+							null));
+					final PrologCompound head = getHead(clause);
+					if (signatures.add(head.getSignature())) {
+						// Make sure calls in the bodies of the clauses are resolved
+						// in the module the knowledge is imported into.
+						final PrologCompound indicator = PrologImplFactory.getCompound("/", new Term[] {
+								PrologImplFactory.getAtom(head.getName(), null),
+								PrologImplFactory.getNumber(head.getArity(), null) }, null);
+						indicators.add(indicator);
+						goals.add(PrologImplFactory.getCompound("module_transparent",
+								new Term[] { PrologImplFactory.getCompound(":", new Term[] { module, indicator }, null) },
+								null));
+					}
+				}
+				try {
+					callAll(goals);
+				} catch (final KRQueryFailedException e) {
+					throw new KRDatabaseException("compiling knowledge into module '" + module + "' failed.", e);
+				}
+				known = new KnowledgeModule(knowledge.sharedKnowledge, module, indicators);
+				knowledgeModules.put(known.key, known);
+			}
+			// from now on, the module is found by identity
+			knowledge.sharedKnowledge = known.key;
+			known.references++;
+			return known;
+		}
+	}
+
+	/**
+	 * Counts that a user of the module holding the given knowledge is done with
+	 * it. The module is erased when it has no users anymore.
+	 *
+	 * @param key the key of the module.
+	 * @throws KRDatabaseException
+	 */
+	private static void releaseKnowledgeModule(final KnowledgeKey key) throws KRDatabaseException {
+		synchronized (knowledgeModules) {
+			final KnowledgeModule known = knowledgeModules.get(key);
+			if (known == null || --known.references > 0) {
+				return;
+			}
+			knowledgeModules.remove(key);
+			try {
+				for (final PrologCompound indicator : known.indicators) {
+					rawquery(PrologImplFactory.getQuery(PrologImplFactory.getCompound("abolish",
+							new Term[] { PrologImplFactory.getCompound(":", new Term[] { known.module, indicator },
+									null) },
+							null)));
+				}
+			} catch (final KRQueryFailedException e) {
+				throw new KRDatabaseException("erasing knowledge module '" + known.module + "' failed.", e);
+			}
+		}
+	}
+
+	/**
+	 * A module holding shared knowledge, and the number of databases importing
+	 * it.
+	 */
+	private static final class KnowledgeModule {
+		private final KnowledgeKey key;
+		private final PrologCompound module;
+		/**
+		 * The predicate indicators (name/arity) of the predicates in the module.
+		 */
+		private final List<PrologCompound> indicators;
+		private int references;
+
+		KnowledgeModule(final KnowledgeKey key, final PrologCompound module, final List<PrologCompound> indicators) {
+			this.key = key;
+			this.module = module;
+			this.indicators = indicators;
+		}
+	}
+
+	/**
+	 * The shared knowledge of a static database, with its hash code computed
+	 * once. The clauses are only compared if the keys are not the same object
+	 * and the hash codes are equal, which happens once per static database (see
+	 * {@link #acquireKnowledgeModule(PrologDatabase)}).
+	 */
+	private static final class KnowledgeKey {
+		private final Set<PrologCompound> clauses;
+		private final int hash;
+
+		KnowledgeKey(final Set<PrologCompound> clauses) {
+			this.clauses = clauses;
+			this.hash = clauses.hashCode();
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof KnowledgeKey)) {
+				return false;
+			}
+			final KnowledgeKey other = (KnowledgeKey) obj;
+			return this.hash == other.hash && this.clauses.equals(other.clauses);
+		}
+	}
+
+	/**
+	 * @param clause a clause (fact or rule).
+	 * @return the head of the clause.
+	 */
+	private static PrologCompound getHead(final PrologCompound clause) {
+		if (clause.getName().equals(":-") && clause.getArity() == 2) {
+			return (PrologCompound) clause.getArg(0);
+		} else {
+			return clause;
+		}
+	}
+
 	/**
 	 * <p>
 	 * Inserts formula into SWI prolog database without any checks. You are
@@ -216,6 +583,24 @@ public class PrologDatabase implements Database {
 		}
 	}
 
+	/**
+	 * Inserts all formulas; the asserts are queued and performed together (with
+	 * any other pending operations) in a single call before the next query.
+	 */
+	@Override
+	public List<DatabaseFormula> insertAll(final Collection<? extends DatabaseFormula> formulas)
+			throws KRDatabaseException {
+		checkModifyable();
+		final List<DatabaseFormula> inserted = new ArrayList<>(formulas.size());
+		for (final DatabaseFormula formula : formulas) {
+			if (this.theory.add(formula)) {
+				insert(((PrologDBFormula) formula).getCompound());
+				inserted.add(formula);
+			}
+		}
+		return inserted;
+	}
+
 	/**
 	 * Creates JPL term that wraps given term inside "assert(databaseName:term)" for
 	 * clauses, and just databaseName:term for directives (without the :-).
@@ -230,13 +615,31 @@ public class PrologDatabase implements Database {
 	private void insert(final PrologCompound formula) throws KRDatabaseException {
 		PrologCompound query;
 		if (formula.isDirective()) {
-			query = prefix(formula.getArg(0));
+			query = prefix(toSharedDeclaration((PrologCompound) formula.getArg(0)));
 		} else {
 			query = PrologImplFactory.getCompound("assert", new Term[] { prefix(formula) }, null);
 		}
 		addToWriteCache(query);
 	}
 
+	/**
+	 * When engines are shared, a thread-local predicate would be local to
+	 * whichever engine happens to execute the directive, so such declarations
+	 * (e.g. created before sharing was enabled) are turned into dynamic ones.
+	 *
+	 * @param declaration the body of a directive.
+	 * @return the declaration to use.
+	 */
+	private static PrologCompound toSharedDeclaration(final PrologCompound declaration) {
+		if (SwiPrologInterface.isSharedEngines() && declaration.getArity() == 1
+				&& declaration.getName().equals("thread_local")) {
+			return PrologImplFactory.getCompound("dynamic", new Term[] { declaration.getArg(0) },
+					declaration.getSourceInfo());
+		} else {
+			return declaration;
+		}
+	}
+
 	// ***************** delete methods ****************/
 
 	/**
@@ -264,6 +667,24 @@ public class PrologDatabase implements Database {
 		}
 	}
 
+	/**
+	 * Deletes all formulas; the retracts are queued and performed together (with
+	 * any other pending operations) in a single call before the next query.
+	 */
+	@Override
+	public List<DatabaseFormula> deleteAll(final Collection<? extends DatabaseFormula> formulas)
+			throws KRDatabaseException {
+		checkModifyable();
+		final List<DatabaseFormula> deleted = new ArrayList<>(formulas.size());
+		for (final DatabaseFormula formula : formulas) {
+			if (this.theory.remove(formula)) {
+				delete(((PrologDBFormula) formula).getCompound());
+				deleted.add(formula);
+			}
+		}
+		return deleted;
+	}
+
 	/**
 	 * Creates JPL term that wraps given term inside
 	 * "retractall(databaseName:term)".
@@ -296,19 +717,14 @@ public class PrologDatabase implements Database {
 	 *         return any bindings of variables.
 	 * @throws KRQueryFailedException
 	 */
-	private Set<Substitution> rawquery(final PrologQuery query) throws KRQueryFailedException {
+	private static Set<Substitution> rawquery(final PrologQuery query) throws KRQueryFailedException {
 		try { // Get all solutions.
 			final Map<String, org.jpl7.Term>[] solutions = query.allSolutions();
 
 			// Convert to PrologSubstitution.
 			final Set<Substitution> substitutions = new LinkedHashSet<>(solutions.length);
 			for (final Map<String, org.jpl7.Term> solution : solutions) {
-				final PrologSubstitution subst = new PrologSubstitution();
-				for (final Entry<String, org.jpl7.Term> entry : solution.entrySet()) {
-					final Var var = PrologImplFactory.getVar(entry.getKey(), null);
-					subst.addBinding(var, (Term) entry.getValue());
-				}
-				substitutions.add(subst);
+				substitutions.add(getSubstitution(solution));
 			}
 
 			return substitutions;
@@ -321,6 +737,19 @@ public class PrologDatabase implements Database {
 		}
 	}
 
+	/**
+	 * @param solution a solution of a JPL query.
+	 * @return the solution as a substitution.
+	 */
+	private static Substitution getSubstitution(final Map<String, org.jpl7.Term> solution) {
+		final PrologSubstitution subst = new PrologSubstitution();
+		for (final Entry<String, org.jpl7.Term> entry : solution.entrySet()) {
+			final Var var = PrologImplFactory.getVar(entry.getKey(), null);
+			subst.addBinding(var, (Term) entry.getValue());
+		}
+		return subst;
+	}
+
 	/**
 	 * <p>
 	 * Removes all predicates and clauses from the SWI Prolog database.
@@ -337,8 +766,8 @@ public class PrologDatabase implements Database {
 	 * @throws KRDatabaseException
 	 */
 	protected void eraseContent() throws KRDatabaseException {
-		this.writecache = null;
-		this.cachecount = 0;
+		this.writecache.clear();
+		this.version.incrementAndGet();
 
 		// Construct jpl term
 		final Term predicate = PrologImplFactory.getVar("Predicate", null);
@@ -375,34 +804,50 @@ public class PrologDatabase implements Database {
 	}
 
 	// NEW: MERGE ALL ASSERTS AND RETRACTS...
-	private void addToWriteCache(final PrologCompound formula) throws KRDatabaseException {
-		if (this.writecache == null) {
-			this.writecache = formula;
-		} else {
-			this.writecache = PrologImplFactory.getCompound(",", new Term[] { this.writecache, formula },
-					formula.getSourceInfo());
-		}
-		if (++this.cachecount == Byte.MAX_VALUE) {
-			try { // prevents stackoverflows
-				flushWriteCache();
-			} catch (final KRQueryFailedException e) {
-				throw new KRDatabaseException("", e);
-			}
-		}
+	private void addToWriteCache(final PrologCompound formula) {
+		this.writecache.add(formula);
+		this.version.incrementAndGet();
 	}
 
-	// ... TO EXECUTE THEM ALLTOGETHER AT (BEFORE) THE NEXT QUERY
+	/**
+	 * ... TO EXECUTE THEM ALLTOGETHER AT (BEFORE) THE NEXT QUERY; see
+	 * {@link #callAll(List)}.
+	 *
+	 * @throws KRQueryFailedException
+	 */
 	private void flushWriteCache() throws KRQueryFailedException {
-		if (this.writecache != null) {
+		if (!this.writecache.isEmpty()) {
 			try {
-				rawquery(PrologImplFactory.getQuery(this.writecache));
+				callAll(this.writecache);
 			} finally {
-				this.writecache = null;
-				this.cachecount = 0;
+				this.writecache.clear();
+				this.version.incrementAndGet();
 			}
 		}
 	}
 
+	/**
+	 * Executes the given goals (in order) using a single call. The goals are
+	 * passed as the arguments of a single (flat) compound and executed by
+	 * <tt>Ops =.. [_|_Goals], maplist(call, _Goals)</tt>, so there is no (deeply)
+	 * nested term to convert and no limit on the number of goals. The list of
+	 * goals is bound to a variable starting with an underscore, which JPL does
+	 * not report, so the goals are not converted back to Java terms.
+	 *
+	 * @param goals the goals to execute.
+	 * @throws KRQueryFailedException
+	 */
+	private static void callAll(final List<? extends Term> goals) throws KRQueryFailedException {
+		final PrologCompound ops = PrologImplFactory.getCompound("$ops", goals.toArray(new Term[goals.size()]), null);
+		final Var list = PrologImplFactory.getVar("_Goals", null);
+		final PrologCompound pair = PrologImplFactory.getCompound(org.jpl7.JPL.LIST_PAIR,
+				new Term[] { PrologImplFactory.getVar("_", null), list }, null);
+		final PrologCompound univ = PrologImplFactory.getCompound("=..", new Term[] { ops, pair }, null);
+		final PrologCompound maplist = PrologImplFactory.getCompound("maplist",
+				new Term[] { PrologImplFactory.getAtom("call", null), list }, null);
+		rawquery(PrologImplFactory.getQuery(PrologImplFactory.getCompound(",", new Term[] { univ, maplist }, null)));
+	}
+
 	@Override
 	public int hashCode() {
 		return Objects.hash(this.owner, this.name);
@@ -31,4 +31,12 @@ public interface PrologQuery extends PrologExpression, Query {
 	PrologCompound getCompound();
 
 	Map<String, org.jpl7.Term>[] allSolutions();
+
+	boolean hasSolution();
+
+	boolean hasMoreSolutions();
+
+	Map<String, org.jpl7.Term> nextSolution();
+
+	void close();
 }
\ No newline at end of file
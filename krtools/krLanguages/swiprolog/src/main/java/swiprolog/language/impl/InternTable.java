@@ -0,0 +1,79 @@
+/**
+ * Knowledge Representation Tools. Copyright (C) 2014 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package swiprolog.language.impl;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.function.Function;
+
+/**
+ * A table of canonical instances that are only weakly referenced, so an
+ * instance is removed once it is no longer used. The table is split into
+ * stripes that are locked separately (by the hash of the key), so that agents
+ * creating terms at the same time hardly ever wait for each other.
+ *
+ * @param <K>
+ *            The type of the keys.
+ * @param <V>
+ *            The type of the instances.
+ */
+class InternTable<K, V> {
+	private static final int STRIPES = 64;
+
+	private final Map<K, WeakReference<V>>[] stripes;
+	/**
+	 * Returns the key of an instance, which should be (strongly) referenced by
+	 * the instance so that the entry is kept as long as the instance is used.
+	 */
+	private final Function<V, K> keyOf;
+
+	/**
+	 * @param keyOf
+	 *            A function returning the key of an instance.
+	 */
+	@SuppressWarnings("unchecked")
+	InternTable(final Function<V, K> keyOf) {
+		this.stripes = new Map[STRIPES];
+		for (int i = 0; i < STRIPES; ++i) {
+			this.stripes[i] = new WeakHashMap<>();
+		}
+		this.keyOf = keyOf;
+	}
+
+	/**
+	 * @param key
+	 *            A key.
+	 * @param create
+	 *            Creates the instance for the key if there is none (in use).
+	 * @return The canonical instance for the key.
+	 */
+	V intern(final K key, final Function<K, V> create) {
+		final int hash = key.hashCode();
+		final Map<K, WeakReference<V>> stripe = this.stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+		synchronized (stripe) {
+			final WeakReference<V> reference = stripe.get(key);
+			V value = (reference == null) ? null : reference.get();
+			if (value == null) {
+				value = create.apply(key);
+				stripe.put(this.keyOf.apply(value), new WeakReference<>(value));
+			}
+			return value;
+		}
+	}
+}
@@ -18,6 +18,7 @@
 package swiprolog.language.impl;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -46,9 +47,14 @@ class PrologCompoundImpl extends org.jpl7.Compound implements PrologCompound {
 	 */
 	private final SourceInfo info;
 	/**
-	 * The free variables in the compound (cached for performance).
+	 * True iff the compound does not contain any variables.
 	 */
-	private final Set<Var> freeVar = new LinkedHashSet<>();
+	private final boolean ground;
+	/**
+	 * The free variables in the compound (computed on demand and cached for
+	 * performance).
+	 */
+	private volatile Set<Var> freeVar;
 	/**
 	 * Cache the compound's hash for performance.
 	 */
@@ -64,11 +70,13 @@ class PrologCompoundImpl extends org.jpl7.Compound implements PrologCompound {
 	PrologCompoundImpl(final String name, final Term[] args, final SourceInfo info) {
 		super(name, args.length);
 		this.args = args;
+		boolean ground = true;
 		for (int i = 0; i < args.length; ++i) {
 			final Term arg = args[i];
 			setArg(i + 1, (org.jpl7.Term) arg);
-			this.freeVar.addAll(arg.getFreeVar());
+			ground &= arg.isClosed();
 		}
+		this.ground = ground;
 		this.info = info;
 		this.hashcode = name.hashCode() + Arrays.hashCode(args);
 	}
@@ -95,7 +103,7 @@ class PrologCompoundImpl extends org.jpl7.Compound implements PrologCompound {
 
 	@Override
 	public boolean isClosed() {
-		return getFreeVar().isEmpty();
+		return this.ground;
 	}
 
 	@Override
@@ -146,17 +154,44 @@ class PrologCompoundImpl extends org.jpl7.Compound implements PrologCompound {
 
 	@Override
 	public Set<Var> getFreeVar() {
-		return this.freeVar;
+		Set<Var> freeVar = this.freeVar;
+		if (freeVar == null) {
+			if (this.ground) {
+				freeVar = Collections.emptySet();
+			} else {
+				freeVar = new LinkedHashSet<>();
+				for (final Term arg : this.args) {
+					freeVar.addAll(arg.getFreeVar());
+				}
+			}
+			this.freeVar = freeVar;
+		}
+		return freeVar;
 	}
 
+	/**
+	 * Returns the compound itself if it is ground or none of its arguments is
+	 * changed by the substitution.
+	 */
 	@Override
 	public PrologCompound applySubst(final Substitution s) {
-		final Term[] instantiatedArgs = new Term[getArity()];
+		if (this.ground || s == null) {
+			return this;
+		}
+		Term[] instantiatedArgs = null;
 		// Recursively apply the substitution to all sub-terms.
 		for (int i = 0; i < getArity(); ++i) {
-			instantiatedArgs[i] = getArg(i).applySubst(s);
+			final Term arg = getArg(i);
+			final Term instantiated = arg.applySubst(s);
+			if (instantiatedArgs == null && instantiated != arg) {
+				instantiatedArgs = Arrays.copyOf(this.args, getArity());
+			}
+			if (instantiatedArgs != null) {
+				instantiatedArgs[i] = instantiated;
+			}
 		}
-		return PrologImplFactory.getCompound(getName(), instantiatedArgs, this.info);
+		return (instantiatedArgs == null) ? this
+				: PrologImplFactory.getCompound(getName(), instantiatedArgs, this.info);
 	}
 
 	@Override
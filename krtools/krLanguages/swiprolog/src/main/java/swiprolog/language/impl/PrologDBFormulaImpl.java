@@ -68,7 +68,8 @@ class PrologDBFormulaImpl implements PrologDBFormula {
 
 	@Override
 	public PrologDBFormula applySubst(Substitution substitution) {
-		return PrologImplFactory.getDBFormula((PrologCompound) this.compound.applySubst(substitution));
+		final PrologCompound instantiated = (PrologCompound) this.compound.applySubst(substitution);
+		return (instantiated == this.compound) ? this : PrologImplFactory.getDBFormula(instantiated);
 	}
 
 	/**
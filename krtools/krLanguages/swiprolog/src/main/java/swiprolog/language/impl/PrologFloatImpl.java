@@ -17,7 +17,7 @@
 
 package swiprolog.language.impl;
 
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Set;
 
 import krTools.language.Substitution;
@@ -68,7 +68,7 @@ class PrologFloatImpl extends org.jpl7.Float implements PrologTerm {
 
 	@Override
 	public Set<Var> getFreeVar() {
-		return new HashSet<>(0);
+		return Collections.emptySet();
 	}
 
 	@Override
@@ -1,5 +1,7 @@
 package swiprolog.language.impl;
 
+import java.util.Arrays;
+
 import krTools.language.Term;
 import krTools.parser.SourceInfo;
 import swiprolog.language.PrologCompound;
@@ -12,20 +14,80 @@ import swiprolog.language.PrologVar;
 public class PrologImplFactory {
 	private final static String DYNAMIC = "dynamic";
 	private final static String THREADLOCAL = "thread_local";
+	/**
+	 * Whether dynamic declarations are turned into thread-local declarations,
+	 * i.e. whether each agent runs on its own SWI Prolog engine (thread).
+	 */
+	private static volatile boolean threadLocal = true;
+	/**
+	 * The maximum arity of an interned compound.
+	 */
+	private final static int MAX_INTERNED_ARITY = 4;
+	/**
+	 * The canonical instances of atoms without source info, by name.
+	 */
+	private final static InternTable<String, PrologAtomImpl> atoms = new InternTable<>(PrologAtomImpl::getName);
+	/**
+	 * The canonical instances of small ground compounds without source info (see
+	 * {@link #isInterned(Term[])}), looked up by a {@link CompoundKey}.
+	 */
+	private final static InternTable<Object, PrologCompoundImpl> compounds = new InternTable<>(
+			compound -> compound);
 
 	private PrologImplFactory() {
 
 	}
 
+	/**
+	 * @param local
+	 *            Whether dynamic declarations should be turned into thread-local
+	 *            declarations (the default). Should be disabled when agents share
+	 *            engines; see {@link swiprolog.SwiPrologInterface#setSharedEngines(boolean)}.
+	 */
+	public static void setThreadLocal(final boolean local) {
+		threadLocal = local;
+	}
+
+	/**
+	 * Returns an atom. An atom without source info is shared, i.e. the same
+	 * instance is returned for each request with the same name (as long as that
+	 * instance is in use).
+	 */
 	public static PrologCompound getAtom(final String name, final SourceInfo info) {
-		return new PrologAtomImpl(name, info);
+		if (info != null) {
+			return new PrologAtomImpl(name, info);
+		}
+		return atoms.intern(name, key -> new PrologAtomImpl(key, null));
 	}
 
-	public static PrologCompound getCompound(String name, final Term[] args, final SourceInfo info) {
-		if (args.length == 1 && name.equals(DYNAMIC)) {
-			name = THREADLOCAL;
+	/**
+	 * Returns a compound. A small ground compound without source info is shared,
+	 * i.e. an equal compound that is still in use is returned if there is one;
+	 * a new compound is only created if there is none.
+	 */
+	public static PrologCompound getCompound(final String name, final Term[] args, final SourceInfo info) {
+		final String functor = (threadLocal && args.length == 1 && name.equals(DYNAMIC)) ? THREADLOCAL : name;
+		if (info != null || !isInterned(args)) {
+			return new PrologCompoundImpl(functor, args, info);
+		}
+		return compounds.intern(new CompoundKey(functor, args), key -> new PrologCompoundImpl(functor, args, null));
+	}
+
+	/**
+	 * @return True if the arguments are a few atomic ground terms. Larger terms
+	 *         are seldom created twice, so sharing them does not pay off the cost
+	 *         of looking them up.
+	 */
+	private static boolean isInterned(final Term[] args) {
+		if (args.length > MAX_INTERNED_ARITY) {
+			return false;
+		}
+		for (final Term arg : args) {
+			if (arg instanceof PrologCompoundImpl || !arg.isClosed()) {
+				return false;
+			}
 		}
-		return new PrologCompoundImpl(name, args, info);
+		return true;
 	}
 
 	public static PrologDBFormula getDBFormula(final PrologCompound compound) {
@@ -55,4 +117,43 @@ public class PrologImplFactory {
 	public static PrologVar getVar(final String name, final SourceInfo info) {
 		return new PrologVarImpl(name, info);
 	}
+
+	/**
+	 * Looks up an interned compound by its name and arguments, without creating
+	 * it; equal to a {@link PrologCompoundImpl} with the same name and arguments
+	 * (and with the same hash code).
+	 */
+	private static final class CompoundKey {
+		private final String name;
+		private final Term[] args;
+		private final int hash;
+
+		CompoundKey(final String name, final Term[] args) {
+			this.name = name;
+			this.args = args;
+			this.hash = name.hashCode() + Arrays.hashCode(args);
+		}
+
+		@Override
+		public int hashCode() {
+			return this.hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (!(obj instanceof PrologCompoundImpl)) {
+				return false;
+			}
+			final PrologCompoundImpl compound = (PrologCompoundImpl) obj;
+			if (compound.getArity() != this.args.length || !compound.getName().equals(this.name)) {
+				return false;
+			}
+			for (int i = 0; i < this.args.length; ++i) {
+				if (!this.args[i].equals(compound.getArg(i))) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
 }
@@ -70,7 +70,8 @@ class PrologQueryImpl extends org.jpl7.Query implements PrologQuery {
 
 	@Override
 	public PrologQuery applySubst(final Substitution substitution) {
-		return new PrologQueryImpl((PrologCompound) this.compound.applySubst(substitution));
+		final PrologCompound instantiated = (PrologCompound) this.compound.applySubst(substitution);
+		return (instantiated == this.compound) ? this : new PrologQueryImpl(instantiated);
 	}
 
 	/**
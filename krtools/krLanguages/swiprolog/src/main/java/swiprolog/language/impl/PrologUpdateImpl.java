@@ -101,7 +101,8 @@ class PrologUpdateImpl implements PrologUpdate {
 
 	@Override
 	public PrologUpdate applySubst(final Substitution s) {
-		return PrologImplFactory.getUpdate((PrologCompound) this.compound.applySubst(s));
+		final PrologCompound instantiated = (PrologCompound) this.compound.applySubst(s);
+		return (instantiated == this.compound) ? this : PrologImplFactory.getUpdate(instantiated);
 	}
 
 	@Override
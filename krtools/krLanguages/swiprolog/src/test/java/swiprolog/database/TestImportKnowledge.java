@@ -0,0 +1,86 @@
+package swiprolog.database;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import krTools.language.DatabaseFormula;
+import krTools.language.Term;
+import swiprolog.SwiPrologInterface;
+import swiprolog.language.PrologCompound;
+import swiprolog.language.PrologQuery;
+import swiprolog.language.impl.PrologImplFactory;
+
+public class TestImportKnowledge {
+	// components enabling us to run the tests...
+	private SwiPrologInterface language;
+	private String agentName;
+	private PrologDatabase knowledgebase;
+	private PrologDatabase beliefbase1;
+	private PrologDatabase beliefbase2;
+	// beliefs
+	private PrologCompound aap;
+	private PrologCompound dier;
+
+	@Before
+	public void setUp() throws Exception {
+		this.language = new SwiPrologInterface();
+		this.agentName = TestImportKnowledge.class.getSimpleName();
+		this.aap = PrologImplFactory.getAtom("aap", null);
+		this.dier = PrologImplFactory.getAtom("dier", null);
+
+		// :- dynamic aap/0. dier :- aap.
+		final List<DatabaseFormula> knowledge = new ArrayList<>(2);
+		final PrologCompound indicator = PrologImplFactory.getCompound("/",
+				new Term[] { this.aap, PrologImplFactory.getNumber(0, null) }, null);
+		final PrologCompound declaration = PrologImplFactory.getCompound("dynamic", new Term[] { indicator }, null);
+		knowledge.add(PrologImplFactory
+				.getDBFormula(PrologImplFactory.getCompound(":-", new Term[] { declaration }, null)));
+		knowledge.add(PrologImplFactory
+				.getDBFormula(PrologImplFactory.getCompound(":-", new Term[] { this.dier, this.aap }, null)));
+
+		this.knowledgebase = (PrologDatabase) this.language.getDatabase(this.agentName, "knowledge", knowledge);
+		this.beliefbase1 = (PrologDatabase) this.language.getDatabase(this.agentName, "beliefs1");
+		this.beliefbase2 = (PrologDatabase) this.language.getDatabase(this.agentName, "beliefs2");
+		this.beliefbase1.importKnowledge(this.knowledgebase);
+		this.beliefbase2.importKnowledge(this.knowledgebase);
+	}
+
+	@After
+	public void tearDown() throws Exception {
+		this.beliefbase1.destroy();
+		this.beliefbase2.destroy();
+		this.knowledgebase.destroy();
+	}
+
+	/**
+	 * Check that a knowledge rule is resolved using the beliefs of the database
+	 * that imports the knowledge (and not those of another database importing
+	 * the same knowledge).
+	 */
+	@Test
+	public void testRuleUsesLocalBeliefs() throws Exception {
+		final PrologQuery query = PrologImplFactory.getQuery(this.dier);
+		assertEquals(0, this.beliefbase1.query(query).size());
+		assertEquals(0, this.beliefbase2.query(query).size());
+
+		this.beliefbase1.insert(PrologImplFactory.getDBFormula(this.aap));
+		assertEquals(1, this.beliefbase1.query(query).size());
+		assertEquals(0, this.beliefbase2.query(query).size());
+	}
+
+	/**
+	 * Check that the knowledge itself does not show up as content of the
+	 * importing database.
+	 */
+	@Test
+	public void testKnowledgeNotInTheory() throws Exception {
+		assertEquals(0, this.beliefbase1.getTheory().getFormulas().size());
+		assertEquals(2, this.knowledgebase.getTheory().getFormulas().size());
+	}
+}
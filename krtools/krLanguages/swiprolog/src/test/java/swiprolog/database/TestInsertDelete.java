@@ -1,8 +1,11 @@
 package swiprolog.database;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import org.junit.After;
@@ -11,8 +14,10 @@ import org.junit.Test;
 
 import krTools.KRInterface;
 import krTools.database.Database;
+import krTools.database.Solutions;
 import krTools.exceptions.KRDatabaseException;
 import krTools.exceptions.KRQueryFailedException;
+import krTools.language.DatabaseFormula;
 import krTools.language.Substitution;
 import krTools.language.Term;
 import swiprolog.SwiPrologInterface;
@@ -118,4 +123,44 @@ public class TestInsertDelete {
 		this.beliefbase.destroy();
 		assertEquals(0, this.beliefbase.query(query).size());
 	}
+
+	@Test
+	public void testExistsAndSolutions() throws KRDatabaseException, KRQueryFailedException {
+		final PrologQuery query = PrologImplFactory.getQuery(this.p1);
+		assertFalse(this.beliefbase.exists(query));
+
+		this.beliefbase.insert(PrologImplFactory.getDBFormula(this.p1));
+		assertTrue(this.beliefbase.exists(query));
+
+		int count = 0;
+		try (Solutions solutions = this.beliefbase.solutions(query)) {
+			while (solutions.hasNext()) {
+				solutions.next();
+				count++;
+			}
+		}
+		assertEquals(1, count);
+	}
+
+	/**
+	 * Inserting and deleting many formulas at once should work without any
+	 * limit on the number of (pending) operations.
+	 */
+	@Test
+	public void testInsertDeleteAll() throws KRDatabaseException, KRQueryFailedException {
+		final List<DatabaseFormula> formulas = new ArrayList<>(10000);
+		for (int i = 0; i < 10000; ++i) {
+			formulas.add(PrologImplFactory.getDBFormula(PrologImplFactory.getCompound("q",
+					new Term[] { PrologImplFactory.getNumber(i, null) }, null)));
+		}
+		final PrologQuery query = PrologImplFactory.getQuery(
+				PrologImplFactory.getCompound("q", new Term[] { PrologImplFactory.getVar("X", null) }, null));
+
+		assertEquals(10000, this.beliefbase.insertAll(formulas).size());
+		assertEquals(0, this.beliefbase.insertAll(formulas).size());
+		assertEquals(10000, this.beliefbase.query(query).size());
+
+		assertEquals(10000, this.beliefbase.deleteAll(formulas).size());
+		assertEquals(0, this.beliefbase.query(query).size());
+	}
 }
@@ -18,11 +18,15 @@
 package swiprolog.language;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.util.Set;
 
 import org.junit.Test;
 
+import krTools.language.Substitution;
 import krTools.language.Term;
 import krTools.language.Var;
 import swiprolog.language.impl.PrologImplFactory;
@@ -67,4 +71,58 @@ public class Terms {
 		assertEquals(1, vars.size());
 		assertEquals(X, vars.iterator().next());
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Check that atoms and small ground compounds without source info are
+	 * shared, while nested compounds are not.
+	 */
+	@Test
+	public void testInterning() {
+		Term p1 = PrologImplFactory.getAtom("p", null);
+		Term p2 = PrologImplFactory.getAtom("p", null);
+		assertSame(p1, p2);
+		Term q1 = PrologImplFactory.getCompound("q", new Term[] { p1, PrologImplFactory.getNumber(1, null) }, null);
+		Term q2 = PrologImplFactory.getCompound("q", new Term[] { p2, PrologImplFactory.getNumber(1, null) }, null);
+		assertSame(q1, q2);
+		assertTrue(q1.getFreeVar().isEmpty());
+		Term r1 = PrologImplFactory.getCompound("r", new Term[] { q1 }, null);
+		Term r2 = PrologImplFactory.getCompound("r", new Term[] { q2 }, null);
+		assertNotSame(r1, r2);
+		assertEquals(r1, r2);
+	}
+
+	/**
+	 * Check that an interned compound is found without creating a new one: the
+	 * second call returns the compound of the first, with its arguments.
+	 */
+	@Test
+	public void testInterningReusesCompound() {
+		Term one = PrologImplFactory.getNumber(1, null);
+		Term other = PrologImplFactory.getNumber(1, null);
+		Term s1 = PrologImplFactory.getCompound("s", new Term[] { one }, null);
+		Term s2 = PrologImplFactory.getCompound("s", new Term[] { other }, null);
+		assertSame(s1, s2);
+		assertSame(one, ((PrologCompound) s2).getArg(0));
+		Term s3 = PrologImplFactory.getCompound("s", new Term[] { PrologImplFactory.getNumber(2, null) }, null);
+		assertNotSame(s1, s3);
+	}
+
+	/**
+	 * Check that applying a substitution returns the same term if it does not
+	 * change it.
+	 */
+	@Test
+	public void testApplySubstUnchanged() {
+		Var X = PrologImplFactory.getVar("X", null);
+		Var Y = PrologImplFactory.getVar("Y", null);
+		Term p = PrologImplFactory.getAtom("p", null);
+		Term ground = PrologImplFactory.getCompound("q", new Term[] { p }, null);
+		Term term = PrologImplFactory.getCompound("q", new Term[] { p, X }, null);
+		Substitution subst = new PrologSubstitution();
+		subst.addBinding(Y, p);
+		assertSame(ground, ground.applySubst(subst));
+		assertSame(term, term.applySubst(subst));
+		subst.addBinding(X, p);
+		assertEquals(PrologImplFactory.getCompound("q", new Term[] { p, p }, null), term.applySubst(subst));
+	}
+}
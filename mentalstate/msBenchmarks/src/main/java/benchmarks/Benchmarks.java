@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import eis.iilang.Numeral;
+import eis.iilang.Percept;
+import krTools.language.Term;
+import languageTools.analyzer.FileRegistry;
+import languageTools.program.agent.AgentId;
+import languageTools.program.mas.AgentDefinition;
+import mentalState.MentalState;
+import swiPrologMentalState.SwiPrologMentalState;
+import swiprolog.SwiPrologInterface;
+import swiprolog.language.PrologCompound;
+import swiprolog.language.impl.PrologImplFactory;
+
+/**
+ * Helper functions for setting up the benchmarks.
+ */
+final class Benchmarks {
+	private Benchmarks() {
+	}
+
+	/**
+	 * @param name
+	 *            The name of the agent.
+	 * @return A new mental state for an agent without knowledge.
+	 * @throws Exception
+	 */
+	static MentalState createMentalState(final String name) throws Exception {
+		final AgentId id = new AgentId(name);
+		final AgentDefinition agent = new AgentDefinition(name, new FileRegistry(), null);
+		agent.setKRInterface(new SwiPrologInterface());
+		return new SwiPrologMentalState(agent, id);
+	}
+
+	/**
+	 * @return <tt>name(n)</tt>
+	 */
+	static PrologCompound getFact(final String name, final int n) {
+		return PrologImplFactory.getCompound(name, new Term[] { PrologImplFactory.getNumber(n, null) }, null);
+	}
+
+	/**
+	 * @return <tt>name(X)</tt>
+	 */
+	static PrologCompound getPattern(final String name) {
+		return PrologImplFactory.getCompound(name, new Term[] { PrologImplFactory.getVar("X", null) }, null);
+	}
+
+	/**
+	 * @return The percepts <tt>name(first)</tt> up to <tt>name(first+count-1)</tt>.
+	 */
+	static List<Percept> getPercepts(final String name, final int first, final int count) {
+		final List<Percept> percepts = new ArrayList<>(count);
+		for (int i = first; i < first + count; ++i) {
+			percepts.add(new Percept(name, new Numeral(i)));
+		}
+		return percepts;
+	}
+}
@@ -0,0 +1,142 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import krTools.KRInterface;
+import krTools.database.Database;
+import krTools.language.DatabaseFormula;
+import krTools.language.Query;
+import krTools.language.Substitution;
+import krTools.language.Term;
+import swiprolog.SwiPrologInterface;
+import swiprolog.database.PrologDatabase;
+import swiprolog.language.impl.PrologImplFactory;
+
+/**
+ * Throughput of inserting, deleting and querying facts in a
+ * {@link PrologDatabase}. Each operation handles {@link #size} facts
+ * <tt>p(0)</tt> up to <tt>p(size-1)</tt>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DatabaseBenchmark {
+	@Param({ "100", "1000", "10000" })
+	public int size;
+
+	private KRInterface language;
+	private Database knowledge;
+	private PrologDatabase beliefs;
+	private List<DatabaseFormula> facts;
+	private Query queryAll;
+	private Query queryLast;
+	/**
+	 * A query without solutions; performing it flushes all pending changes.
+	 */
+	private Query flush;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.language = new SwiPrologInterface();
+		final String name = DatabaseBenchmark.class.getSimpleName();
+		this.knowledge = this.language.getDatabase(name, "knowledge", new ArrayList<DatabaseFormula>(0));
+		this.beliefs = (PrologDatabase) this.language.getDatabase(name, "beliefs");
+		this.beliefs.query(PrologImplFactory.getQuery(PrologImplFactory.getCompound("dynamic",
+				new Term[] { PrologImplFactory.getCompound("/",
+						new Term[] { PrologImplFactory.getAtom("p", null), PrologImplFactory.getNumber(1, null) },
+						null) },
+				null)));
+		this.facts = new ArrayList<>(this.size);
+		for (int i = 0; i < this.size; ++i) {
+			this.facts.add(PrologImplFactory.getDBFormula(Benchmarks.getFact("p", i)));
+		}
+		this.queryAll = PrologImplFactory.getQuery(Benchmarks.getPattern("p"));
+		this.queryLast = PrologImplFactory.getQuery(Benchmarks.getFact("p", this.size - 1));
+		this.flush = PrologImplFactory.getQuery(PrologImplFactory.getAtom("false", null));
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.beliefs.destroy();
+		this.knowledge.destroy();
+	}
+
+	/**
+	 * Inserts and then deletes all facts one by one.
+	 */
+	@Benchmark
+	public void insertDelete() throws Exception {
+		for (final DatabaseFormula fact : this.facts) {
+			this.beliefs.insert(fact);
+		}
+		this.beliefs.query(this.flush);
+		for (final DatabaseFormula fact : this.facts) {
+			this.beliefs.delete(fact);
+		}
+		this.beliefs.query(this.flush);
+	}
+
+	/**
+	 * Inserts and then deletes all facts using the bulk operations.
+	 */
+	@Benchmark
+	public void insertDeleteAll() throws Exception {
+		this.beliefs.insertAll(this.facts);
+		this.beliefs.query(this.flush);
+		this.beliefs.deleteAll(this.facts);
+		this.beliefs.query(this.flush);
+	}
+
+	/**
+	 * Computes all solutions of <tt>p(X)</tt> with all facts present.
+	 */
+	@Benchmark
+	public Set<Substitution> queryAll(final Filled filled) throws Exception {
+		return this.beliefs.query(this.queryAll);
+	}
+
+	/**
+	 * Checks whether <tt>p(size-1)</tt> holds with all facts present.
+	 */
+	@Benchmark
+	public boolean existsLast(final Filled filled) throws Exception {
+		return this.beliefs.exists(this.queryLast);
+	}
+
+	/**
+	 * Makes sure all facts are in the database (for the query benchmarks).
+	 */
+	@State(Scope.Thread)
+	public static class Filled {
+		@Setup
+		public void setUp(final DatabaseBenchmark benchmark) throws Exception {
+			benchmark.beliefs.insertAll(benchmark.facts);
+			benchmark.beliefs.query(benchmark.flush);
+		}
+
+		@TearDown
+		public void tearDown(final DatabaseBenchmark benchmark) throws Exception {
+			benchmark.beliefs.deleteAll(benchmark.facts);
+			benchmark.beliefs.query(benchmark.flush);
+		}
+	}
+}
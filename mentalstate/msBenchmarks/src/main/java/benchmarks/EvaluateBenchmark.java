@@ -0,0 +1,94 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import events.NoEventGenerator;
+import languageTools.program.agent.msc.BelLiteral;
+import languageTools.program.agent.msc.MentalFormula;
+import languageTools.program.agent.msc.MentalStateCondition;
+import languageTools.program.agent.selector.Selector;
+import languageTools.program.agent.selector.Selector.SelectorType;
+import mentalState.MSCResult;
+import mentalState.MentalState;
+import swiprolog.language.PrologCompound;
+import swiprolog.language.PrologSubstitution;
+import swiprolog.language.impl.PrologImplFactory;
+
+/**
+ * Evaluation of the condition <tt>bel(p(X), q(X), not(r(X)))</tt> by
+ * {@link MentalState#evaluate}, on a belief base with {@link #size} facts for
+ * each of <tt>p</tt> and <tt>q</tt> and (size/2) facts for <tt>r</tt>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluateBenchmark {
+	@Param({ "10", "100", "1000" })
+	public int size;
+	/**
+	 * See {@link MentalState#setConjunctiveEvaluation(boolean)}.
+	 */
+	@Param({ "false", "true" })
+	public boolean conjunctive;
+	/**
+	 * See {@link MentalState#setQueryCacheSize(int)}.
+	 */
+	@Param({ "0", "256" })
+	public int queryCacheSize;
+
+	private MentalState mentalState;
+	private MentalStateCondition condition;
+	private final NoEventGenerator generator = new NoEventGenerator();
+
+	@Setup
+	public void setUp() throws Exception {
+		this.mentalState = Benchmarks.createMentalState(EvaluateBenchmark.class.getSimpleName());
+		this.mentalState.setConjunctiveEvaluation(this.conjunctive);
+		this.mentalState.setQueryCacheSize(this.queryCacheSize);
+		for (int i = 0; i < this.size; ++i) {
+			this.mentalState.insert(PrologImplFactory.getUpdate(Benchmarks.getFact("p", i)));
+			this.mentalState.insert(PrologImplFactory.getUpdate(Benchmarks.getFact("q", i)));
+			if (i % 2 == 0) {
+				this.mentalState.insert(PrologImplFactory.getUpdate(Benchmarks.getFact("r", i)));
+			}
+		}
+		final List<MentalFormula> literals = new ArrayList<>(3);
+		literals.add(getLiteral(true, Benchmarks.getPattern("p")));
+		literals.add(getLiteral(true, Benchmarks.getPattern("q")));
+		literals.add(getLiteral(false, Benchmarks.getPattern("r")));
+		this.condition = new MentalStateCondition(literals, null);
+	}
+
+	private static BelLiteral getLiteral(final boolean polarity, final PrologCompound formula) {
+		return new BelLiteral(polarity, new Selector(SelectorType.SELF, null), PrologImplFactory.getQuery(formula),
+				null, null);
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.mentalState.cleanUp();
+	}
+
+	@Benchmark
+	public MSCResult evaluate() throws Exception {
+		return this.mentalState.evaluate(this.condition, new PrologSubstitution(), this.generator);
+	}
+}
@@ -0,0 +1,113 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import krTools.language.Update;
+import mentalState.MentalState;
+import mentalState.Result;
+import swiprolog.language.impl.PrologImplFactory;
+
+/**
+ * Adopting, dropping and (re)checking {@link #goals} goals <tt>g(0)</tt> up to
+ * <tt>g(goals-1)</tt>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GoalBenchmark {
+	@Param({ "10", "100", "1000" })
+	public int goals;
+
+	private MentalState mentalState;
+	private List<Update> updates;
+	private int next;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.mentalState = Benchmarks.createMentalState(GoalBenchmark.class.getSimpleName());
+		this.updates = new ArrayList<>(this.goals);
+		for (int i = 0; i < this.goals; ++i) {
+			this.updates.add(PrologImplFactory.getUpdate(Benchmarks.getFact("g", i)));
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.mentalState.cleanUp();
+	}
+
+	/**
+	 * Adopts all goals and then drops them one by one.
+	 */
+	@Benchmark
+	public void adoptDrop() throws Exception {
+		for (final Update goal : this.updates) {
+			this.mentalState.adopt(goal, false);
+		}
+		for (final Update goal : this.updates) {
+			this.mentalState.drop(goal);
+		}
+	}
+
+	/**
+	 * Achieves one of the adopted goals by inserting it as a belief, updates the
+	 * goal state, and restores the situation afterwards.
+	 */
+	@Benchmark
+	public List<Result> updateGoalState(final Adopted adopted) throws Exception {
+		final Update goal = this.updates.get(this.next);
+		this.next = (this.next + 1) % this.goals;
+		this.mentalState.insert(goal);
+		final List<Result> result = this.mentalState.updateGoalState();
+		this.mentalState.delete(goal);
+		this.mentalState.adopt(goal, false);
+		return result;
+	}
+
+	/**
+	 * Updates the goal state without any change in the beliefs.
+	 */
+	@Benchmark
+	public List<Result> updateGoalStateUnchanged(final Adopted adopted) throws Exception {
+		return this.mentalState.updateGoalState();
+	}
+
+	/**
+	 * Makes sure all goals are adopted (for the goal state benchmarks).
+	 */
+	@State(Scope.Thread)
+	public static class Adopted {
+		@Setup
+		public void setUp(final GoalBenchmark benchmark) throws Exception {
+			for (final Update goal : benchmark.updates) {
+				benchmark.mentalState.adopt(goal, false);
+			}
+			benchmark.mentalState.updateGoalState();
+		}
+
+		@TearDown
+		public void tearDown(final GoalBenchmark benchmark) throws Exception {
+			for (final Update goal : benchmark.updates) {
+				benchmark.mentalState.drop(goal);
+			}
+		}
+	}
+}
@@ -0,0 +1,100 @@
+package benchmarks;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import eis.iilang.Percept;
+import mentalState.MentalState;
+import mentalState.Result;
+
+/**
+ * Ingestion of percepts when an environment provides snapshots of
+ * {@link #size} percepts, of which {@link #changed} percent differs between two
+ * consecutive snapshots.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PerceptBenchmark {
+	@Param({ "100", "1000", "10000" })
+	public int size;
+	@Param({ "10", "100" })
+	public int changed;
+
+	private MentalState mentalState;
+	/**
+	 * The two snapshots that are alternated.
+	 */
+	private List<Percept> first;
+	private List<Percept> second;
+	/**
+	 * The percepts that are only in the first or only in the second snapshot.
+	 */
+	private List<Percept> onlyFirst;
+	private List<Percept> onlySecond;
+	private boolean atFirst;
+
+	@Setup
+	public void setUp() throws Exception {
+		this.mentalState = Benchmarks.createMentalState(PerceptBenchmark.class.getSimpleName());
+		final int offset = (this.size * this.changed) / 100;
+		this.first = Benchmarks.getPercepts("p", 0, this.size);
+		this.second = Benchmarks.getPercepts("p", offset, this.size);
+		this.onlyFirst = Benchmarks.getPercepts("p", 0, offset);
+		this.onlySecond = Benchmarks.getPercepts("p", this.size, offset);
+		this.mentalState.setPercepts(this.first);
+		this.atFirst = true;
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		this.mentalState.cleanUp();
+	}
+
+	/**
+	 * Replaces the percepts by the other snapshot.
+	 */
+	@Benchmark
+	public List<Result> snapshot() throws Exception {
+		this.atFirst = !this.atFirst;
+		return this.mentalState.setPercepts(this.atFirst ? this.first : this.second);
+	}
+
+	/**
+	 * Moves to the other snapshot using its differences with the current one.
+	 */
+	@Benchmark
+	public List<Result> delta() throws Exception {
+		this.atFirst = !this.atFirst;
+		return this.atFirst ? this.mentalState.updatePercepts(this.onlyFirst, this.onlySecond)
+				: this.mentalState.updatePercepts(this.onlySecond, this.onlyFirst);
+	}
+
+	/**
+	 * Moves to the other snapshot by removing all current percepts and inserting
+	 * all percepts of the other snapshot (which is what an environment that does
+	 * not compute differences provides).
+	 */
+	@Benchmark
+	public List<Result> replaceAll() throws Exception {
+		this.atFirst = !this.atFirst;
+		return this.atFirst ? this.mentalState.updatePercepts(this.first, this.second)
+				: this.mentalState.updatePercepts(this.second, this.first);
+	}
+}
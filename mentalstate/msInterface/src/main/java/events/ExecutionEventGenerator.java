@@ -1,46 +1,146 @@
 package events;
 
-import java.util.LinkedList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.Set;
 
 import krTools.parser.SourceInfo;
 
 /**
  * A source of agent execution ("breakpoint") events.
+ * <p>
+ * Every listener declares the channels it is interested in when it is added
+ * (see {@link ExecutionEventListener#getChannels()}); an event is only passed
+ * to the listeners of its channel, and callers can use
+ * {@link #isEnabled(Channel)} to skip building an event nobody listens to. The
+ * listeners are kept in an array that is replaced whenever a listener is added
+ * or removed, so emitting an event never copies or locks anything.
  */
 public class ExecutionEventGenerator implements ExecutionEventGeneratorInterface {
+	private static final Listeners NONE = new Listeners(new ExecutionEventListener[0], new long[0]);
+
 	/**
 	 * Ensures the order is fixed.
 	 */
-	private List<ExecutionEventListener> listeners = new LinkedList<>();
+	private volatile Listeners listeners = NONE;
+
+	/**
+	 * An immutable snapshot of the listeners and their channels.
+	 */
+	private static final class Listeners {
+		private final ExecutionEventListener[] listeners;
+		/**
+		 * The channels of each listener, as a bit mask of channel ordinals.
+		 */
+		private final long[] masks;
+		/**
+		 * The channels that at least one listener is interested in.
+		 */
+		private final long enabled;
+
+		Listeners(ExecutionEventListener[] listeners, long[] masks) {
+			this.listeners = listeners;
+			this.masks = masks;
+			long enabled = 0;
+			for (long mask : masks) {
+				enabled |= mask;
+			}
+			this.enabled = enabled;
+		}
+	}
+
+	@Override
+	public boolean isEnabled(Channel channel) {
+		return (this.listeners.enabled & bit(channel)) != 0;
+	}
 
 	@Override
 	public void event(Channel channel, Object associateObject, SourceInfo associateSource, String message,
 			Object... args) {
-		for (ExecutionEventListener l : this.listeners.toArray(new ExecutionEventListener[this.listeners.size()])) {
-			l.goalEvent(channel, associateObject, associateSource, message, args);
+		Listeners current = this.listeners;
+		long bit = bit(channel);
+		if ((current.enabled & bit) == 0) {
+			return;
+		}
+		for (int i = 0; i < current.listeners.length; i++) {
+			if ((current.masks[i] & bit) != 0) {
+				current.listeners[i].goalEvent(channel, associateObject, associateSource, message, args);
+			}
 		}
 	}
 
 	@Override
 	public void event(Channel channel, Object associateObject, SourceInfo associateSource) {
-		for (ExecutionEventListener l : this.listeners.toArray(new ExecutionEventListener[this.listeners.size()])) {
-			l.goalEvent(channel, associateObject, associateSource);
+		Listeners current = this.listeners;
+		long bit = bit(channel);
+		if ((current.enabled & bit) == 0) {
+			return;
+		}
+		for (int i = 0; i < current.listeners.length; i++) {
+			if ((current.masks[i] & bit) != 0) {
+				current.listeners[i].goalEvent(channel, associateObject, associateSource);
+			}
 		}
 	}
 
 	@Override
-	public void addListener(ExecutionEventListener l) {
-		this.listeners.add(l);
+	public synchronized void addListener(ExecutionEventListener l) {
+		Listeners current = this.listeners;
+		int size = current.listeners.length;
+		ExecutionEventListener[] listeners = Arrays.copyOf(current.listeners, size + 1);
+		long[] masks = Arrays.copyOf(current.masks, size + 1);
+		listeners[size] = l;
+		masks[size] = mask(l.getChannels());
+		this.listeners = new Listeners(listeners, masks);
 	}
 
 	@Override
-	public void removeListener(ExecutionEventListener l) {
-		this.listeners.remove(l);
+	public synchronized void removeListener(ExecutionEventListener l) {
+		Listeners current = this.listeners;
+		ExecutionEventListener[] listeners = current.listeners;
+		for (int i = 0; i < listeners.length; i++) {
+			if (listeners[i] == l) {
+				ExecutionEventListener[] remaining = new ExecutionEventListener[listeners.length - 1];
+				long[] masks = new long[listeners.length - 1];
+				System.arraycopy(listeners, 0, remaining, 0, i);
+				System.arraycopy(listeners, i + 1, remaining, i, remaining.length - i);
+				System.arraycopy(current.masks, 0, masks, 0, i);
+				System.arraycopy(current.masks, i + 1, masks, i, masks.length - i);
+				this.listeners = new Listeners(remaining, masks);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Reads the channels of all listeners again; call this after a listener
+	 * changed the channels it is interested in.
+	 */
+	public synchronized void refreshChannels() {
+		ExecutionEventListener[] listeners = this.listeners.listeners;
+		long[] masks = new long[listeners.length];
+		for (int i = 0; i < listeners.length; i++) {
+			masks[i] = mask(listeners[i].getChannels());
+		}
+		this.listeners = new Listeners(listeners, masks);
 	}
 
 	@Override
-	public void clearListeners() {
-		this.listeners.clear();
+	public synchronized void clearListeners() {
+		this.listeners = NONE;
+	}
+
+	/**
+	 * There are less than 64 channels, so a long holds a bit for each of them.
+	 */
+	private static long bit(Channel channel) {
+		return 1L << channel.ordinal();
+	}
+
+	private static long mask(Set<Channel> channels) {
+		long mask = 0;
+		for (Channel channel : channels) {
+			mask |= bit(channel);
+		}
+		return mask;
 	}
 }
@@ -50,10 +50,22 @@ public interface ExecutionEventGeneratorInterface {
 	public void event(Channel channel, Object associateObject,
 			SourceInfo associateSource, String message, Object... args);
 
+	/**
+	 * Callers can use this to skip building the arguments of an event that no
+	 * listener is interested in.
+	 *
+	 * @param channel
+	 *            a channel.
+	 * @return true iff a listener is interested in events on the channel.
+	 */
+	public boolean isEnabled(Channel channel);
+
 	public void event(Channel channel, Object associateObject, SourceInfo associateSource);
 
 	/**
-	 * Call this to receive events. You can subscribe only once.
+	 * Call this to receive events. You can subscribe only once. The channels
+	 * of the listener (see {@link ExecutionEventListener#getChannels()}) are
+	 * read when it is added.
 	 *
 	 * @param l
 	 *            listener to add
@@ -1,5 +1,8 @@
 package events;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import krTools.parser.SourceInfo;
 import languageTools.program.mas.AgentDefinition;
 
@@ -32,4 +35,16 @@ public abstract class ExecutionEventListener {
 	public void goalEvent(Channel channel, Object associateObject, SourceInfo associateSource) {
 		goalEvent(channel, associateObject, associateSource, null);
 	}
+
+	/**
+	 * The channels this listener wants to receive events on; read when the
+	 * listener is added to an {@link ExecutionEventGenerator}. Events on other
+	 * channels are not passed to the listener, and are not even created if no
+	 * listener needs them.
+	 *
+	 * @return the channels of this listener. By default all channels.
+	 */
+	public Set<Channel> getChannels() {
+		return EnumSet.allOf(Channel.class);
+	}
 }
@@ -8,6 +8,11 @@ import krTools.parser.SourceInfo;
  * which should not be charged on the agent.
  */
 public class NoEventGenerator implements ExecutionEventGeneratorInterface {
+	@Override
+	public boolean isEnabled(Channel channel) {
+		return false;
+	}
+
 	@Override
 	public void event(Channel channel, Object associateObject, SourceInfo associateSource, String message,
 			Object... args) {
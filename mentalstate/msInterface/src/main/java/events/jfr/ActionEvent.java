@@ -0,0 +1,40 @@
+package events.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import krTools.parser.SourceInfo;
+
+/**
+ * An action performed in the environment.
+ */
+@Name("goal.EnvironmentAction")
+@Label("Environment Action")
+@Description("An action performed in the environment")
+public class ActionEvent extends GoalEvent {
+	@Label("Action")
+	String action;
+	@Label("Failed")
+	boolean failed;
+
+	/**
+	 * Ends and commits the event.
+	 *
+	 * @param agent
+	 *            the agent that performed the action.
+	 * @param source
+	 *            the source of the action.
+	 * @param action
+	 *            the action.
+	 * @param failed
+	 *            true iff the environment reported a failure.
+	 */
+	public void commit(Object agent, SourceInfo source, Object action, boolean failed) {
+		end();
+		if (set(agent, source)) {
+			this.action = String.valueOf(action);
+			this.failed = failed;
+			commit();
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package events.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A reasoning cycle of an agent, from the start of the cycle until the start
+ * of the next one (excluding any time the agent sleeps).
+ */
+@Name("goal.Cycle")
+@Label("Reasoning Cycle")
+@Description("A reasoning cycle of an agent")
+public class CycleEvent extends GoalEvent {
+	@Label("Cycle")
+	long cycle;
+	@Label("Actions")
+	@Description("The number of (non-state) actions performed in the cycle")
+	int actions;
+	@Label("Messages Sent")
+	int messages;
+	@Label("Queries")
+	@Description("The number of mental state queries made in the cycle")
+	int queries;
+
+	CycleEvent(long cycle) {
+		this.cycle = cycle;
+	}
+
+	/**
+	 * Commits the event. The event should have been ended when the cycle
+	 * ended; the number of actions, messages and queries are only known
+	 * later.
+	 *
+	 * @param agent
+	 *            the agent that ran the cycle.
+	 * @param actions
+	 *            the number of actions performed in the cycle.
+	 * @param messages
+	 *            the number of messages sent in the cycle.
+	 * @param queries
+	 *            the number of queries made in the cycle.
+	 */
+	public void commit(Object agent, int actions, int messages, int queries) {
+		if (set(agent, null)) {
+			this.actions = actions;
+			this.messages = messages;
+			this.queries = queries;
+			commit();
+		}
+	}
+}
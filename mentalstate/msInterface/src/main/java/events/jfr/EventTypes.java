@@ -0,0 +1,20 @@
+package events.jfr;
+
+import jdk.jfr.EventType;
+
+/**
+ * The types of the GOAL events, so {@link JfrEvents} can check whether an event
+ * is enabled without creating it. Only loaded if the flight recorder is
+ * available.
+ */
+final class EventTypes {
+	static final EventType CYCLE = EventType.getEventType(CycleEvent.class);
+	static final EventType RULE = EventType.getEventType(RuleEvent.class);
+	static final EventType QUERY = EventType.getEventType(QueryEvent.class);
+	static final EventType UPDATE = EventType.getEventType(UpdateEvent.class);
+	static final EventType ACTION = EventType.getEventType(ActionEvent.class);
+	static final EventType PERCEPTS = EventType.getEventType(PerceptEvent.class);
+
+	private EventTypes() {
+	}
+}
@@ -0,0 +1,38 @@
+package events.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+import krTools.parser.SourceInfo;
+
+/**
+ * Base class of the flight recorder events of GOAL. The events are disabled
+ * unless enabled by a settings profile (see {@link JfrEvents}), and have no
+ * stack traces as the Java stack says little about the GOAL program.
+ */
+@Category("GOAL")
+@Enabled(false)
+@StackTrace(false)
+abstract class GoalEvent extends Event {
+	@Label("Agent")
+	String agent;
+	@Label("Source")
+	String source;
+
+	/**
+	 * Sets the agent and source of the event, if it will be committed. The
+	 * event should have been ended.
+	 *
+	 * @return true iff the event should be committed.
+	 */
+	boolean set(Object agent, SourceInfo source) {
+		if (!shouldCommit()) {
+			return false;
+		}
+		this.agent = (agent == null) ? null : agent.toString();
+		this.source = (source == null) ? null : source.toString();
+		return true;
+	}
+}
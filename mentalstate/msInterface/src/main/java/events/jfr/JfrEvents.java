@@ -0,0 +1,130 @@
+package events.jfr;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Creates the JDK Flight Recorder events of GOAL: reasoning cycles, rule
+ * evaluations, mental state queries and updates, environment actions and
+ * percept processing. Every event carries the agent and (if any) source of
+ * what it measures, so slow cycles can be correlated with for example garbage
+ * collection or native (KR) calls in the same recording.
+ * <p>
+ * The events are disabled by default. The settings profile {@code goal.jfc}
+ * (next to this class) enables them, together with the JVM events most useful
+ * to correlate them with (garbage collection, locks, thread and native method
+ * samples); use it with {@code -XX:StartFlightRecording=settings=...} or
+ * through {@link #startRecording(Path)}.
+ * </p>
+ * <p>
+ * The methods here return null if the flight recorder is not available (i.e.
+ * on a Java 8 runtime without it) or if the event is disabled, so callers
+ * should only touch an event if it is not null; an event is not even created
+ * when it is disabled. This class does not refer to the flight recorder
+ * itself, so it can always be loaded.
+ * </p>
+ */
+public final class JfrEvents {
+	private static final boolean AVAILABLE = isAvailable();
+
+	private JfrEvents() {
+	}
+
+	private static boolean isAvailable() {
+		try {
+			Class.forName("jdk.jfr.FlightRecorder");
+			return true;
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		}
+	}
+
+	/**
+	 * @param cycle
+	 *            the number of the cycle.
+	 * @return a started {@link CycleEvent}, or null.
+	 */
+	public static CycleEvent beginCycle(long cycle) {
+		if (AVAILABLE && EventTypes.CYCLE.isEnabled()) {
+			CycleEvent event = new CycleEvent(cycle);
+			event.begin();
+			return event;
+		}
+		return null;
+	}
+
+	/**
+	 * @return a started {@link RuleEvent}, or null.
+	 */
+	public static RuleEvent beginRule() {
+		if (AVAILABLE && EventTypes.RULE.isEnabled()) {
+			RuleEvent event = new RuleEvent();
+			event.begin();
+			return event;
+		}
+		return null;
+	}
+
+	/**
+	 * @return a started {@link QueryEvent}, or null.
+	 */
+	public static QueryEvent beginQuery() {
+		if (AVAILABLE && EventTypes.QUERY.isEnabled()) {
+			QueryEvent event = new QueryEvent();
+			event.begin();
+			return event;
+		}
+		return null;
+	}
+
+	/**
+	 * @param operation
+	 *            the kind of update (insert or delete).
+	 * @return a started {@link UpdateEvent}, or null.
+	 */
+	public static UpdateEvent beginUpdate(String operation) {
+		if (AVAILABLE && EventTypes.UPDATE.isEnabled()) {
+			UpdateEvent event = new UpdateEvent(operation);
+			event.begin();
+			return event;
+		}
+		return null;
+	}
+
+	/**
+	 * @return a started {@link ActionEvent}, or null.
+	 */
+	public static ActionEvent beginAction() {
+		if (AVAILABLE && EventTypes.ACTION.isEnabled()) {
+			ActionEvent event = new ActionEvent();
+			event.begin();
+			return event;
+		}
+		return null;
+	}
+
+	/**
+	 * @return a started {@link PerceptEvent}, or null.
+	 */
+	public static PerceptEvent beginPercepts() {
+		if (AVAILABLE && EventTypes.PERCEPTS.isEnabled()) {
+			PerceptEvent event = new PerceptEvent();
+			event.begin();
+			return event;
+		}
+		return null;
+	}
+
+	/**
+	 * Starts a flight recording with the {@code goal.jfc} settings.
+	 *
+	 * @param file
+	 *            the file to write the recording to when it is stopped.
+	 * @return the recording, or null if the flight recorder is not available.
+	 * @throws IOException
+	 *             if the settings could not be read.
+	 */
+	public static Recorder startRecording(Path file) throws IOException {
+		return AVAILABLE ? new Recorder(file) : null;
+	}
+}
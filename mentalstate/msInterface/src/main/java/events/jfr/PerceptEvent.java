@@ -0,0 +1,39 @@
+package events.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * The processing of the percepts of a cycle.
+ */
+@Name("goal.Percepts")
+@Label("Percept Processing")
+@Description("The processing of the percepts received in a cycle")
+public class PerceptEvent extends GoalEvent {
+	@Label("Added")
+	@Description("The number of percepts added")
+	int added;
+	@Label("Removed")
+	@Description("The number of percepts removed")
+	int removed;
+
+	/**
+	 * Ends and commits the event.
+	 *
+	 * @param agent
+	 *            the agent that processed the percepts.
+	 * @param added
+	 *            the number of percepts added.
+	 * @param removed
+	 *            the number of percepts removed.
+	 */
+	public void commit(Object agent, int added, int removed) {
+		end();
+		if (set(agent, null)) {
+			this.added = added;
+			this.removed = removed;
+			commit();
+		}
+	}
+}
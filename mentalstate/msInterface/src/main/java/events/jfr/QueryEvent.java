@@ -0,0 +1,47 @@
+package events.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import krTools.parser.SourceInfo;
+
+/**
+ * A query on (one of the bases of) a mental model.
+ */
+@Name("goal.Query")
+@Label("Mental State Query")
+@Description("A query on a base of a mental model")
+public class QueryEvent extends GoalEvent {
+	@Label("Literal")
+	@Description("The kind of literal queried (bel, goal, percept, ...)")
+	String literal;
+	@Label("Query")
+	String query;
+	@Label("Results")
+	@Description("The number of substitutions found")
+	int results;
+
+	/**
+	 * Ends and commits the event.
+	 *
+	 * @param agent
+	 *            the agent (model) that was queried.
+	 * @param source
+	 *            the source of the query.
+	 * @param literal
+	 *            the literal that was queried.
+	 * @param query
+	 *            the query.
+	 * @param results
+	 *            the number of results.
+	 */
+	public void commit(Object agent, SourceInfo source, Object literal, Object query, int results) {
+		end();
+		if (set(agent, source)) {
+			this.literal = literal.getClass().getSimpleName();
+			this.query = String.valueOf(query);
+			this.results = results;
+			commit();
+		}
+	}
+}
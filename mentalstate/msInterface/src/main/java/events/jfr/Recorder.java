@@ -0,0 +1,54 @@
+package events.jfr;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.text.ParseException;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+
+/**
+ * A flight recording with the {@code goal.jfc} settings, see
+ * {@link JfrEvents#startRecording(Path)}.
+ */
+public class Recorder {
+	private final Recording recording;
+	private final Path file;
+
+	Recorder(Path file) throws IOException {
+		Configuration configuration;
+		try (InputStream in = Recorder.class.getResourceAsStream("goal.jfc")) {
+			if (in == null) {
+				throw new IOException("the flight recorder settings goal.jfc are missing.");
+			}
+			try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+				configuration = Configuration.create(reader);
+			}
+		} catch (ParseException e) {
+			throw new IOException("the flight recorder settings goal.jfc are invalid.", e);
+		}
+		this.recording = new Recording(configuration);
+		this.recording.setName("GOAL");
+		this.recording.start();
+		this.file = file;
+	}
+
+	/**
+	 * Stops the recording and writes it to its file.
+	 *
+	 * @throws IOException
+	 *             if writing the recording failed.
+	 */
+	public void stop() throws IOException {
+		try {
+			this.recording.stop();
+			this.recording.dump(this.file);
+		} finally {
+			this.recording.close();
+		}
+	}
+}
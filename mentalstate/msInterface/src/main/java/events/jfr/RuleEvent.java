@@ -0,0 +1,44 @@
+package events.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import krTools.parser.SourceInfo;
+
+/**
+ * The evaluation of the condition of a rule.
+ */
+@Name("goal.RuleEvaluation")
+@Label("Rule Evaluation")
+@Description("The evaluation of the condition of a rule")
+public class RuleEvent extends GoalEvent {
+	@Label("Rule")
+	String rule;
+	@Label("Holds")
+	boolean holds;
+	@Label("Substitutions")
+	@Description("The number of substitutions for which the condition holds")
+	int substitutions;
+
+	/**
+	 * Ends and commits the event.
+	 *
+	 * @param agent
+	 *            the agent that evaluated the rule.
+	 * @param source
+	 *            the source of the rule.
+	 * @param rule
+	 *            the rule.
+	 * @param substitutions
+	 *            the number of substitutions for which the condition holds.
+	 */
+	public void commit(Object agent, SourceInfo source, Object rule, int substitutions) {
+		end();
+		if (set(agent, source)) {
+			this.rule = String.valueOf(rule);
+			this.holds = (substitutions > 0);
+			this.substitutions = substitutions;
+			commit();
+		}
+	}
+}
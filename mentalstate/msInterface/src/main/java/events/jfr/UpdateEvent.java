@@ -0,0 +1,53 @@
+package events.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import krTools.parser.SourceInfo;
+
+/**
+ * An insert into or delete from the belief base.
+ */
+@Name("goal.Update")
+@Label("Mental State Update")
+@Description("An insert into or delete from the belief base")
+public class UpdateEvent extends GoalEvent {
+	@Label("Operation")
+	String operation;
+	@Label("Update")
+	String update;
+	@Label("Added")
+	@Description("The number of formulas added")
+	int added;
+	@Label("Removed")
+	@Description("The number of formulas removed")
+	int removed;
+
+	UpdateEvent(String operation) {
+		this.operation = operation;
+	}
+
+	/**
+	 * Ends and commits the event.
+	 *
+	 * @param agent
+	 *            the agent that updated its mental state.
+	 * @param source
+	 *            the source of the update.
+	 * @param update
+	 *            the update.
+	 * @param added
+	 *            the number of formulas added.
+	 * @param removed
+	 *            the number of formulas removed.
+	 */
+	public void commit(Object agent, SourceInfo source, Object update, int added, int removed) {
+		end();
+		if (set(agent, source)) {
+			this.update = String.valueOf(update);
+			this.added = added;
+			this.removed = removed;
+			commit();
+		}
+	}
+}
@@ -46,7 +46,8 @@ import mentalState.error.MSTQueryException;
  *
  * </p>
  * <p>
- * Note that each goal of the agent is implemented as a separate database.
+ * Note that it is up to the KR implementation how goals are stored, e.g. as a
+ * separate database for each goal or as tagged content of a single database.
  *
  * </p>
  * <p>
@@ -141,7 +142,10 @@ public abstract class GoalBase implements Iterable<SingleGoal> {
 	 */
 	public void setGoals(final Set<Update> content) throws MSTDatabaseException {
 		for (final Update goal : content) {
-			this.goals.add(createGoal(goal));
+			final SingleGoal single = createGoal(goal);
+			if (!this.goals.add(single)) {
+				single.cleanUp();
+			}
 		}
 	}
 
@@ -189,6 +193,53 @@ public abstract class GoalBase implements Iterable<SingleGoal> {
 		}
 	}
 
+	/**
+	 * Checks whether a query follows from one of the goals in this base (in
+	 * combination with the knowledge of the agent), without computing all
+	 * substitutions if possible.
+	 *
+	 * @param query The query.
+	 * @return true iff {@link #query(Query)} would return a non-empty set.
+	 * @throws MSTQueryException if the query fails to be executed.
+	 */
+	public boolean exists(final Query query) throws MSTQueryException {
+		for (final SingleGoal goal : this.goals) {
+			if (goal.exists(query)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return The modification version of the goal base, which changes whenever
+	 *         its content changes, or -1 if this is not supported (in which case
+	 *         query results on this base are never cached).
+	 */
+	public long getVersion() {
+		return -1;
+	}
+
+	/**
+	 * Determines the goals in this goal base from which the query follows (in
+	 * combination with the knowledge of the agent). By default, the query is
+	 * performed on each goal separately; implementors can override this if the
+	 * goals can be checked more efficiently.
+	 *
+	 * @param query The query.
+	 * @return The (possibly empty) list of goals from which the query follows.
+	 * @throws MSTQueryException if the query fails to be executed.
+	 */
+	protected List<SingleGoal> getEntailingGoals(final Query query) throws MSTQueryException {
+		final List<SingleGoal> entailing = new LinkedList<>();
+		for (final SingleGoal goal : this.goals) {
+			if (goal.exists(query)) {
+				entailing.add(goal);
+			}
+		}
+		return entailing;
+	}
+
 	// *********** insertion methods ****************/
 
 	/**
@@ -206,6 +257,8 @@ public abstract class GoalBase implements Iterable<SingleGoal> {
 		final SingleGoal goal = createGoal(update);
 		if (this.goals.add(goal)) {
 			result.added(update.toDBF());
+		} else {
+			goal.cleanUp();
 		}
 		return result;
 	}
@@ -221,13 +274,7 @@ public abstract class GoalBase implements Iterable<SingleGoal> {
 	 */
 	Result drop(final Update dropgoal) throws MSTQueryException, MSTDatabaseException {
 		// Gather the actual goals matching the update
-		final List<SingleGoal> goalsToBeDropped = new LinkedList<>();
-		for (final SingleGoal goal : this.goals) {
-			final Set<Substitution> dropCheck = goal.query(dropgoal.toQuery());
-			if (!dropCheck.isEmpty()) {
-				goalsToBeDropped.add(goal);
-			}
-		}
+		final List<SingleGoal> goalsToBeDropped = getEntailingGoals(dropgoal.toQuery());
 		// Actually remove the goals (from the collection & clean-up themselves)
 		final Result result = this.owner.createResult(BASETYPE.GOALBASE, getName());
 		for (final SingleGoal goal : goalsToBeDropped) {
@@ -281,9 +328,20 @@ public abstract class GoalBase implements Iterable<SingleGoal> {
 		for (final SingleGoal goal : this.goals.toArray(new SingleGoal[this.goals.size()])) {
 			result.merge(remove(goal));
 		}
+		destroy();
 		return result;
 	}
 
+	/**
+	 * Called when this goal base is cleaned up, after all goals have been
+	 * removed, allowing an implementor to release any resources (e.g. databases)
+	 * that are used by the goal base itself.
+	 *
+	 * @throws MSTDatabaseException
+	 */
+	protected void destroy() throws MSTDatabaseException {
+	}
+
 	// *********** helper methods ****************/
 
 	/**
@@ -17,6 +17,7 @@
 
 package mentalState;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
 
@@ -36,6 +37,12 @@ public abstract class MentalBase {
 	protected final MentalState owner;
 	protected final AgentId forAgent;
 	protected final BASETYPE type;
+	/**
+	 * The formulas that have been inserted into or deleted from this base by an
+	 * update since the last call to {@link #takeChanges()}. Only maintained for
+	 * the belief base.
+	 */
+	private List<DatabaseFormula> changes = new ArrayList<>(0);
 
 	/**
 	 * Creates the corresponding database maintained by the KR layer.
@@ -73,6 +80,28 @@ public abstract class MentalBase {
 	 */
 	abstract public Set<Substitution> query(Query formula) throws MSTQueryException;
 
+	/**
+	 * Checks whether a query has a solution on the base. By default, this performs
+	 * {@link #query(Query)}; implementors can override this if the existence of a
+	 * solution can be checked more efficiently.
+	 *
+	 * @param formula The query.
+	 * @return true iff the query succeeds.
+	 * @throws MSTQueryException if query fails.
+	 */
+	public boolean exists(final Query formula) throws MSTQueryException {
+		return !query(formula).isEmpty();
+	}
+
+	/**
+	 * @return The modification version of the base, which changes whenever its
+	 *         content changes, or -1 if this is not supported (in which case
+	 *         query results on this base are never cached).
+	 */
+	public long getVersion() {
+		return -1;
+	}
+
 	/*********** updating (insertion, deletion) methods ****************/
 
 	/**
@@ -113,6 +142,38 @@ public abstract class MentalBase {
 		return update(update.getDeleteList(), update.getAddList());
 	}
 
+	/**
+	 * Adds a list of {@link DatabaseFormula}s to the base. By default, each formula
+	 * is inserted separately; implementors can override this to insert them in
+	 * bulk.
+	 *
+	 * @param formulas The formulas to be inserted (added).
+	 * @throws MSTQueryException
+	 */
+	protected Result insertAll(final List<DatabaseFormula> formulas) throws MSTQueryException {
+		final Result result = this.owner.createResult(this.type, this.forAgent.toString());
+		for (final DatabaseFormula formula : formulas) {
+			result.merge(insert(formula));
+		}
+		return result;
+	}
+
+	/**
+	 * Removes a list of {@link DatabaseFormula}s from the base. By default, each
+	 * formula is deleted separately; implementors can override this to delete them
+	 * in bulk.
+	 *
+	 * @param formulas The formulas to be deleted (removed).
+	 * @throws MSTQueryException
+	 */
+	protected Result deleteAll(final List<DatabaseFormula> formulas) throws MSTQueryException {
+		final Result result = this.owner.createResult(this.type, this.forAgent.toString());
+		for (final DatabaseFormula formula : formulas) {
+			result.merge(delete(formula));
+		}
+		return result;
+	}
+
 	/**
 	 * Deletes the formulas in the delete list and adds the formulas in the add list
 	 * to this base. First removes and then adds, so any formulas that appear in
@@ -126,13 +187,29 @@ public abstract class MentalBase {
 			throws MSTQueryException {
 		final Result result = this.owner.createResult(this.type, this.forAgent.toString());
 		// First handle the delete list and remove formulas.
-		for (final DatabaseFormula formula : deleteList) {
-			result.merge(delete(formula));
+		if (!deleteList.isEmpty()) {
+			result.merge(deleteAll(deleteList));
 		}
 		// And then handle the add list and add formulas.
-		for (final DatabaseFormula formula : addList) {
-			result.merge(insert(formula));
+		if (!addList.isEmpty()) {
+			result.merge(insertAll(addList));
+		}
+		if (this.type == BASETYPE.BELIEFBASE) {
+			this.changes.addAll(result.getRemoved());
+			this.changes.addAll(result.getAdded());
 		}
 		return result;
 	}
+
+	/**
+	 * Returns the formulas that have actually been inserted into or deleted from
+	 * this (belief) base by an update since the last call, and resets them.
+	 *
+	 * @return The changed formulas (possibly empty).
+	 */
+	List<DatabaseFormula> takeChanges() {
+		final List<DatabaseFormula> returned = this.changes;
+		this.changes = new ArrayList<>(0);
+		return returned;
+	}
 }
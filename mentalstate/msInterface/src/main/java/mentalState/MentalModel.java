@@ -18,7 +18,10 @@
 package mentalState;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.LinkedList;
@@ -28,7 +31,10 @@ import java.util.Set;
 
 import events.Channel;
 import events.ExecutionEventGeneratorInterface;
+import events.jfr.JfrEvents;
+import events.jfr.QueryEvent;
 import krTools.KRInterface;
+import krTools.language.DatabaseFormula;
 import krTools.language.Query;
 import krTools.language.Substitution;
 import krTools.language.Term;
@@ -123,6 +129,17 @@ public abstract class MentalModel {
 	 * </p>
 	 */
 	private final Deque<GoalBase> goalBases = new LinkedList<>();
+	/**
+	 * The goals that were (still) present after the last time the goal state
+	 * was updated, i.e. that are known not to be achieved given the beliefs at
+	 * that moment. See {@link #updateGoalState()}.
+	 */
+	private final Set<SingleGoal> checkedGoals = new HashSet<>();
+	/**
+	 * The cache of query results, or null if query results are not cached. See
+	 * {@link MentalState#setQueryCacheSize(int)}.
+	 */
+	private QueryCache queryCache;
 
 	/**
 	 * @param owner
@@ -258,12 +275,15 @@ public abstract class MentalModel {
 		Query formula = literal.getFormula();
 		Set<Substitution> result = null;
 
-		generator.event(Channel.DB_QUERY_START, literal, literal.getSourceInfo(), "starting query %s", formula);
+		if (generator.isEnabled(Channel.DB_QUERY_START)) {
+			generator.event(Channel.DB_QUERY_START, literal, literal.getSourceInfo(), "starting query %s", formula);
+		}
+		QueryEvent jfr = JfrEvents.beginQuery();
 
 		if (literal instanceof BelLiteral) {
-			result = beliefQuery(formula);
+			result = cachedQuery(getBase(BASETYPE.BELIEFBASE), formula, () -> beliefQuery(formula));
 		} else if (literal instanceof PerceptLiteral) {
-			result = perceptQuery(formula);
+			result = cachedQuery(getBase(BASETYPE.PERCEPTBASE), formula, () -> perceptQuery(formula));
 		} else if (literal instanceof SentLiteral) {
 			SelectorExecutor selector = new SelectorExecutor(literal.getSelector());
 			List<AgentId> senders = selector.evaluate(this.owner, true);
@@ -281,11 +301,16 @@ public abstract class MentalModel {
 			result = goalaQuery(formula, focus);
 		}
 
-		generator.event(Channel.DB_QUERY_END, literal, literal.getSourceInfo(), "query result: %s", result);
+		if (generator.isEnabled(Channel.DB_QUERY_END)) {
+			generator.event(Channel.DB_QUERY_END, literal, literal.getSourceInfo(), "query result: %s", result);
+		}
 
 		if (result == null) {
 			throw new MSTQueryException("unknown literal '" + literal + "'.");
 		} else {
+			if (jfr != null) {
+				jfr.commit(this.owner.getAgentId(), literal.getSourceInfo(), literal, formula, result.size());
+			}
 			if (!(literal instanceof SentLiteral) && literal.getSelector().getType() == SelectorType.VARIABLE) {
 				Translator translator = getTranslator();
 				Var var = literal.getSelector().getVariable();
@@ -301,6 +326,44 @@ public abstract class MentalModel {
 		}
 	}
 
+	/**
+	 * Checks whether a literal has a solution, ignoring its polarity. Belief and
+	 * goal literals are checked without computing all of their solutions; other
+	 * literals are evaluated using
+	 * {@link #query(MentalLiteral, boolean, ExecutionEventGeneratorInterface)}.
+	 *
+	 * @param literal
+	 *            the mental atom to be checked.
+	 * @param focus
+	 *            is true if we need to use current focus, or false if we need
+	 *            to reset to global focus.
+	 * @param generator
+	 *            the channel to report executed actions to .
+	 * @return true iff the query of the literal has a solution.
+	 * @throws MSTQueryException
+	 */
+	final boolean exists(MentalLiteral literal, boolean focus, ExecutionEventGeneratorInterface generator)
+			throws MSTQueryException {
+		if (literal instanceof BelLiteral || literal instanceof GoalLiteral) {
+			Query formula = literal.getFormula();
+			if (generator.isEnabled(Channel.DB_QUERY_START)) {
+				generator.event(Channel.DB_QUERY_START, literal, literal.getSourceInfo(), "starting query %s", formula);
+			}
+			QueryEvent jfr = JfrEvents.beginQuery();
+			boolean result = (literal instanceof BelLiteral) ? cachedBeliefExists(formula)
+					: cachedExists(getAttentionSet(focus), formula, () -> getAttentionSet(focus).exists(formula));
+			if (generator.isEnabled(Channel.DB_QUERY_END)) {
+				generator.event(Channel.DB_QUERY_END, literal, literal.getSourceInfo(), "query result: %s", result);
+			}
+			if (jfr != null) {
+				jfr.commit(this.owner.getAgentId(), literal.getSourceInfo(), literal, formula, result ? 1 : 0);
+			}
+			return result;
+		} else {
+			return !query(literal, focus, generator).isEmpty();
+		}
+	}
+
 	/**
 	 * Evaluates a query on the belief base.
 	 *
@@ -312,6 +375,19 @@ public abstract class MentalModel {
 	 */
 	protected abstract Set<Substitution> beliefQuery(Query query) throws MSTQueryException;
 
+	/**
+	 * Checks whether a query follows from the belief base. By default, this
+	 * performs {@link #beliefQuery(Query)}.
+	 *
+	 * @param query
+	 *            formula to be queried.
+	 * @return true iff the formula follows from the belief base.
+	 * @throws MSTQueryException
+	 */
+	protected boolean beliefExists(Query query) throws MSTQueryException {
+		return !beliefQuery(query).isEmpty();
+	}
+
 	/**
 	 * Evaluates a query on the percept base.
 	 *
@@ -368,7 +444,8 @@ public abstract class MentalModel {
 	 * @throws MSTQueryException
 	 */
 	Set<Substitution> goalQuery(Query query, boolean focus) throws MSTQueryException {
-		return getAttentionSet(focus).query(query);
+		GoalBase goals = getAttentionSet(focus);
+		return cachedQuery(goals, query, () -> goals.query(query));
 	}
 
 	/**
@@ -399,7 +476,7 @@ public abstract class MentalModel {
 				throw new MSTQueryException("goal query '" + query
 						+ "' did not result in a closed formula but returned '" + instantiatedQuery + "'.");
 			}
-			if (!beliefQuery(instantiatedQuery).isEmpty()) {
+			if (cachedBeliefExists(instantiatedQuery)) {
 				removeSubstSet.add(lSubst);
 			}
 		}
@@ -435,7 +512,7 @@ public abstract class MentalModel {
 				throw new MSTQueryException("goal query '" + query
 						+ "' did not result in a closed formula but returned '" + instantiatedQuery + "'.");
 			}
-			if (!beliefQuery(instantiatedQuery).isEmpty()) {
+			if (cachedBeliefExists(instantiatedQuery)) {
 				retainSubstSet.add(lSubst);
 			}
 		}
@@ -444,6 +521,154 @@ public abstract class MentalModel {
 		return lSubstSet;
 	}
 
+	/**
+	 * An evaluation of a query that can be cached.
+	 */
+	@FunctionalInterface
+	protected interface Evaluation<T> {
+		T evaluate() throws MSTQueryException;
+	}
+
+	/**
+	 * @return The query cache to use, or null if query results should not be
+	 *         cached.
+	 */
+	private QueryCache getQueryCache() {
+		int size = this.owner.getQueryCacheSize();
+		if (size <= 0) {
+			this.queryCache = null;
+		} else if (this.queryCache == null || this.queryCache.getSize() != size) {
+			this.queryCache = new QueryCache(size);
+		}
+		return this.queryCache;
+	}
+
+	/**
+	 * @return The modification version of a mental or goal base, or -1 if it
+	 *         is not available.
+	 */
+	private static long getVersion(Object base) {
+		if (base instanceof MentalBase) {
+			return ((MentalBase) base).getVersion();
+		} else if (base instanceof GoalBase) {
+			return ((GoalBase) base).getVersion();
+		} else {
+			return -1;
+		}
+	}
+
+	/**
+	 * Performs the evaluation of a query on a base, unless its result is
+	 * already known from an earlier evaluation on the unmodified base.
+	 *
+	 * @param base
+	 *            The base that is queried.
+	 * @param query
+	 *            The query.
+	 * @param evaluation
+	 *            Evaluates the query on the base.
+	 * @return The result of the evaluation.
+	 * @throws MSTQueryException
+	 */
+	private Set<Substitution> cachedQuery(Object base, Query query, Evaluation<Set<Substitution>> evaluation)
+			throws MSTQueryException {
+		QueryCache cache = getQueryCache();
+		if (cache == null || getVersion(base) < 0) {
+			return evaluation.evaluate();
+		}
+		Set<Substitution> result = cache.get(base, getVersion(base), query);
+		if (result == null) {
+			result = evaluation.evaluate();
+			// use the version after the evaluation, as pending changes to the
+			// base might only have been processed by the evaluation itself.
+			cache.put(base, getVersion(base), query, result);
+		}
+		return result;
+	}
+
+	/**
+	 * Performs the evaluation of a query on several bases at once, unless its
+	 * result is already known from an earlier evaluation on the same, unmodified
+	 * bases; see {@link #cachedQuery(Object, Query, Evaluation)}.
+	 *
+	 * @param bases
+	 *            The (mental or goal) bases that are queried.
+	 * @param query
+	 *            The query, as evaluated on the bases.
+	 * @param evaluation
+	 *            Evaluates the query on the bases.
+	 * @return The result of the evaluation.
+	 * @throws MSTQueryException
+	 */
+	protected final Set<Substitution> cachedQuery(Collection<?> bases, Object query,
+			Evaluation<Set<Substitution>> evaluation) throws MSTQueryException {
+		QueryCache cache = getQueryCache();
+		Object[] keys = bases.toArray();
+		long[] versions = getVersions(keys);
+		if (cache == null || versions == null) {
+			return evaluation.evaluate();
+		}
+		Set<Substitution> result = cache.get(keys, versions, query);
+		if (result == null) {
+			result = evaluation.evaluate();
+			versions = getVersions(keys);
+			if (versions != null) {
+				cache.put(keys, versions, query, result);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @return The versions of the bases, or null if one is not available.
+	 */
+	private static long[] getVersions(Object[] bases) {
+		long[] versions = new long[bases.length];
+		for (int i = 0; i < bases.length; i++) {
+			if ((versions[i] = getVersion(bases[i])) < 0) {
+				return null;
+			}
+		}
+		return versions;
+	}
+
+	/**
+	 * See {@link #cachedQuery(Object, Query, Evaluation)}.
+	 */
+	private boolean cachedExists(Object base, Query query, Evaluation<Boolean> evaluation) throws MSTQueryException {
+		QueryCache cache = getQueryCache();
+		if (cache == null || getVersion(base) < 0) {
+			return evaluation.evaluate();
+		}
+		Boolean result = cache.exists(base, getVersion(base), query);
+		if (result == null) {
+			result = evaluation.evaluate();
+			cache.putExists(base, getVersion(base), query, result);
+		}
+		return result;
+	}
+
+	private boolean cachedBeliefExists(Query query) throws MSTQueryException {
+		return cachedExists(getBase(BASETYPE.BELIEFBASE), query, () -> beliefExists(query));
+	}
+
+	/**
+	 * @return The number of query results obtained from the query cache.
+	 */
+	long getQueryCacheHits() {
+		QueryCache cache = this.queryCache;
+		return (cache == null) ? 0 : cache.getHits();
+	}
+
+	/**
+	 * @return The number of queries that could not be answered by the query
+	 *         cache.
+	 */
+	long getQueryCacheMisses() {
+		QueryCache cache = this.queryCache;
+		return (cache == null) ? 0 : cache.getMisses();
+	}
+
 	/**
 	 * Removes all goals from each {@link GoalBase} in the attention set
 	 * {@link #goalBases} from which the goal to be dropped can be derived.
@@ -464,19 +689,33 @@ public abstract class MentalModel {
 	/**
 	 * Implements the blind commitment strategy of a GOAL agent. It removes
 	 * goals when they are believed to be achieved completely.
+	 * <p>
+	 * A goal that was already checked before is only checked again if it
+	 * depends on (the signature of) a belief that has been inserted or deleted
+	 * since then; see {@link #getGoalDependencies(Update)} and
+	 * {@link #getChangedSignatures(List)}.
+	 * </p>
 	 *
 	 * @return list of goals achieved and removed (per goalbase)
 	 * @throws MSTDatabaseException
 	 * @throws MSTQueryException
 	 */
 	List<Result> updateGoalState() throws MSTQueryException, MSTDatabaseException {
+		MentalBase beliefs = this.mentalBases.get(BASETYPE.BELIEFBASE);
+		List<DatabaseFormula> changes = beliefs.takeChanges();
+		Set<String> changed = changes.isEmpty() ? Collections.<String>emptySet() : getChangedSignatures(changes);
 		List<Result> results = new LinkedList<>();
 		for (GoalBase goalbase : this.goalBases) {
 			// Gather the actual goals matching the update in this base
 			List<SingleGoal> goalsToBeRemoved = new LinkedList<>();
 			for (SingleGoal goal : goalbase.getGoals()) {
-				Set<Substitution> check = this.mentalBases.get(BASETYPE.BELIEFBASE).query(goal.getGoal().toQuery());
-				if (!check.isEmpty()) {
+				if (changed != null && this.checkedGoals.contains(goal)) {
+					Set<String> dependencies = getGoalDependencies(goal.getGoal());
+					if (dependencies != null && Collections.disjoint(dependencies, changed)) {
+						continue;
+					}
+				}
+				if (beliefExists(goal.getGoal().toQuery())) {
 					goalsToBeRemoved.add(goal);
 				}
 			}
@@ -489,9 +728,39 @@ public abstract class MentalModel {
 				results.add(result);
 			}
 		}
+		this.checkedGoals.clear();
+		for (GoalBase goalbase : this.goalBases) {
+			this.checkedGoals.addAll(goalbase.getGoals());
+		}
 		return results;
 	}
 
+	/**
+	 * Determines the signatures of the beliefs that the evaluation of a goal on
+	 * the belief base (combined with the knowledge) depends on.
+	 *
+	 * @param goal
+	 *            A goal.
+	 * @return The signatures, or null if these are unknown, in which case the
+	 *         goal is checked every time the goal state is updated.
+	 */
+	protected Set<String> getGoalDependencies(Update goal) {
+		return null;
+	}
+
+	/**
+	 * Determines the signatures of the beliefs that have been inserted or
+	 * deleted.
+	 *
+	 * @param changes
+	 *            The inserted or deleted formulas.
+	 * @return The signatures, or null if these are unknown, in which case all
+	 *         goals are checked.
+	 */
+	protected Set<String> getChangedSignatures(List<DatabaseFormula> changes) {
+		return null;
+	}
+
 	/**
 	 * @return A string representation of the stack of attention sets stored in
 	 *         this {@link MentalModel}. Contains the results of
@@ -521,13 +790,8 @@ public abstract class MentalModel {
 	 * @throws MSTQueryException
 	 */
 	Result defocus() throws MSTDatabaseException, MSTQueryException {
-		// Actually remove the goals
-		GoalBase popped = this.goalBases.pop();
-		Result result = this.owner.createResult(BASETYPE.GOALBASE, popped.getName());
-		for (SingleGoal goal : popped.getGoals().toArray(new SingleGoal[popped.getGoals().size()])) {
-			result.merge(popped.remove(goal));
-		}
-		return result;
+		// Actually remove the goals (and the base itself)
+		return this.goalBases.pop().cleanUp();
 	}
 
 	/**
@@ -17,6 +17,7 @@
 package mentalState;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.Iterator;
@@ -80,6 +81,17 @@ public abstract class MentalState {
 	 * The agent identifier for the mental state.
 	 */
 	protected final AgentId agentId;
+	/**
+	 * If true, the literals of a mental state condition are evaluated as a single
+	 * (conjunctive) query whenever the KR technology supports this; see
+	 * {@link #conjunctiveQuery(List, ExecutionEventGeneratorInterface)}.
+	 */
+	private volatile boolean conjunctiveEvaluation = false;
+	/**
+	 * The maximum number of query results cached by each mental model, or 0 if
+	 * query results should not be cached; see {@link QueryCache}.
+	 */
+	private volatile int queryCacheSize = 0;
 
 	/**
 	 * Creates a mental state of an agent, including the initial belief, goal and
@@ -147,6 +159,68 @@ public abstract class MentalState {
 		return this.models.containsKey(aid);
 	}
 
+	/**
+	 * @return {@code true} if mental state conditions are evaluated as a single
+	 *         conjunctive query where possible.
+	 */
+	public boolean isConjunctiveEvaluation() {
+		return this.conjunctiveEvaluation;
+	}
+
+	/**
+	 * @param conjunctiveEvaluation
+	 *            {@code true} to evaluate mental state conditions as a single
+	 *            conjunctive query where possible, {@code false} to always evaluate
+	 *            them literal by literal.
+	 */
+	public void setConjunctiveEvaluation(boolean conjunctiveEvaluation) {
+		this.conjunctiveEvaluation = conjunctiveEvaluation;
+	}
+
+	/**
+	 * @return The maximum number of query results cached by each mental model (0
+	 *         if query results are not cached).
+	 */
+	public int getQueryCacheSize() {
+		return this.queryCacheSize;
+	}
+
+	/**
+	 * @param queryCacheSize
+	 *            The maximum number of query results that each mental model can
+	 *            cache, such that a query that is performed again on an unmodified
+	 *            base is not passed on to the KR technology again. Use 0 to disable
+	 *            caching. Note that only queries without side effects should be
+	 *            cached.
+	 */
+	public void setQueryCacheSize(int queryCacheSize) {
+		this.queryCacheSize = queryCacheSize;
+	}
+
+	/**
+	 * @return The total number of query results that have been obtained from the
+	 *         query caches of the mental models.
+	 */
+	public long getQueryCacheHits() {
+		long hits = 0;
+		for (MentalModel model : this.models.values()) {
+			hits += model.getQueryCacheHits();
+		}
+		return hits;
+	}
+
+	/**
+	 * @return The total number of queries that could not be answered by the query
+	 *         caches of the mental models.
+	 */
+	public long getQueryCacheMisses() {
+		long misses = 0;
+		for (MentalModel model : this.models.values()) {
+			misses += model.getQueryCacheMisses();
+		}
+		return misses;
+	}
+
 	/**
 	 * @return The agent identifier for the mental state.
 	 */
@@ -409,10 +483,28 @@ public abstract class MentalState {
 		Set<Substitution> result = new LinkedHashSet<>(1);
 		result.add(substitution);
 
+		// Try to evaluate the condition as a whole first (if enabled).
+		List<MentalLiteral> literals = msc.getAllLiterals();
+		if (this.conjunctiveEvaluation && !literals.isEmpty()) {
+			List<MentalLiteral> instantiated = new ArrayList<>(literals.size());
+			for (MentalLiteral literal : literals) {
+				instantiated.add(literal.applySubst(substitution));
+			}
+			Set<Substitution> answers = conjunctiveQuery(instantiated, generator);
+			if (answers != null) {
+				result = new LinkedHashSet<>(answers.size());
+				for (Substitution answer : answers) {
+					result.add(substitution.combine(answer));
+				}
+				evaluationResult.setAnswers(result);
+				return evaluationResult;
+			}
+		}
+
 		// Evaluate each mental formula that is part of the mental state
 		// condition one by one.
 		Set<Substitution> answers, tempResult;
-		for (MentalLiteral literal : msc.getAllLiterals()) {
+		for (MentalLiteral literal : literals) {
 			tempResult = new LinkedHashSet<>();
 			for (Substitution currentSubstitution : result) {
 				answers = query(literal.applySubst(currentSubstitution), generator);
@@ -559,7 +651,18 @@ public abstract class MentalState {
 		// Evaluate query and compute solutions.
 		Iterator<AgentId> agents = new SelectorExecutor(selector).evaluate(this, false).iterator();
 		Set<Substitution> result = new LinkedHashSet<>();
-		if (all) {
+		if (!literal.isPositive() && !all) {
+			// A negated literal holds iff no (selected) agent's model satisfies
+			// it, for which we only need to know whether there is a solution.
+			boolean found = false;
+			while (agents.hasNext() && !found) {
+				found = getModel(agents.next()).exists(literal, focus, generator);
+			}
+			if (!found) {
+				result.add(this.owner.getKRInterface().getSubstitution(null));
+			}
+			return result;
+		} else if (all) {
 			// We need to verify that all models of agents in the set satisfy
 			// this literal for the same solution(s).
 			if (agents.hasNext()) {
@@ -607,6 +710,33 @@ public abstract class MentalState {
 		return result;
 	}
 
+	/**
+	 * Evaluates a conjunction of {@link MentalLiteral}s on this state as a single
+	 * query, which allows the KR technology to join the literals itself instead of
+	 * evaluating them one by one for each of the (intermediate) answers. The
+	 * answers should be identical to those obtained by evaluating the literals one
+	 * by one using {@link #query(MentalLiteral, ExecutionEventGeneratorInterface)}.
+	 * <p>
+	 * By default, this is not supported. Implementors can also return null for
+	 * conjunctions they cannot handle (e.g. because of the selectors that are
+	 * used), in which case the literals are evaluated one by one.
+	 * </p>
+	 *
+	 * @param literals
+	 *            The (non-empty) conjunction of literals to evaluate.
+	 * @param generator
+	 *            the channel to report executed actions to.
+	 * @return A set of substitutions, each of which make the conjunction true (or
+	 *         an empty set otherwise), or null if the conjunction cannot be
+	 *         evaluated as a single query.
+	 * @throws MSTDatabaseException
+	 * @throws MSTQueryException
+	 */
+	protected Set<Substitution> conjunctiveQuery(List<MentalLiteral> literals,
+			ExecutionEventGeneratorInterface generator) throws MSTDatabaseException, MSTQueryException {
+		return null;
+	}
+
 	/**
 	 * This function is called whenever a new database has been created, optionally
 	 * allowing an implementor to do KR-specific stuff. For example, SWI Prolog
@@ -700,6 +830,97 @@ public abstract class MentalState {
 	abstract public List<Result> removePercept(Percept percept, AgentId... agent)
 			throws MSTDatabaseException, MSTQueryException;
 
+	/**
+	 * Removes and inserts percepts in the percept base of the agent in a single
+	 * operation. Percepts that are not in the percept base are not removed, and
+	 * percepts that are already in the percept base are not inserted again. This
+	 * default implementation uses {@link #removePercept(Percept, AgentId...)} and
+	 * {@link #percept(Percept, AgentId...)} for each percept.
+	 *
+	 * @param add
+	 *            The percepts to be inserted.
+	 * @param remove
+	 *            The percepts to be removed.
+	 * @param agent
+	 *            Optional agent(s) to do the update (in a model) for; the current
+	 *            agent is used otherwise.
+	 * @return The changes made in the percept base of each agent.
+	 * @throws MSTDatabaseException
+	 * @throws MSTQueryException
+	 */
+	public List<Result> updatePercepts(Collection<Percept> add, Collection<Percept> remove, AgentId... agent)
+			throws MSTDatabaseException, MSTQueryException {
+		if (agent.length == 0) {
+			agent = new AgentId[] { this.agentId };
+		}
+		List<Result> results = new ArrayList<>(agent.length);
+		for (AgentId id : agent) {
+			Result result = createResult(BASETYPE.PERCEPTBASE, id.toString());
+			for (Percept percept : remove) {
+				result.merge(removePercept(percept, id).get(0));
+			}
+			for (Percept percept : add) {
+				result.merge(percept(percept, id).get(0));
+			}
+			results.add(result);
+		}
+		return results;
+	}
+
+	/**
+	 * Prepares percepts for a later call to
+	 * {@link #updatePercepts(Collection, Collection, AgentId...)}, e.g. by
+	 * translating them in advance. Unlike the other methods of a mental state,
+	 * this method may be called from another thread than the one that runs the
+	 * agent. By default, nothing is prepared.
+	 *
+	 * @param percepts
+	 *            The percepts that are likely to be inserted into the percept base
+	 *            of the agent that owns this mental state.
+	 */
+	public void preparePercepts(Collection<Percept> percepts) {
+	}
+
+	/**
+	 * Replaces the contents of the percept base of the agent by the given
+	 * snapshot of percepts, i.e. removes all percepts that are not in the
+	 * snapshot and inserts all percepts that are not yet in the percept base.
+	 *
+	 * @param percepts
+	 *            All percepts that should be in the percept base.
+	 * @param agent
+	 *            Optional agent(s) to do the update (in a model) for; the current
+	 *            agent is used otherwise.
+	 * @return The changes made in the percept base of each agent.
+	 * @throws MSTDatabaseException
+	 * @throws MSTQueryException
+	 */
+	public List<Result> setPercepts(Collection<Percept> percepts, AgentId... agent)
+			throws MSTDatabaseException, MSTQueryException {
+		if (agent.length == 0) {
+			agent = new AgentId[] { this.agentId };
+		}
+		Set<Percept> snapshot = new LinkedHashSet<>(percepts);
+		List<Result> results = new ArrayList<>(agent.length);
+		for (AgentId id : agent) {
+			Set<Percept> current = getPercepts(id);
+			List<Percept> remove = new ArrayList<>();
+			for (Percept percept : current) {
+				if (!snapshot.contains(percept)) {
+					remove.add(percept);
+				}
+			}
+			List<Percept> add = new ArrayList<>();
+			for (Percept percept : snapshot) {
+				if (!current.contains(percept)) {
+					add.add(percept);
+				}
+			}
+			results.addAll(updatePercepts(add, remove, id));
+		}
+		return results;
+	}
+
 	/**
 	 * Goal is inserted in goal base associated with the agent, but only if goal is
 	 * not already present.
@@ -16,6 +16,7 @@
  */
 package mentalState;
 
+import java.util.Collection;
 import java.util.Deque;
 import java.util.List;
 import java.util.Set;
@@ -23,6 +24,8 @@ import java.util.Set;
 import eis.iilang.Percept;
 import events.Channel;
 import events.ExecutionEventGeneratorInterface;
+import events.jfr.JfrEvents;
+import events.jfr.UpdateEvent;
 import krTools.language.DatabaseFormula;
 import krTools.language.Substitution;
 import krTools.language.Update;
@@ -102,6 +105,48 @@ public class MentalStateWithEvents {
 		return this.mentalState.getAgentId();
 	}
 
+	/**
+	 * See {@link MentalState#isConjunctiveEvaluation()}.
+	 */
+	public boolean isConjunctiveEvaluation() {
+		return this.mentalState.isConjunctiveEvaluation();
+	}
+
+	/**
+	 * See {@link MentalState#setConjunctiveEvaluation(boolean)}.
+	 */
+	public void setConjunctiveEvaluation(boolean conjunctiveEvaluation) {
+		this.mentalState.setConjunctiveEvaluation(conjunctiveEvaluation);
+	}
+
+	/**
+	 * See {@link MentalState#getQueryCacheSize()}.
+	 */
+	public int getQueryCacheSize() {
+		return this.mentalState.getQueryCacheSize();
+	}
+
+	/**
+	 * See {@link MentalState#setQueryCacheSize(int)}.
+	 */
+	public void setQueryCacheSize(int queryCacheSize) {
+		this.mentalState.setQueryCacheSize(queryCacheSize);
+	}
+
+	/**
+	 * See {@link MentalState#getQueryCacheHits()}.
+	 */
+	public long getQueryCacheHits() {
+		return this.mentalState.getQueryCacheHits();
+	}
+
+	/**
+	 * See {@link MentalState#getQueryCacheMisses()}.
+	 */
+	public long getQueryCacheMisses() {
+		return this.mentalState.getQueryCacheMisses();
+	}
+
 	/**
 	 * @return The set of formulas that are in the knowledge base of the agent that
 	 *         owns this mental state.
@@ -148,6 +193,16 @@ public class MentalStateWithEvents {
 		return this.mentalState.getPerceptCount();
 	}
 
+	/**
+	 * See {@link MentalState#preparePercepts(Collection)}.
+	 *
+	 * @param percepts
+	 *            The percepts that are likely to be inserted.
+	 */
+	public void preparePercepts(Collection<Percept> percepts) {
+		this.mentalState.preparePercepts(percepts);
+	}
+
 	/**
 	 * @return The set of messages that are in the message base of the agent that
 	 *         owns this mental state (sent-to-self) or in the mental model that
@@ -319,12 +374,16 @@ public class MentalStateWithEvents {
 	 */
 	public MSCResult evaluate(MentalStateCondition msc, Substitution substitution,
 			ExecutionEventGeneratorInterface generator) throws MSTDatabaseException, MSTQueryException {
-		generator.event(Channel.MSQUERY_START, msc, msc.getSourceInfo(), "evaluating mentalstate '%s'.", msc);
+		if (generator.isEnabled(Channel.MSQUERY_START)) {
+			generator.event(Channel.MSQUERY_START, msc, msc.getSourceInfo(), "evaluating mentalstate '%s'.", msc);
+		}
 
 		MSCResult result = this.mentalState.evaluate(msc, substitution, generator);
 		++this.queryCount;
 
-		generator.event(Channel.MSQUERY_END, msc, msc.getSourceInfo(), "evaluated mentalstate '%s'.", msc);
+		if (generator.isEnabled(Channel.MSQUERY_END)) {
+			generator.event(Channel.MSQUERY_END, msc, msc.getSourceInfo(), "evaluated mentalstate '%s'.", msc);
+		}
 
 		return result;
 	}
@@ -360,11 +419,15 @@ public class MentalStateWithEvents {
 	 */
 	public MSCResult focusEvaluate(MentalStateCondition msc, Substitution substitution,
 			ExecutionEventGeneratorInterface generator) throws MSTDatabaseException, MSTQueryException {
-		generator.event(Channel.MSQUERY_START, msc, msc.getSourceInfo(), "evaluating mentalstate '%s'.", msc);
+		if (generator.isEnabled(Channel.MSQUERY_START)) {
+			generator.event(Channel.MSQUERY_START, msc, msc.getSourceInfo(), "evaluating mentalstate '%s'.", msc);
+		}
 
 		MSCResult result = this.mentalState.focusEvaluate(msc, substitution, generator);
 
-		generator.event(Channel.MSQUERY_END, msc, msc.getSourceInfo(), "evaluated mentalstate '%s'.", msc);
+		if (generator.isEnabled(Channel.MSQUERY_END)) {
+			generator.event(Channel.MSQUERY_END, msc, msc.getSourceInfo(), "evaluated mentalstate '%s'.", msc);
+		}
 
 		return result;
 	}
@@ -387,11 +450,15 @@ public class MentalStateWithEvents {
 	 */
 	public MSCResult filterEvaluate(MentalStateCondition msc, Substitution substitution,
 			ExecutionEventGeneratorInterface generator) throws MSTDatabaseException, MSTQueryException {
-		generator.event(Channel.MSQUERY_START, msc, msc.getSourceInfo(), "evaluating mentalstate '%s'.", msc);
+		if (generator.isEnabled(Channel.MSQUERY_START)) {
+			generator.event(Channel.MSQUERY_START, msc, msc.getSourceInfo(), "evaluating mentalstate '%s'.", msc);
+		}
 
 		MSCResult result = this.mentalState.filterEvaluate(msc, substitution, generator);
 
-		generator.event(Channel.MSQUERY_END, msc, msc.getSourceInfo(), "evaluated mentalstate '%s'.", msc);
+		if (generator.isEnabled(Channel.MSQUERY_END)) {
+			generator.event(Channel.MSQUERY_END, msc, msc.getSourceInfo(), "evaluated mentalstate '%s'.", msc);
+		}
 
 		return result;
 	}
@@ -411,11 +478,26 @@ public class MentalStateWithEvents {
 	 */
 	public List<Result> insert(Update update, ExecutionEventGeneratorInterface generator, AgentId... agent)
 			throws MSTDatabaseException, MSTQueryException {
-		generator.event(Channel.INSERT_START, update, update.getSourceInfo(), "insert %s", update);
+		if (generator.isEnabled(Channel.INSERT_START)) {
+			generator.event(Channel.INSERT_START, update, update.getSourceInfo(), "insert %s", update);
+		}
+		UpdateEvent jfr = JfrEvents.beginUpdate("insert");
 
 		List<Result> result = this.mentalState.insert(update, agent);
 
-		generator.event(Channel.INSERT_END, update, update.getSourceInfo(), "inserted %s", update);
+		if (jfr != null) {
+			int added = 0;
+			int removed = 0;
+			for (Result base : result) {
+				added += base.getAdded().size();
+				removed += base.getRemoved().size();
+			}
+			jfr.commit(getAgentId(), update.getSourceInfo(), update, added, removed);
+		}
+
+		if (generator.isEnabled(Channel.INSERT_END)) {
+			generator.event(Channel.INSERT_END, update, update.getSourceInfo(), "inserted %s", update);
+		}
 
 		return result;
 	}
@@ -435,11 +517,15 @@ public class MentalStateWithEvents {
 	 */
 	public List<Result> percept(Percept percept, ExecutionEventGeneratorInterface generator, AgentId... agent)
 			throws MSTDatabaseException, MSTQueryException {
-		generator.event(Channel.INSERT_START, percept, null, "insert %s", percept);
+		if (generator.isEnabled(Channel.INSERT_START)) {
+			generator.event(Channel.INSERT_START, percept, null, "insert %s", percept);
+		}
 
 		List<Result> result = this.mentalState.percept(percept, agent);
 
-		generator.event(Channel.INSERT_END, percept, null, "inserted %s", percept);
+		if (generator.isEnabled(Channel.INSERT_END)) {
+			generator.event(Channel.INSERT_END, percept, null, "inserted %s", percept);
+		}
 
 		return result;
 	}
@@ -462,11 +548,15 @@ public class MentalStateWithEvents {
 	 */
 	public Result received(Message message, ExecutionEventGeneratorInterface generator)
 			throws MSTDatabaseException, MSTQueryException {
-		generator.event(Channel.INSERT_START, message, null, "insert %s", message);
+		if (generator.isEnabled(Channel.INSERT_START)) {
+			generator.event(Channel.INSERT_START, message, null, "insert %s", message);
+		}
 
 		Result result = this.mentalState.received(message);
 
-		generator.event(Channel.INSERT_END, message, null, "inserted %s", message);
+		if (generator.isEnabled(Channel.INSERT_END)) {
+			generator.event(Channel.INSERT_END, message, null, "inserted %s", message);
+		}
 
 		return result;
 	}
@@ -486,11 +576,26 @@ public class MentalStateWithEvents {
 	 */
 	public List<Result> delete(Update update, ExecutionEventGeneratorInterface generator, AgentId... agent)
 			throws MSTDatabaseException, MSTQueryException {
-		generator.event(Channel.DELETE_START, update, update.getSourceInfo(), "delete %s", update);
+		if (generator.isEnabled(Channel.DELETE_START)) {
+			generator.event(Channel.DELETE_START, update, update.getSourceInfo(), "delete %s", update);
+		}
+		UpdateEvent jfr = JfrEvents.beginUpdate("delete");
 
 		List<Result> result = this.mentalState.delete(update, agent);
 
-		generator.event(Channel.DELETE_END, update, update.getSourceInfo(), "deleted %s", update);
+		if (jfr != null) {
+			int added = 0;
+			int removed = 0;
+			for (Result base : result) {
+				added += base.getAdded().size();
+				removed += base.getRemoved().size();
+			}
+			jfr.commit(getAgentId(), update.getSourceInfo(), update, added, removed);
+		}
+
+		if (generator.isEnabled(Channel.DELETE_END)) {
+			generator.event(Channel.DELETE_END, update, update.getSourceInfo(), "deleted %s", update);
+		}
 
 		return result;
 	}
@@ -507,11 +612,15 @@ public class MentalStateWithEvents {
 	 */
 	public Result removeMessage(Message message, ExecutionEventGeneratorInterface generator)
 			throws MSTDatabaseException, MSTQueryException {
-		generator.event(Channel.DELETE_START, message, null, "delete %s", message);
+		if (generator.isEnabled(Channel.DELETE_START)) {
+			generator.event(Channel.DELETE_START, message, null, "delete %s", message);
+		}
 
 		Result result = this.mentalState.removeMessage(message);
 
-		generator.event(Channel.DELETE_END, message, null, "deleted %s", message);
+		if (generator.isEnabled(Channel.DELETE_END)) {
+			generator.event(Channel.DELETE_END, message, null, "deleted %s", message);
+		}
 
 		return result;
 	}
@@ -531,11 +640,60 @@ public class MentalStateWithEvents {
 	 */
 	public List<Result> removePercept(Percept percept, ExecutionEventGeneratorInterface generator, AgentId... agent)
 			throws MSTDatabaseException, MSTQueryException {
-		generator.event(Channel.DELETE_START, percept, null, "delete %s", percept);
+		if (generator.isEnabled(Channel.DELETE_START)) {
+			generator.event(Channel.DELETE_START, percept, null, "delete %s", percept);
+		}
 
 		List<Result> result = this.mentalState.removePercept(percept, agent);
 
-		generator.event(Channel.DELETE_END, percept, null, "deleted %s", percept);
+		if (generator.isEnabled(Channel.DELETE_END)) {
+			generator.event(Channel.DELETE_END, percept, null, "deleted %s", percept);
+		}
+
+		return result;
+	}
+
+	/**
+	 * See {@link MentalState#updatePercepts(Collection, Collection, AgentId...)}.
+	 *
+	 * @param add
+	 *            The percepts to be inserted.
+	 * @param remove
+	 *            The percepts to be removed.
+	 * @param generator
+	 *            the channel to report executed actions to .
+	 * @param agent
+	 *            An optional agent to do the update (in a model) for; the current
+	 *            agent is used otherwise.
+	 * @throws MSTDatabaseException
+	 * @throws MSTQueryException
+	 */
+	public List<Result> updatePercepts(Collection<Percept> add, Collection<Percept> remove,
+			ExecutionEventGeneratorInterface generator, AgentId... agent)
+			throws MSTDatabaseException, MSTQueryException {
+		for (Percept percept : remove) {
+			if (generator.isEnabled(Channel.DELETE_START)) {
+				generator.event(Channel.DELETE_START, percept, null, "delete %s", percept);
+			}
+		}
+		for (Percept percept : add) {
+			if (generator.isEnabled(Channel.INSERT_START)) {
+				generator.event(Channel.INSERT_START, percept, null, "insert %s", percept);
+			}
+		}
+
+		List<Result> result = this.mentalState.updatePercepts(add, remove, agent);
+
+		for (Percept percept : remove) {
+			if (generator.isEnabled(Channel.DELETE_END)) {
+				generator.event(Channel.DELETE_END, percept, null, "deleted %s", percept);
+			}
+		}
+		for (Percept percept : add) {
+			if (generator.isEnabled(Channel.INSERT_END)) {
+				generator.event(Channel.INSERT_END, percept, null, "inserted %s", percept);
+			}
+		}
 
 		return result;
 	}
@@ -557,11 +715,15 @@ public class MentalStateWithEvents {
 	 */
 	public List<Result> adopt(Update update, boolean focus, ExecutionEventGeneratorInterface generator,
 			AgentId... agent) throws MSTDatabaseException, MSTQueryException {
-		generator.event(Channel.ADOPT_START, update, update.getSourceInfo(), "adopt %s", update);
+		if (generator.isEnabled(Channel.ADOPT_START)) {
+			generator.event(Channel.ADOPT_START, update, update.getSourceInfo(), "adopt %s", update);
+		}
 
 		List<Result> result = this.mentalState.adopt(update, focus, agent);
 
-		generator.event(Channel.ADOPT_END, update, update.getSourceInfo(), "adopted %s", update);
+		if (generator.isEnabled(Channel.ADOPT_END)) {
+			generator.event(Channel.ADOPT_END, update, update.getSourceInfo(), "adopted %s", update);
+		}
 
 		return result;
 	}
@@ -580,11 +742,15 @@ public class MentalStateWithEvents {
 	 */
 	public List<Result> drop(Update update, ExecutionEventGeneratorInterface generator, AgentId... agent)
 			throws MSTDatabaseException, MSTQueryException {
-		generator.event(Channel.DROP_START, update, update.getSourceInfo(), "drop %s", update);
+		if (generator.isEnabled(Channel.DROP_START)) {
+			generator.event(Channel.DROP_START, update, update.getSourceInfo(), "drop %s", update);
+		}
 
 		List<Result> dropped = this.mentalState.drop(update, agent);
 
-		generator.event(Channel.DROP_END, update, update.getSourceInfo(), "dropped %s", update);
+		if (generator.isEnabled(Channel.DROP_END)) {
+			generator.event(Channel.DROP_END, update, update.getSourceInfo(), "dropped %s", update);
+		}
 
 		return dropped;
 	}
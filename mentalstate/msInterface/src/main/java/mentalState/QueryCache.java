@@ -0,0 +1,213 @@
+/**
+ * The GOAL Mental State. Copyright (C) 2014 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package mentalState;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import krTools.language.Query;
+import krTools.language.Substitution;
+
+/**
+ * A bounded cache of query results, used by a {@link MentalModel} to avoid
+ * performing the same query on the same (unmodified) base more than once. A
+ * result is indexed by the base it was obtained from, the modification version
+ * of that base at the time, and the query itself, so a result is never used
+ * anymore once its base has been modified. A query on several bases at once
+ * (a conjunctive query) is indexed by all of its bases and their versions. The
+ * least recently used result is evicted when the cache is full.
+ */
+class QueryCache {
+	private final int size;
+	private final Map<Object, Object> cache;
+	private long hits;
+	private long misses;
+
+	/**
+	 * @param size
+	 *            The maximum number of results in the cache.
+	 */
+	QueryCache(final int size) {
+		this.size = size;
+		this.cache = new LinkedHashMap<Object, Object>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(final Map.Entry<Object, Object> eldest) {
+				return size() > QueryCache.this.size;
+			}
+		};
+	}
+
+	/**
+	 * @return The cached substitutions of the query (a copy that can be freely
+	 *         modified), or null if there are none.
+	 */
+	synchronized Set<Substitution> get(final Object base, final long version, final Query query) {
+		final Object value = lookup(new Key(base, version, query, false));
+		return (value == null) ? null : copy(castSubstitutions(value));
+	}
+
+	synchronized void put(final Object base, final long version, final Query query,
+			final Set<Substitution> substitutions) {
+		this.cache.put(new Key(base, version, query, false), copy(substitutions));
+	}
+
+	/**
+	 * @return The cached substitutions of a query on several bases (a copy that
+	 *         can be freely modified), or null if there are none.
+	 */
+	synchronized Set<Substitution> get(final Object[] bases, final long[] versions, final Object query) {
+		final Object value = lookup(new MultiKey(bases, versions, query));
+		return (value == null) ? null : copy(castSubstitutions(value));
+	}
+
+	synchronized void put(final Object[] bases, final long[] versions, final Object query,
+			final Set<Substitution> substitutions) {
+		this.cache.put(new MultiKey(bases, versions, query), copy(substitutions));
+	}
+
+	/**
+	 * @return Whether the query has a solution according to the cache, or null if
+	 *         this is not known.
+	 */
+	synchronized Boolean exists(final Object base, final long version, final Query query) {
+		final Key key = new Key(base, version, query, false);
+		final Object value = this.cache.get(key);
+		if (value != null) {
+			this.hits++;
+			return !castSubstitutions(value).isEmpty();
+		}
+		return (Boolean) lookup(new Key(base, version, query, true));
+	}
+
+	synchronized void putExists(final Object base, final long version, final Query query, final boolean exists) {
+		this.cache.put(new Key(base, version, query, true), exists);
+	}
+
+	int getSize() {
+		return this.size;
+	}
+
+	synchronized long getHits() {
+		return this.hits;
+	}
+
+	synchronized long getMisses() {
+		return this.misses;
+	}
+
+	private Object lookup(final Object key) {
+		final Object value = this.cache.get(key);
+		if (value == null) {
+			this.misses++;
+		} else {
+			this.hits++;
+		}
+		return value;
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Set<Substitution> castSubstitutions(final Object value) {
+		return (Set<Substitution>) value;
+	}
+
+	private static Set<Substitution> copy(final Set<Substitution> substitutions) {
+		final Set<Substitution> copy = new LinkedHashSet<>(substitutions.size());
+		for (final Substitution substitution : substitutions) {
+			copy.add(substitution.clone());
+		}
+		return copy;
+	}
+
+	private static class Key {
+		private final Object base;
+		private final long version;
+		private final Query query;
+		private final boolean exists;
+
+		Key(final Object base, final long version, final Query query, final boolean exists) {
+			this.base = base;
+			this.version = version;
+			this.query = query;
+			this.exists = exists;
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(System.identityHashCode(this.base), this.version, this.query, this.exists);
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof Key)) {
+				return false;
+			}
+			final Key other = (Key) obj;
+			return this.base == other.base && this.version == other.version && this.exists == other.exists
+					&& this.query.equals(other.query);
+		}
+	}
+
+	private static class MultiKey {
+		private final Object[] bases;
+		private final long[] versions;
+		private final Object query;
+
+		MultiKey(final Object[] bases, final long[] versions, final Object query) {
+			this.bases = bases;
+			this.versions = versions;
+			this.query = query;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = this.query.hashCode();
+			for (int i = 0; i < this.bases.length; i++) {
+				hash = 31 * hash + System.identityHashCode(this.bases[i]);
+				hash = 31 * hash + Long.hashCode(this.versions[i]);
+			}
+			return hash;
+		}
+
+		@Override
+		public boolean equals(final Object obj) {
+			if (this == obj) {
+				return true;
+			} else if (!(obj instanceof MultiKey)) {
+				return false;
+			}
+			final MultiKey other = (MultiKey) obj;
+			if (this.bases.length != other.bases.length || !Arrays.equals(this.versions, other.versions)) {
+				return false;
+			}
+			for (int i = 0; i < this.bases.length; i++) {
+				if (this.bases[i] != other.bases[i]) {
+					return false;
+				}
+			}
+			return this.query.equals(other.query);
+		}
+	}
+}
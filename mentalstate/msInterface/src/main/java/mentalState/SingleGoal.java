@@ -76,6 +76,19 @@ public abstract class SingleGoal {
 	 */
 	abstract public Set<Substitution> query(Query query) throws MSTQueryException;
 
+	/**
+	 * Checks whether a query follows from the goal. By default, this performs
+	 * {@link #query(Query)}.
+	 *
+	 * @param query
+	 *            The query to evaluate
+	 * @return True iff the query follows from the goal.
+	 * @throws MSTQueryException
+	 */
+	public boolean exists(Query query) throws MSTQueryException {
+		return !query(query).isEmpty();
+	}
+
 	@Override
 	public String toString() {
 		return this.goal.toString();
@@ -0,0 +1,101 @@
+package events;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import krTools.parser.SourceInfo;
+
+public class ExecutionEventGeneratorTest {
+	/**
+	 * Records the channels of the events it receives.
+	 */
+	private static class Recorder extends ExecutionEventListener {
+		private final Set<Channel> channels;
+		private final List<Channel> received = new ArrayList<>();
+
+		Recorder(Set<Channel> channels) {
+			this.channels = channels;
+		}
+
+		@Override
+		public void goalEvent(Channel channel, Object associateObject, SourceInfo associateSource, String message,
+				Object... args) {
+			this.received.add(channel);
+		}
+
+		@Override
+		public Set<Channel> getChannels() {
+			return this.channels;
+		}
+	}
+
+	@Test
+	public void testNoListeners() {
+		ExecutionEventGenerator generator = new ExecutionEventGenerator();
+		for (Channel channel : Channel.values()) {
+			assertFalse(generator.isEnabled(channel));
+		}
+	}
+
+	@Test
+	public void testChannels() {
+		ExecutionEventGenerator generator = new ExecutionEventGenerator();
+		Recorder rules = new Recorder(EnumSet.of(Channel.RULE_START));
+		Recorder queries = new Recorder(EnumSet.of(Channel.DB_QUERY_START, Channel.RULE_START));
+		generator.addListener(rules);
+		generator.addListener(queries);
+		assertTrue(generator.isEnabled(Channel.RULE_START));
+		assertTrue(generator.isEnabled(Channel.DB_QUERY_START));
+		assertFalse(generator.isEnabled(Channel.DB_QUERY_END));
+
+		generator.event(Channel.RULE_START, null, null, "rule %s", 1);
+		generator.event(Channel.DB_QUERY_START, null, null);
+		generator.event(Channel.DB_QUERY_END, null, null, "result %s", 2);
+		assertEquals(Collections.singletonList(Channel.RULE_START), rules.received);
+		assertEquals(Arrays.asList(Channel.RULE_START, Channel.DB_QUERY_START), queries.received);
+
+		generator.removeListener(queries);
+		assertFalse(generator.isEnabled(Channel.DB_QUERY_START));
+		assertTrue(generator.isEnabled(Channel.RULE_START));
+		generator.clearListeners();
+		assertFalse(generator.isEnabled(Channel.RULE_START));
+	}
+
+	@Test
+	public void testRefreshChannels() {
+		ExecutionEventGenerator generator = new ExecutionEventGenerator();
+		Set<Channel> channels = EnumSet.noneOf(Channel.class);
+		generator.addListener(new Recorder(channels));
+		assertFalse(generator.isEnabled(Channel.PRINT));
+		channels.add(Channel.PRINT);
+		generator.refreshChannels();
+		assertTrue(generator.isEnabled(Channel.PRINT));
+	}
+
+	@Test
+	public void testRemoveDuringEvent() {
+		final ExecutionEventGenerator generator = new ExecutionEventGenerator();
+		final Recorder second = new Recorder(EnumSet.of(Channel.PRINT));
+		generator.addListener(new ExecutionEventListener() {
+			@Override
+			public void goalEvent(Channel channel, Object associateObject, SourceInfo associateSource,
+					String message, Object... args) {
+				generator.removeListener(second);
+			}
+		});
+		generator.addListener(second);
+		// the event is still passed to the listeners at the time it was emitted
+		generator.event(Channel.PRINT, null, null, "print");
+		assertEquals(Collections.singletonList(Channel.PRINT), second.received);
+	}
+}
@@ -0,0 +1,62 @@
+package events.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+public class JfrEventsTest {
+	@Test
+	public void testDisabledByDefault() {
+		assertNull(JfrEvents.beginQuery());
+		assertNull(JfrEvents.beginCycle(1));
+	}
+
+	@Test
+	public void testRecording() throws IOException {
+		Path file = Files.createTempFile("goal", ".jfr");
+		try {
+			Recorder recorder = JfrEvents.startRecording(file);
+			Assume.assumeNotNull(recorder);
+
+			CycleEvent cycle = JfrEvents.beginCycle(3);
+			assertNotNull(cycle);
+			ActionEvent action = JfrEvents.beginAction();
+			action.commit("agent", null, "move(north)", false);
+			PerceptEvent percepts = JfrEvents.beginPercepts();
+			percepts.commit("agent", 2, 1);
+			cycle.end();
+			cycle.commit("agent", 1, 0, 7);
+			recorder.stop();
+
+			Map<String, RecordedEvent> events = new HashMap<>();
+			List<RecordedEvent> recorded = RecordingFile.readAllEvents(file);
+			for (RecordedEvent event : recorded) {
+				if (event.getEventType().getName().startsWith("goal.")) {
+					events.put(event.getEventType().getName(), event);
+				}
+			}
+			assertEquals(3, events.size());
+			assertEquals("agent", events.get("goal.Cycle").getString("agent"));
+			assertEquals(3, events.get("goal.Cycle").getLong("cycle"));
+			assertEquals(7, events.get("goal.Cycle").getInt("queries"));
+			assertEquals("move(north)", events.get("goal.EnvironmentAction").getString("action"));
+			assertEquals(2, events.get("goal.Percepts").getInt("added"));
+		} finally {
+			Files.deleteIfExists(file);
+		}
+		assertNull(JfrEvents.beginCycle(4));
+	}
+}
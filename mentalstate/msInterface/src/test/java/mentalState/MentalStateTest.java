@@ -374,6 +374,63 @@ public abstract class MentalStateTest {
 	public void testEvaluate() {
 	}
 
+	/**
+	 * Test method for
+	 * {@link MentalState#evaluate(MentalStateCondition, Substitution)} with
+	 * conjunctive evaluation enabled; the results should equal those of the
+	 * literal-by-literal evaluation.
+	 */
+	@Test
+	public void testConjunctiveEvaluate() throws Exception {
+		// Set up a mental state.
+		this.mentalState.addAgentModel(this.agentId);
+		final NoEventGenerator nogenerator = new NoEventGenerator();
+		final Query a1 = getQuery('a', 1);
+		final Query a2 = getQuery('a', 2);
+		addToBase(BASETYPE.BELIEFBASE, this.agentId, a1);
+		addToBase(BASETYPE.PERCEPTBASE, this.agentId, a1);
+		this.mentalState.adopt(a2.toUpdate(), true);
+
+		final List<List<MentalLiteral>> conditions = new ArrayList<>();
+		final List<MentalLiteral> condition1 = new ArrayList<>();
+		condition1.add(getLiteral(BASETYPE.BELIEFBASE, SelectorType.SELF, a1));
+		condition1.add(getLiteral(BASETYPE.PERCEPTBASE, SelectorType.SELF, a1));
+		condition1.add(new GoalLiteral(true, new Selector(SelectorType.THIS, null), a2, null, null));
+		conditions.add(condition1);
+		final List<MentalLiteral> condition2 = new ArrayList<>();
+		condition2.add(getLiteral(BASETYPE.BELIEFBASE, SelectorType.SELF, a1));
+		condition2.add(getLiteral(BASETYPE.BELIEFBASE, SelectorType.SELF, a2, false));
+		conditions.add(condition2);
+		final List<MentalLiteral> condition3 = new ArrayList<>();
+		condition3.add(getLiteral(BASETYPE.PERCEPTBASE, SelectorType.SELF, a2));
+		condition3.add(getLiteral(BASETYPE.BELIEFBASE, SelectorType.SELF, a1));
+		conditions.add(condition3);
+		final List<MentalLiteral> condition4 = new ArrayList<>();
+		condition4.add(getLiteral(BASETYPE.BELIEFBASE, SelectorType.SELF, a1));
+		condition4.add(new GoalLiteral(false, new Selector(SelectorType.THIS, null), a1, null, null));
+		conditions.add(condition4);
+		final List<MentalLiteral> condition5 = new ArrayList<>();
+		condition5.add(new GoalLiteral(true, new Selector(SelectorType.THIS, null), a2, null, null));
+		condition5.add(getLiteral(BASETYPE.PERCEPTBASE, SelectorType.SELF, a2, false));
+		condition5.add(getLiteral(BASETYPE.BELIEFBASE, SelectorType.SELF, a2, false));
+		conditions.add(condition5);
+		final List<MentalLiteral> condition6 = new ArrayList<>();
+		condition6.add(getLiteral(BASETYPE.PERCEPTBASE, SelectorType.SELF, a1));
+		condition6.add(new GoalLiteral(false, new Selector(SelectorType.THIS, null), a2, null, null));
+		conditions.add(condition6);
+
+		final Substitution empty = this.kri.getSubstitution(null);
+		for (final List<MentalLiteral> literals : conditions) {
+			final MentalStateCondition msc = new MentalStateCondition(new ArrayList<MentalFormula>(literals), null);
+			this.mentalState.setConjunctiveEvaluation(false);
+			final Set<Substitution> expected = this.mentalState.evaluate(msc, empty, nogenerator).getAnswers();
+			this.mentalState.setConjunctiveEvaluation(true);
+			final Set<Substitution> actual = this.mentalState.evaluate(msc, empty, nogenerator).getAnswers();
+			assertEquals(literals.toString(), expected, actual);
+		}
+		this.mentalState.setConjunctiveEvaluation(false);
+	}
+
 	/**
 	 * Test method for
 	 * {@link MentalState#focusEvaluate(MentalStateCondition, Substitution)} .
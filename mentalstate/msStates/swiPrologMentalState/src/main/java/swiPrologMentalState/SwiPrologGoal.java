@@ -1,5 +1,7 @@
 package swiPrologMentalState;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
 
 import krTools.exceptions.KRDatabaseException;
@@ -7,43 +9,56 @@ import krTools.exceptions.KRQueryFailedException;
 import krTools.language.DatabaseFormula;
 import krTools.language.Query;
 import krTools.language.Substitution;
+import krTools.language.Term;
 import krTools.language.Update;
-import mentalState.BASETYPE;
-import mentalState.GoalBase;
 import mentalState.SingleGoal;
 import mentalState.error.MSTDatabaseException;
 import mentalState.error.MSTQueryException;
-import swiprolog.database.PrologDatabase;
+import swiprolog.language.PrologCompound;
+import swiprolog.language.PrologDBFormula;
+import swiprolog.language.impl.PrologImplFactory;
 
 public class SwiPrologGoal extends SingleGoal {
 	/**
-	 * The database used for storing this goal.
+	 * The goal base (database) this goal is stored in.
 	 */
-	private final PrologDatabase database;
+	private final SwiPrologGoalBase base;
+	/**
+	 * The identifier of this goal within its base.
+	 */
+	private final Term id;
+	/**
+	 * The conjuncts of this goal.
+	 */
+	private final List<PrologCompound> conjuncts;
 
-	SwiPrologGoal(final GoalBase base, final int count, final Update goal) throws MSTDatabaseException {
+	SwiPrologGoal(final SwiPrologGoalBase base, final int count, final Update goal) throws MSTDatabaseException {
 		super(base.getOwner(), goal);
-		try { // we need a separate module each time because we cannot insert conjunctions
-			this.database = (PrologDatabase) this.owner.getOwner().getKRInterface()
-					.getDatabase(this.owner.getAgentId().toString(), base.getName() + count);
-			this.owner.createdDatabase(this.database, BASETYPE.GOALBASE); // adds the required knowledge
-			for (final DatabaseFormula dbf : goal.getAddList()) { // cannot use toDBF here
-				this.database.insert(dbf);
-			}
+		this.base = base;
+		this.id = PrologImplFactory.getNumber(count, null);
+		this.conjuncts = new ArrayList<>(goal.getAddList().size());
+		for (final DatabaseFormula dbf : goal.getAddList()) { // cannot use toDBF here
+			this.conjuncts.add(((PrologDBFormula) dbf).getCompound());
+		}
+		try {
+			base.add(this, this.conjuncts);
 		} catch (final KRDatabaseException e) {
 			throw new MSTDatabaseException(
-					"could not create a database for '" + goal + "' of '" + this.owner.getOwner() + "'.", e);
+					"could not add '" + goal + "' to the goal base of '" + this.owner.getOwner() + "'.", e);
 		}
 	}
 
-	PrologDatabase getDatabase() {
-		return this.database;
+	/**
+	 * @return The identifier of this goal within its base.
+	 */
+	Term getIdTerm() {
+		return this.id;
 	}
 
 	@Override
 	public void cleanUp() throws MSTDatabaseException {
 		try {
-			this.database.destroy();
+			this.base.remove(this, this.conjuncts);
 		} catch (final KRDatabaseException e) {
 			throw new MSTDatabaseException("could not remove '" + this.goal + "' from the goal database.", e);
 		}
@@ -52,9 +67,19 @@ public class SwiPrologGoal extends SingleGoal {
 	@Override
 	public Set<Substitution> query(final Query query) throws MSTQueryException {
 		try {
-			return this.database.query(query);
+			return this.base.getDatabase()
+					.query(PrologImplFactory.getQuery(SwiPrologGoalBase.getGoalQuery(this.id, query)));
+		} catch (final KRQueryFailedException e) {
+			throw new MSTQueryException("failed to evaluate '" + query + "' on '" + this.goal + "'.", e);
+		}
+	}
+
+	@Override
+	public boolean exists(final Query query) throws MSTQueryException {
+		try {
+			return this.base.getDatabase()
+					.exists(PrologImplFactory.getQuery(SwiPrologGoalBase.getGoalQuery(this.id, query)));
 		} catch (final KRQueryFailedException e) {
-			e.printStackTrace();
 			throw new MSTQueryException("failed to evaluate '" + query + "' on '" + this.goal + "'.", e);
 		}
 	}
@@ -1,20 +1,257 @@
 package swiPrologMentalState;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import krTools.exceptions.KRDatabaseException;
+import krTools.exceptions.KRQueryFailedException;
+import krTools.language.DatabaseFormula;
+import krTools.language.Query;
+import krTools.language.Substitution;
+import krTools.language.Term;
 import krTools.language.Update;
+import krTools.language.Var;
+import mentalState.BASETYPE;
 import mentalState.GoalBase;
 import mentalState.MentalState;
 import mentalState.SingleGoal;
 import mentalState.error.MSTDatabaseException;
+import mentalState.error.MSTQueryException;
+import swiprolog.database.PrologDatabase;
+import swiprolog.language.PrologCompound;
+import swiprolog.language.PrologQuery;
+import swiprolog.language.impl.PrologImplFactory;
 
+/**
+ * A goal base that stores all of its goals in a single database. Each goal is
+ * identified by a number; the database contains a fact
+ * <tt>'$goal_id'(Id)</tt> for each goal and a fact <tt>'$goal'(Id, Conjunct)</tt>
+ * for each of its conjuncts. For each predicate used in a goal, a rule is added
+ * that resolves a call to that predicate using the conjuncts of the 'current'
+ * goal only, so that a query (combined with the knowledge) is still evaluated
+ * on each goal separately. A query on the whole goal base, or a check which
+ * goals entail a query, is a single call on the database.
+ */
 public class SwiPrologGoalBase extends GoalBase {
+	/**
+	 * Used to give the database of each goal base a unique name.
+	 */
+	private static final AtomicInteger baseCounter = new AtomicInteger();
+	private static final PrologCompound GOAL_ID = PrologImplFactory.getAtom("$goal_id", null);
+	private static final PrologCompound GOAL = PrologImplFactory.getAtom("$goal", null);
+	private static final PrologCompound GOAL_QUERY = PrologImplFactory.getAtom("$goal_query", null);
+	/**
+	 * The database used for storing the goals of this base.
+	 */
+	private final PrologDatabase database;
+	/**
+	 * The goals in this base by identifier.
+	 */
+	private final Map<String, SwiPrologGoal> byId = new ConcurrentHashMap<>();
+	/**
+	 * The signatures for which a rule resolving it on the current goal has been
+	 * added to the database.
+	 */
+	private final Set<String> signatures = ConcurrentHashMap.newKeySet();
 	private volatile int singleGoalCounter;
-	
-	protected SwiPrologGoalBase(MentalState owner, String name) {
+
+	protected SwiPrologGoalBase(final MentalState owner, final String name) throws MSTDatabaseException {
 		super(owner, name);
+		try {
+			this.database = (PrologDatabase) owner.getOwner().getKRInterface().getDatabase(
+					owner.getAgentId().toString(), name + "$" + baseCounter.getAndIncrement());
+			this.owner.createdDatabase(this.database, BASETYPE.GOALBASE); // adds the required knowledge
+			final Var id = PrologImplFactory.getVar("Id", null);
+			final Var query = PrologImplFactory.getVar("Query", null);
+			// :- dynamic '$goal_id'/1, '$goal'/2.
+			this.database.insert(PrologImplFactory.getDBFormula(PrologImplFactory.getCompound(":-",
+					new Term[] { PrologImplFactory.getCompound("dynamic",
+							new Term[] { PrologImplFactory.getCompound(",",
+									new Term[] { indicator(GOAL_ID, 1), indicator(GOAL, 2) }, null) },
+							null) },
+					null)));
+			// '$goal_query'(Id, Query) :- '$goal_id'(Id), b_setval('$goal', Id), call(Query).
+			final PrologCompound head = PrologImplFactory.getCompound(GOAL_QUERY.getName(), new Term[] { id, query },
+					null);
+			final PrologCompound body = PrologImplFactory.getCompound(",",
+					new Term[] { PrologImplFactory.getCompound(GOAL_ID.getName(), new Term[] { id }, null),
+							PrologImplFactory.getCompound(",", new Term[] {
+									PrologImplFactory.getCompound("b_setval", new Term[] { GOAL, id }, null),
+									PrologImplFactory.getCompound("call", new Term[] { query }, null) }, null) },
+					null);
+			this.database.insert(
+					PrologImplFactory.getDBFormula(PrologImplFactory.getCompound(":-", new Term[] { head, body }, null)));
+		} catch (final KRDatabaseException e) {
+			throw new MSTDatabaseException("could not create a database for goal base '" + name + "' of '"
+					+ this.owner.getOwner() + "'.", e);
+		}
+	}
+
+	private static PrologCompound indicator(final PrologCompound name, final int arity) {
+		return PrologImplFactory.getCompound("/", new Term[] { name, PrologImplFactory.getNumber(arity, null) },
+				null);
+	}
+
+	PrologDatabase getDatabase() {
+		return this.database;
+	}
+
+	@Override
+	public long getVersion() {
+		return this.database.getVersion();
 	}
 
 	@Override
-	protected SingleGoal createGoal(Update goal) throws MSTDatabaseException {
+	protected SingleGoal createGoal(final Update goal) throws MSTDatabaseException {
 		return new SwiPrologGoal(this, this.singleGoalCounter++, goal);
 	}
+
+	/**
+	 * Adds the facts representing a goal to the database.
+	 *
+	 * @param goal
+	 *            The goal to add.
+	 * @param conjuncts
+	 *            The conjuncts of the goal.
+	 * @throws KRDatabaseException
+	 */
+	void add(final SwiPrologGoal goal, final List<PrologCompound> conjuncts) throws KRDatabaseException {
+		for (final PrologCompound conjunct : conjuncts) {
+			if (this.signatures.add(conjunct.getSignature())) {
+				addResolver(conjunct);
+			}
+			this.database.insert(getGoalFact(goal, conjunct));
+		}
+		this.database.insert(getGoalIdFact(goal));
+		this.byId.put(goal.getIdTerm().toString(), goal);
+	}
+
+	/**
+	 * Removes the facts representing a goal from the database.
+	 *
+	 * @param goal
+	 *            The goal to remove.
+	 * @param conjuncts
+	 *            The conjuncts of the goal.
+	 * @throws KRDatabaseException
+	 */
+	void remove(final SwiPrologGoal goal, final List<PrologCompound> conjuncts) throws KRDatabaseException {
+		if (this.byId.remove(goal.getIdTerm().toString()) != null) {
+			this.database.delete(getGoalIdFact(goal));
+			for (final PrologCompound conjunct : conjuncts) {
+				this.database.delete(getGoalFact(goal, conjunct));
+			}
+		}
+	}
+
+	/**
+	 * Adds a rule <tt>p(A0,...,An) :- b_getval('$goal', Id), '$goal'(Id,
+	 * p(A0,...,An))</tt> to the database, which resolves a call to the predicate of
+	 * the given conjunct on the goal that is currently being queried.
+	 *
+	 * @param conjunct
+	 *            A conjunct of a goal.
+	 * @throws KRDatabaseException
+	 */
+	private void addResolver(final PrologCompound conjunct) throws KRDatabaseException {
+		final Term[] args = new Term[conjunct.getArity()];
+		for (int i = 0; i < args.length; ++i) {
+			args[i] = PrologImplFactory.getVar("A" + i, null);
+		}
+		final PrologCompound head = (args.length == 0) ? PrologImplFactory.getAtom(conjunct.getName(), null)
+				: PrologImplFactory.getCompound(conjunct.getName(), args, null);
+		final Var id = PrologImplFactory.getVar("Id", null);
+		final PrologCompound body = PrologImplFactory.getCompound(",",
+				new Term[] { PrologImplFactory.getCompound("b_getval", new Term[] { GOAL, id }, null),
+						PrologImplFactory.getCompound(GOAL.getName(), new Term[] { id, head }, null) },
+				null);
+		this.database.insert(
+				PrologImplFactory.getDBFormula(PrologImplFactory.getCompound(":-", new Term[] { head, body }, null)));
+	}
+
+	private static DatabaseFormula getGoalFact(final SwiPrologGoal goal, final PrologCompound conjunct) {
+		return PrologImplFactory.getDBFormula(
+				PrologImplFactory.getCompound(GOAL.getName(), new Term[] { goal.getIdTerm(), conjunct }, null));
+	}
+
+	private static DatabaseFormula getGoalIdFact(final SwiPrologGoal goal) {
+		return PrologImplFactory
+				.getDBFormula(PrologImplFactory.getCompound(GOAL_ID.getName(), new Term[] { goal.getIdTerm() }, null));
+	}
+
+	/**
+	 * @param id
+	 *            The identifier of a goal, or a variable.
+	 * @param query
+	 *            A query.
+	 * @return <tt>'$goal_query'(Id, Query)</tt>, i.e. a goal that evaluates the
+	 *         query on the identified goal(s).
+	 */
+	static PrologCompound getGoalQuery(final Term id, final Query query) {
+		return PrologImplFactory.getCompound(GOAL_QUERY.getName(),
+				new Term[] { id, ((PrologQuery) query).getCompound() }, null);
+	}
+
+	/**
+	 * Performs the query on all goals at once.
+	 */
+	@Override
+	public Set<Substitution> query(final Query query) throws MSTQueryException {
+		final Var any = PrologImplFactory.getVar("_", null);
+		try {
+			return this.database.query(PrologImplFactory.getQuery(getGoalQuery(any, query)));
+		} catch (final KRQueryFailedException e) {
+			throw new MSTQueryException("failed to evaluate '" + query + "' on goal base '" + this.name + "'.", e);
+		}
+	}
+
+	/**
+	 * Checks all goals at once.
+	 */
+	@Override
+	public boolean exists(final Query query) throws MSTQueryException {
+		final Var any = PrologImplFactory.getVar("_", null);
+		try {
+			return this.database.exists(PrologImplFactory.getQuery(getGoalQuery(any, query)));
+		} catch (final KRQueryFailedException e) {
+			throw new MSTQueryException("failed to evaluate '" + query + "' on goal base '" + this.name + "'.", e);
+		}
+	}
+
+	/**
+	 * Determines the entailing goals with a single query on the database.
+	 */
+	@Override
+	protected List<SingleGoal> getEntailingGoals(final Query query) throws MSTQueryException {
+		final Var id = PrologImplFactory.getVar("_GoalId", null);
+		final Set<Substitution> solutions;
+		try {
+			solutions = this.database.query(PrologImplFactory.getQuery(getGoalQuery(id, query)));
+		} catch (final KRQueryFailedException e) {
+			throw new MSTQueryException("failed to evaluate '" + query + "' on goal base '" + this.name + "'.", e);
+		}
+		final Map<String, SingleGoal> entailing = new LinkedHashMap<>(solutions.size());
+		for (final Substitution solution : solutions) {
+			final Term value = solution.get(id);
+			final SwiPrologGoal goal = (value == null) ? null : this.byId.get(value.toString());
+			if (goal != null) {
+				entailing.put(value.toString(), goal);
+			}
+		}
+		return new ArrayList<>(entailing.values());
+	}
+
+	@Override
+	protected void destroy() throws MSTDatabaseException {
+		try {
+			this.database.destroy();
+		} catch (final KRDatabaseException e) {
+			throw new MSTDatabaseException("could not destroy goal base '" + this.name + "'.", e);
+		}
+	}
 }
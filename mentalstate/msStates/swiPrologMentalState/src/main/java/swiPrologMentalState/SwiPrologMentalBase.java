@@ -56,6 +56,11 @@ public class SwiPrologMentalBase extends MentalBase {
 		return this.database;
 	}
 
+	@Override
+	public long getVersion() {
+		return this.database.getVersion();
+	}
+
 	@Override
 	public void destroy() throws MSTDatabaseException {
 		try {
@@ -75,6 +80,16 @@ public class SwiPrologMentalBase extends MentalBase {
 		}
 	}
 
+	@Override
+	public boolean exists(final Query formula) throws MSTQueryException {
+		try {
+			return this.database.exists(formula);
+		} catch (final KRQueryFailedException e) {
+			throw new MSTQueryException(
+					String.format("failed to query '%s' on '%s'.", formula.toString(), this.database.getName()), e);
+		}
+	}
+
 	@Override
 	public Result insert(final DatabaseFormula formula) throws MSTQueryException {
 		try {
@@ -102,4 +117,29 @@ public class SwiPrologMentalBase extends MentalBase {
 					String.format("failed to delete '%s' from '%s'.", formula.toString(), this.database.getName()), e);
 		}
 	}
+
+	@Override
+	protected Result insertAll(final List<DatabaseFormula> formulas) throws MSTQueryException {
+		try {
+			final Result result = this.owner.createResult(this.type, this.forAgent.toString());
+			result.added(this.database.insertAll(formulas));
+			return result;
+		} catch (final KRDatabaseException e) {
+			throw new MSTQueryException(
+					String.format("failed to add '%s' to '%s'.", formulas.toString(), this.database.getName()), e);
+		}
+	}
+
+	@Override
+	protected Result deleteAll(final List<DatabaseFormula> formulas) throws MSTQueryException {
+		try {
+			final Result result = this.owner.createResult(this.type, this.forAgent.toString());
+			result.removed(this.database.deleteAll(formulas));
+			return result;
+		} catch (final KRDatabaseException e) {
+			throw new MSTQueryException(
+					String.format("failed to delete '%s' from '%s'.", formulas.toString(), this.database.getName()),
+					e);
+		}
+	}
 }
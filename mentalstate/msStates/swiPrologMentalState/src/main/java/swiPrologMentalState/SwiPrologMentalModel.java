@@ -1,16 +1,36 @@
 package swiPrologMentalState;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
+import events.Channel;
+import events.ExecutionEventGeneratorInterface;
+import events.jfr.JfrEvents;
+import events.jfr.QueryEvent;
+import krTools.exceptions.KRQueryFailedException;
 import krTools.language.DatabaseFormula;
 import krTools.language.Query;
 import krTools.language.Substitution;
 import krTools.language.Term;
+import krTools.language.Update;
+import krTools.language.Var;
 import languageTools.program.agent.AgentId;
+import languageTools.program.agent.msc.AGoalLiteral;
+import languageTools.program.agent.msc.BelLiteral;
+import languageTools.program.agent.msc.GoalALiteral;
+import languageTools.program.agent.msc.GoalLiteral;
+import languageTools.program.agent.msc.MentalLiteral;
+import languageTools.program.agent.msc.PerceptLiteral;
+import languageTools.program.agent.msc.SentLiteral;
 import languageTools.program.agent.msg.SentenceMood;
+import languageTools.program.agent.selector.Selector.SelectorType;
 import mentalState.BASETYPE;
 import mentalState.GoalBase;
 import mentalState.MentalBase;
@@ -19,14 +39,38 @@ import mentalState.MentalState;
 import mentalState.error.MSTDatabaseException;
 import mentalState.error.MSTQueryException;
 import mentalState.error.MSTTranslationException;
+import mentalState.executors.SelectorExecutor;
 import mentalState.translator.Translator;
 import swiPrologMentalState.translator.SwiPrologTranslator;
+import swiprolog.database.PrologDatabase;
 import swiprolog.language.PrologCompound;
+import swiprolog.language.PrologDBFormula;
+import swiprolog.language.PrologExpression;
 import swiprolog.language.PrologQuery;
 import swiprolog.language.impl.PrologImplFactory;
 import swiprolog.parser.PrologOperators;
+import swiprolog.validator.SemanticTools;
 
 public class SwiPrologMentalModel extends MentalModel {
+	/**
+	 * For each predicate (name) defined by a rule in the knowledge or the belief
+	 * base, the predicate names used in the bodies of its rules, or null if a
+	 * rule calls a variable (so its dependencies are unknown). Predicate names
+	 * rather than signatures are used because a predicate can also be passed
+	 * (by name) to a meta-predicate like maplist/2. Computed on demand, and reset
+	 * when a rule is inserted into or deleted from the belief base.
+	 */
+	private Map<String, Set<String>> rules;
+	/**
+	 * The (transitive) dependencies of each goal as computed by
+	 * {@link #getGoalDependencies(Update)}, which are cleared together with
+	 * {@link #rules}. Goals for which the dependencies have not been asked since
+	 * the previous goal state update (i.e. that are no longer in a goal base)
+	 * are removed when the next changes are processed.
+	 */
+	private final Map<Update, Set<String>> goalDependencies = new HashMap<>();
+	private final Set<Update> usedDependencies = new HashSet<>();
+
 	SwiPrologMentalModel(final MentalState owner, final AgentId forAgent) {
 		super(owner, forAgent);
 	}
@@ -52,8 +96,7 @@ public class SwiPrologMentalModel extends MentalModel {
 		// Create the belief, percept, and goal bases for which selectors are
 		// applicable (i.e. apply to any agent we want to add a model for).
 		// Note that the order here is important...
-		final SwiPrologMentalBase percepts = new SwiPrologMentalBase(this.owner, this.forAgent, BASETYPE.PERCEPTBASE,
-				null);
+		final SwiPrologPerceptBase percepts = new SwiPrologPerceptBase(this.owner, this.forAgent, getTranslator());
 		addBase(percepts, BASETYPE.PERCEPTBASE);
 		final SwiPrologGoalBase goals = (SwiPrologGoalBase) createGoalBase(me ? "main" : this.forAgent.toString());
 		addGoalBase(goals);
@@ -77,6 +120,11 @@ public class SwiPrologMentalModel extends MentalModel {
 		return getBase(BASETYPE.BELIEFBASE).query(query);
 	}
 
+	@Override
+	protected boolean beliefExists(final Query query) throws MSTQueryException {
+		return getBase(BASETYPE.BELIEFBASE).exists(query);
+	}
+
 	@Override
 	protected Set<Substitution> perceptQuery(final Query query) throws MSTQueryException {
 		final Query percept = processPercept((PrologQuery) query);
@@ -113,6 +161,324 @@ public class SwiPrologMentalModel extends MentalModel {
 		return getBase(BASETYPE.MESSAGEBASE).query(message);
 	}
 
+	/**
+	 * Returns the names of all predicates that the goal's conjuncts (transitively)
+	 * depend on through the rules in the knowledge and belief base. The result
+	 * is cached until a rule is inserted or deleted.
+	 */
+	@Override
+	protected Set<String> getGoalDependencies(final Update goal) {
+		this.usedDependencies.add(goal);
+		if (this.goalDependencies.containsKey(goal)) {
+			return this.goalDependencies.get(goal);
+		}
+		final Map<String, Set<String>> rules = getRules();
+		Set<String> dependencies = new HashSet<>();
+		final LinkedList<String> todo = new LinkedList<>();
+		for (final DatabaseFormula conjunct : goal.getAddList()) {
+			todo.add(((PrologDBFormula) conjunct).getCompound().getName());
+		}
+		while (!todo.isEmpty()) {
+			final String name = todo.pop();
+			if (dependencies.add(name) && rules.containsKey(name)) {
+				final Set<String> used = rules.get(name);
+				if (used == null) {
+					dependencies = null;
+					break;
+				}
+				todo.addAll(used);
+			}
+		}
+		this.goalDependencies.put(goal, dependencies);
+		return dependencies;
+	}
+
+	/**
+	 * Returns the names of the predicates of the changed facts, or of the heads
+	 * of the changed rules (in which case the rule dependencies are recomputed).
+	 */
+	@Override
+	protected Set<String> getChangedSignatures(final List<DatabaseFormula> changes) {
+		this.goalDependencies.keySet().retainAll(this.usedDependencies);
+		this.usedDependencies.clear();
+		final Set<String> changed = new HashSet<>(changes.size());
+		for (final DatabaseFormula formula : changes) {
+			final PrologCompound compound = ((PrologDBFormula) formula).getCompound();
+			if (compound.isDirective()) {
+				return null;
+			} else if (compound.getSignature().equals(":-/2")) {
+				this.rules = null;
+				this.goalDependencies.clear();
+				changed.add(getName(compound.getArg(0).getSignature()));
+			} else {
+				changed.add(compound.getName());
+			}
+		}
+		return changed;
+	}
+
+	private Map<String, Set<String>> getRules() {
+		if (this.rules == null) {
+			final Map<String, Set<String>> rules = new HashMap<>();
+			addRules(rules, this.owner.getOwner().getAllKnowledge());
+			addRules(rules,
+					((SwiPrologMentalBase) getBase(BASETYPE.BELIEFBASE)).getDatabase().getTheory().getFormulas());
+			this.rules = rules;
+		}
+		return this.rules;
+	}
+
+	private static void addRules(final Map<String, Set<String>> rules, final Collection<DatabaseFormula> formulas) {
+		for (final DatabaseFormula formula : formulas) {
+			final PrologCompound clause = ((PrologDBFormula) formula).getCompound();
+			if (!clause.getSignature().equals(":-/2")) {
+				continue;
+			}
+			final String name = getName(clause.getArg(0).getSignature());
+			if (rules.containsKey(name) && rules.get(name) == null) {
+				continue;
+			}
+			final Term body = clause.getArg(1);
+			if (callsVariable(body)) {
+				rules.put(name, null);
+			} else {
+				Set<String> used = rules.get(name);
+				if (used == null) {
+					used = new HashSet<>();
+					rules.put(name, used);
+				}
+				for (final String signature : SemanticTools.getUsedSignatures((PrologExpression) body)) {
+					used.add(getName(signature));
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param signature
+	 *            A signature of the form name/arity.
+	 * @return The name.
+	 */
+	private static String getName(final String signature) {
+		return signature.substring(0, signature.lastIndexOf('/'));
+	}
+
+	/**
+	 * @param body
+	 *            The body of a rule.
+	 * @return True if the body (possibly) calls a variable, directly or through
+	 *         a (common) meta-predicate.
+	 */
+	private static boolean callsVariable(final Term body) {
+		if (body instanceof Var) {
+			return true;
+		} else if (!(body instanceof PrologCompound)) {
+			return false;
+		}
+		final PrologCompound compound = (PrologCompound) body;
+		switch (compound.getName()) {
+		case ",":
+		case ";":
+		case "->":
+		case "*->":
+		case "forall":
+			for (final Term arg : compound) {
+				if (callsVariable(arg)) {
+					return true;
+				}
+			}
+			return false;
+		case "^":
+		case "findall":
+		case "bagof":
+		case "setof":
+		case "aggregate_all":
+			return compound.getArity() > 1 && callsVariable(compound.getArg(1));
+		case "\\+":
+		case "not":
+		case "call":
+		case "once":
+		case "ignore":
+		case "maplist":
+		case "foldl":
+		case "include":
+		case "exclude":
+		case "partition":
+			return compound.getArity() > 0 && callsVariable(compound.getArg(0));
+		default:
+			return false;
+		}
+	}
+
+	/**
+	 * Evaluates a conjunction of literals as a single SWI Prolog query, in which
+	 * each literal is qualified with the module(s) of the base(s) it should be
+	 * evaluated on. Goal literals are evaluated on all goals in the relevant
+	 * attention set at once. Like other queries, the result is taken from the
+	 * query cache if none of the bases involved has been modified since.
+	 *
+	 * @param literals
+	 *            The conjunction of literals to evaluate.
+	 * @param generator
+	 *            the channel to report executed actions to.
+	 * @return A set of substitutions, each of which make the conjunction true, or
+	 *         null if (some literal in) the conjunction cannot be evaluated as a
+	 *         single query on this model.
+	 * @throws MSTQueryException
+	 */
+	Set<Substitution> conjunctiveQuery(final List<MentalLiteral> literals,
+			final ExecutionEventGeneratorInterface generator) throws MSTQueryException {
+		final Set<PrologDatabase> databases = new LinkedHashSet<>();
+		final Set<Object> bases = new LinkedHashSet<>();
+		final List<Term> goals = new ArrayList<>(literals.size());
+		final Set<Var> answerVars = new LinkedHashSet<>();
+		for (final MentalLiteral literal : literals) {
+			final Term goal = compile(literal, databases, bases);
+			if (goal == null) {
+				return null;
+			} else if (literal.isPositive()) {
+				goals.add(goal);
+				// Only variables in positive literals can be bound.
+				answerVars.addAll(literal.getFreeVar());
+			} else {
+				goals.add(PrologImplFactory.getCompound("not", new Term[] { goal }, literal.getSourceInfo()));
+			}
+		}
+		final MentalLiteral first = literals.get(0);
+		final PrologCompound conjunction = SwiPrologTranslator.termsToConjunct(goals, first.getSourceInfo());
+
+		if (generator.isEnabled(Channel.DB_QUERY_START)) {
+			generator.event(Channel.DB_QUERY_START, first, first.getSourceInfo(), "starting query %s", conjunction);
+		}
+		final QueryEvent jfr = JfrEvents.beginQuery();
+		final Set<Substitution> result = cachedQuery(bases, conjunction, () -> {
+			Set<Substitution> solutions;
+			try {
+				solutions = PrologDatabase.query(conjunction, databases);
+			} catch (final KRQueryFailedException e) {
+				throw new MSTQueryException("conjunctive query '" + conjunction + "' failed.", e);
+			}
+			final Set<Substitution> answers = new LinkedHashSet<>(solutions.size());
+			for (final Substitution solution : solutions) {
+				solution.retainAll(answerVars);
+				answers.add(solution);
+			}
+			return answers;
+		});
+		if (generator.isEnabled(Channel.DB_QUERY_END)) {
+			generator.event(Channel.DB_QUERY_END, first, first.getSourceInfo(), "query result: %s", result);
+		}
+		if (jfr != null) {
+			jfr.commit(this.owner.getAgentId(), first.getSourceInfo(), first, conjunction, result.size());
+		}
+
+		return result;
+	}
+
+	/**
+	 * Translates a single literal into a (module qualified) SWI Prolog goal, see
+	 * {@link #conjunctiveQuery(List, ExecutionEventGeneratorInterface)}.
+	 *
+	 * @param literal
+	 *            The literal to translate. The polarity of the literal is ignored.
+	 * @param databases
+	 *            The databases that are referenced by the goal are added to this
+	 *            set.
+	 * @param bases
+	 *            The (mental or goal) bases of these databases are added to this
+	 *            set.
+	 * @return The goal, or null if the literal cannot be translated.
+	 * @throws MSTQueryException
+	 */
+	private Term compile(final MentalLiteral literal, final Set<PrologDatabase> databases, final Set<Object> bases)
+			throws MSTQueryException {
+		final PrologQuery query = (PrologQuery) literal.getFormula();
+		if (literal instanceof SentLiteral) {
+			final SentenceMood mood = ((SentLiteral) literal).getMood();
+			final SwiPrologMentalBase base = (SwiPrologMentalBase) getBase(BASETYPE.MESSAGEBASE);
+			final PrologDatabase messages = base.getDatabase();
+			databases.add(messages);
+			bases.add(base);
+			final List<AgentId> senders = new SelectorExecutor(literal.getSelector()).evaluate(this.owner, true);
+			final List<Query> options = new ArrayList<>(1);
+			if (senders == null) { // variable
+				options.add(processMessage(query, mood, literal.getSelector().getParameters().get(0)));
+			} else if (senders.isEmpty()) {
+				options.add(processMessage(query, mood, PrologImplFactory.getVar("_", null)));
+			} else {
+				final Translator translator = getTranslator();
+				for (final AgentId sender : senders) {
+					try {
+						options.add(processMessage(query, mood, translator.convert(sender)));
+					} catch (final MSTTranslationException e) {
+						throw new MSTQueryException("unable to translate message sender '" + sender + "' to Prolog.",
+								e);
+					}
+				}
+			}
+			final List<Term> qualified = new ArrayList<>(options.size());
+			for (final Query option : options) {
+				qualified.add(messages.qualify(((PrologQuery) option).getCompound()));
+			}
+			return disjunct(qualified);
+		}
+
+		final SelectorType selector = literal.getSelector().getType();
+		if (selector != SelectorType.SELF && selector != SelectorType.THIS) {
+			return null;
+		}
+		final boolean focus = (selector != SelectorType.SELF);
+		final SwiPrologMentalBase beliefBase = (SwiPrologMentalBase) getBase(BASETYPE.BELIEFBASE);
+		final PrologDatabase beliefs = beliefBase.getDatabase();
+		if (literal instanceof BelLiteral) {
+			databases.add(beliefs);
+			bases.add(beliefBase);
+			return beliefs.qualify(query.getCompound());
+		} else if (literal instanceof PerceptLiteral) {
+			final SwiPrologMentalBase perceptBase = (SwiPrologMentalBase) getBase(BASETYPE.PERCEPTBASE);
+			final PrologDatabase percepts = perceptBase.getDatabase();
+			databases.add(percepts);
+			bases.add(perceptBase);
+			return percepts.qualify(((PrologQuery) processPercept(query)).getCompound());
+		} else if (literal instanceof GoalLiteral || literal instanceof AGoalLiteral
+				|| literal instanceof GoalALiteral) {
+			final SwiPrologGoalBase attentionSet = (SwiPrologGoalBase) getAttentionSet(focus);
+			final PrologDatabase goalbase = attentionSet.getDatabase();
+			databases.add(goalbase);
+			bases.add(attentionSet);
+			final Term goals = goalbase
+					.qualify(SwiPrologGoalBase.getGoalQuery(PrologImplFactory.getVar("_", null), query));
+			if (literal instanceof GoalLiteral) {
+				return goals;
+			}
+			databases.add(beliefs);
+			bases.add(beliefBase);
+			final Term belief = beliefs.qualify(query.getCompound());
+			final Term check = (literal instanceof AGoalLiteral)
+					? PrologImplFactory.getCompound("not", new Term[] { belief }, literal.getSourceInfo())
+					: PrologImplFactory.getCompound("once", new Term[] { belief }, literal.getSourceInfo());
+			return PrologImplFactory.getCompound(",", new Term[] { goals, check }, literal.getSourceInfo());
+		} else {
+			return null;
+		}
+	}
+
+	/**
+	 * @param terms
+	 *            The terms to combine.
+	 * @return A disjunction of the given terms, or 'fail' if there are none.
+	 */
+	private static Term disjunct(final List<Term> terms) {
+		if (terms.isEmpty()) {
+			return PrologImplFactory.getAtom("fail", null);
+		}
+		Term disjunction = terms.get(terms.size() - 1);
+		for (int i = terms.size() - 2; i >= 0; i--) {
+			disjunction = PrologImplFactory.getCompound(";", new Term[] { terms.get(i), disjunction }, null);
+		}
+		return disjunction;
+	}
+
 	// Helper functions
 	// TODO: partial duplication with functions in SwiprologMentalState
 	private Query processPercept(final PrologQuery percept) throws MSTQueryException {
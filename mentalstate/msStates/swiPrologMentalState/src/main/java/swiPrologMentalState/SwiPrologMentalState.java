@@ -20,18 +20,23 @@ package swiPrologMentalState;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
 import eis.iilang.Percept;
+import events.ExecutionEventGeneratorInterface;
 import krTools.database.Database;
 import krTools.exceptions.KRDatabaseException;
 import krTools.exceptions.KRQueryFailedException;
 import krTools.language.DatabaseFormula;
+import krTools.language.Substitution;
 import krTools.language.Term;
 import krTools.language.Update;
 import languageTools.program.agent.AgentId;
+import languageTools.program.agent.msc.MentalLiteral;
 import languageTools.program.agent.msg.Message;
 import languageTools.program.mas.AgentDefinition;
 import mentalState.BASETYPE;
@@ -93,17 +98,25 @@ public class SwiPrologMentalState extends MentalState {
 		return new SwiPrologMentalModel(this, forAgent);
 	}
 
+	@Override
+	protected Set<Substitution> conjunctiveQuery(final List<MentalLiteral> literals,
+			final ExecutionEventGeneratorInterface generator) throws MSTQueryException {
+		return ((SwiPrologMentalModel) getOwnModel()).conjunctiveQuery(literals, generator);
+	}
+
 	@Override
 	public void createdDatabase(final Database database, final BASETYPE type) throws MSTDatabaseException {
 		final PrologDatabase db = (PrologDatabase) database;
 		switch (type) {
 		case BELIEFBASE:
 		case GOALBASE:
-			// In the belief and goal bases, all knowledge is added.
+			// In the belief and goal bases, all knowledge is imported.
 			try {
-				db.addKnowledge(getKnowledge());
+				final SwiPrologMentalBase knowledge = (SwiPrologMentalBase) getOwnModel()
+						.getBase(BASETYPE.KNOWLEDGEBASE);
+				db.importKnowledge(knowledge.getDatabase());
 				break;
-			} catch (final KRDatabaseException | MSTQueryException e) {
+			} catch (final KRDatabaseException e) {
 				throw new MSTDatabaseException("unable to impose knowledge on SWI database '" + db.getName() + "'.", e);
 			}
 		case PERCEPTBASE:
@@ -187,43 +200,56 @@ public class SwiPrologMentalState extends MentalState {
 	}
 
 	@Override
-	public List<Result> percept(final Percept percept, AgentId... agent)
+	public List<Result> percept(final Percept percept, final AgentId... agent)
+			throws MSTDatabaseException, MSTQueryException {
+		return updatePercepts(Collections.singletonList(percept), Collections.<Percept>emptyList(), agent);
+	}
+
+	@Override
+	public List<Result> removePercept(final Percept percept, final AgentId... agent)
 			throws MSTDatabaseException, MSTQueryException {
+		return updatePercepts(Collections.<Percept>emptyList(), Collections.singletonList(percept), agent);
+	}
+
+	@Override
+	public List<Result> updatePercepts(final Collection<Percept> add, final Collection<Percept> remove,
+			AgentId... agent) throws MSTDatabaseException, MSTQueryException {
 		if (agent.length == 0) {
 			agent = new AgentId[] { this.agentId };
 		}
 		final List<Result> results = new ArrayList<>(agent.length);
 		for (final AgentId id : agent) {
-			try {
-				final MentalBase base = getModel(id).getBase(BASETYPE.PERCEPTBASE);
-				final DatabaseFormula formula = this.translator.convertPercept(percept);
-				results.add(base.insert(formula));
-			} catch (final MSTTranslationException e) {
-				throw new MSTQueryException("unable to process percept '" + percept + "'.", e);
-			}
+			results.add(getPerceptBase(id).update(add, remove));
 		}
 		return results;
 	}
 
 	@Override
-	public List<Result> removePercept(final Percept percept, AgentId... agent)
+	public List<Result> setPercepts(final Collection<Percept> percepts, AgentId... agent)
 			throws MSTDatabaseException, MSTQueryException {
 		if (agent.length == 0) {
 			agent = new AgentId[] { this.agentId };
 		}
 		final List<Result> results = new ArrayList<>(agent.length);
 		for (final AgentId id : agent) {
-			try {
-				final MentalBase base = getModel(id).getBase(BASETYPE.PERCEPTBASE);
-				final DatabaseFormula formula = this.translator.convertPercept(percept);
-				results.add(base.delete(formula));
-			} catch (final MSTTranslationException e) {
-				throw new MSTQueryException("unable to process percept percept '" + percept + "'.", e);
-			}
+			results.add(getPerceptBase(id).set(percepts));
 		}
 		return results;
 	}
 
+	@Override
+	public void preparePercepts(final Collection<Percept> percepts) {
+		try {
+			getPerceptBase(this.agentId).translate(percepts);
+		} catch (MSTDatabaseException | MSTQueryException e) {
+			// nothing to prepare; the update itself will report the problem
+		}
+	}
+
+	private SwiPrologPerceptBase getPerceptBase(final AgentId id) throws MSTDatabaseException, MSTQueryException {
+		return (SwiPrologPerceptBase) getModel(id).getBase(BASETYPE.PERCEPTBASE);
+	}
+
 	@Override
 	public Set<DatabaseFormula> getKnowledge() throws MSTDatabaseException, MSTQueryException {
 		final SwiPrologMentalBase base = (SwiPrologMentalBase) getOwnModel().getBase(BASETYPE.KNOWLEDGEBASE);
@@ -254,26 +280,14 @@ public class SwiPrologMentalState extends MentalState {
 	@Override
 	public Set<Percept> getPercepts(final AgentId... agent) throws MSTDatabaseException, MSTQueryException {
 		final AgentId id = (agent.length == 0) ? this.agentId : agent[0];
-		final SwiPrologMentalBase base = (SwiPrologMentalBase) getModel(id).getBase(BASETYPE.PERCEPTBASE);
-		final Set<DatabaseFormula> formulas = base.getDatabase().getTheory().getFormulas();
-		final Set<Percept> returned = new LinkedHashSet<>(formulas.size());
-		for (final DatabaseFormula formula : formulas) {
-			try {
-				final Percept percept = this.translator.convertPercept(formula);
-				returned.add(percept);
-			} catch (final MSTTranslationException e) {
-				throw new MSTQueryException("unable to process percept formula '" + formula + "'.", e);
-			}
-		}
-		return returned;
+		return getPerceptBase(id).getPercepts();
 	}
 
 	@Override
 	public int getPerceptCount() {
 		int count = 0;
 		for (final MentalModel model : getActiveModels()) {
-			final SwiPrologMentalBase base = (SwiPrologMentalBase) model.getBase(BASETYPE.PERCEPTBASE);
-			count += base.getDatabase().getTheory().getFormulas().size();
+			count += ((SwiPrologPerceptBase) model.getBase(BASETYPE.PERCEPTBASE)).getCount();
 		}
 		return count;
 	}
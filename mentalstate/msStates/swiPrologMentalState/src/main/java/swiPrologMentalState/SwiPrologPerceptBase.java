@@ -0,0 +1,227 @@
+package swiPrologMentalState;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import eis.iilang.Percept;
+import krTools.exceptions.KRDatabaseException;
+import krTools.language.DatabaseFormula;
+import languageTools.program.agent.AgentId;
+import mentalState.BASETYPE;
+import mentalState.MentalState;
+import mentalState.Result;
+import mentalState.error.MSTDatabaseException;
+import mentalState.error.MSTQueryException;
+import mentalState.error.MSTTranslationException;
+import mentalState.translator.Translator;
+
+/**
+ * A percept base that keeps track of its percepts in a hash map, next to the
+ * <tt>percept/1</tt> facts in its database. Changes to the percept base are
+ * computed on the percepts themselves, so percepts that are removed or
+ * inserted again do not have to be translated again, and only the actual
+ * changes are passed on to the database (in a single bulk operation).
+ */
+public class SwiPrologPerceptBase extends SwiPrologMentalBase {
+	/**
+	 * The maximum number of translations of percepts that are not in the base
+	 * that are remembered.
+	 */
+	private static final int TRANSLATION_CACHE_SIZE = 1024;
+	private final Translator translator;
+	/**
+	 * The percepts in this base with their translation.
+	 */
+	private final Map<Percept, DatabaseFormula> percepts = new LinkedHashMap<>();
+	/**
+	 * The translations of percepts that have been removed from the base (most
+	 * recently removed last), as percepts often re-appear.
+	 */
+	private final Map<Percept, DatabaseFormula> translations = new LinkedHashMap<Percept, DatabaseFormula>(16, 0.75f,
+			true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(final Map.Entry<Percept, DatabaseFormula> eldest) {
+			return size() > TRANSLATION_CACHE_SIZE;
+		}
+	};
+	/**
+	 * The translations of percepts that are about to be inserted, as prepared by
+	 * {@link #translate(Collection)}. Not bounded, as a snapshot can hold more
+	 * percepts than the cache of {@link #translations}; emptied by every update.
+	 */
+	private final Map<Percept, DatabaseFormula> prepared = new HashMap<>();
+
+	/**
+	 * @param owner      the owner (MentalState).
+	 * @param forAgent   the agent owning this database
+	 * @param translator the translator used to convert percepts.
+	 * @throws MSTDatabaseException
+	 */
+	protected SwiPrologPerceptBase(final MentalState owner, final AgentId forAgent, final Translator translator)
+			throws MSTDatabaseException {
+		super(owner, forAgent, BASETYPE.PERCEPTBASE, null);
+		this.translator = translator;
+	}
+
+	/**
+	 * @return The percepts in this base.
+	 */
+	public synchronized Set<Percept> getPercepts() {
+		return new LinkedHashSet<>(this.percepts.keySet());
+	}
+
+	/**
+	 * @return The number of percepts in this base.
+	 */
+	public synchronized int getCount() {
+		return this.percepts.size();
+	}
+
+	/**
+	 * Removes and inserts percepts. A percept that is both removed and inserted
+	 * remains in the base.
+	 *
+	 * @param add    The percepts to insert.
+	 * @param remove The percepts to remove.
+	 * @return The changes made to the base.
+	 * @throws MSTQueryException
+	 */
+	public synchronized Result update(final Collection<Percept> add, final Collection<Percept> remove)
+			throws MSTQueryException {
+		final Set<Percept> inserted = new LinkedHashSet<>(add);
+		final List<Percept> removed = new ArrayList<>(remove.size());
+		for (final Percept percept : remove) {
+			if (!inserted.contains(percept) && this.percepts.containsKey(percept)) {
+				removed.add(percept);
+			}
+		}
+		inserted.removeAll(this.percepts.keySet());
+		return apply(inserted, removed);
+	}
+
+	/**
+	 * Replaces the percepts in this base by the given snapshot.
+	 *
+	 * @param snapshot All percepts that should be in the base.
+	 * @return The changes made to the base.
+	 * @throws MSTQueryException
+	 */
+	public synchronized Result set(final Collection<Percept> snapshot) throws MSTQueryException {
+		final Set<Percept> inserted = new LinkedHashSet<>(snapshot);
+		final List<Percept> removed = new ArrayList<>();
+		for (final Percept percept : this.percepts.keySet()) {
+			if (!inserted.remove(percept)) {
+				removed.add(percept);
+			}
+		}
+		return apply(inserted, removed);
+	}
+
+	/**
+	 * Translates percepts in advance, so that inserting them later on does not
+	 * have to translate them anymore. The translation itself is done without
+	 * holding the lock on this base, so this can be done on another thread while
+	 * the agent uses the base. All translations are kept for the next update,
+	 * however many percepts there are.
+	 *
+	 * @param percepts The percepts that are likely to be inserted.
+	 */
+	public void translate(final Collection<Percept> percepts) {
+		final List<Percept> missing = new ArrayList<>(percepts.size());
+		synchronized (this) {
+			for (final Percept percept : percepts) {
+				if (!this.percepts.containsKey(percept) && !this.prepared.containsKey(percept)
+						&& !this.translations.containsKey(percept)) {
+					missing.add(percept);
+				}
+			}
+		}
+		final Map<Percept, DatabaseFormula> translated = new LinkedHashMap<>(missing.size());
+		for (final Percept percept : missing) {
+			try {
+				translated.put(percept, this.translator.convertPercept(percept));
+			} catch (final MSTTranslationException e) {
+				// reported when the percept is actually inserted
+			}
+		}
+		synchronized (this) {
+			for (final Map.Entry<Percept, DatabaseFormula> translation : translated.entrySet()) {
+				if (!this.percepts.containsKey(translation.getKey())) {
+					this.prepared.put(translation.getKey(), translation.getValue());
+				}
+			}
+		}
+	}
+
+	private Result apply(final Collection<Percept> inserted, final Collection<Percept> removed)
+			throws MSTQueryException {
+		final List<DatabaseFormula> inserts = new ArrayList<>(inserted.size());
+		for (final Percept percept : inserted) {
+			DatabaseFormula formula = this.prepared.remove(percept);
+			if (formula == null) {
+				formula = this.translations.remove(percept);
+			}
+			if (formula == null) {
+				try {
+					formula = this.translator.convertPercept(percept);
+				} catch (final MSTTranslationException e) {
+					throw new MSTQueryException("unable to process percept '" + percept + "'.", e);
+				}
+			}
+			this.percepts.put(percept, formula);
+			inserts.add(formula);
+		}
+		final List<DatabaseFormula> deletes = new ArrayList<>(removed.size());
+		for (final Percept percept : removed) {
+			final DatabaseFormula formula = this.percepts.remove(percept);
+			this.translations.put(percept, formula);
+			deletes.add(formula);
+		}
+		// prepared translations that were not needed (yet) are cached as usual
+		this.translations.putAll(this.prepared);
+		this.prepared.clear();
+		final Result result = this.owner.createResult(this.type, this.forAgent.toString());
+		try {
+			result.removed(getDatabase().deleteAll(deletes));
+			result.added(getDatabase().insertAll(inserts));
+		} catch (final KRDatabaseException e) {
+			throw new MSTQueryException(
+					String.format("failed to update the percepts in '%s'.", getDatabase().getName()), e);
+		}
+		return result;
+	}
+
+	@Override
+	public Result insert(final DatabaseFormula formula) throws MSTQueryException {
+		try {
+			final Percept percept = this.translator.convertPercept(formula);
+			synchronized (this) {
+				this.percepts.put(percept, formula);
+			}
+		} catch (final MSTTranslationException e) {
+			throw new MSTQueryException("unable to process percept formula '" + formula + "'.", e);
+		}
+		return super.insert(formula);
+	}
+
+	@Override
+	public Result delete(final DatabaseFormula formula) throws MSTQueryException {
+		try {
+			final Percept percept = this.translator.convertPercept(formula);
+			synchronized (this) {
+				this.percepts.remove(percept);
+			}
+		} catch (final MSTTranslationException e) {
+			throw new MSTQueryException("unable to process percept formula '" + formula + "'.", e);
+		}
+		return super.delete(formula);
+	}
+}
@@ -1,20 +1,45 @@
 
 package swiPrologMentalState;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.doReturn;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
 import eis.iilang.Percept;
+import events.NoEventGenerator;
 import krTools.KRInterface;
 import krTools.language.DatabaseFormula;
 import krTools.language.Query;
+import krTools.language.Substitution;
 import krTools.language.Term;
 import krTools.language.Update;
 import languageTools.program.agent.AgentId;
+import languageTools.program.agent.msc.BelLiteral;
+import languageTools.program.agent.msc.GoalLiteral;
+import languageTools.program.agent.msc.MentalFormula;
+import languageTools.program.agent.msc.MentalStateCondition;
+import languageTools.program.agent.selector.Selector;
+import languageTools.program.agent.selector.Selector.SelectorType;
 import languageTools.program.mas.AgentDefinition;
+import mentalState.MentalModel;
 import mentalState.MentalState;
 import mentalState.MentalStateTest;
+import mentalState.Result;
+import mentalState.error.MSTQueryException;
 import swiPrologMentalState.translator.SwiPrologTranslator;
 import swiprolog.SwiPrologInterface;
 import swiprolog.language.PrologCompound;
 import swiprolog.language.PrologQuery;
+import swiprolog.language.PrologSubstitution;
 import swiprolog.language.impl.PrologImplFactory;
 
 public class SwiPrologMentalStateTest extends MentalStateTest {
@@ -58,4 +83,226 @@ public class SwiPrologMentalStateTest extends MentalStateTest {
 		return PrologImplFactory
 				.getDBFormula(PrologImplFactory.getCompound("received", new Term[] { senderTerm, contentTerm }, null));
 	}
+
+	/**
+	 * Check that queries on the goal base are evaluated on each goal separately,
+	 * even though all goals are stored in a single database.
+	 */
+	@Test
+	public void testGoalQueryPerGoal() throws Exception {
+		final MentalState ms = getMentalState(this.agent, this.agentId, true);
+		final PrologCompound a = PrologImplFactory.getAtom("a", null);
+		final PrologCompound b = PrologImplFactory.getAtom("b", null);
+		final PrologCompound ab = PrologImplFactory.getCompound(",", new Term[] { a, b }, null);
+		ms.adopt(PrologImplFactory.getUpdate(a), true);
+		ms.adopt(PrologImplFactory.getUpdate(b), true);
+
+		assertEquals(1, ms.getAttentionSet().query(PrologImplFactory.getQuery(a)).size());
+		assertEquals(0, ms.getAttentionSet().query(PrologImplFactory.getQuery(ab)).size());
+
+		ms.adopt(PrologImplFactory.getUpdate(ab), true);
+		assertEquals(1, ms.getAttentionSet().query(PrologImplFactory.getQuery(ab)).size());
+		assertEquals(3, ms.getGoalCount());
+
+		// Dropping 'a' removes both goals that entail it.
+		ms.drop(PrologImplFactory.getUpdate(a));
+		assertEquals(1, ms.getGoalCount());
+		assertEquals(0, ms.getAttentionSet().query(PrologImplFactory.getQuery(a)).size());
+		assertEquals(1, ms.getAttentionSet().query(PrologImplFactory.getQuery(b)).size());
+		ms.cleanUp();
+	}
+
+	/**
+	 * Check that goals are removed when achieved, also when this depends on the
+	 * knowledge, while only goals affected by a belief change are checked again.
+	 */
+	@Test
+	public void testUpdateGoalStateIncremental() throws Exception {
+		final PrologCompound a = PrologImplFactory.getAtom("a", null);
+		final PrologCompound b = PrologImplFactory.getAtom("b", null);
+		final PrologCompound c = PrologImplFactory.getAtom("c", null);
+		final PrologCompound d = PrologImplFactory.getAtom("d", null);
+		// c :- a.
+		final List<DatabaseFormula> knowledge = new ArrayList<>(1);
+		knowledge.add(PrologImplFactory.getDBFormula(PrologImplFactory.getCompound(":-", new Term[] { c, a }, null)));
+		doReturn(knowledge).when(this.agent).getAllKnowledge();
+		final AtomicInteger checks = new AtomicInteger();
+		final MentalState ms = new SwiPrologMentalState(this.agent, this.agentId, true) {
+			@Override
+			protected MentalModel createMentalModel(final AgentId forAgent) {
+				return new SwiPrologMentalModel(this, forAgent) {
+					@Override
+					protected boolean beliefExists(final Query query) throws MSTQueryException {
+						checks.incrementAndGet();
+						return super.beliefExists(query);
+					}
+				};
+			}
+		};
+		ms.adopt(PrologImplFactory.getUpdate(c), false);
+		ms.adopt(PrologImplFactory.getUpdate(d), false);
+		ms.updateGoalState();
+		assertEquals(2, ms.getGoalCount());
+		assertEquals(2, checks.getAndSet(0));
+
+		// Neither goal depends on 'b'.
+		ms.insert(PrologImplFactory.getUpdate(b));
+		ms.updateGoalState();
+		assertEquals(2, ms.getGoalCount());
+		assertEquals(0, checks.getAndSet(0));
+
+		// Only 'c' depends on 'a' (through the knowledge).
+		ms.insert(PrologImplFactory.getUpdate(a));
+		ms.updateGoalState();
+		assertEquals(1, ms.getGoalCount());
+		assertEquals(1, checks.getAndSet(0));
+
+		ms.insert(PrologImplFactory.getUpdate(d));
+		ms.updateGoalState();
+		assertEquals(0, ms.getGoalCount());
+		assertEquals(1, checks.getAndSet(0));
+		ms.cleanUp();
+	}
+
+	/**
+	 * Check that conjunctive evaluation gives the same substitutions as the
+	 * literal-by-literal evaluation when literals share variables, also when
+	 * these occur in negated and goal literals.
+	 */
+	@Test
+	public void testConjunctiveEvaluateSharedVariables() throws Exception {
+		final MentalState ms = getMentalState(this.agent, this.agentId, true);
+		final NoEventGenerator nogenerator = new NoEventGenerator();
+		final Term x = PrologImplFactory.getVar("X", null);
+		final Term y = PrologImplFactory.getVar("Y", null);
+		for (int i = 1; i <= 3; i++) {
+			ms.insert(getQuery('a', i).toUpdate());
+		}
+		ms.insert(getQuery('b', 2).toUpdate());
+		ms.insert(PrologImplFactory.getUpdate(
+				PrologImplFactory.getCompound("c", new Term[] { PrologImplFactory.getNumber(3, null),
+						PrologImplFactory.getNumber(4, null) }, null)));
+		ms.adopt(getQuery('g', 3).toUpdate(), true);
+		ms.adopt(getQuery('g', 1).toUpdate(), true);
+		final Query ax = PrologImplFactory.getQuery(PrologImplFactory.getCompound("a", new Term[] { x }, null));
+		final Query bx = PrologImplFactory.getQuery(PrologImplFactory.getCompound("b", new Term[] { x }, null));
+		final Query gx = PrologImplFactory.getQuery(PrologImplFactory.getCompound("g", new Term[] { x }, null));
+		final Query cxy = PrologImplFactory.getQuery(PrologImplFactory.getCompound("c", new Term[] { x, y }, null));
+		final Selector self = new Selector(SelectorType.SELF, null);
+		final Selector current = new Selector(SelectorType.THIS, null);
+
+		final List<List<MentalFormula>> conditions = new ArrayList<>();
+		// bel(a(X)), not(bel(b(X)))
+		conditions.add(Arrays.asList(new BelLiteral(true, self, ax, null, null),
+				new BelLiteral(false, self, bx, null, null)));
+		// bel(a(X)), goal(g(X))
+		conditions.add(Arrays.asList(new BelLiteral(true, self, ax, null, null),
+				new GoalLiteral(true, current, gx, null, null)));
+		// goal(g(X)), bel(c(X, Y))
+		conditions.add(Arrays.asList(new GoalLiteral(true, current, gx, null, null),
+				new BelLiteral(true, self, cxy, null, null)));
+		// bel(a(X)), not(goal(g(X))), not(bel(c(X, Y)))
+		conditions.add(Arrays.asList(new BelLiteral(true, self, ax, null, null),
+				new GoalLiteral(false, current, gx, null, null), new BelLiteral(false, self, cxy, null, null)));
+
+		final int[] sizes = { 2, 2, 1, 1 };
+		for (int i = 0; i < conditions.size(); i++) {
+			final MentalStateCondition msc = new MentalStateCondition(conditions.get(i), null);
+			ms.setConjunctiveEvaluation(false);
+			final Set<Substitution> expected = ms.evaluate(msc, new PrologSubstitution(), nogenerator).getAnswers();
+			ms.setConjunctiveEvaluation(true);
+			final Set<Substitution> actual = ms.evaluate(msc, new PrologSubstitution(), nogenerator).getAnswers();
+			assertEquals(conditions.get(i).toString(), sizes[i], expected.size());
+			assertEquals(conditions.get(i).toString(), expected, actual);
+		}
+		ms.cleanUp();
+	}
+
+	/**
+	 * Check that a repeated query is answered by the query cache, and that the
+	 * cache is not used anymore once the queried base has been modified.
+	 */
+	@Test
+	public void testQueryCache() throws Exception {
+		final MentalState ms = getMentalState(this.agent, this.agentId, true);
+		ms.setQueryCacheSize(16);
+		final NoEventGenerator nogenerator = new NoEventGenerator();
+		final Query a1 = getQuery('a', 1);
+		final List<MentalFormula> literals = new ArrayList<>(1);
+		literals.add(new BelLiteral(true, new Selector(SelectorType.SELF, null), a1, null, null));
+		final MentalStateCondition msc = new MentalStateCondition(literals, null);
+		ms.insert(a1.toUpdate());
+
+		assertEquals(1, ms.evaluate(msc, new PrologSubstitution(), nogenerator).getAnswers().size());
+		final long misses = ms.getQueryCacheMisses();
+		assertTrue(misses > 0);
+		assertEquals(1, ms.evaluate(msc, new PrologSubstitution(), nogenerator).getAnswers().size());
+		assertTrue(ms.getQueryCacheHits() > 0);
+		assertEquals(misses, ms.getQueryCacheMisses());
+
+		ms.delete(a1.toUpdate());
+		assertEquals(0, ms.evaluate(msc, new PrologSubstitution(), nogenerator).getAnswers().size());
+		assertTrue(ms.getQueryCacheMisses() > misses);
+		ms.cleanUp();
+	}
+
+	/**
+	 * Check that conjunctive evaluation also uses the query cache, until one of
+	 * the bases involved has been modified.
+	 */
+	@Test
+	public void testConjunctiveQueryCache() throws Exception {
+		final MentalState ms = getMentalState(this.agent, this.agentId, true);
+		ms.setQueryCacheSize(16);
+		ms.setConjunctiveEvaluation(true);
+		final NoEventGenerator nogenerator = new NoEventGenerator();
+		final Selector self = new Selector(SelectorType.SELF, null);
+		final Query a1 = getQuery('a', 1);
+		final Query b1 = getQuery('b', 1);
+		final MentalStateCondition msc = new MentalStateCondition(
+				Arrays.asList(new BelLiteral(true, self, a1, null, null), new BelLiteral(true, self, b1, null, null)),
+				null);
+		ms.insert(a1.toUpdate());
+
+		assertEquals(0, ms.evaluate(msc, new PrologSubstitution(), nogenerator).getAnswers().size());
+		final long misses = ms.getQueryCacheMisses();
+		assertTrue(misses > 0);
+		assertEquals(0, ms.evaluate(msc, new PrologSubstitution(), nogenerator).getAnswers().size());
+		assertTrue(ms.getQueryCacheHits() > 0);
+		assertEquals(misses, ms.getQueryCacheMisses());
+
+		ms.insert(b1.toUpdate());
+		assertEquals(1, ms.evaluate(msc, new PrologSubstitution(), nogenerator).getAnswers().size());
+		assertTrue(ms.getQueryCacheMisses() > misses);
+		ms.cleanUp();
+	}
+
+	/**
+	 * Check that percepts are updated in bulk, and that a snapshot of percepts
+	 * only results in the actual changes to the percept base.
+	 */
+	@Test
+	public void testUpdatePerceptsBulk() throws Exception {
+		final MentalState ms = getMentalState(this.agent, this.agentId, true);
+		final Percept p1 = getPercept(getQuery('p', 1));
+		final Percept p2 = getPercept(getQuery('p', 2));
+		final Percept p3 = getPercept(getQuery('p', 3));
+
+		Result result = ms.updatePercepts(Arrays.asList(p1, p2), new ArrayList<Percept>(0)).get(0);
+		assertEquals(2, result.getAdded().size());
+		assertEquals(2, ms.getPerceptCount());
+
+		// Inserting a present percept or removing an absent one changes nothing.
+		result = ms.updatePercepts(Arrays.asList(p1), Arrays.asList(p3)).get(0);
+		assertEquals(0, result.getAdded().size());
+		assertEquals(0, result.getRemoved().size());
+
+		result = ms.setPercepts(Arrays.asList(p2, p3)).get(0);
+		assertEquals(1, result.getAdded().size());
+		assertEquals(1, result.getRemoved().size());
+		assertEquals(2, ms.getPerceptCount());
+		assertTrue(ms.getPercepts().contains(p3));
+		assertFalse(ms.getPercepts().contains(p1));
+		ms.cleanUp();
+	}
 }
@@ -19,8 +19,10 @@ package goal.core.agent;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadFactory;
+import java.util.function.Predicate;
 
 import goal.core.runtime.service.environmentport.EnvironmentPort;
+import goal.preferences.CorePreferences;
 import goal.tools.adapt.FileLearner;
 import goal.tools.adapt.Learner;
 import goal.tools.debugger.Debugger;
@@ -74,6 +76,11 @@ public abstract class AbstractAgentFactory<DEBUGGER extends Debugger, CONTROLLER
 	 * Port to the environment in which the agent that is created will be placed.
 	 */
 	private EnvironmentPort environmentPort;
+	/**
+	 * Decides which of the agents that are not launched for an entity run in
+	 * this process; null means all of them.
+	 */
+	private volatile Predicate<AgentId> placement;
 
 	/**
 	 * Constructs factory without messaging.
@@ -92,6 +99,18 @@ public abstract class AbstractAgentFactory<DEBUGGER extends Debugger, CONTROLLER
 		return this.registry;
 	}
 
+	/**
+	 * Divides the agents of a MAS among several processes: an agent that is not
+	 * launched for an entity is only built if it is placed in this process, and
+	 * is registered as a remote agent otherwise.
+	 *
+	 * @param placement Decides which agents run in this process; null means all
+	 *                  agents.
+	 */
+	public void setPlacement(Predicate<AgentId> placement) {
+		this.placement = placement;
+	}
+
 	/**
 	 * @return The id of the agent.
 	 */
@@ -122,6 +141,11 @@ public abstract class AbstractAgentFactory<DEBUGGER extends Debugger, CONTROLLER
 		this.agentDf = agentDf;
 		this.environmentPort = environment;
 		this.agentId = this.registry.getAgentid(agentBaseName);
+		Predicate<AgentId> placement = this.placement;
+		if (environment == null && placement != null && !placement.test(this.agentId)) {
+			this.registry.registerRemote(this.agentId);
+			return null;
+		}
 
 		/*
 		 * Construct agent components.
@@ -131,6 +155,7 @@ public abstract class AbstractAgentFactory<DEBUGGER extends Debugger, CONTROLLER
 		DEBUGGER debugger = provideDebugger();
 		Learner learner = provideLearner(launch);
 		CONTROLLER controller = provideController(debugger, learner, profiles);
+		controller.setPriority(CorePreferences.getAgentPriority(this.agentId.toString(), agentDf.getName()));
 		ExecutorService executor = provideExecutor(this.agentId);
 
 		/*
@@ -204,6 +229,10 @@ public abstract class AbstractAgentFactory<DEBUGGER extends Debugger, CONTROLLER
 	protected abstract CONTROLLER provideController(DEBUGGER debugger, Learner learner, Profiles profiles);
 
 	protected ExecutorService provideExecutor(final AgentId agent) {
+		final int threads = CorePreferences.getAgentThreads();
+		if (threads > 0) {
+			return AgentThreadPool.getInstance(threads).createExecutor(agent);
+		}
 		return Executors.newSingleThreadExecutor(new ThreadFactory() {
 			@Override
 			public Thread newThread(final Runnable r) {
@@ -16,16 +16,11 @@
  */
 package goal.core.agent;
 
-import java.util.Iterator;
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
 import java.util.Set;
-import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
 
-import com.google.common.collect.ImmutableSet;
-
+import goal.core.agent.Mailbox.OverflowPolicy;
+import goal.preferences.CorePreferences;
 import goal.tools.errorhandling.exceptions.GOALLaunchFailureException;
 import languageTools.program.agent.AgentId;
 import languageTools.program.agent.actions.LogAction;
@@ -57,9 +52,9 @@ public class Agent<CONTROLLER extends Controller> {
 	private final LoggingCapabilities logging;
 
 	/**
-	 * Message queue for storing received messages.
+	 * Mailbox for storing received messages.
 	 */
-	private final Queue<Message> messageInQueue = new ConcurrentLinkedQueue<>();
+	private final Mailbox mailbox;
 
 	/**
 	 * Creates new agent.
@@ -80,7 +75,14 @@ public class Agent<CONTROLLER extends Controller> {
 		this.environment = environment;
 		this.logging = logger;
 		this.controller = controller;
+		OverflowPolicy policy = CorePreferences.getMailboxPolicy();
+		if (policy == OverflowPolicy.BLOCK_SENDER && CorePreferences.getSequentialExecution()) {
+			// a sender that waits keeps the turn, so the receiver cannot make room
+			policy = OverflowPolicy.DROP_NEWEST;
+		}
+		this.mailbox = new Mailbox(id, CorePreferences.getMailboxCapacity(), policy, controller::isRunning);
 		this.controller.initalizeController(this, executor, timeout);
+		this.environment.setWakeUp(this.controller.getWakeUpSignal()::signal);
 	}
 
 	/**
@@ -149,7 +151,9 @@ public class Agent<CONTROLLER extends Controller> {
 	 * @param message A message (sent by another agent).
 	 */
 	public void receiveMessage(Message message) {
-		this.messageInQueue.add(message);
+		if (this.mailbox.put(message)) {
+			this.controller.getWakeUpSignal().signal();
+		}
 	}
 
 	/**
@@ -160,14 +164,15 @@ public class Agent<CONTROLLER extends Controller> {
 	 *         method was called).
 	 */
 	public Set<Message> getMessages() {
-		List<Message> messages = new LinkedList<>();
-		Iterator<Message> queue = this.messageInQueue.iterator();
-		while (queue.hasNext()) {
-			Message message = queue.next();
-			messages.add(message);
-			queue.remove();
-		}
-		return ImmutableSet.copyOf(messages);
+		return this.mailbox.drain();
+	}
+
+	/**
+	 * @return The mailbox in which the agent's messages wait until they are
+	 *         processed.
+	 */
+	public Mailbox getMailbox() {
+		return this.mailbox;
 	}
 
 	/**
@@ -49,7 +49,7 @@ public interface AgentFactory<DEBUGGER extends Debugger, CONTROLLER extends GOAL
 	 * @param environment   in which the agent should be launched. May be null when
 	 *                      no environment is available.
 	 * @param profiles      the Profiles to use to store agent profiles
-	 * @return a new agent.
+	 * @return a new agent, or null if the agent runs in another process.
 	 * @throws GOALLaunchFailureException
 	 */
 	public Agent<CONTROLLER> build(LaunchInstruction launch, AgentDefinition program, String agentBaseName,
@@ -1,11 +1,15 @@
 package goal.core.agent;
 
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.google.common.collect.ImmutableSet;
 
@@ -37,16 +41,45 @@ import languageTools.program.agent.msg.Message;
  * the remove agent). - add the registry to the pool of agents and execute it
  * once every while to handle messages that it has received from other (remote)
  * registries and that it should deliver locally.
+ * <p>
+ * The registry is used by all agents concurrently, and therefore does not lock:
+ * agents are kept in concurrent maps, and the subscribers of each channel in an
+ * immutable set that is replaced whenever an agent (un)subscribes, so sending a
+ * message to a channel never waits for other senders.
+ * </p>
+ * <p>
+ * When the agents of a MAS are divided among several processes, the ids of the
+ * agents that run elsewhere are registered as remote agents, and messages for
+ * them are handed to the {@link RemoteRegistries}.
+ * </p>
  */
 public class AgentRegistry<CONTROLLER extends Controller> extends Agent<CONTROLLER> {
+	/**
+	 * The ids that are in use in the MAS, i.e. those of registered agents and
+	 * those that have been reserved for agents that are being created.
+	 */
+	private final Set<AgentId> ids = Collections.newSetFromMap(new ConcurrentHashMap<AgentId, Boolean>());
 	/**
 	 * Map of the agents that exist in the MAS.
 	 */
-	private Map<AgentId, Agent<CONTROLLER>> agents = new HashMap<>();
+	private final Map<AgentId, Agent<CONTROLLER>> agents = new ConcurrentHashMap<>();
+	/**
+	 * The agents that exist in the MAS but run in another process.
+	 */
+	private final Set<AgentId> remote = Collections.newSetFromMap(new ConcurrentHashMap<AgentId, Boolean>());
+	/**
+	 * The registries of the other processes (if any).
+	 */
+	private volatile RemoteRegistries remoteRegistries;
 	/**
 	 * Map of channels and which agents are subscribed to them.
 	 */
-	private Map<String, Set<AgentId>> channels = new HashMap<>();
+	private final Map<String, Set<AgentId>> channels = new ConcurrentHashMap<>();
+	/**
+	 * The number of messages sent to each channel, and the number of times such
+	 * a message was delivered to a subscriber.
+	 */
+	private final Map<String, ChannelCounters> channelCounters = new ConcurrentHashMap<>();
 
 	/**
 	 * Creates a registry as a special agent with only messaging and logging
@@ -63,11 +96,8 @@ public class AgentRegistry<CONTROLLER extends Controller> extends Agent<CONTROLL
 	public AgentId getAgentid(String name) {
 		AgentId id = new AgentId(name);
 		int serial = 0;
-		synchronized (this.agents) {
-			while (this.agents.containsKey(id)) {
-				id = new AgentId(name + "_" + serial++);
-			}
-			this.agents.put(id, null); // make reservation
+		while (!this.ids.add(id)) { // make reservation
+			id = new AgentId(name + "_" + serial++);
 		}
 		return id;
 	}
@@ -78,18 +108,14 @@ public class AgentRegistry<CONTROLLER extends Controller> extends Agent<CONTROLL
 	 *         registered.
 	 */
 	public Agent<CONTROLLER> getAgent(AgentId aid) {
-		synchronized (this.agents) {
-			return this.agents.get(aid);
-		}
+		return this.agents.get(aid);
 	}
 
 	/**
 	 * @return A set of registered agent ids.
 	 */
 	public Set<AgentId> getRegisteredAgents() {
-		synchronized (this.agents) {
-			return ImmutableSet.copyOf(this.agents.keySet());
-		}
+		return ImmutableSet.copyOf(this.ids);
 	}
 
 	/**
@@ -98,23 +124,66 @@ public class AgentRegistry<CONTROLLER extends Controller> extends Agent<CONTROLL
 	 * @param agent An agent.
 	 */
 	public void register(Agent<CONTROLLER> agent) {
-		synchronized (this.agents) {
-			this.agents.put(agent.getId(), agent);
+		this.ids.add(agent.getId());
+		this.agents.put(agent.getId(), agent);
+		RemoteRegistries remotes = this.remoteRegistries;
+		if (remotes != null) {
+			remotes.registered(agent.getId());
 		}
 	}
 
+	/**
+	 * Registers the id of an agent that runs in another process.
+	 *
+	 * @param aid An agent id.
+	 */
+	public void registerRemote(AgentId aid) {
+		this.ids.add(aid);
+		this.remote.add(aid);
+	}
+
+	/**
+	 * @param aid An agent id.
+	 * @return True iff the agent has been registered as running in another
+	 *         process.
+	 */
+	public boolean isRemote(AgentId aid) {
+		return this.remote.contains(aid);
+	}
+
+	/**
+	 * @param aid An agent id.
+	 * @return True iff the id has been reserved (see {@link #getAgentid(String)})
+	 *         or registered.
+	 */
+	public boolean isKnown(AgentId aid) {
+		return this.ids.contains(aid);
+	}
+
+	/**
+	 * @param remotes The registries of the other processes that run (a part of)
+	 *                the MAS, or null if there are none.
+	 */
+	public void setRemoteRegistries(RemoteRegistries remotes) {
+		this.remoteRegistries = remotes;
+	}
+
 	/**
 	 * Removes an agent from the registry ánd all channels.
 	 *
 	 * @param aid An agent id.
 	 */
 	public void unregister(AgentId aid) {
-		synchronized (this.agents) {
-			this.agents.remove(aid);
-		}
+		boolean local = (this.agents.remove(aid) != null);
+		this.remote.remove(aid);
+		this.ids.remove(aid);
 		for (String channel : getAllChannels()) {
 			unsubscribe(aid, channel);
 		}
+		RemoteRegistries remotes = this.remoteRegistries;
+		if (local && remotes != null) {
+			remotes.unregistered(aid);
+		}
 	}
 
 	/**
@@ -125,17 +194,54 @@ public class AgentRegistry<CONTROLLER extends Controller> extends Agent<CONTROLL
 	 * @return {@link Warning} if something went wrong, or null if all OK.
 	 */
 	public Warning postMessage(Message message) {
-		List<AgentId> succeeded = new LinkedList<>();
+		return postMessage(message, Collections.<String>emptySet());
+	}
+
+	/**
+	 * Posts a message and inserts it into the mailbox of the agent(s) that should
+	 * receive it. All receivers get the same message (i.e. it is not copied), and
+	 * each receiver gets it once, even if it was selected via multiple channels.
+	 *
+	 * @param message  A message.
+	 * @param channels The channels that (the subscribers of which) were selected
+	 *                 as receivers of the message, if any; only used for
+	 *                 counting.
+	 * @return {@link Warning} if something went wrong, or null if all OK.
+	 */
+	public Warning postMessage(Message message, Collection<String> channels) {
+		Set<AgentId> succeeded = new LinkedHashSet<>();
 		List<AgentId> failed = new LinkedList<>();
+		Set<AgentId> elsewhere = null;
 		for (AgentId aid : message.getReceivers()) {
 			Agent<?> agent = getAgent(aid);
 			if (agent != null) {
 				agent.receiveMessage(message);
 				succeeded.add(aid);
+			} else if (this.remote.contains(aid) && this.remoteRegistries != null) {
+				if (elsewhere == null) {
+					elsewhere = new LinkedHashSet<>();
+				}
+				elsewhere.add(aid);
+				succeeded.add(aid);
 			} else {
 				failed.add(aid);
 			}
 		}
+		if (elsewhere != null) {
+			this.remoteRegistries.postMessage(message, elsewhere);
+		}
+		Set<AgentId> counted = channels.isEmpty() ? null : new HashSet<>();
+		for (String channel : channels) {
+			ChannelCounters counters = this.channelCounters.computeIfAbsent(channel, key -> new ChannelCounters());
+			counters.messages.incrementAndGet();
+			int delivered = 0;
+			for (AgentId aid : getSubscribers(channel)) {
+				if (succeeded.contains(aid) && counted.add(aid)) {
+					delivered++;
+				}
+			}
+			counters.deliveries.addAndGet(delivered);
+		}
 		if (!failed.isEmpty()) {
 			return new Warning("failed to deliver the message '" + message.getContent() + "' to " + failed + ".");
 		} else if (succeeded.isEmpty()) {
@@ -144,52 +250,117 @@ public class AgentRegistry<CONTROLLER extends Controller> extends Agent<CONTROLL
 		return null;
 	}
 
+	/**
+	 * Inserts a message that was sent from another process into the mailbox of
+	 * the given (local) agents.
+	 *
+	 * @param message   A message.
+	 * @param receivers The agents that should receive it; agents that do not run
+	 *                  in this process are skipped.
+	 * @return The number of agents that received the message.
+	 */
+	public int deliver(Message message, Collection<AgentId> receivers) {
+		int delivered = 0;
+		for (AgentId aid : receivers) {
+			Agent<?> agent = getAgent(aid);
+			if (agent != null) {
+				agent.receiveMessage(message);
+				delivered++;
+			}
+		}
+		return delivered;
+	}
+
 	// TODO: DOCUMENT THE BELOW FUNCTIONS
 
 	/**
 	 * @return A set of registered agent ids.
 	 */
 	public Set<String> getAllChannels() {
-		synchronized (this.channels) {
-			return ImmutableSet.copyOf(this.channels.keySet());
-		}
+		return ImmutableSet.copyOf(this.channels.keySet());
 	}
 
 	public boolean subscribe(AgentId aid, String channel) {
-		synchronized (this.channels) {
-			Set<AgentId> current = this.channels.get(channel);
+		boolean[] added = new boolean[1];
+		this.channels.compute(channel, (key, current) -> {
 			if (current == null) {
-				Set<AgentId> newchannel = new HashSet<>();
-				newchannel.add(aid);
-				this.channels.put(channel, newchannel);
-				return true;
+				added[0] = true;
+				return ImmutableSet.of(aid);
+			} else if (current.contains(aid)) {
+				return current;
 			} else {
-				return current.add(aid);
+				added[0] = true;
+				return ImmutableSet.<AgentId>builder().addAll(current).add(aid).build();
 			}
+		});
+		RemoteRegistries remotes = this.remoteRegistries;
+		if (added[0] && remotes != null && this.agents.containsKey(aid)) {
+			remotes.subscribed(aid, channel);
 		}
+		return added[0];
 	}
 
 	public boolean unsubscribe(AgentId aid, String channel) {
-		synchronized (this.channels) {
-			Set<AgentId> current = this.channels.get(channel);
-			boolean removed = current != null && current.remove(aid);
-			if (removed && current.isEmpty()) {
-				this.channels.remove(channel);
+		boolean[] removed = new boolean[1];
+		this.channels.computeIfPresent(channel, (key, current) -> {
+			if (!current.contains(aid)) {
+				return current;
 			}
-			return removed;
+			removed[0] = true;
+			ImmutableSet.Builder<AgentId> remaining = ImmutableSet.builder();
+			for (AgentId subscriber : current) {
+				if (!subscriber.equals(aid)) {
+					remaining.add(subscriber);
+				}
+			}
+			Set<AgentId> result = remaining.build();
+			return result.isEmpty() ? null : result;
+		});
+		RemoteRegistries remotes = this.remoteRegistries;
+		if (removed[0] && remotes != null && this.agents.containsKey(aid)) {
+			remotes.unsubscribed(aid, channel);
 		}
+		return removed[0];
 	}
 
 	public boolean isChannel(String channel) {
-		synchronized (this.channels) {
-			return this.channels.containsKey(channel);
-		}
+		return this.channels.containsKey(channel);
 	}
 
+	/**
+	 * @param channel A channel.
+	 * @return The agents that are subscribed to the channel (at the moment of
+	 *         calling). The set is immutable, and is not copied.
+	 */
 	public Set<AgentId> getSubscribers(String channel) {
-		synchronized (this.channels) {
-			Set<AgentId> current = this.channels.get(channel);
-			return (current == null) ? new HashSet<>(0) : ImmutableSet.copyOf(current);
-		}
+		Set<AgentId> current = this.channels.get(channel);
+		return (current == null) ? ImmutableSet.<AgentId>of() : current;
+	}
+
+	/**
+	 * @param channel A channel.
+	 * @return The number of messages that have been sent to the channel.
+	 */
+	public long getMessageCount(String channel) {
+		ChannelCounters counters = this.channelCounters.get(channel);
+		return (counters == null) ? 0 : counters.messages.get();
+	}
+
+	/**
+	 * @param channel A channel.
+	 * @return The number of times a message that was sent to the channel has
+	 *         been delivered to one of its subscribers. A receiver that was
+	 *         selected via multiple channels is only counted for the first of
+	 *         these, so the counts of all channels add up to the number of
+	 *         deliveries.
+	 */
+	public long getDeliveryCount(String channel) {
+		ChannelCounters counters = this.channelCounters.get(channel);
+		return (counters == null) ? 0 : counters.deliveries.get();
+	}
+
+	private static final class ChannelCounters {
+		private final AtomicLong messages = new AtomicLong();
+		private final AtomicLong deliveries = new AtomicLong();
 	}
-}
\ No newline at end of file
+}
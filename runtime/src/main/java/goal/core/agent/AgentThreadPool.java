@@ -0,0 +1,292 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.agent;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import goal.tools.errorhandling.Warning;
+import languageTools.program.agent.AgentId;
+import swiprolog.SwiPrologInterface;
+
+/**
+ * A small, fixed number of (carrier) threads that is shared by all agents for
+ * executing their reasoning cycles, instead of giving each agent a thread (and
+ * SWI Prolog engine) of its own. Each carrier thread attaches an engine from
+ * SWI Prolog's engine pool once, and keeps it for as long as it lives; the
+ * databases of the agents are then bound to their (agent-specific) modules
+ * only, so an agent can continue on any carrier. See
+ * {@link SwiPrologInterface#setSharedEngines(boolean)}.
+ * <p>
+ * Agents still execute their tasks one at a time; see
+ * {@link #createExecutor(AgentId)}. An agent that waits (e.g. when it sleeps
+ * or waits for its turn) should not occupy a carrier in the meantime: it ends
+ * its task, and has its {@link WakeUpSignal} hand the next one to its executor
+ * (see {@link WakeUpSignal#onSignal(long, Runnable)}). Agents that do block a
+ * carrier (e.g. using {@link WakeUpSignal#await(long, long)}) make the pool
+ * temporarily add a (spare) carrier so that the other agents can continue.
+ * </p>
+ * <p>
+ * Every carrier, including a spare one, holds an engine of JPL's engine pool,
+ * which has at most {@link #MAX_ENGINES} engines. The pool therefore never has
+ * more carriers than that: at most half of them are regular carriers (see
+ * {@link #configure(int)}), and no spare carrier is added when the limit has
+ * been reached (see {@link #block(ForkJoinPool.ManagedBlocker)}); the blocking
+ * agent then simply occupies its carrier.
+ * </p>
+ */
+public final class AgentThreadPool {
+	/**
+	 * The number of engines in JPL's engine pool (JPL_MAX_POOL_ENGINES); a thread
+	 * that attaches an engine when all of them are in use blocks until one is
+	 * released.
+	 */
+	public static final int MAX_ENGINES = 1000;
+	private static AgentThreadPool instance;
+	/**
+	 * The number of carriers (of any pool) that hold, or are about to attach, an
+	 * engine.
+	 */
+	private static final AtomicInteger carriers = new AtomicInteger();
+	private final ForkJoinPool pool;
+
+	private AgentThreadPool(final int threads) {
+		this.pool = new ForkJoinPool(threads, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+			@Override
+			public ForkJoinWorkerThread newThread(final ForkJoinPool pool) {
+				if (carriers.incrementAndGet() > MAX_ENGINES) {
+					// the pool continues with fewer carriers
+					carriers.decrementAndGet();
+					return null;
+				}
+				final ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {
+					@Override
+					protected void onStart() {
+						super.onStart();
+						SwiPrologInterface.attachEngine();
+					}
+
+					@Override
+					protected void onTermination(final Throwable exception) {
+						SwiPrologInterface.detachEngine();
+						carriers.decrementAndGet();
+						super.onTermination(exception);
+					}
+				};
+				thread.setName("agents-" + thread.getPoolIndex());
+				thread.setPriority(Thread.MIN_PRIORITY + 1);
+				return thread;
+			}
+		}, null, true);
+	}
+
+	/**
+	 * Sets whether SWI Prolog engines are shared by the agents of a MAS that is
+	 * about to be launched, i.e. whether they run on carrier threads. Should be
+	 * called (for every MAS) before any of its databases is created.
+	 *
+	 * @param threads
+	 *            The number of carrier threads, or 0 if each agent runs on a
+	 *            thread of its own. At most half of {@link #MAX_ENGINES} is
+	 *            used, leaving the other half for spare carriers.
+	 */
+	public static void configure(final int threads) {
+		final int limit = MAX_ENGINES / 2;
+		if (threads > limit) {
+			new Warning("the number of agent threads (" + threads + ") exceeds the maximum of " + limit
+					+ " (half of the SWI Prolog engines); using " + limit + " instead.").emit();
+		}
+		SwiPrologInterface.setSharedEngines(threads > 0);
+	}
+
+	/**
+	 * Returns the shared pool, creating it upon the first call. SWI Prolog
+	 * should have been switched to shared engines already; see
+	 * {@link #configure(int)}.
+	 *
+	 * @param threads
+	 *            The number of carrier threads; only used upon creation.
+	 * @return The shared agent thread pool.
+	 */
+	public static synchronized AgentThreadPool getInstance(final int threads) {
+		if (instance == null) {
+			instance = new AgentThreadPool(Math.min(threads, MAX_ENGINES / 2));
+		}
+		return instance;
+	}
+
+	/**
+	 * Blocks the current thread like
+	 * {@link ForkJoinPool#managedBlock(ForkJoinPool.ManagedBlocker)}, but without
+	 * asking for a spare carrier when all engines are in use already.
+	 *
+	 * @param blocker
+	 *            The blocker.
+	 * @throws InterruptedException
+	 */
+	public static void block(final ForkJoinPool.ManagedBlocker blocker) throws InterruptedException {
+		if (carriers.get() < MAX_ENGINES) {
+			ForkJoinPool.managedBlock(blocker);
+		} else {
+			while (!blocker.isReleasable() && !blocker.block()) {
+				// wait on
+			}
+		}
+	}
+
+	/**
+	 * @return The number of carrier threads the pool aims for.
+	 */
+	public int getThreads() {
+		return this.pool.getParallelism();
+	}
+
+	/**
+	 * @param agent
+	 *            The agent to create an executor for.
+	 * @return An executor that runs the tasks of the agent one at a time (in
+	 *         order) on the shared carrier threads. Shutting it down does not
+	 *         affect the other agents.
+	 */
+	public ExecutorService createExecutor(final AgentId agent) {
+		return new AgentExecutor(this.pool, agent.toString());
+	}
+
+	/**
+	 * Executes the tasks of a single agent one at a time on a shared pool. Only
+	 * one task is handed to the pool at a time, and each task goes to the back
+	 * of the pool's queue, so agents take turns on the carriers.
+	 */
+	private static final class AgentExecutor extends AbstractExecutorService {
+		private final ForkJoinPool pool;
+		private final String name;
+		private final Queue<Runnable> tasks = new ArrayDeque<>();
+		private final Runnable drain = new Runnable() {
+			@Override
+			public void run() {
+				runNext();
+			}
+		};
+		/**
+		 * The thread that is running a task of the agent (if any).
+		 */
+		private Thread runner;
+		/**
+		 * True iff a task has been handed to the pool (or is running).
+		 */
+		private boolean scheduled;
+		private boolean shutdown;
+
+		AgentExecutor(final ForkJoinPool pool, final String name) {
+			this.pool = pool;
+			this.name = name;
+		}
+
+		@Override
+		public synchronized void execute(final Runnable command) {
+			if (this.shutdown) {
+				throw new RejectedExecutionException("the executor of '" + this.name + "' has been shut down.");
+			}
+			this.tasks.add(command);
+			if (!this.scheduled) {
+				this.scheduled = true;
+				this.pool.execute(this.drain);
+			}
+		}
+
+		private void runNext() {
+			final Runnable task;
+			synchronized (this) {
+				task = this.tasks.poll();
+				if (task == null) {
+					this.scheduled = false;
+					notifyAll();
+					return;
+				}
+				this.runner = Thread.currentThread();
+			}
+			final String carrier = this.runner.getName();
+			this.runner.setName(this.name);
+			try {
+				task.run();
+			} finally {
+				Thread.currentThread().setName(carrier);
+				synchronized (this) {
+					this.runner = null;
+					Thread.interrupted(); // do not pass an interrupt on to the next task
+					if (this.tasks.isEmpty()) {
+						this.scheduled = false;
+						notifyAll();
+					} else {
+						this.pool.execute(this.drain);
+					}
+				}
+			}
+		}
+
+		@Override
+		public synchronized void shutdown() {
+			this.shutdown = true;
+			notifyAll();
+		}
+
+		@Override
+		public synchronized List<Runnable> shutdownNow() {
+			this.shutdown = true;
+			final List<Runnable> remaining = new ArrayList<>(this.tasks);
+			this.tasks.clear();
+			if (this.runner != null && this.runner != Thread.currentThread()) {
+				this.runner.interrupt();
+			}
+			notifyAll();
+			return remaining;
+		}
+
+		@Override
+		public synchronized boolean isShutdown() {
+			return this.shutdown;
+		}
+
+		@Override
+		public synchronized boolean isTerminated() {
+			return this.shutdown && !this.scheduled;
+		}
+
+		@Override
+		public synchronized boolean awaitTermination(final long timeout, final TimeUnit unit)
+				throws InterruptedException {
+			final long end = System.nanoTime() + unit.toNanos(timeout);
+			while (!isTerminated()) {
+				final long remaining = end - System.nanoTime();
+				if (remaining <= 0) {
+					return false;
+				}
+				TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			}
+			return true;
+		}
+	}
+}
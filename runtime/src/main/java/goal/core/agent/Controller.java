@@ -18,6 +18,7 @@ package goal.core.agent;
 
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.locks.LockSupport;
 
 import goal.tools.errorhandling.exceptions.GOALLaunchFailureException;
 
@@ -65,6 +66,21 @@ public abstract class Controller {
 	 *
 	 */
 	private volatile boolean myTurn = false;
+	/**
+	 * The thread that gave the turn to the agent (if any), which is unparked
+	 * (directly) when the turn ends. See {@link #awaitEndOfTurn()}.
+	 */
+	private volatile Thread turnGiver;
+	/**
+	 * The time (see {@link System#nanoTime()}) at which the turn was given, and
+	 * at which the agent took it (if it did).
+	 */
+	private volatile long turnGiven, turnTaken;
+	/**
+	 * Wakes up the agent when it is waiting (for its turn, or for new messages
+	 * or percepts when sleeping).
+	 */
+	private final WakeUpSignal wakeUp = new WakeUpSignal();
 
 	/**
 	 * Initializes the controller with the agent it controls. Subclasses can
@@ -129,16 +145,80 @@ public abstract class Controller {
 		}
 	}
 
+	/**
+	 * Gives the turn to the agent (in sequential mode). The calling thread can
+	 * then wait for the turn to end using {@link #awaitEndOfTurn()}.
+	 */
 	public final void giveTurn() {
+		this.turnGiver = Thread.currentThread();
+		this.turnGiven = System.nanoTime();
 		this.myTurn = true;
+		this.wakeUp.signal();
 	}
 
 	public final boolean hasTurn() {
 		return this.myTurn;
 	}
 
+	/**
+	 * Called by the agent when it starts (or resumes) acting upon its turn;
+	 * only the first call in each turn is recorded.
+	 */
+	public final void takeTurn() {
+		if (this.myTurn && this.turnTaken - this.turnGiven < 0) {
+			this.turnTaken = System.nanoTime();
+		}
+	}
+
 	public final void endTurn() {
-		this.myTurn = false;
+		if (this.myTurn) {
+			this.myTurn = false;
+			this.wakeUp.signal();
+			LockSupport.unpark(this.turnGiver);
+		}
+	}
+
+	/**
+	 * Waits (parking the calling thread, which should be the thread that gave
+	 * the turn) until the agent ends its turn or stops running.
+	 *
+	 * @throws InterruptedException
+	 */
+	public final void awaitEndOfTurn() throws InterruptedException {
+		while (this.myTurn && this.running) {
+			LockSupport.park(this);
+			if (Thread.interrupted()) {
+				throw new InterruptedException();
+			}
+		}
+	}
+
+	/**
+	 * @return The time in nanoseconds between giving the last turn to the agent
+	 *         and the agent taking it, or -1 if it did not take it (yet).
+	 */
+	public final long getTurnLatency() {
+		final long latency = this.turnTaken - this.turnGiven;
+		return (latency < 0) ? -1 : latency;
+	}
+
+	/**
+	 * @return {@code true} if the agent cannot continue until its
+	 *         {@link WakeUpSignal} is given (e.g. because it sleeps), so that
+	 *         giving it the turn again before then is pointless. By default
+	 *         false.
+	 */
+	public boolean isIdle() {
+		return false;
+	}
+
+	/**
+	 * @return The signal that wakes up the agent when it is waiting. It is given
+	 *         upon any change of turn or termination, and whenever something
+	 *         happens that the agent might be waiting for (e.g. a message).
+	 */
+	public final WakeUpSignal getWakeUpSignal() {
+		return this.wakeUp;
 	}
 
 	/**
@@ -151,6 +231,12 @@ public abstract class Controller {
 		if (this.running) {
 			this.running = false;
 			onTerminate();
+			this.wakeUp.signal();
+			LockSupport.unpark(this.turnGiver);
+			if (this.agent != null) {
+				// senders that wait for room in the mailbox should stop waiting
+				this.agent.getMailbox().release();
+			}
 		}
 	}
 
@@ -76,6 +76,11 @@ public class DefaultEnvironmentCapabilities implements EnvironmentCapabilities {
 		this.environment.performAction(this.id.toString(), action);
 	}
 
+	@Override
+	public void setWakeUp(Runnable wakeUp) {
+		this.environment.setWakeUp(this.id.toString(), wakeUp);
+	}
+
 	@Override
 	public void dispose() throws EnvironmentInterfaceException {
 		this.environment.freeAgent(this.id.toString());
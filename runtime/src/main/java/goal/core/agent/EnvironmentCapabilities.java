@@ -60,6 +60,16 @@ public interface EnvironmentCapabilities {
 	 */
 	public abstract PerceptUpdate getPercepts() throws EnvironmentInterfaceException;
 
+	/**
+	 * Sets what should be done when the percepts of the agent might have changed,
+	 * e.g. when the environment notifies the agent of a percept or when some
+	 * agent performs an action in the environment.
+	 *
+	 * @param wakeUp
+	 *            wakes up the agent (or null to stop doing so).
+	 */
+	public abstract void setWakeUp(Runnable wakeUp);
+
 	/**
 	 * Releases any resources held.
 	 *
@@ -16,17 +16,23 @@
  */
 package goal.core.agent;
 
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import events.Channel;
 import events.ExecutionEventListener;
 import goal.core.executors.modules.ModuleExecutor;
 import goal.core.executors.stack.CallStack;
 import goal.core.executors.stack.StackExecutor;
+import goal.core.runtime.RuntimeManager;
+import goal.core.runtime.TimerWheel;
 import goal.core.runtime.service.agent.NettoRunTime;
+import goal.core.runtime.service.agent.PerceptPipeline;
 import goal.core.runtime.service.agent.RunState;
 import goal.preferences.CorePreferences;
+import goal.preferences.LoggingPreferences;
 import goal.preferences.ProfilerPreferences;
 import goal.tools.adapt.Learner;
 import goal.tools.debugger.Debugger;
@@ -38,8 +44,12 @@ import goal.tools.errorhandling.exceptions.GOALActionFailedException;
 import goal.tools.errorhandling.exceptions.GOALLaunchFailureException;
 import goal.tools.errorhandling.exceptions.GOALRuntimeErrorException;
 import goal.tools.logging.InfoLog;
+import goal.tools.metrics.AgentMetrics;
+import goal.tools.metrics.Metric;
+import goal.tools.profiler.LatencyHistogram;
 import goal.tools.profiler.Profiler;
 import goal.tools.profiler.Profiles;
+import goal.tools.profiler.SamplingProfiler;
 import krTools.parser.SourceInfo;
 import languageTools.program.agent.Module;
 import languageTools.program.agent.Module.RuleEvaluationOrder;
@@ -92,11 +102,39 @@ public class GOALInterpreter<DEBUGGER extends Debugger> extends Controller {
 	 * The profiler. null if disabled
 	 */
 	private Profiler profiler = null;
+	/**
+	 * The sampling profiler. null if disabled
+	 */
+	private SamplingProfiler sampler = null;
 	/**
 	 * The timeout. 0 if disabled
 	 */
 	private long timeout = 0;
 	private final Profiles profiles;
+	/**
+	 * The weight of the agent's share of the (time on the) agent threads; see
+	 * {@link #setPriority(int)}.
+	 */
+	private volatile int priority = 1;
+	/**
+	 * The time it took to complete each cycle, including any time spent waiting
+	 * for an agent thread, but excluding the time spent sleeping.
+	 */
+	private final LatencyHistogram cycleLatency = new LatencyHistogram();
+	/**
+	 * The runtime metrics of the agent, or null if none are kept.
+	 */
+	private AgentMetrics metrics;
+	/**
+	 * The time at which the current cycle started, and the sleep time of the
+	 * run state at that moment (only used while executing a cycle).
+	 */
+	private long cycleStart, cycleSleep;
+	/**
+	 * The number of times the agent gave way to other agents because it
+	 * exceeded its cycle budget.
+	 */
+	private long yields;
 
 	/**
 	 * Constructs a new interpreter.
@@ -114,6 +152,10 @@ public class GOALInterpreter<DEBUGGER extends Debugger> extends Controller {
 		this.learner = learner;
 		this.profiles = profiles;
 		this.stack = new CallStack();
+		if (debugger instanceof SteppingDebugger) {
+			// wake up a sleeping agent when it is paused or stepped
+			((SteppingDebugger) debugger).setWakeUp(getWakeUpSignal()::signal);
+		}
 	}
 
 	/**
@@ -123,6 +165,11 @@ public class GOALInterpreter<DEBUGGER extends Debugger> extends Controller {
 		return this.runState;
 	}
 
+	@Override
+	public boolean isIdle() {
+		return this.runState != null && this.runState.isAsleep();
+	}
+
 	/*
 	 * @return the current debugger used by the interpeter
 	 */
@@ -147,10 +194,26 @@ public class GOALInterpreter<DEBUGGER extends Debugger> extends Controller {
 					Object... args) {
 				GOALInterpreter.this.debugger.breakpoint(channel, associateObject, associateSource, message, args);
 			}
+
+			@Override
+			public Set<Channel> getChannels() {
+				return GOALInterpreter.this.debugger.getChannels();
+			}
 		};
 		this.runState.getEventGenerator().addListener(listener);
 
-		if (ProfilerPreferences.getProfiling()) {
+		if (this.metrics != null) {
+			this.runState.setMetrics(this.metrics);
+			this.runState.getEventGenerator().addListener(this.metrics.createListener());
+		}
+
+		if (ProfilerPreferences.getProfiling() && ProfilerPreferences.getSampling()) {
+			if (this.sampler != null) {
+				this.sampler.stop();
+			}
+			this.sampler = new SamplingProfiler(this.stack, this.runState.getTimer(), agentDf.getName());
+			this.sampler.start();
+		} else if (ProfilerPreferences.getProfiling()) {
 			this.profiler = new Profiler(this.runState.getTimer(), agentDf.getName());
 			this.runState.getEventGenerator().addListener(this.profiler);
 		}
@@ -192,6 +255,11 @@ public class GOALInterpreter<DEBUGGER extends Debugger> extends Controller {
 			profiles.add(this.profiler.getProfile());
 			this.profiler.getProfile().log(this.agent.getId());
 		}
+		if (this.sampler != null) {
+			this.sampler.stop();
+			profiles.add(this.sampler.getProfile());
+			this.sampler.getProfile().log(this.agent.getId());
+		}
 	}
 
 	@Override
@@ -207,6 +275,8 @@ public class GOALInterpreter<DEBUGGER extends Debugger> extends Controller {
 						// the runstate
 						NettoRunTime localtimer = new NettoRunTime();
 						createRunstate();
+						// A sleeping agent is parked by executeCycle
+						GOALInterpreter.this.runState.setParking(true);
 						if (GOALInterpreter.this.debugger instanceof ObservableDebugger) {
 							GOALInterpreter.this.runState.getEventGenerator().event(Channel.REASONING_CYCLE_SEPARATOR,
 									0, null, "starting agent.");
@@ -266,7 +336,11 @@ public class GOALInterpreter<DEBUGGER extends Debugger> extends Controller {
 						// Run the current task
 						out = (Callable<Callable<?>>) call.call();
 					}
-					if (out != null && isRunning()) {
+					if (out instanceof Parked && isRunning()) {
+						// Have the wake-up signal submit the next task
+						final Callable<Callable<?>> next = out;
+						((Parked) out).resume(getWakeUpSignal(), () -> executor.execute(getRunnable(executor, next)));
+					} else if (out != null && isRunning()) {
 						// Submit the next task (when any)
 						executor.execute(getRunnable(executor, out));
 					} else {
@@ -276,6 +350,23 @@ public class GOALInterpreter<DEBUGGER extends Debugger> extends Controller {
 						setTerminated();
 						new InfoLog("agent '" + GOALInterpreter.this.agent.getId() + "' terminated successfully.")
 								.emit();
+						if (LoggingPreferences.getPrintStats() && GOALInterpreter.this.cycleLatency.getCount() > 0) {
+							new InfoLog("cycle latency of agent '" + GOALInterpreter.this.agent.getId() + "': "
+									+ GOALInterpreter.this.cycleLatency + ", gave way "
+									+ GOALInterpreter.this.yields + " times.").emit();
+						}
+						Mailbox mailbox = GOALInterpreter.this.agent.getMailbox();
+						if (LoggingPreferences.getPrintStats() && mailbox.getReceived() > 0) {
+							new InfoLog(String.format(
+									"mailbox of agent '%s': received %d, max depth %d, dropped %d, coalesced %d.",
+									GOALInterpreter.this.agent.getId(), mailbox.getReceived(), mailbox.getMaxDepth(),
+									mailbox.getDropped(), mailbox.getCoalesced())).emit();
+						}
+						PerceptPipeline pipeline = GOALInterpreter.this.runState.getPerceptPipeline();
+						if (LoggingPreferences.getPrintStats() && pipeline != null && pipeline.getHandovers() > 0) {
+							new InfoLog("percept pipeline of agent '" + GOALInterpreter.this.agent.getId() + "': "
+									+ pipeline + ".").emit();
+						}
 					}
 				} catch (final Exception e) { // Thread failure handling
 					GOALInterpreter.this.throwable = e;
@@ -305,35 +396,77 @@ public class GOALInterpreter<DEBUGGER extends Debugger> extends Controller {
 	 * indicated cycle. If we're not, and the stack is not empty (yet), a
 	 * {@link Callable} will be returned that can be used to execute the next cycle
 	 * (i.e. by feeding it into the executorservice).
+	 * <p>
+	 * If a cycle budget has been set (and we are not in sequential mode), the
+	 * budget is checked after each pop; if it has been exceeded, a
+	 * {@link Callable} that continues the current cycle is returned instead, so
+	 * that the agents that are waiting for a thread can go first.
+	 * </p>
+	 * <p>
+	 * If the agent cannot continue because it sleeps or (in sequential mode)
+	 * does not have the turn, a {@link Parked} task is returned, which should
+	 * only be executed once the agent's {@link WakeUpSignal} has been given, so
+	 * that the agent does not occupy a thread in the meantime.
+	 * </p>
 	 *
 	 * @param cycle the cycle to execute
 	 * @return
 	 * @throws GOALActionFailedException
 	 */
 	private Callable<Callable<?>> executeCycle(final int cycle) throws GOALActionFailedException {
-		while (CorePreferences.getSequentialExecution() && isRunning() && !hasTurn()) {
-			// in sequential mode, wait until we are given the turn
-			try {
-				Thread.sleep(1);
-			} catch (InterruptedException e) {
-				break;
+		final boolean sequential = CorePreferences.getSequentialExecution();
+		if (isRunning()) {
+			final Callable<Callable<?>> parked = park(cycle);
+			if (parked != null) {
+				return parked;
 			}
 		}
+		final long start = System.nanoTime();
+		if (this.cycleStart == 0) {
+			this.cycleStart = start;
+			this.cycleSleep = this.runState.getSleepTime();
+		}
+		final long budget = sequential ? 0 : getCycleBudget();
+		boolean yield = false;
 		try {
 			while (isRunning() && this.stack.canExecute() && this.runState.getRoundCounter() == cycle) {
+				if (this.runState.isAsleep()) {
+					final Callable<Callable<?>> parked = park(cycle);
+					if (parked != null) {
+						return parked;
+					}
+					continue;
+				}
 				this.stack.pop();
 				this.stack.getPopped().getResult();
+				if (budget > 0 && this.runState.getRoundCounter() == cycle && System.nanoTime() - start > budget) {
+					yield = true;
+					this.yields++;
+					break;
+				}
 			}
 		} finally {
 			endTurn();
 			this.runState.getTimer().leaveThread();
 		}
+		if (!yield) {
+			final long end = System.nanoTime();
+			final long sleep = this.runState.getSleepTime();
+			this.cycleLatency.record(end - this.cycleStart - (sleep - this.cycleSleep));
+			if (this.metrics != null) {
+				this.metrics.record(Metric.CYCLE, end - this.cycleStart - (sleep - this.cycleSleep));
+				this.metrics.record(Metric.MAILBOX_DEPTH, this.agent.getMailbox().getDepth());
+			}
+			this.cycleStart = end;
+			this.cycleSleep = sleep;
+		}
 
 		if (isRunning() && this.stack.canExecute()) {
+			final int next = yield ? cycle : cycle + 1;
 			return new Callable<Callable<?>>() {
 				@Override
 				public Callable<?> call() throws Exception {
-					return executeCycle(cycle + 1);
+					return executeCycle(next);
 				}
 			};
 		} else {
@@ -341,6 +474,129 @@ public class GOALInterpreter<DEBUGGER extends Debugger> extends Controller {
 		}
 	}
 
+	/**
+	 * Checks whether the agent can continue; see {@link RunState#checkAwake()}.
+	 *
+	 * @param cycle the cycle to continue
+	 * @return null if the agent can continue, or else the task that continues
+	 *         the cycle once the agent has been woken up.
+	 * @throws GOALActionFailedException
+	 */
+	private Callable<Callable<?>> park(final int cycle) throws GOALActionFailedException {
+		final WakeUpSignal wakeUp = getWakeUpSignal();
+		while (true) {
+			final long seen = wakeUp.getCount();
+			final long wait = this.runState.checkAwake();
+			if (wait < 0) {
+				return null;
+			} else if (wakeUp.getCount() == seen) {
+				return new Parked(seen, wait, () -> executeCycle(cycle));
+			}
+			// signalled in the meantime (e.g. by ending our turn): check again
+		}
+	}
+
+	/**
+	 * A task of an agent that cannot continue yet; see
+	 * {@link #executeCycle(int)}.
+	 */
+	private static final class Parked implements Callable<Callable<?>> {
+		private final long seen;
+		private final long wait;
+		private final Callable<Callable<?>> task;
+
+		/**
+		 * @param seen The count of the agent's {@link WakeUpSignal} obtained before
+		 *             checking whether it can continue.
+		 * @param wait The maximum time to wait for the signal in milliseconds (0
+		 *             means no maximum).
+		 * @param task The task that continues the agent.
+		 */
+		Parked(long seen, long wait, Callable<Callable<?>> task) {
+			this.seen = seen;
+			this.wait = wait;
+			this.task = task;
+		}
+
+		/**
+		 * Submits the task (using the given runnable) once the signal has been
+		 * given, or the maximum time to wait has passed.
+		 */
+		void resume(WakeUpSignal wakeUp, Runnable submit) {
+			final TimerWheel.Timeout poll = (this.wait > 0)
+					? RuntimeManager.getTimerWheel().schedule(wakeUp::signal, this.wait, TimeUnit.MILLISECONDS)
+					: null;
+			wakeUp.onSignal(this.seen, () -> {
+				if (poll != null) {
+					poll.cancel();
+				}
+				submit.run();
+			});
+		}
+
+		@Override
+		public Callable<?> call() throws Exception {
+			return this.task.call();
+		}
+	}
+
+	/**
+	 * Sets the priority of the agent: the number of times the cycle budget (see
+	 * {@link CorePreferences#getCycleBudget()}) the agent may spend on a cycle
+	 * before giving way to the other agents. With a shared pool of agent
+	 * threads, an agent with priority 2 thus gets (about) twice as much time as
+	 * an agent with priority 1 when both are busy. Set by the
+	 * {@link AbstractAgentFactory} from
+	 * {@link CorePreferences#getAgentPriority(String, String)}.
+	 *
+	 * @param priority The priority; at least 1, which is the default.
+	 */
+	public void setPriority(int priority) {
+		this.priority = Math.max(1, priority);
+	}
+
+	/**
+	 * @return The time in nanoseconds the agent may spend on a cycle before
+	 *         giving way to the other agents, i.e. the cycle budget times the
+	 *         priority of the agent (0 means no limit).
+	 */
+	public long getCycleBudget() {
+		return CorePreferences.getCycleBudget() * 1000000 * this.priority;
+	}
+
+	/**
+	 * @return The priority of the agent; see {@link #setPriority(int)}.
+	 */
+	public int getPriority() {
+		return this.priority;
+	}
+
+	/**
+	 * @return The time it took the agent to complete each of its cycles so far,
+	 *         including any time spent waiting for an agent thread, but excluding
+	 *         the time spent sleeping.
+	 */
+	public LatencyHistogram getCycleLatency() {
+		return this.cycleLatency;
+	}
+
+	/**
+	 * Keeps runtime metrics for the agent. Should be called before the agent is
+	 * started.
+	 *
+	 * @param metrics The metrics of the agent.
+	 */
+	public void setMetrics(AgentMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	/**
+	 * @return The runtime metrics of the agent, or null if none are kept.
+	 */
+	public AgentMetrics getMetrics() {
+		return this.metrics;
+	}
+
 	/**
 	 * @see {@link CallStack#getIndex()}
 	 */
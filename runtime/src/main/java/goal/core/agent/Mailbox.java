@@ -0,0 +1,332 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.agent;
+
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+
+import com.google.common.collect.ImmutableSet;
+
+import goal.tools.errorhandling.Warning;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.msg.Message;
+
+/**
+ * The messages that an agent has received but not yet processed. A message
+ * that is received while an equal message is still waiting is merged with that
+ * message, as an agent processes (the set of) all waiting messages at once.
+ * <p>
+ * The mailbox can be given a capacity, so that an agent that sends a lot of
+ * messages cannot make the mailbox of another agent grow without limit. What
+ * happens with a message that arrives when the mailbox is full depends on the
+ * {@link OverflowPolicy}.
+ * </p>
+ */
+public final class Mailbox {
+	/**
+	 * What to do with a message that arrives when the mailbox is full.
+	 */
+	public enum OverflowPolicy {
+		/**
+		 * The oldest waiting message is dropped to make room for the new one.
+		 */
+		DROP_OLDEST,
+		/**
+		 * The new message is dropped.
+		 */
+		DROP_NEWEST,
+		/**
+		 * The sender waits until there is room again, as long as the receiver is
+		 * running (and is thus emptying its mailbox), but at most a limited time
+		 * (see {@link Mailbox#getBlockTimeout()}), after which the message is
+		 * dropped as with {@link #DROP_NEWEST}. Messages that an agent sends to
+		 * itself are dropped right away. Cannot be used in sequential mode, in
+		 * which the receiver cannot run while the sender waits.
+		 */
+		BLOCK_SENDER,
+		/**
+		 * The new message replaces the oldest waiting message of the same
+		 * sender, whatever its content, i.e. only the latest message of a
+		 * sender is kept; the earlier message is lost. Only suitable if a
+		 * sender's messages supersede its earlier ones (e.g. position updates).
+		 * The new message is dropped if its sender has no waiting message.
+		 */
+		LATEST_PER_SENDER;
+	}
+
+	/**
+	 * The default maximum time (in milliseconds) that a sender waits for room
+	 * with {@link OverflowPolicy#BLOCK_SENDER}.
+	 */
+	public static final long DEFAULT_BLOCK_TIMEOUT = 1000;
+
+	private final AgentId owner;
+	private final int capacity;
+	private final OverflowPolicy policy;
+	private final long blockTimeout;
+	/**
+	 * True as long as the owner is processing its messages.
+	 */
+	private final BooleanSupplier draining;
+	private final Set<Message> messages = new LinkedHashSet<>();
+	private long received;
+	private long dropped;
+	private long coalesced;
+	private long timedOut;
+	private int maxDepth;
+
+	/**
+	 * @param owner    The agent that receives the messages.
+	 * @param capacity The maximum number of waiting messages; 0 means no limit.
+	 * @param policy   What to do when a message arrives while the mailbox is full.
+	 * @param draining True as long as the owner is processing its messages.
+	 */
+	public Mailbox(AgentId owner, int capacity, OverflowPolicy policy, BooleanSupplier draining) {
+		this(owner, capacity, policy, draining, DEFAULT_BLOCK_TIMEOUT);
+	}
+
+	/**
+	 * @param owner        The agent that receives the messages.
+	 * @param capacity     The maximum number of waiting messages; 0 means no
+	 *                     limit.
+	 * @param policy       What to do when a message arrives while the mailbox is
+	 *                     full.
+	 * @param draining     True as long as the owner is processing its messages.
+	 * @param blockTimeout The maximum time (in milliseconds) that a sender waits
+	 *                     for room with {@link OverflowPolicy#BLOCK_SENDER}.
+	 */
+	public Mailbox(AgentId owner, int capacity, OverflowPolicy policy, BooleanSupplier draining,
+			long blockTimeout) {
+		this.owner = owner;
+		this.capacity = capacity;
+		this.policy = policy;
+		this.draining = draining;
+		this.blockTimeout = blockTimeout;
+	}
+
+	/**
+	 * Puts a message into the mailbox, applying the overflow policy if it is
+	 * full.
+	 *
+	 * @param message The message.
+	 * @return True if the message was added (or merged with an equal one), false
+	 *         if it was dropped.
+	 */
+	public boolean put(Message message) {
+		boolean block = false;
+		synchronized (this) {
+			this.received++;
+			if (tryAdd(message)) {
+				return true;
+			}
+			switch (this.policy) {
+			case DROP_OLDEST:
+				Iterator<Message> oldest = this.messages.iterator();
+				oldest.next();
+				oldest.remove();
+				this.messages.add(message);
+				break;
+			case LATEST_PER_SENDER:
+				for (Iterator<Message> waiting = this.messages.iterator(); waiting.hasNext();) {
+					AgentId sender = waiting.next().getSender();
+					if (sender != null && sender.equals(message.getSender())) {
+						waiting.remove();
+						this.messages.add(message);
+						this.coalesced++;
+						return true;
+					}
+				}
+				break;
+			case BLOCK_SENDER:
+				block = !this.owner.equals(message.getSender());
+				break;
+			default:
+				break;
+			}
+		}
+		if (block && await(message)) {
+			return true;
+		}
+		drop(block);
+		return this.policy == OverflowPolicy.DROP_OLDEST;
+	}
+
+	/**
+	 * @return True if the message was added (or merged with an equal one).
+	 */
+	private boolean tryAdd(Message message) {
+		if (this.capacity > 0 && this.messages.size() >= this.capacity && !this.messages.contains(message)) {
+			return false;
+		}
+		this.messages.add(message);
+		this.maxDepth = Math.max(this.maxDepth, this.messages.size());
+		return true;
+	}
+
+	/**
+	 * Waits until the message can be added, until the owner no longer
+	 * processes its messages, or until the block timeout has passed.
+	 *
+	 * @return True if the message was added.
+	 */
+	private boolean await(final Message message) {
+		final boolean[] added = new boolean[1];
+		final long end = System.currentTimeMillis() + this.blockTimeout;
+		try {
+			AgentThreadPool.block(new ForkJoinPool.ManagedBlocker() {
+				@Override
+				public boolean block() throws InterruptedException {
+					synchronized (Mailbox.this) {
+						if (!isReleasable()) {
+							Mailbox.this.wait(Math.max(1, end - System.currentTimeMillis()));
+						}
+					}
+					return isReleasable();
+				}
+
+				@Override
+				public boolean isReleasable() {
+					synchronized (Mailbox.this) {
+						if (!added[0] && Mailbox.this.draining.getAsBoolean()
+								&& System.currentTimeMillis() < end) {
+							added[0] = tryAdd(message);
+							return added[0];
+						}
+						return true;
+					}
+				}
+			});
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		return added[0];
+	}
+
+	/**
+	 * @param blocked True if the sender waited for room in vain.
+	 */
+	private void drop(boolean blocked) {
+		final boolean first;
+		final boolean firstTimeout;
+		synchronized (this) {
+			first = (this.dropped++ == 0);
+			firstTimeout = blocked && this.draining.getAsBoolean() && (this.timedOut++ == 0);
+		}
+		if (firstTimeout) {
+			new Warning("a sender waited " + this.blockTimeout + "ms for room in the mailbox of agent '" + this.owner
+					+ "'; dropping the messages of senders that wait too long (" + OverflowPolicy.DROP_NEWEST + ").")
+							.emit();
+		} else if (first) {
+			new Warning("the mailbox of agent '" + this.owner + "' is full (" + this.capacity
+					+ " messages); dropping messages (" + this.policy + ").").emit();
+		}
+	}
+
+	/**
+	 * Removes all waiting messages from the mailbox.
+	 *
+	 * @return The messages that were waiting.
+	 */
+	public synchronized Set<Message> drain() {
+		if (this.messages.isEmpty()) {
+			return ImmutableSet.of();
+		}
+		final Set<Message> drained = ImmutableSet.copyOf(this.messages);
+		this.messages.clear();
+		notifyAll();
+		return drained;
+	}
+
+	/**
+	 * Wakes up all senders that wait for room in the mailbox, e.g. because the
+	 * owner stopped processing its messages.
+	 */
+	public synchronized void release() {
+		notifyAll();
+	}
+
+	/**
+	 * @return The maximum number of waiting messages; 0 means no limit.
+	 */
+	public int getCapacity() {
+		return this.capacity;
+	}
+
+	/**
+	 * @return The maximum time (in milliseconds) that a sender waits for room
+	 *         with {@link OverflowPolicy#BLOCK_SENDER}.
+	 */
+	public long getBlockTimeout() {
+		return this.blockTimeout;
+	}
+
+	/**
+	 * @return What happens when a message arrives while the mailbox is full.
+	 */
+	public OverflowPolicy getPolicy() {
+		return this.policy;
+	}
+
+	/**
+	 * @return The number of messages that are waiting.
+	 */
+	public synchronized int getDepth() {
+		return this.messages.size();
+	}
+
+	/**
+	 * @return The largest number of messages that were waiting at once.
+	 */
+	public synchronized int getMaxDepth() {
+		return this.maxDepth;
+	}
+
+	/**
+	 * @return The number of messages that have been put into the mailbox.
+	 */
+	public synchronized long getReceived() {
+		return this.received;
+	}
+
+	/**
+	 * @return The number of messages that were dropped because the mailbox was
+	 *         full.
+	 */
+	public synchronized long getDropped() {
+		return this.dropped;
+	}
+
+	/**
+	 * @return The number of messages that were dropped because the sender
+	 *         waited too long for room (with {@link OverflowPolicy#BLOCK_SENDER}).
+	 */
+	public synchronized long getTimedOut() {
+		return this.timedOut;
+	}
+
+	/**
+	 * @return The number of messages that replaced an earlier message of the
+	 *         same sender because the mailbox was full (with
+	 *         {@link OverflowPolicy#LATEST_PER_SENDER}).
+	 */
+	public synchronized long getCoalesced() {
+		return this.coalesced;
+	}
+}
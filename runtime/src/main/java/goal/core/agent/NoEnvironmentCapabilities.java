@@ -42,6 +42,11 @@ public class NoEnvironmentCapabilities implements EnvironmentCapabilities {
 				String.format(Resources.get(WarningStrings.FAILED_ACTION_AGENT_NOT_ATTACHED), action.toProlog()));
 	}
 
+	@Override
+	public void setWakeUp(Runnable wakeUp) {
+		// Percepts never change.
+	}
+
 	@Override
 	public void dispose() {
 		// Does nothing.
@@ -0,0 +1,67 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.agent;
+
+import java.util.Set;
+
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.msg.Message;
+
+/**
+ * The registries of the other processes that run (a part of) the same MAS. An
+ * {@link AgentRegistry} informs them of changes to its local agents, and hands
+ * them the messages for agents that run elsewhere.
+ */
+public interface RemoteRegistries {
+	/**
+	 * A local agent has been registered.
+	 *
+	 * @param agent The id of the agent.
+	 */
+	void registered(AgentId agent);
+
+	/**
+	 * A local agent has been unregistered.
+	 *
+	 * @param agent The id of the agent.
+	 */
+	void unregistered(AgentId agent);
+
+	/**
+	 * A local agent has subscribed to a channel.
+	 *
+	 * @param agent   The id of the agent.
+	 * @param channel The channel.
+	 */
+	void subscribed(AgentId agent, String channel);
+
+	/**
+	 * A local agent has unsubscribed from a channel.
+	 *
+	 * @param agent   The id of the agent.
+	 * @param channel The channel.
+	 */
+	void unsubscribed(AgentId agent, String channel);
+
+	/**
+	 * Delivers a message to agents that run in other processes.
+	 *
+	 * @param message   The message.
+	 * @param receivers The (remote) agents to deliver the message to.
+	 */
+	void postMessage(Message message, Set<AgentId> receivers);
+}
@@ -0,0 +1,166 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.agent;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Wakes up an agent that is waiting, e.g. for new messages or percepts or for
+ * its turn, instead of having it check every millisecond. Anything that might
+ * change what the agent is waiting for should {@link #signal()}; a waiting
+ * agent then checks again whether it can continue.
+ * <p>
+ * The signal counts how often it has been given, so a signal given between
+ * checking a condition and starting to wait is not missed: obtain the count
+ * with {@link #getCount()} before checking, and pass it to
+ * {@link #await(long, long)}, or to {@link #onSignal(long, Runnable)} to
+ * continue without occupying a thread in the meantime (as agents on the
+ * {@link AgentThreadPool} do).
+ * </p>
+ */
+public final class WakeUpSignal {
+	private long count;
+	/**
+	 * The task to run upon the next signal (if any); see
+	 * {@link #onSignal(long, Runnable)}.
+	 */
+	private Runnable waiting;
+	/**
+	 * A signal that is given whenever this one is (if any); see
+	 * {@link #forwardTo(WakeUpSignal)}.
+	 */
+	private volatile WakeUpSignal forward;
+
+	/**
+	 * Wakes up the agent if it is waiting.
+	 */
+	public void signal() {
+		final Runnable task;
+		synchronized (this) {
+			this.count++;
+			notifyAll();
+			task = this.waiting;
+			this.waiting = null;
+		}
+		if (task != null) {
+			task.run();
+		}
+		final WakeUpSignal forward = this.forward;
+		if (forward != null) {
+			forward.signal();
+		}
+	}
+
+	/**
+	 * Gives the other signal as well whenever this one is given, e.g. so that
+	 * one thread can wait for any of several agents to be woken up.
+	 *
+	 * @param other
+	 *            The signal to forward to, or null to stop forwarding.
+	 */
+	public void forwardTo(final WakeUpSignal other) {
+		this.forward = other;
+	}
+
+	/**
+	 * @return The number of times the signal has been given.
+	 */
+	public synchronized long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * Runs the task (once) as soon as the signal has been given (again) since
+	 * the given count was obtained: right away if it already has been, and
+	 * otherwise on the thread that gives the signal, so the task should be
+	 * short (e.g. handing the agent's next task to its executor). Replaces any
+	 * task that is still waiting.
+	 *
+	 * @param seen
+	 *            A count obtained by {@link #getCount()}.
+	 * @param task
+	 *            The task to run.
+	 */
+	public void onSignal(final long seen, final Runnable task) {
+		synchronized (this) {
+			if (this.count == seen) {
+				this.waiting = task;
+				return;
+			}
+		}
+		task.run();
+	}
+
+	/**
+	 * Waits until the signal has been given (again) since the given count was
+	 * obtained, or until the timeout has passed.
+	 *
+	 * @param seen
+	 *            A count obtained by {@link #getCount()}.
+	 * @param timeout
+	 *            The maximum time to wait in milliseconds; 0 means no maximum.
+	 * @throws InterruptedException
+	 */
+	public void await(final long seen, final long timeout) throws InterruptedException {
+		final long end = System.currentTimeMillis() + timeout;
+		AgentThreadPool.block(new ForkJoinPool.ManagedBlocker() {
+			@Override
+			public boolean block() throws InterruptedException {
+				synchronized (WakeUpSignal.this) {
+					if (WakeUpSignal.this.count == seen) {
+						if (timeout > 0) {
+							final long remaining = end - System.currentTimeMillis();
+							if (remaining > 0) {
+								WakeUpSignal.this.wait(remaining);
+							}
+						} else {
+							WakeUpSignal.this.wait();
+						}
+					}
+				}
+				return isReleasable();
+			}
+
+			@Override
+			public boolean isReleasable() {
+				return getCount() != seen || (timeout > 0 && System.currentTimeMillis() >= end);
+			}
+		});
+	}
+
+	/**
+	 * Waits until the condition holds, checking it whenever the signal is given
+	 * and (if the interval is positive) at least at the given interval.
+	 *
+	 * @param condition
+	 *            The condition to wait for.
+	 * @param interval
+	 *            The maximum time in milliseconds between two checks; 0 means
+	 *            only checking when signalled.
+	 * @throws InterruptedException
+	 */
+	public void await(final BooleanSupplier condition, final long interval) throws InterruptedException {
+		while (true) {
+			final long seen = getCount();
+			if (condition.getAsBoolean()) {
+				return;
+			}
+			await(seen, interval);
+		}
+	}
+}
@@ -89,12 +89,14 @@ public class LaunchRuleExecutor<DEBUGGER extends Debugger, CONTROLLER extends GO
 		if (applicable) {
 			// Execute the rule's launch instruction(s).
 			AgentDefinition agentDf;
+			boolean launched = false;
 			for (LaunchInstructionExecutor executor : this.executors) {
 				agentDf = executor.execute(entityName, entityType);
 				if (agentDf != null) {
 					// Create required number of agents.
 					agents.addAll(buildAgents(executor.getNr(), executor.getLaunchInstruction(), agentDf,
 							executor.getGivenName(entityName), environment, profiles));
+					launched = true;
 				}
 			}
 
@@ -103,8 +105,9 @@ public class LaunchRuleExecutor<DEBUGGER extends Debugger, CONTROLLER extends GO
 			// but no instruction returned an agent definition, the rule
 			// applications must
 			// have been exhausted (maximum number of applications must have
-			// been reached).
-			this.applicable = !agents.isEmpty();
+			// been reached). Note that agents that run in another process are
+			// not returned.
+			this.applicable = launched;
 		}
 
 		return agents;
@@ -149,7 +152,7 @@ public class LaunchRuleExecutor<DEBUGGER extends Debugger, CONTROLLER extends GO
 	 * @param agentBaseName A base name for naming agents.
 	 * @param environment   An environment to connect the agent to.
 	 *
-	 * @return The list of agents created.
+	 * @return The list of agents created (in this process).
 	 * @throws GOALLaunchFailureException If message box could not be created for
 	 *                                    agent.
 	 */
@@ -157,7 +160,10 @@ public class LaunchRuleExecutor<DEBUGGER extends Debugger, CONTROLLER extends GO
 			String agentBaseName, EnvironmentPort environment, Profiles profiles) throws GOALLaunchFailureException {
 		List<Agent<CONTROLLER>> agents = new ArrayList<>(nr);
 		for (int i = 0; i < nr; i++) {
-			agents.add(this.agentFactory.build(launch, agentDf, agentBaseName, environment, profiles));
+			Agent<CONTROLLER> agent = this.agentFactory.build(launch, agentDf, agentBaseName, environment, profiles);
+			if (agent != null) {
+				agents.add(agent);
+			}
 		}
 		return agents;
 	}
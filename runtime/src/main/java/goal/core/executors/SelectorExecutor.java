@@ -1,9 +1,11 @@
 package goal.core.executors;
 
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Random;
+import java.util.Set;
 
 import events.Channel;
 import events.ExecutionEventGeneratorInterface;
@@ -25,11 +27,26 @@ import msFactory.translator.TranslatorFactory;
  * selector using an agent registry.
  */
 public class SelectorExecutor extends mentalState.executors.SelectorExecutor {
+	/**
+	 * The channels that were referenced by the selector in the last evaluation.
+	 */
+	private final Set<String> channels = new LinkedHashSet<>(0);
+
 	public SelectorExecutor(Selector selector) {
 		super(selector);
 	}
 
+	/**
+	 * @return The channels that were referenced by the selector (and whose
+	 *         subscribers were thus included) in the last call to
+	 *         {@link #evaluate(RunState)}.
+	 */
+	public Set<String> getChannels() {
+		return this.channels;
+	}
+
 	public List<AgentId> evaluate(RunState state) {
+		this.channels.clear();
 		AgentId aid = state.getId();
 		AgentRegistry<?> registry = state.getRegistry();
 		ExecutionEventGeneratorInterface events = state.getEventGenerator();
@@ -82,6 +99,7 @@ public class SelectorExecutor extends mentalState.executors.SelectorExecutor {
 						// Try to find the referenced agent or channel...
 						if (registry.isChannel(name)) {
 							agents.addAll(registry.getSubscribers(name));
+							this.channels.add(name);
 						} else {
 							agents.add(new AgentId(name));
 						}
@@ -19,6 +19,7 @@ package goal.core.executors.actions;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
 
 import events.Channel;
 import goal.core.executors.SelectorExecutor;
@@ -200,11 +201,31 @@ public abstract class ActionExecutor {
 	 * @return A list of agents that match the (mental) action's selector
 	 */
 	protected final List<AgentId> resolveSelector(RunState runState) {
+		return resolveSelector(runState, null);
+	}
+
+	/**
+	 * Returns the list of agent names that match the selector if the action is
+	 * an instance of {@link RunState}; empty list otherwise.
+	 *
+	 * @param runstate
+	 *            The {@link RunState} in which the action is executed.
+	 * @param channels
+	 *            If not null, the channels that are referenced by the selector
+	 *            are added to this set.
+	 * @return A list of agents that match the (mental) action's selector
+	 */
+	protected final List<AgentId> resolveSelector(RunState runState, Set<String> channels) {
 		if (getAction() instanceof MentalAction) {
 			MentalAction action = (MentalAction) getAction();
 			// selector can be of the form (X,Y).
 			Selector selector = action.getSelector().applySubst(getSourceSubstitution());
-			return new SelectorExecutor(selector).evaluate(runState);
+			SelectorExecutor executor = new SelectorExecutor(selector);
+			List<AgentId> agents = executor.evaluate(runState);
+			if (channels != null) {
+				channels.addAll(executor.getChannels());
+			}
+			return agents;
 		} else {
 			return new ArrayList<>(0);
 		}
@@ -16,7 +16,9 @@
  */
 package goal.core.executors.actions;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import com.google.common.collect.ImmutableSet;
 
@@ -47,12 +49,13 @@ public class SendActionExecutor extends ActionExecutor {
 	@Override
 	public Result execute(RunState runState) throws GOALActionFailedException {
 		SendAction send = (SendAction) getAction();
-		List<AgentId> receivers = resolveSelector(runState);
+		Set<String> channels = new LinkedHashSet<>(0);
+		List<AgentId> receivers = resolveSelector(runState, channels);
 
 		Message message = send.getMessage().applySubst(getSourceSubstitution());
 		message.setReceivers(ImmutableSet.copyOf(receivers));
 
-		runState.send(send, message);
+		runState.send(send, message, channels);
 
 		return new Result(getAction());
 	}
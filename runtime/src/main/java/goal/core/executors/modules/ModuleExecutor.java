@@ -189,8 +189,9 @@ public abstract class ModuleExecutor extends StackExecutor {
 	 * these modules).
 	 *
 	 * @return true if the event module executor has been pushed onto the call
-	 *         stack. If this happens, the caller should probably return too, to
-	 *         let the handling of the stack proceed.
+	 *         stack, or the agent went to sleep (in which case this executor has
+	 *         been put back on the stack). If this happens, the caller should
+	 *         probably return too, to let the handling of the stack proceed.
 	 */
 	protected boolean doEvent(boolean reset, Result previousResult) throws GOALActionFailedException {
 		if (reset && this.runstate.isMainModuleRunning()) {
@@ -202,6 +203,10 @@ public abstract class ModuleExecutor extends StackExecutor {
 				select(this);
 				select(exec);
 				return true;
+			} else if (this.runstate.isAsleep()) {
+				// continue once the agent is awake (again)
+				select(this);
+				return true;
 			}
 		}
 		return false;
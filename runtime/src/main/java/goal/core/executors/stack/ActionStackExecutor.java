@@ -103,6 +103,13 @@ public class ActionStackExecutor extends StackExecutor {
 		return this.generated;
 	}
 
+	/**
+	 * @return the action that is executed.
+	 */
+	public Action<?> getAction() {
+		return this.action;
+	}
+
 	@Override
 	public void popped() {
 		if (this.failure != null) {
@@ -122,22 +129,30 @@ public class ActionStackExecutor extends StackExecutor {
 			if (this.result != null && previous != null) {
 				// action has been completed.
 				if (!anonymous && !this.generated) {
-					generator.event(Channel.ACTION_EXECUTED_USERSPEC, this.action, this.action.getSourceInfo(),
-							"performed '%s'.", this.action.applySubst(this.substitution));
+					if (generator.isEnabled(Channel.ACTION_EXECUTED_USERSPEC)) {
+						generator.event(Channel.ACTION_EXECUTED_USERSPEC, this.action, this.action.getSourceInfo(),
+								"performed '%s'.", this.action.applySubst(this.substitution));
+					}
 				}
 				Result prevResult = previous.getResult();
 				// copy prev result, but status only if it was anonymous module
 				this.result = new Result(prevResult.justPerformedAction(), prevResult.justPerformedRealAction(),
 						anonymous ? prevResult.getStatus() : result.getStatus());
-				generator.event(Channel.ACTION_END, this.action, this.action.getSourceInfo(), "executed action '%s'.",
-						this.action);
+				if (generator.isEnabled(Channel.ACTION_END)) {
+					generator.event(Channel.ACTION_END, this.action, this.action.getSourceInfo(),
+							"executed action '%s'.", this.action);
+				}
 			} else {
 				// action needs still to be executed.
-				generator.event(Channel.ACTION_START, this.action, this.action.getSourceInfo(), "selected action '%s'.",
-						this.action);
+				if (generator.isEnabled(Channel.ACTION_START)) {
+					generator.event(Channel.ACTION_START, this.action, this.action.getSourceInfo(),
+							"selected action '%s'.", this.action);
+				}
 				if (!anonymous && !this.generated) {
-					generator.event(Channel.CALL_ACTION_OR_MODULE, this.action.applySubst(this.substitution),
-							this.action.getSourceInfo(), "trying '%s' with %s.", this.action, this.substitution);
+					if (generator.isEnabled(Channel.CALL_ACTION_OR_MODULE)) {
+						generator.event(Channel.CALL_ACTION_OR_MODULE, this.action.applySubst(this.substitution),
+								this.action.getSourceInfo(), "trying '%s' with %s.", this.action, this.substitution);
+					}
 				}
 				this.result = Result.START;
 				ActionExecutor executor = ActionExecutor.getActionExecutor(this.action, this.substitution);
@@ -172,16 +187,23 @@ public class ActionStackExecutor extends StackExecutor {
 					} else {
 						// Just perform the action and use its result otherwise.
 						this.result = executor.perform(this.runstate);
-						this.runstate.getEventGenerator().event(Channel.ACTION_END, this.action,
-								this.action.getSourceInfo(), "executed action '%s'.", this.action);
+						if (this.runstate.getEventGenerator().isEnabled(Channel.ACTION_END)) {
+							this.runstate.getEventGenerator().event(Channel.ACTION_END, this.action,
+									this.action.getSourceInfo(), "executed action '%s'.", this.action);
+						}
 						if (executor instanceof UserSpecActionExecutor) {
-							generator.event(Channel.ACTION_EXECUTED_USERSPEC, this.action, this.action.getSourceInfo(),
-									"performed '%s'.", this.action.applySubst(this.substitution));
+							if (generator.isEnabled(Channel.ACTION_EXECUTED_USERSPEC)) {
+								generator.event(Channel.ACTION_EXECUTED_USERSPEC, this.action,
+										this.action.getSourceInfo(), "performed '%s'.",
+										this.action.applySubst(this.substitution));
+							}
 						}
 					}
 				} else {
-					this.runstate.getEventGenerator().event(Channel.ACTION_END, this.action,
-							this.action.getSourceInfo(), "precondition of action '%s' did not hold", this.action);
+					if (this.runstate.getEventGenerator().isEnabled(Channel.ACTION_END)) {
+						this.runstate.getEventGenerator().event(Channel.ACTION_END, this.action,
+								this.action.getSourceInfo(), "precondition of action '%s' did not hold", this.action);
+					}
 				}
 			}
 		} catch (GOALActionFailedException e) {
@@ -1,7 +1,7 @@
 package goal.core.executors.stack;
 
-import java.util.Deque;
-import java.util.LinkedList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
 
 import goal.core.agent.Controller;
 import goal.core.executors.modules.ModuleExecutor;
@@ -16,36 +16,41 @@ import goal.core.executors.modules.ModuleExecutor;
  * possibly on to a module again). Sometimes 'null' might be added in place of
  * any of these executors (e.g. for event module execution) to ensure that this
  * ordering (and thus the corresponding indexes) is still present.
+ * <p>
+ * The stack is only changed by the thread of its agent, but can be inspected
+ * by other threads through {@link #getFrames()} (e.g. by a sampling profiler).
+ * </p>
  */
 public class CallStack {
 	/**
-	 * The actual stack of executors
+	 * The actual stack of executors, bottom first; only the first {@link #size}
+	 * elements are in use.
 	 */
-	private final Deque<StackExecutor> stack;
+	private volatile StackExecutor[] stack = new StackExecutor[16];
+	private volatile int size;
 	/**
 	 * The previously executed executor
 	 */
 	private StackExecutor popped;
-
 	/**
-	 * Initialize an empty stack
+	 * The executor that is being executed (i.e. in its
+	 * {@link StackExecutor#popped()}), if any.
 	 */
-	public CallStack() {
-		this.stack = new LinkedList<>();
-	}
+	private volatile StackExecutor running;
 
 	/**
 	 * Clear the stack immediately (i.e., without executing any of the elements)
 	 */
 	public void clear() {
-		this.stack.clear();
+		Arrays.fill(this.stack, 0, this.size, null);
+		this.size = 0;
 	}
 
 	/**
 	 * @return true iff there are executors left on the stack
 	 */
 	public boolean canExecute() {
-		return !this.stack.isEmpty();
+		return this.size > 0;
 	}
 
 	/**
@@ -55,7 +60,7 @@ public class CallStack {
 	 *         stepping actions (into, over, out) in a generic way.
 	 */
 	public int getIndex() {
-		return this.stack.size();
+		return this.size;
 	}
 
 	/**
@@ -66,7 +71,14 @@ public class CallStack {
 	 *            ensure a certain stack index (i.e. for {@link #getIndex()})
 	 */
 	public void push(StackExecutor executor) {
-		this.stack.push(executor);
+		StackExecutor[] stack = this.stack;
+		int size = this.size;
+		if (size == stack.length) {
+			stack = Arrays.copyOf(stack, size * 2);
+			this.stack = stack;
+		}
+		stack[size] = executor;
+		this.size = size + 1;
 	}
 
 	/**
@@ -76,9 +88,20 @@ public class CallStack {
 	 * {@link #getPopped()} until the next executor has been fully processed.
 	 */
 	public void pop() {
-		StackExecutor executor = this.stack.pop();
+		int size = this.size - 1;
+		if (size < 0) {
+			throw new NoSuchElementException();
+		}
+		StackExecutor executor = this.stack[size];
+		this.stack[size] = null;
+		this.size = size;
 		if (executor != null) {
-			executor.popped();
+			this.running = executor;
+			try {
+				executor.popped();
+			} finally {
+				this.running = null;
+			}
 			this.popped = executor;
 		}
 	}
@@ -95,11 +118,38 @@ public class CallStack {
 	 *         module.
 	 */
 	public ModuleExecutor getParentModuleExecutor() {
-		for (StackExecutor executor : this.stack) {
-			if (executor instanceof ModuleExecutor) {
-				return (ModuleExecutor) executor;
+		for (int i = this.size - 1; i >= 0; i--) {
+			if (this.stack[i] instanceof ModuleExecutor) {
+				return (ModuleExecutor) this.stack[i];
 			}
 		}
 		return null;
 	}
+
+	/**
+	 * Obtains the executors that are currently being executed, i.e. the
+	 * executor that is running and the executors below it on the stack. May be
+	 * called by any thread; the result is then a best-effort snapshot.
+	 *
+	 * @return the executors that are being executed (outermost first), or an
+	 *         empty array if no executor is running at the moment.
+	 */
+	public StackExecutor[] getFrames() {
+		StackExecutor running = this.running;
+		if (running == null) {
+			return new StackExecutor[0];
+		}
+		StackExecutor[] stack = this.stack;
+		int size = Math.min(this.size, stack.length);
+		StackExecutor[] frames = new StackExecutor[size + 1];
+		int count = 0;
+		for (int i = 0; i < size; i++) {
+			StackExecutor frame = stack[i];
+			if (frame != null && frame != running) {
+				frames[count++] = frame;
+			}
+		}
+		frames[count++] = running;
+		return Arrays.copyOf(frames, count);
+	}
 }
@@ -10,6 +10,8 @@ import java.util.Set;
 
 import events.Channel;
 import events.ExecutionEventGeneratorInterface;
+import events.jfr.JfrEvents;
+import events.jfr.RuleEvent;
 import goal.core.runtime.service.agent.Result;
 import goal.core.runtime.service.agent.RunState;
 import goal.tools.errorhandling.exceptions.GOALActionFailedException;
@@ -94,6 +96,13 @@ public class RuleStackExecutor extends StackExecutor {
 		this.context = context;
 	}
 
+	/**
+	 * @return the rule that is executed.
+	 */
+	public Rule getRule() {
+		return this.rule;
+	}
+
 	@Override
 	public void popped() {
 		if (this.failure != null) {
@@ -102,8 +111,10 @@ public class RuleStackExecutor extends StackExecutor {
 
 		ExecutionEventGeneratorInterface generator = this.runstate.getEventGenerator();
 		if (this.actions == null) {
-			generator.event(Channel.RULE_START, this.rule, this.rule.getCondition().getSourceInfo(), "evaluating '%s'.",
-					this.rule);
+			if (generator.isEnabled(Channel.RULE_START)) {
+				generator.event(Channel.RULE_START, this.rule, this.rule.getCondition().getSourceInfo(),
+						"evaluating '%s'.", this.rule);
+			}
 
 			this.result = Result.START;
 			try {
@@ -132,8 +143,10 @@ public class RuleStackExecutor extends StackExecutor {
 			boolean exit = (this.actions.isEmpty()) || (!all && this.result.justPerformedAction());
 			if (exit) {
 				this.actions.clear();
-				generator.event(Channel.RULE_EXIT, this.rule, this.rule.getCondition().getSourceInfo(),
-						"finished rule '%s'.", this.rule);
+				if (generator.isEnabled(Channel.RULE_EXIT)) {
+					generator.event(Channel.RULE_EXIT, this.rule, this.rule.getCondition().getSourceInfo(),
+							"finished rule '%s'.", this.rule);
+				}
 			} else {
 				// Put the rule itself back on the stack,
 				// and add the next action to execute to it.
@@ -193,8 +206,10 @@ public class RuleStackExecutor extends StackExecutor {
 			throw new GOALActionFailedException(
 					"failed to evaluate condition of '" + this.rule.applySubst(this.substitution) + "'", e);
 		} finally {
-			this.runstate.getEventGenerator().event(Channel.RULE_EVAL_CONDITION_DONE, this.rule,
-					this.rule.getCondition().getSourceInfo(), "evaluated '%s'", this.rule);
+			if (this.runstate.getEventGenerator().isEnabled(Channel.RULE_EVAL_CONDITION_DONE)) {
+				this.runstate.getEventGenerator().event(Channel.RULE_EVAL_CONDITION_DONE, this.rule,
+						this.rule.getCondition().getSourceInfo(), "evaluated '%s'", this.rule);
+			}
 		}
 	}
 
@@ -208,22 +223,34 @@ public class RuleStackExecutor extends StackExecutor {
 		ExecutionEventGeneratorInterface generator = this.runstate.getEventGenerator();
 		Rule instantiatedRule = this.rule.applySubst(this.substitution);
 
-		generator.event(Channel.RULE_CONDITIONAL_VIEW, instantiatedRule.getCondition(),
-				instantiatedRule.getCondition().getSourceInfo(), "evaluating condition of '%s'.", instantiatedRule);
+		if (generator.isEnabled(Channel.RULE_CONDITIONAL_VIEW)) {
+			generator.event(Channel.RULE_CONDITIONAL_VIEW, instantiatedRule.getCondition(),
+					instantiatedRule.getCondition().getSourceInfo(), "evaluating condition of '%s'.", instantiatedRule);
+		}
+		RuleEvent jfr = JfrEvents.beginRule();
 		MentalStateConditionExecutor msce = mst.getConditionExecutor(this.rule.getCondition(), this.substitution);
 		MSCResult mscresult = msce.evaluate(mst, instantiatedRule.getFocusMethod(), this.runstate.getEventGenerator());
+		if (jfr != null) {
+			jfr.commit(this.runstate.getId(), this.rule.getSourceInfo(), instantiatedRule, mscresult.nrOfAnswers());
+		}
 		// Report on results and generate the list of actioncombo
 		// executors for this rule (if the condition applies).
 		if (mscresult.holds()) {
-			generator.event(Channel.HIDDEN_RULE_CONDITION_EVALUATION, instantiatedRule.getAction(),
-					instantiatedRule.getCondition().getSourceInfo(), "condition of '%s' holds.", instantiatedRule);
-			generator.event(Channel.RULE_CONDITION_EVALUATION, instantiatedRule.getCondition(),
-					instantiatedRule.getCondition().getSourceInfo(), "condition of '%s' holds for: %s.",
-					instantiatedRule, mscresult.getAnswers());
+			if (generator.isEnabled(Channel.HIDDEN_RULE_CONDITION_EVALUATION)) {
+				generator.event(Channel.HIDDEN_RULE_CONDITION_EVALUATION, instantiatedRule.getAction(),
+						instantiatedRule.getCondition().getSourceInfo(), "condition of '%s' holds.", instantiatedRule);
+			}
+			if (generator.isEnabled(Channel.RULE_CONDITION_EVALUATION)) {
+				generator.event(Channel.RULE_CONDITION_EVALUATION, instantiatedRule.getCondition(),
+						instantiatedRule.getCondition().getSourceInfo(), "condition of '%s' holds for: %s.",
+						instantiatedRule, mscresult.getAnswers());
+			}
 		} else {
-			generator.event(Channel.RULE_CONDITION_EVALUATION, instantiatedRule.getCondition(),
-					instantiatedRule.getCondition().getSourceInfo(), "condition of '%s' does not hold.",
-					instantiatedRule);
+			if (generator.isEnabled(Channel.RULE_CONDITION_EVALUATION)) {
+				generator.event(Channel.RULE_CONDITION_EVALUATION, instantiatedRule.getCondition(),
+						instantiatedRule.getCondition().getSourceInfo(), "condition of '%s' does not hold.",
+						instantiatedRule);
+			}
 		}
 		return mscresult;
 	}
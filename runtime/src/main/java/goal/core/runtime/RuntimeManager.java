@@ -22,6 +22,7 @@ import java.net.URLEncoder;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import eis.exceptions.EnvironmentInterfaceException;
 import goal.core.agent.Agent;
@@ -38,6 +39,7 @@ import goal.core.runtime.service.environmentport.EnvironmentPort;
 import goal.core.runtime.service.environmentport.EnvironmentPortObserver;
 import goal.core.runtime.service.environmentport.environmentport.events.EnvironmentEvent;
 import goal.core.runtime.service.environmentport.environmentport.events.StateChangeEvent;
+import goal.preferences.LoggingPreferences;
 import goal.tools.debugger.Debugger;
 import goal.tools.errorhandling.Warning;
 import goal.tools.errorhandling.exceptions.GOALBug;
@@ -237,6 +239,10 @@ public class RuntimeManager<DEBUGGER extends Debugger, CONTROLLER extends GOALIn
 		}
 	}
 
+	/**
+	 * The timers of all agents in the runtime; see {@link #getTimerWheel()}.
+	 */
+	private final static TimerWheel timerWheel = new TimerWheel(1, TimeUnit.MILLISECONDS, 512);
 	private final EnvironmentService environmentService;
 	private final AgentService<DEBUGGER, CONTROLLER> agentService;
 	private long startTime;
@@ -412,6 +418,10 @@ public class RuntimeManager<DEBUGGER extends Debugger, CONTROLLER extends GOALIn
 		// Print the elapsed time.
 		final long elapsedTime = (System.nanoTime() - this.startTime) / 1000000000;
 		new InfoLog("ran for " + elapsedTime + " seconds.").emit();
+		if (LoggingPreferences.getPrintStats() && timerWheel.getFired() > 0) {
+			new InfoLog(String.format("timers fired %d times with a mean lag of %.3fms (max %.3fms).",
+					timerWheel.getFired(), timerWheel.getMeanLag(), timerWheel.getMaxLag())).emit();
+		}
 
 		// Clean up all loggers
 		for (GOALLogger logger : Loggers.getAllLoggers()) {
@@ -422,6 +432,15 @@ public class RuntimeManager<DEBUGGER extends Debugger, CONTROLLER extends GOALIn
 		}
 	}
 
+	/**
+	 * @return The timer wheel that runs the timers of all agents (i.e. those
+	 *         started by a start timer action, and those that wake up sleeping
+	 *         agents), using a single thread.
+	 */
+	public static TimerWheel getTimerWheel() {
+		return timerWheel;
+	}
+
 	/**
 	 * Starts all environment and agents that were launched paused (through the
 	 * environment). If there is no environment, start all agents anyway.
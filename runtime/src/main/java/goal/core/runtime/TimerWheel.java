@@ -0,0 +1,341 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import goal.tools.errorhandling.Warning;
+
+/**
+ * A hashed timer wheel: a single thread that runs (small) tasks at a given time,
+ * once or periodically, for all agents in the runtime. Time is divided into
+ * ticks; each tick corresponds to a bucket in a circular array, and a timer is
+ * put into the bucket of the tick at which it expires, together with the number
+ * of rounds of the wheel that should pass before that. Scheduling and cancelling
+ * a timer therefore takes constant time, independent of the number of timers.
+ * <p>
+ * Tasks are run on the thread of the wheel itself, and should thus return
+ * quickly. The thread only wakes up every tick while there are timers.
+ * </p>
+ */
+public final class TimerWheel {
+	private static final int STATE_ACTIVE = 0;
+	private static final int STATE_CANCELLED = 1;
+	private static final int STATE_EXPIRED = 2;
+
+	private final long tickNanos;
+	private final Bucket[] wheel;
+	private final int mask;
+	/**
+	 * Timers that have been scheduled but not yet been put into the wheel.
+	 */
+	private final Queue<Timeout> scheduled = new ConcurrentLinkedQueue<>();
+	/**
+	 * Timers that have been cancelled but not yet been removed from the wheel.
+	 */
+	private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+	/**
+	 * The number of active timers.
+	 */
+	private final AtomicInteger size = new AtomicInteger();
+	private final AtomicLong fired = new AtomicLong();
+	private final AtomicLong totalLag = new AtomicLong();
+	private volatile long maxLag;
+	private final long startTime = System.nanoTime();
+	/**
+	 * The current tick; only used by the thread of the wheel.
+	 */
+	private long tick;
+	private Thread thread;
+
+	/**
+	 * @param tick
+	 *            The duration of a tick.
+	 * @param unit
+	 *            The unit of the duration.
+	 * @param buckets
+	 *            The number of buckets in the wheel (rounded up to a power of
+	 *            two).
+	 */
+	public TimerWheel(final long tick, final TimeUnit unit, final int buckets) {
+		this.tickNanos = Math.max(1, unit.toNanos(tick));
+		int length = 1;
+		while (length < buckets) {
+			length <<= 1;
+		}
+		this.wheel = new Bucket[length];
+		for (int i = 0; i < length; i++) {
+			this.wheel[i] = new Bucket();
+		}
+		this.mask = length - 1;
+	}
+
+	/**
+	 * Runs the task once after the given delay.
+	 *
+	 * @return The timer, which can be used to cancel it.
+	 */
+	public Timeout schedule(final Runnable task, final long delay, final TimeUnit unit) {
+		return schedule(task, delay, 0, unit);
+	}
+
+	/**
+	 * Runs the task after the given delay, and then (if the period is positive)
+	 * periodically at a fixed rate until the timer is cancelled.
+	 *
+	 * @return The timer, which can be used to cancel it.
+	 */
+	public Timeout schedule(final Runnable task, final long delay, final long period, final TimeUnit unit) {
+		final Timeout timeout = new Timeout(task, System.nanoTime() + unit.toNanos(Math.max(0, delay)),
+				(period > 0) ? Math.max(this.tickNanos, unit.toNanos(period)) : 0);
+		this.size.incrementAndGet();
+		this.scheduled.add(timeout);
+		synchronized (this) {
+			if (this.thread == null) {
+				this.thread = new Thread(this::work, "timerwheel");
+				this.thread.setDaemon(true);
+				this.thread.start();
+			} else {
+				notifyAll();
+			}
+		}
+		return timeout;
+	}
+
+	/**
+	 * @return The number of active timers.
+	 */
+	public int getSize() {
+		return this.size.get();
+	}
+
+	/**
+	 * @return The number of times a timer expired (i.e. a task was run).
+	 */
+	public long getFired() {
+		return this.fired.get();
+	}
+
+	/**
+	 * @return The average time (in milliseconds) between the moment at which a
+	 *         timer should have expired and the moment its task was run.
+	 */
+	public double getMeanLag() {
+		final long count = this.fired.get();
+		return (count == 0) ? 0 : (this.totalLag.get() / (double) count) / 1000000;
+	}
+
+	/**
+	 * @return The largest time (in milliseconds) between the moment at which a
+	 *         timer should have expired and the moment its task was run.
+	 */
+	public double getMaxLag() {
+		return this.maxLag / 1000000.0;
+	}
+
+	private void work() {
+		final List<Timeout> periodic = new ArrayList<>();
+		while (true) {
+			synchronized (this) {
+				if (this.size.get() == 0) {
+					try {
+						while (this.size.get() == 0) {
+							wait();
+						}
+					} catch (final InterruptedException e) {
+						this.thread = null;
+						return;
+					}
+					// the wheel is empty, so we can just skip the idle ticks.
+					this.tick = Math.max(this.tick, (System.nanoTime() - this.startTime) / this.tickNanos);
+				}
+			}
+			final long deadline = this.startTime + (this.tick + 1) * this.tickNanos;
+			long wait = deadline - System.nanoTime();
+			while (wait > 0) {
+				try {
+					TimeUnit.NANOSECONDS.sleep(wait);
+				} catch (final InterruptedException ignore) {
+				}
+				wait = deadline - System.nanoTime();
+			}
+			removeCancelled();
+			addScheduled();
+			final Bucket bucket = this.wheel[(int) (this.tick & this.mask)];
+			Timeout timeout = bucket.head;
+			while (timeout != null) {
+				final Timeout next = timeout.next;
+				if (timeout.rounds <= 0) {
+					bucket.remove(timeout);
+					expire(timeout, periodic);
+				} else {
+					timeout.rounds--;
+				}
+				timeout = next;
+			}
+			this.tick++;
+			for (final Timeout repeat : periodic) {
+				add(repeat);
+			}
+			periodic.clear();
+		}
+	}
+
+	private void expire(final Timeout timeout, final List<Timeout> periodic) {
+		if (timeout.state.get() != STATE_ACTIVE) {
+			return;
+		}
+		final long lag = System.nanoTime() - timeout.deadline;
+		this.fired.incrementAndGet();
+		this.totalLag.addAndGet(lag);
+		if (lag > this.maxLag) {
+			this.maxLag = lag;
+		}
+		if (timeout.period == 0 && timeout.state.compareAndSet(STATE_ACTIVE, STATE_EXPIRED)) {
+			this.size.decrementAndGet();
+		}
+		try {
+			timeout.task.run();
+		} catch (final RuntimeException e) {
+			new Warning("a timer task failed.", e).emit();
+		}
+		if (timeout.period > 0 && timeout.state.get() == STATE_ACTIVE) {
+			timeout.deadline += timeout.period;
+			periodic.add(timeout);
+		}
+	}
+
+	private void addScheduled() {
+		Timeout timeout;
+		while ((timeout = this.scheduled.poll()) != null) {
+			if (timeout.state.get() == STATE_ACTIVE) {
+				add(timeout);
+			}
+		}
+	}
+
+	private void add(final Timeout timeout) {
+		final long expires = Math.max(this.tick, (timeout.deadline - this.startTime) / this.tickNanos);
+		timeout.rounds = (expires - this.tick) / this.wheel.length;
+		this.wheel[(int) (expires & this.mask)].add(timeout);
+	}
+
+	private void removeCancelled() {
+		Timeout timeout;
+		while ((timeout = this.cancelled.poll()) != null) {
+			if (timeout.bucket != null) {
+				timeout.bucket.remove(timeout);
+			}
+		}
+	}
+
+	/**
+	 * A scheduled task.
+	 */
+	public final class Timeout {
+		private final Runnable task;
+		private final long period;
+		private final AtomicInteger state = new AtomicInteger(STATE_ACTIVE);
+		/**
+		 * The following fields are only used by the thread of the wheel.
+		 */
+		private long deadline;
+		private long rounds;
+		private Bucket bucket;
+		private Timeout prev, next;
+
+		Timeout(final Runnable task, final long deadline, final long period) {
+			this.task = task;
+			this.deadline = deadline;
+			this.period = period;
+		}
+
+		/**
+		 * Cancels the timer, i.e. its task will not be run (anymore).
+		 *
+		 * @return False if the timer already expired or was cancelled before.
+		 */
+		public boolean cancel() {
+			if (this.state.compareAndSet(STATE_ACTIVE, STATE_CANCELLED)) {
+				TimerWheel.this.size.decrementAndGet();
+				TimerWheel.this.cancelled.add(this);
+				return true;
+			} else {
+				return false;
+			}
+		}
+
+		/**
+		 * @return True iff the timer was cancelled.
+		 */
+		public boolean isCancelled() {
+			return this.state.get() == STATE_CANCELLED;
+		}
+
+		/**
+		 * @return True iff the timer expired (and will not run again).
+		 */
+		public boolean isExpired() {
+			return this.state.get() == STATE_EXPIRED;
+		}
+	}
+
+	/**
+	 * A doubly-linked list of timers that expire in the same tick (modulo the
+	 * length of the wheel). Only used by the thread of the wheel.
+	 */
+	private static final class Bucket {
+		private Timeout head, tail;
+
+		void add(final Timeout timeout) {
+			timeout.bucket = this;
+			timeout.prev = this.tail;
+			timeout.next = null;
+			if (this.tail == null) {
+				this.head = timeout;
+			} else {
+				this.tail.next = timeout;
+			}
+			this.tail = timeout;
+		}
+
+		void remove(final Timeout timeout) {
+			if (timeout.bucket != this) {
+				return;
+			}
+			if (timeout.prev == null) {
+				this.head = timeout.next;
+			} else {
+				timeout.prev.next = timeout.next;
+			}
+			if (timeout.next == null) {
+				this.tail = timeout.prev;
+			} else {
+				timeout.next.prev = timeout.prev;
+			}
+			timeout.bucket = null;
+			timeout.prev = null;
+			timeout.next = null;
+		}
+	}
+}
@@ -16,9 +16,16 @@
  */
 package goal.core.runtime.service.agent;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -29,9 +36,13 @@ import java.util.concurrent.ConcurrentHashMap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 
+import events.jfr.JfrEvents;
+import events.jfr.Recorder;
 import goal.core.agent.Agent;
 import goal.core.agent.AgentFactory;
+import goal.core.agent.AgentThreadPool;
 import goal.core.agent.GOALInterpreter;
+import goal.core.agent.Mailbox.OverflowPolicy;
 import goal.core.executors.LaunchRuleExecutor;
 import goal.core.runtime.service.agent.events.AddedLocalAgent;
 import goal.core.runtime.service.agent.events.AddedRemoteAgent;
@@ -43,7 +54,9 @@ import goal.core.runtime.service.environmentport.environmentport.events.DeletedE
 import goal.core.runtime.service.environmentport.environmentport.events.EnvironmentEvent;
 import goal.core.runtime.service.environmentport.environmentport.events.FreeEntityEvent;
 import goal.core.runtime.service.environmentport.environmentport.events.NewEntityEvent;
+import goal.core.runtime.service.shard.ShardService;
 import goal.preferences.CorePreferences;
+import goal.preferences.LoggingPreferences;
 import goal.preferences.ProfilerPreferences;
 import goal.tools.debugger.Debugger;
 import goal.tools.debugger.SteppingDebugger;
@@ -52,6 +65,8 @@ import goal.tools.errorhandling.Warning;
 import goal.tools.errorhandling.WarningStrings;
 import goal.tools.errorhandling.exceptions.GOALLaunchFailureException;
 import goal.tools.logging.InfoLog;
+import goal.tools.metrics.MetricsRegistry;
+import goal.tools.profiler.FlameGraph;
 import goal.tools.profiler.Profiles;
 import languageTools.program.agent.AgentId;
 import languageTools.program.mas.LaunchRule;
@@ -73,6 +88,26 @@ public class AgentService<DEBUGGER extends Debugger, CONTROLLER extends GOALInte
 	private final AgentFactory<DEBUGGER, CONTROLLER> factory;
 	private final List<AgentServiceEventObserver> observers = new LinkedList<>();
 	private final Profiles profiles;
+	/**
+	 * The runtime metrics of the agents (if kept).
+	 */
+	private final MetricsRegistry metrics;
+	/**
+	 * The flight recording of the run (if made).
+	 */
+	private final Recorder recorder;
+	/**
+	 * Hands out the turns in sequential mode.
+	 */
+	private final TurnScheduler turnScheduler = new TurnScheduler(CorePreferences.getSleepPollInterval());
+	/**
+	 * Connects this process to the other processes that run the MAS (if any).
+	 */
+	private ShardService shards;
+	/**
+	 * True once the unconditional launch rules have been applied.
+	 */
+	private boolean started;
 
 	/**
 	 * Executors for the launch rules.
@@ -88,11 +123,41 @@ public class AgentService<DEBUGGER extends Debugger, CONTROLLER extends GOALInte
 	public AgentService(MASProgram masProgram, AgentFactory<DEBUGGER, CONTROLLER> factory) {
 		this.masProgram = masProgram;
 		this.factory = factory;
+		AgentThreadPool.configure(CorePreferences.getAgentThreads());
+		if (CorePreferences.getSequentialExecution()
+				&& CorePreferences.getMailboxPolicy() == OverflowPolicy.BLOCK_SENDER) {
+			new Warning("the mailbox policy " + OverflowPolicy.BLOCK_SENDER + " cannot be used in sequential mode; using "
+					+ OverflowPolicy.DROP_NEWEST + " instead.").emit();
+		}
 		if (ProfilerPreferences.getProfiling()) {
 			this.profiles = new Profiles();
 		} else {
 			this.profiles = null;
 		}
+		if (ProfilerPreferences.getMetrics()) {
+			String file = ProfilerPreferences.getMetricsFile();
+			this.metrics = new MetricsRegistry(file.isEmpty() ? null : new File(file),
+					ProfilerPreferences.getMetricsInterval());
+			this.metrics.start();
+		} else {
+			this.metrics = null;
+		}
+		if (ProfilerPreferences.getFlightRecording()) {
+			DateFormat format = new SimpleDateFormat("yy-MM-dd_HH.mm.ss");
+			Path file = Paths.get(LoggingPreferences.getLogDirectory(), "goal_" + format.format(new Date()) + ".jfr");
+			Recorder recorder = null;
+			try {
+				recorder = JfrEvents.startRecording(file);
+				if (recorder == null) {
+					new Warning("the flight recorder is not available in this Java runtime.").emit();
+				}
+			} catch (IOException e) {
+				new Warning("failed to start the flight recorder.", e).emit();
+			}
+			this.recorder = recorder;
+		} else {
+			this.recorder = null;
+		}
 
 		// Create executors for launch rules.
 		for (LaunchRule rule : this.masProgram.getLaunchRules()) {
@@ -112,6 +177,20 @@ public class AgentService<DEBUGGER extends Debugger, CONTROLLER extends GOALInte
 				startAgent(agent);
 			}
 		}
+		synchronized (this) {
+			this.started = true;
+			notifyAll();
+		}
+	}
+
+	/**
+	 * Divides the agents of the MAS among several processes. Should be called
+	 * before {@link #start()}.
+	 *
+	 * @param shards Connects this process to the others.
+	 */
+	public void setShards(ShardService shards) {
+		this.shards = shards;
 	}
 
 	/**
@@ -124,6 +203,22 @@ public class AgentService<DEBUGGER extends Debugger, CONTROLLER extends GOALInte
 		if (profiles != null) {
 			profiles.getNames().stream().filter(name -> profiles.getProfiles(name).size() > 1)
 					.forEach(name -> profiles.getMergedProfile(name).log(new AgentId("All_" + name)));
+			if (ProfilerPreferences.getFlameGraph()) {
+				profiles.getNames().forEach(name -> new FlameGraph(profiles.getMergedProfile(name)).writeFiles());
+			}
+		}
+		if (this.shards != null) {
+			this.shards.close();
+		}
+		if (this.metrics != null) {
+			this.metrics.close();
+		}
+		if (this.recorder != null) {
+			try {
+				this.recorder.stop();
+			} catch (IOException e) {
+				new Warning("failed to write the flight recording.", e).emit();
+			}
 		}
 	}
 
@@ -141,13 +236,14 @@ public class AgentService<DEBUGGER extends Debugger, CONTROLLER extends GOALInte
 			// turn'
 			// one-by-one (waiting until each turn has been completed)
 			while (!(agents = getAliveAgents()).isEmpty()) {
+				List<CONTROLLER> controllers = new ArrayList<>(agents.size());
 				for (Agent<CONTROLLER> agent : agents) {
-					CONTROLLER controller = agent.getController();
-					controller.giveTurn();
-					while (controller.isRunning() && controller.hasTurn()) {
-						Thread.sleep(1);
-					}
+					controllers.add(agent.getController());
 				}
+				this.turnScheduler.round(controllers);
+			}
+			if (LoggingPreferences.getPrintStats() && this.turnScheduler.getTurns() > 0) {
+				new InfoLog(this.turnScheduler.toString()).emit();
 			}
 		} else {
 			while (!(agents = getAliveAgents()).isEmpty()) {
@@ -280,6 +376,9 @@ public class AgentService<DEBUGGER extends Debugger, CONTROLLER extends GOALInte
 
 		// If agent was local notify observers.
 		if (agent != null) {
+			if (this.metrics != null) {
+				this.metrics.unregister(id.toString());
+			}
 			notifyObservers(new RemovedLocalAgent(agent));
 		} else {
 			notifyObservers(new RemovedRemoteAgent(id));
@@ -345,6 +444,10 @@ public class AgentService<DEBUGGER extends Debugger, CONTROLLER extends GOALInte
 		// We've created a new agent; inform that agent of the existence of all
 		// other agents that we know of.
 		this.agents.addLocal(agent);
+		if (this.metrics != null) {
+			agent.getController().setMetrics(
+					this.metrics.register(agent.getId().toString(), agent.getController().getProgram().getName()));
+		}
 
 		// FIXME: remove this notification, agent registry should be updated
 		// automatically.
@@ -496,13 +599,14 @@ public class AgentService<DEBUGGER extends Debugger, CONTROLLER extends GOALInte
 
 	/**
 	 * Await the launch of the first agent. This method will return once an agent
-	 * has been launched.
+	 * has been launched, or, if the agents are divided among several processes,
+	 * once the agents of this process have been launched (there may be none).
 	 *
 	 * @throws InterruptedException
 	 */
 	public void awaitFirstAgent() throws InterruptedException {
 		synchronized (this) {
-			while (!hasLocalAgents()) {
+			while (!hasLocalAgents() && !(this.started && this.shards != null)) {
 				// This will surrender the lock.
 				// Wake up call is done in launchAgent().
 				wait();
@@ -0,0 +1,168 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime.service.agent;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import eis.PerceptUpdate;
+import eis.exceptions.EnvironmentInterfaceException;
+import eis.iilang.Percept;
+import goal.core.agent.EnvironmentCapabilities;
+import goal.core.runtime.service.environmentport.PerceptQueue;
+
+/**
+ * Fetches (and prepares) the percepts of an agent for its next cycle while it
+ * is still executing the current one. A fetch is started whenever the agent has
+ * performed an action in the environment, as its percepts are then likely to
+ * change; at the start of the next cycle, the agent takes the changes that have
+ * been fetched in the meantime instead of asking the environment itself.
+ * <p>
+ * If no action has been performed since the previous cycle, nothing has been
+ * fetched and the agent asks the environment as usual. Changes that happen in
+ * the environment after the last fetch of a cycle are seen one cycle later.
+ * </p>
+ */
+public class PerceptPipeline {
+	/**
+	 * The threads that fetch percepts, shared by all agents.
+	 */
+	private static final ExecutorService FETCHERS = Executors.newCachedThreadPool(r -> {
+		Thread thread = new Thread(r, "percept pipeline");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final EnvironmentCapabilities environment;
+	/**
+	 * Prepares the fetched percepts, e.g. by translating them.
+	 */
+	private final Consumer<Collection<Percept>> prepare;
+	private final PerceptQueue queue = new PerceptQueue();
+	/**
+	 * The last fetch that has been started; fetches are done one after another.
+	 */
+	private CompletableFuture<Void> last = CompletableFuture.completedFuture(null);
+	/**
+	 * True if a fetch has been started since the changes were last taken.
+	 */
+	private boolean fetched;
+	private long handovers;
+	private long waits;
+	private long waitTime;
+
+	/**
+	 * @param environment The environment to fetch the percepts from.
+	 * @param prepare     Prepares the percepts that are fetched; called on the
+	 *                    fetching thread.
+	 */
+	public PerceptPipeline(EnvironmentCapabilities environment, Consumer<Collection<Percept>> prepare) {
+		this.environment = environment;
+		this.prepare = prepare;
+	}
+
+	/**
+	 * Starts fetching the percepts, unless a fetch is already waiting to start.
+	 * Should be called on the thread of the agent.
+	 */
+	public void prefetch() {
+		this.fetched = true;
+		if (this.queue.schedule()) {
+			this.last = this.last.thenRunAsync(this::fetch, FETCHERS);
+		}
+	}
+
+	private void fetch() {
+		this.queue.fetching();
+		try {
+			PerceptUpdate percepts = this.environment.getPercepts();
+			if (!percepts.isEmpty()) {
+				this.prepare.accept(percepts.getAddList());
+			}
+			this.queue.offer(percepts);
+		} catch (EnvironmentInterfaceException e) {
+			this.queue.fail(e);
+		} catch (RuntimeException e) {
+			this.queue.fail(new EnvironmentInterfaceException("failed to fetch the percepts.", e));
+		}
+	}
+
+	/**
+	 * Takes the changes that have been fetched since this method was last
+	 * called, waiting for a fetch that is still running. Should be called on the
+	 * thread of the agent.
+	 *
+	 * @return The changes to the percepts, or null if nothing has been fetched.
+	 * @throws EnvironmentInterfaceException If a fetch failed.
+	 */
+	public PerceptUpdate take() throws EnvironmentInterfaceException {
+		if (!this.fetched) {
+			return null;
+		}
+		this.fetched = false;
+		if (!this.last.isDone()) {
+			long start = System.nanoTime();
+			this.last.join();
+			this.waitTime += System.nanoTime() - start;
+			this.waits++;
+		}
+		this.handovers++;
+		return this.queue.drain();
+	}
+
+	/**
+	 * Discards the changes that have been fetched.
+	 */
+	public void reset() {
+		this.last.join();
+		this.fetched = false;
+		try {
+			this.queue.drain();
+		} catch (EnvironmentInterfaceException ignore) {
+		}
+	}
+
+	/**
+	 * @return The number of cycles that took the percepts from the pipeline.
+	 */
+	public long getHandovers() {
+		return this.handovers;
+	}
+
+	/**
+	 * @return The number of cycles that had to wait for a fetch to finish.
+	 */
+	public long getWaits() {
+		return this.waits;
+	}
+
+	/**
+	 * @return The total time (in nanoseconds) spent waiting for fetches.
+	 */
+	public long getWaitTime() {
+		return this.waitTime;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d handovers, waited %d times (%.1fms)", this.handovers, this.waits,
+				this.waitTime / 1000000.0);
+	}
+}
@@ -17,19 +17,19 @@
 package goal.core.runtime.service.agent;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collection;
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Stack;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.Executors;
-import java.util.concurrent.Future;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 import com.google.common.collect.Sets;
 
@@ -43,6 +43,10 @@ import events.Channel;
 import events.ExecutionEventGenerator;
 import events.ExecutionEventGeneratorInterface;
 import events.ExecutionEventListener;
+import events.jfr.ActionEvent;
+import events.jfr.CycleEvent;
+import events.jfr.JfrEvents;
+import events.jfr.PerceptEvent;
 import goal.core.agent.Agent;
 import goal.core.agent.AgentRegistry;
 import goal.core.agent.Controller;
@@ -50,7 +54,10 @@ import goal.core.agent.DefaultEnvironmentCapabilities;
 import goal.core.agent.EnvironmentCapabilities;
 import goal.core.agent.GOALInterpreter;
 import goal.core.agent.LoggingCapabilities;
+import goal.core.agent.WakeUpSignal;
 import goal.core.executors.actions.LogActionExecutor.LogOptions;
+import goal.core.runtime.RuntimeManager;
+import goal.core.runtime.TimerWheel;
 import goal.preferences.CorePreferences;
 import goal.preferences.DebugPreferences;
 import goal.preferences.LoggingPreferences;
@@ -66,6 +73,8 @@ import goal.tools.errorhandling.Warning;
 import goal.tools.errorhandling.WarningStrings;
 import goal.tools.errorhandling.exceptions.GOALActionFailedException;
 import goal.tools.errorhandling.exceptions.GOALLaunchFailureException;
+import goal.tools.metrics.AgentMetrics;
+import goal.tools.metrics.Metric;
 import goal.tools.planner.Planner;
 import goal.tools.planner.PlannerFactory;
 import krTools.KRInterface;
@@ -130,6 +139,11 @@ public class RunState {
 	 * performed (i.e. event module has been entered).
 	 */
 	private int roundCounter = 0;
+	/**
+	 * The total time (in nanoseconds) the agent has spent sleeping, i.e.
+	 * waiting for new percepts or messages.
+	 */
+	private long sleepTime = 0;
 	/**
 	 * The {@link MentalState} of the {@link Agent}.
 	 */
@@ -190,6 +204,25 @@ public class RunState {
 	 * Keep track whether sleep condition held previous cycle.
 	 */
 	private boolean sleepConditionsHoldingPreviousCycle;
+	/**
+	 * True while the agent sleeps at the start of a cycle, i.e. until new
+	 * percepts or messages arrive; see {@link #checkAwake()}.
+	 */
+	private boolean asleep;
+	/**
+	 * The time (see {@link System#nanoTime()}) at which the agent went to sleep.
+	 */
+	private long asleepSince;
+	/**
+	 * The time (in millisecond precision) until which the agent executes a
+	 * sleep action; 0 if it does not.
+	 */
+	private long sleepUntil;
+	/**
+	 * True if the caller of {@link #startCycle(boolean)} takes care of waiting
+	 * while the agent is asleep (see {@link #setParking(boolean)}).
+	 */
+	private boolean parking;
 	/**
 	 * Keep track of executed actions
 	 */
@@ -203,10 +236,25 @@ public class RunState {
 	/**
 	 * Timers started with the StarTimer action.
 	 */
-	private final Map<AgentTimer, Future<?>> timers = new HashMap<>();
-	private final ScheduledExecutorService timerservice;
+	private final Map<AgentTimer, TimerWheel.Timeout> timers = new ConcurrentHashMap<>();
+	/**
+	 * The percepts generated by timers (on the thread of the
+	 * {@link RuntimeManager#getTimerWheel()}) that have not been processed yet.
+	 */
 	private final BlockingQueue<Percept> timerqueue = new LinkedBlockingQueue<>();
-		
+	/**
+	 * Fetches the percepts for the next cycle while the current one is executed
+	 * (if enabled).
+	 */
+	private final PerceptPipeline pipeline;
+	/**
+	 * The runtime metrics of the agent, or null if none are kept.
+	 */
+	private AgentMetrics metrics;
+	/**
+	 * The flight recorder event of the current cycle, if recorded.
+	 */
+	private CycleEvent cycleEvent;
 
 	/**
 	 * Creates a new {@link RunState}
@@ -256,6 +304,8 @@ public class RunState {
 
 		try { // Create a new mental state for the agent.
 			this.mentalState = MentalStateFactory.getMentalState(this.agentDf, this.agentName);
+			this.mentalState.setConjunctiveEvaluation(CorePreferences.getConjunctiveEvaluation());
+			this.mentalState.setQueryCacheSize(CorePreferences.getQueryCacheSize());
 		} catch (InstantiationFailedException e) {
 			throw new GOALLaunchFailureException(
 					"failed to create the initial mental state for agent '" + this.agentName + "'.", e);
@@ -269,15 +319,31 @@ public class RunState {
 		// Set timeout.
 		this.timeout = timeout;
 
-		// Initialize timer service
-		this.timerservice = Executors.newScheduledThreadPool(1, new ThreadFactory() {
-			@Override
-			public Thread newThread(Runnable r) {
-				Thread t = new Thread(r, RunState.this.agentName + " timerservice");
-				t.setPriority(Thread.MIN_PRIORITY);
-				return t;
-			}
-		});
+		if (CorePreferences.getPerceptPipeline() && environment instanceof DefaultEnvironmentCapabilities) {
+			this.pipeline = new PerceptPipeline(environment, percepts -> {
+				MentalStateWithEvents mentalState = this.mentalState;
+				if (mentalState != null) {
+					mentalState.preparePercepts(percepts);
+				}
+			});
+		} else {
+			this.pipeline = null;
+		}
+	}
+
+	/**
+	 * @return The percept pipeline of the agent, or null if percepts are not
+	 *         fetched ahead.
+	 */
+	public PerceptPipeline getPerceptPipeline() {
+		return this.pipeline;
+	}
+
+	/**
+	 * @param metrics The runtime metrics of the agent, or null to keep none.
+	 */
+	public void setMetrics(AgentMetrics metrics) {
+		this.metrics = metrics;
 	}
 
 	/**
@@ -296,15 +362,24 @@ public class RunState {
 	private ExecutionEventGeneratorInterface createEventGenerator() {
 		ExecutionEventGenerator generator = new ExecutionEventGenerator();
 		if (LoggingPreferences.getLogToFile()) {
+			final Set<Channel> viewed = EnumSet.noneOf(Channel.class);
+			for (Channel channel : Channel.values()) {
+				if (DebugPreferences.getChannelState(channel).canView()) {
+					viewed.add(channel);
+				}
+			}
 			generator.addListener(new ExecutionEventListener() {
 				@Override
 				public void goalEvent(Channel channel, Object associateObject, SourceInfo associateSource,
 						String message, Object... args) {
-					if (DebugPreferences.getChannelState(channel).canView()) {
-						DebugEvent event = new DebugEvent(null, RunState.this.agentName.toString(), channel,
-								associateObject, associateSource, message, args);
-						RunState.this.logActionsLogger.log(event.toString());
-					}
+					DebugEvent event = new DebugEvent(null, RunState.this.agentName.toString(), channel,
+							associateObject, associateSource, message, args);
+					RunState.this.logActionsLogger.log(event.toString());
+				}
+
+				@Override
+				public Set<Channel> getChannels() {
+					return viewed;
 				}
 			});
 		}
@@ -340,6 +415,14 @@ public class RunState {
 		++this.roundCounter;
 	}
 
+	/**
+	 * @return The total time (in nanoseconds) the agent has spent sleeping so
+	 *         far, i.e. waiting for new percepts or messages.
+	 */
+	public long getSleepTime() {
+		return this.sleepTime;
+	}
+
 	/**
 	 * Returns the {@link MentalState} of the agent's {@link RunState}.
 	 *
@@ -380,12 +463,15 @@ public class RunState {
 	 */
 	public void reset() throws GOALLaunchFailureException {
 		this.roundCounter = 0;
+		this.cycleEvent = null;
 		try {
 			// Clean up old and create new initial mental state.
 			if (this.mentalState != null) {
 				this.mentalState.cleanUp();
 			}
 			this.mentalState = MentalStateFactory.getMentalState(this.agentDf, this.agentName);
+			this.mentalState.setConjunctiveEvaluation(CorePreferences.getConjunctiveEvaluation());
+			this.mentalState.setQueryCacheSize(CorePreferences.getQueryCacheSize());
 			this.eventGenerator.event(Channel.CLEARSTATE, null, null, "reinitialized mental state.");
 		} catch (MSTDatabaseException | MSTQueryException | InstantiationFailedException e) {
 			throw new GOALLaunchFailureException(
@@ -394,12 +480,21 @@ public class RunState {
 		this.previousMessages = new HashSet<>(0);
 		this.activeStackOfModules.clear();
 		this.sleepConditionsHoldingPreviousCycle = false;
+		this.asleep = false;
+		this.sleepUntil = 0;
 		this.topLevelRunContext = UseCase.MAIN;
-		for (Future<?> timer : this.timers.values()) {
-			timer.cancel(true);
+		cancelTimers();
+		this.timerqueue.clear();
+		if (this.pipeline != null) {
+			this.pipeline.reset();
+		}
+	}
+
+	private void cancelTimers() {
+		for (TimerWheel.Timeout timer : this.timers.values()) {
+			timer.cancel();
 		}
 		this.timers.clear();
-		this.timerqueue.clear();
 	}
 
 	/**
@@ -410,9 +505,15 @@ public class RunState {
 	 * @throws MSTDatabaseException
 	 */
 	public void dispose() throws MSTDatabaseException, MSTQueryException {
-		this.timerservice.shutdownNow();
+		cancelTimers();
 		// Check whether we need to cleanup mental state.
 		if (this.mentalState != null) {
+			if (this.cycleEvent != null) {
+				this.cycleEvent.end();
+				this.cycleEvent.commit(this.agentName, getAndResetActionCount(), getAndResetMessageCount(),
+						this.mentalState.getAndResetQueryCount());
+				this.cycleEvent = null;
+			}
 			this.mentalState.cleanUp();
 			this.mentalState = null;
 		}
@@ -433,7 +534,18 @@ public class RunState {
 
 		// Perform the operations (if any)
 		if (!percepts.isEmpty()) {
+			PerceptEvent jfr = JfrEvents.beginPercepts();
+			long start = System.nanoTime();
 			updatePercepts(percepts.getAddList(), percepts.getDeleteList());
+			if (jfr != null) {
+				jfr.commit(this.agentName, percepts.getAddList().size(), percepts.getDeleteList().size());
+			}
+			if (this.metrics != null) {
+				this.metrics.record(Metric.PERCEPT_TIME, System.nanoTime() - start);
+				this.metrics.record(Metric.PERCEPTS, percepts.getAddList().size() + percepts.getDeleteList().size());
+			}
+		} else if (this.metrics != null) {
+			this.metrics.record(Metric.PERCEPTS, 0);
 		}
 
 		this.eventGenerator.event(Channel.PERCEPTS, null, null, "percepts processed.");
@@ -441,20 +553,11 @@ public class RunState {
 
 	public void updatePercepts(List<Percept> add, List<Percept> remove) throws GOALActionFailedException {
 		SourceInfo event = (getEventModule() == null) ? null : getEventModule().getDefinition();
-		mentalState.Result result = this.mentalState.createResult(BASETYPE.PERCEPTBASE, this.agentName.toString());
-		for (Percept delete : remove) {
-			try {
-				result.merge(this.mentalState.removePercept(delete, this.eventGenerator).get(0));
-			} catch (MSTDatabaseException | MSTQueryException e) {
-				throw new GOALActionFailedException("deleting the percept '" + delete + "' failed.", e);
-			}
-		}
-		for (Percept insert : add) {
-			try {
-				result.merge(this.mentalState.percept(insert, this.eventGenerator).get(0));
-			} catch (MSTDatabaseException | MSTQueryException e) {
-				throw new GOALActionFailedException("inserting the percept '" + insert + "' failed.", e);
-			}
+		mentalState.Result result;
+		try {
+			result = this.mentalState.updatePercepts(add, remove, this.eventGenerator).get(0);
+		} catch (MSTDatabaseException | MSTQueryException e) {
+			throw new GOALActionFailedException("updating the percepts failed.", e);
 		}
 		this.eventGenerator.event(Channel.PERCEPTS_CONDITIONAL_VIEW, result, event);
 	}
@@ -522,7 +625,10 @@ public class RunState {
 
 	private PerceptUpdate getPercepts() throws GOALActionFailedException {
 		try {
-			PerceptUpdate percepts = this.environment.getPercepts();
+			PerceptUpdate percepts = (this.pipeline == null) ? null : this.pipeline.take();
+			if (percepts == null) {
+				percepts = this.environment.getPercepts();
+			}
 			if (this.timerqueue.size() > 0) {
 				List<Percept> timerPercepts = new ArrayList<>(this.timerqueue.size());
 				this.timerqueue.drainTo(timerPercepts);
@@ -545,6 +651,8 @@ public class RunState {
 	 * </ul>
 	 *
 	 * This function may go to sleep until there are new percepts or messages.
+	 * When parking (see {@link #setParking(boolean)}), it then returns right
+	 * away, and the cycle is started by {@link #checkAwake()} instead.
 	 *
 	 * @param isRealActionPerformed is true if a 'real' action (i.e. not a module
 	 *                              call) has been performed between this call and
@@ -562,6 +670,10 @@ public class RunState {
 		if (timedOut()) {
 			throw new DebuggerKilledException("timeout reached", null);
 		}
+		if (this.cycleEvent != null) {
+			// the previous cycle ends here (before we might go to sleep)
+			this.cycleEvent.end();
+		}
 
 		Agent<?> agent = this.registry.getAgent(this.agentName);
 		PerceptUpdate perceptUpdate = getPercepts();
@@ -581,42 +693,34 @@ public class RunState {
 		if (CorePreferences.getSleepRepeatingAgent() && this.environment instanceof DefaultEnvironmentCapabilities
 				&& this.sleepConditionsHoldingPreviousCycle && !event && notStepping()) {
 			this.eventGenerator.event(Channel.SLEEP, null, null, "going to sleep.");
-			while (!event) {
-				// TODO: would be nice to be event triggered here,
-				// and wake up on new message or percept, e.g., by
-				// using a blocking queue. But we are using a pull model for
-				// percepts... Maybe we can hand over responsibility for
-				// checking our percepts to the environment port that is
-				// running in its own thread and have that port notify us
-				// when something has changed!?
-				this.parent.endTurn();
-				do {
-					try {
-						Thread.sleep(1);
-					} catch (InterruptedException dobreak) {
-						break;
-					} // in sequential mode, keep sleeping until we get the turn again
-				} while (CorePreferences.getSequentialExecution() && this.parent.isRunning() && !this.parent.hasTurn());
-				perceptUpdate = getPercepts();
-				newMessages = agent.getMessages();
-				event = !perceptUpdate.isEmpty();
-				if (!event) {
-					event = !newMessages.equals(this.previousMessages);
-				}
-				if (this.parent instanceof IDEGOALInterpreter) {
-					IDEGOALInterpreter interpreter = (IDEGOALInterpreter) this.parent;
-					event |= (interpreter.getDebugger().getRunMode() != RunMode.RUNNING);
-				}
-				event |= timedOut();
+			this.asleep = true;
+			this.asleepSince = System.nanoTime();
+			if (this.parking) {
+				return false;
 			}
-			this.eventGenerator.event(Channel.SLEEP, null, null, "woke up.");
+			awaitAwake();
+			return true;
 		}
+		beginCycle(perceptUpdate, newMessages, event);
+		return event;
+	}
+
+	/**
+	 * Increments the round counter, displays the round separator via the
+	 * debugger, and processes the given percepts and messages.
+	 */
+	private void beginCycle(PerceptUpdate perceptUpdate, Set<Message> newMessages, boolean event)
+			throws GOALActionFailedException {
 		// Increment round counter and display round separator via debugger.
 		incrementRoundCounter();
 		String prefix = "";
 		int actionCount = getAndResetActionCount();
 		int messageCount = getAndResetMessageCount();
 		int queryCount = this.mentalState.getAndResetQueryCount();
+		if (this.cycleEvent != null) {
+			this.cycleEvent.commit(this.agentName, actionCount, messageCount, queryCount);
+		}
+		this.cycleEvent = JfrEvents.beginCycle(this.roundCounter);
 		if (LoggingPreferences.getPrintStats()) {
 			prefix = String.format(
 					"non-state actions: %d, send actions %d, state queries: %d, total[beliefs: %d, goals: %d, messages: %d, percepts: %d]",
@@ -635,8 +739,106 @@ public class RunState {
 
 		// Store sleep condition state
 		this.sleepConditionsHoldingPreviousCycle = !event;
+	}
 
-		return event;
+	/**
+	 * @param parking True if the caller of {@link #startCycle(boolean)} (and of
+	 *                the sleep action) does not wait while the agent is asleep,
+	 *                but returns and calls {@link #checkAwake()} whenever the
+	 *                agent's {@link WakeUpSignal} is given until the agent is
+	 *                awake again, so that a sleeping agent does not occupy a
+	 *                thread. By default, the agent waits itself.
+	 */
+	public void setParking(boolean parking) {
+		this.parking = parking;
+	}
+
+	/**
+	 * @return True if the agent sleeps, i.e. waits for new percepts or messages
+	 *         or executes a sleep action, and should not continue before
+	 *         {@link #checkAwake()} says so.
+	 */
+	public boolean isAsleep() {
+		return this.asleep || this.sleepUntil != 0;
+	}
+
+	/**
+	 * Checks whether the agent can continue: it does not sleep (anymore) and,
+	 * in sequential mode, it has the turn (which it gives back if it cannot
+	 * continue). An agent that was waiting for new percepts or messages and
+	 * received some starts its next cycle. The agent's {@link WakeUpSignal}
+	 * count should be obtained before calling this, so that a signal given in
+	 * the meantime is not missed.
+	 *
+	 * @return -1 if the agent can continue, or else the maximum time in
+	 *         milliseconds after which this should be checked again if the
+	 *         agent's {@link WakeUpSignal} has not been given before then (0
+	 *         means no maximum).
+	 * @throws GOALActionFailedException
+	 */
+	public long checkAwake() throws GOALActionFailedException {
+		final boolean running = this.parent.isRunning();
+		if (CorePreferences.getSequentialExecution() && running) {
+			if (!this.parent.hasTurn()) {
+				return 0;
+			}
+			this.parent.takeTurn();
+		}
+		if (this.sleepUntil != 0) {
+			final long remaining = this.sleepUntil - System.currentTimeMillis();
+			if (remaining > 0 && running) {
+				this.parent.endTurn();
+				return remaining;
+			}
+			this.sleepUntil = 0;
+		}
+		if (this.asleep) {
+			// We are woken up by new messages, timers, percepts that the
+			// environment notifies us of, actions performed in the
+			// environment and changes in run mode. As percepts are pulled
+			// from the environment, we also check for them now and then.
+			PerceptUpdate perceptUpdate = getPercepts();
+			Set<Message> newMessages = this.registry.getAgent(this.agentName).getMessages();
+			boolean event = !perceptUpdate.isEmpty();
+			if (!event) {
+				event = !newMessages.equals(this.previousMessages);
+			}
+			if (this.parent instanceof IDEGOALInterpreter) {
+				IDEGOALInterpreter interpreter = (IDEGOALInterpreter) this.parent;
+				event |= (interpreter.getDebugger().getRunMode() != RunMode.RUNNING);
+			}
+			event |= timedOut() || !running;
+			if (!event) {
+				this.parent.endTurn();
+				return CorePreferences.getSequentialExecution() ? 0 : CorePreferences.getSleepPollInterval();
+			}
+			this.asleep = false;
+			this.sleepTime += System.nanoTime() - this.asleepSince;
+			this.eventGenerator.event(Channel.SLEEP, null, null, "woke up.");
+			beginCycle(perceptUpdate, newMessages, event);
+		}
+		return -1;
+	}
+
+	/**
+	 * Waits until the agent can continue; see {@link #checkAwake()}.
+	 *
+	 * @throws GOALActionFailedException
+	 */
+	private void awaitAwake() throws GOALActionFailedException {
+		final WakeUpSignal wakeUp = this.parent.getWakeUpSignal();
+		while (true) {
+			final long seen = wakeUp.getCount();
+			final long wait = checkAwake();
+			if (wait < 0) {
+				return;
+			}
+			try {
+				wakeUp.await(seen, wait);
+			} catch (InterruptedException e) {
+				// check again
+			}
+		}
 	}
 
 	private boolean notStepping() {
@@ -798,9 +1000,13 @@ public class RunState {
 		}
 	}
 
-	public void send(SendAction send, Message message) {
+	/**
+	 * Sends a message, of which the receivers (partially) may have been selected
+	 * by means of the given channels.
+	 */
+	public void send(SendAction send, Message message, Collection<String> channels) {
 		message.setSender(this.agentName);
-		Warning warning = this.registry.postMessage(message);
+		Warning warning = this.registry.postMessage(message, channels);
 		if (warning != null) {
 			this.eventGenerator.event(Channel.WARNING, warning, send.getSourceInfo());
 		}
@@ -819,7 +1025,23 @@ public class RunState {
 			try {
 				Translator translator = TranslatorFactory.getTranslator(getKRI());
 				eis.iilang.Action eis = translator.convert((UserSpecAction) action);
-				this.environment.performAction(eis);
+				ActionEvent jfr = JfrEvents.beginAction();
+				long start = System.nanoTime();
+				boolean failed = true;
+				try {
+					this.environment.performAction(eis);
+					failed = false;
+				} finally {
+					if (jfr != null) {
+						jfr.commit(this.agentName, action.getSourceInfo(), action, failed);
+					}
+				}
+				if (this.metrics != null) {
+					this.metrics.record(Metric.ACTION, System.nanoTime() - start);
+				}
+				if (this.pipeline != null) {
+					this.pipeline.prefetch();
+				}
 			} catch (EnvironmentInterfaceException e) {
 				if (e instanceof ActException && (((ActException) e).getType() == ActException.FAILURE
 						|| ((ActException) e).getType() == ActException.NOTSPECIFIC)) {
@@ -889,23 +1111,36 @@ public class RunState {
 		final long interval = Long.parseLong(startTimer.getParameters().get(1).toString());
 		final long duration = Long.parseLong(startTimer.getParameters().get(2).toString());
 		final AgentTimer timer = new AgentTimer(name, interval, duration);
-		final Future<?> existing = this.timers.get(timer);
-		if (existing != null) {
-			existing.cancel(true);
-		}
-		final Future<?> future = this.timerservice.scheduleAtFixedRate(new Runnable() {
+		// the timer can fire (for the last time) before schedule returns, in
+		// which case it cannot cancel itself yet and is cancelled below
+		final AtomicReference<TimerWheel.Timeout> scheduled = new AtomicReference<>();
+		final AtomicBoolean finished = new AtomicBoolean();
+		final TimerWheel.Timeout timeout = RuntimeManager.getTimerWheel().schedule(new Runnable() {
 			@Override
 			public void run() {
 				Percept percept = new Percept("timer", new Identifier(timer.getName()),
 						new Numeral(timer.getElapsed()));
 				RunState.this.timerqueue.add(percept);
+				RunState.this.parent.getWakeUpSignal().signal();
 				if (timer.hasFinished()) {
-					Future<?> cancel = RunState.this.timers.remove(timer);
-					cancel.cancel(true);
+					finished.set(true);
+					TimerWheel.Timeout self = scheduled.get();
+					if (self != null) {
+						self.cancel();
+						RunState.this.timers.remove(timer, self);
+					}
 				}
 			}
 		}, interval, interval, TimeUnit.MILLISECONDS);
-		this.timers.put(timer, future);
+		scheduled.set(timeout);
+		final TimerWheel.Timeout existing = this.timers.put(timer, timeout);
+		if (existing != null) {
+			existing.cancel();
+		}
+		if (finished.get()) {
+			timeout.cancel();
+			this.timers.remove(timer, timeout);
+		}
 	}
 
 	/**
@@ -918,10 +1153,10 @@ public class RunState {
 		for (final Term timername : cancelTimer.getParameters()) {
 			final String name = timername.toString();
 			final AgentTimer timerstub = new AgentTimer(name, 0, 0);
-			final Future<?> existing = this.timers.get(timerstub);
+			final TimerWheel.Timeout existing = this.timers.remove(timerstub);
 			boolean cancelled = false;
 			if (existing != null) {
-				cancelled = existing.cancel(true);
+				cancelled = existing.cancel();
 			}
 			if (!cancelled) {
 				new Warning("timer '" + name + "' was not running or already cancelled.").emit();
@@ -987,33 +1222,14 @@ public class RunState {
 
 	private void sleep(SleepAction sleep) throws GOALActionFailedException {
 		long timeout = Long.parseLong(sleep.getParameters().get(0).toString());
-		if (CorePreferences.getSequentialExecution()) {
-			final long endtime = System.currentTimeMillis() + timeout;
-			// if executing sequentially, keep ending our turn when it is given
-			// to us during
-			// the sleep period
-			while (System.currentTimeMillis() < endtime) {
-				this.parent.endTurn();
-				try {
-					Thread.sleep(1);
-				} catch (InterruptedException e) {
-					break;
-				}
-			}
-			// wait until we are given the turn again after the sleep period
-			while (this.parent.isRunning() && !this.parent.hasTurn()) {
-				try {
-					Thread.sleep(1);
-				} catch (InterruptedException e) {
-					break;
-				}
-			}
-		} else {
-			try { // execute the requested sleep
-				Thread.sleep(timeout);
-			} catch (InterruptedException e) {
-				throw new GOALActionFailedException("failed to execute '" + sleep + "'.", e);
-			}
+		if (timeout <= 0) {
+			return;
+		}
+		// in sequential mode, the turn is given back during the sleep period
+		// (see checkAwake)
+		this.sleepUntil = System.currentTimeMillis() + timeout;
+		if (!this.parking) {
+			awaitAwake();
 		}
 	}
 
@@ -0,0 +1,182 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime.service.agent;
+
+import java.util.List;
+
+import goal.core.agent.Controller;
+import goal.core.agent.WakeUpSignal;
+import goal.preferences.CorePreferences;
+
+/**
+ * Gives the turn to agents one at a time, in round-robin order, for the
+ * sequential execution mode (see
+ * {@link goal.preferences.CorePreferences#getSequentialExecution()}). The turn
+ * is handed over directly: the agent is woken up when it gets the turn, and the
+ * scheduler is unparked as soon as the agent ends it, so no time is lost on
+ * polling between turns.
+ * <p>
+ * When none of the agents can continue (i.e. all of them are idle; see
+ * {@link Controller#isIdle()}), the scheduler does not keep handing out turns,
+ * but waits until one of the agents is woken up, or the poll interval has
+ * passed (as sleeping agents also check for new percepts that the environment
+ * did not notify them of).
+ * </p>
+ * <p>
+ * Keeps track of the number of turns, of the latency of handing over a turn
+ * (i.e. the time between giving the turn to an agent and the agent taking it),
+ * and of the duration of the turns.
+ * </p>
+ */
+public class TurnScheduler {
+	/**
+	 * Given whenever the signal of one of the agents is given.
+	 */
+	private final WakeUpSignal wakeUp = new WakeUpSignal();
+	private final long pollInterval;
+	private long turns;
+	private long handoffs;
+	private long totalLatency;
+	private long maxLatency;
+	private long totalDuration;
+	private long idleRounds;
+
+	/**
+	 * Creates a scheduler that, when all agents are idle, only continues when
+	 * one of them is woken up.
+	 */
+	public TurnScheduler() {
+		this(0);
+	}
+
+	/**
+	 * @param pollInterval
+	 *            The maximum time in milliseconds to wait when all agents are
+	 *            idle (see {@link CorePreferences#getSleepPollInterval()}); 0
+	 *            means no maximum.
+	 */
+	public TurnScheduler(final long pollInterval) {
+		this.pollInterval = pollInterval;
+	}
+
+	/**
+	 * Gives the turn to each of the controllers in the given order, each time
+	 * waiting until the turn has ended (or the agent stopped running) before
+	 * continuing with the next one. If all of them are idle afterwards, waits
+	 * until one of them is woken up (or the poll interval has passed).
+	 *
+	 * @param controllers
+	 *            The controllers to give the turn to.
+	 * @throws InterruptedException
+	 *             when interrupted while waiting
+	 */
+	public void round(final List<? extends Controller> controllers) throws InterruptedException {
+		final long[] seen = new long[controllers.size()];
+		boolean idle = true;
+		for (int i = 0; i < seen.length; i++) {
+			final Controller controller = controllers.get(i);
+			controller.getWakeUpSignal().forwardTo(this.wakeUp);
+			turn(controller);
+			seen[i] = controller.getWakeUpSignal().getCount();
+			idle &= controller.isIdle();
+		}
+		if (idle && seen.length > 0) {
+			final long signals = this.wakeUp.getCount();
+			for (int i = 0; i < seen.length; i++) {
+				if (controllers.get(i).getWakeUpSignal().getCount() != seen[i]) {
+					// woken up after its turn already
+					return;
+				}
+			}
+			synchronized (this) {
+				this.idleRounds++;
+			}
+			this.wakeUp.await(signals, this.pollInterval);
+		}
+	}
+
+	/**
+	 * Gives the turn to the controller, and waits until it has ended (or the
+	 * agent stopped running).
+	 *
+	 * @param controller
+	 *            The controller to give the turn to.
+	 * @throws InterruptedException
+	 *             when interrupted while waiting
+	 */
+	public void turn(final Controller controller) throws InterruptedException {
+		final long start = System.nanoTime();
+		controller.giveTurn();
+		controller.awaitEndOfTurn();
+		final long duration = System.nanoTime() - start;
+		final long latency = controller.getTurnLatency();
+		synchronized (this) {
+			this.turns++;
+			this.totalDuration += duration;
+			if (latency >= 0) {
+				this.handoffs++;
+				this.totalLatency += latency;
+				this.maxLatency = Math.max(this.maxLatency, latency);
+			}
+		}
+	}
+
+	/**
+	 * @return The number of turns that have been given.
+	 */
+	public synchronized long getTurns() {
+		return this.turns;
+	}
+
+	/**
+	 * @return The number of rounds after which all agents were idle.
+	 */
+	public synchronized long getIdleRounds() {
+		return this.idleRounds;
+	}
+
+	/**
+	 * @return The average time (in milliseconds) between giving the turn to an
+	 *         agent and the agent taking it.
+	 */
+	public synchronized double getMeanLatency() {
+		return (this.handoffs == 0) ? 0 : (this.totalLatency / (double) this.handoffs) / 1000000;
+	}
+
+	/**
+	 * @return The largest time (in milliseconds) between giving the turn to an
+	 *         agent and the agent taking it.
+	 */
+	public synchronized double getMaxLatency() {
+		return this.maxLatency / 1000000.0;
+	}
+
+	/**
+	 * @return The average duration (in milliseconds) of a turn, from giving it
+	 *         to the scheduler continuing after it ended.
+	 */
+	public synchronized double getMeanDuration() {
+		return (this.turns == 0) ? 0 : (this.totalDuration / (double) this.turns) / 1000000;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format(
+				"%d turns with a mean handoff latency of %.3fms (max %.3fms) and a mean duration of %.3fms; all agents were idle after %d rounds.",
+				this.turns, getMeanLatency(), getMaxLatency(), getMeanDuration(), this.idleRounds);
+	}
+}
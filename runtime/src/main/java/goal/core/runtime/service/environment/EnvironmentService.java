@@ -35,6 +35,7 @@ import goal.core.runtime.service.environment.events.EnvironmentPortAddedEvent;
 import goal.core.runtime.service.environment.events.EnvironmentPortRemovedEvent;
 import goal.core.runtime.service.environment.events.EnvironmentServiceEvent;
 import goal.core.runtime.service.environmentport.EnvironmentPort;
+import goal.preferences.CorePreferences;
 import goal.tools.errorhandling.Resources;
 import goal.tools.errorhandling.Warning;
 import goal.tools.errorhandling.WarningStrings;
@@ -90,7 +91,9 @@ public class EnvironmentService {
 		// Get environment name, file (if it exists), and initialization
 		// parameters.
 		File environmentFile = this.masProgram.getEnvironmentfile();
-		if (environmentFile != null) {
+		// If the agents are divided among several processes, only the first one
+		// runs the environment.
+		if (environmentFile != null && (CorePreferences.getShards().isEmpty() || CorePreferences.getShardIndex() == 0)) {
 			try {
 				EnvironmentInterfaceStandard eis = EILoader.fromJarFile(environmentFile);
 				String environmentName = environmentFile.getName().substring(0,
@@ -20,6 +20,11 @@ import java.util.Collection;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 import eis.AgentListener;
 import eis.EnvironmentInterfaceStandard;
@@ -39,6 +44,7 @@ import goal.core.runtime.service.environmentport.environmentport.events.FreeEnti
 import goal.core.runtime.service.environmentport.environmentport.events.NewEntityEvent;
 import goal.core.runtime.service.environmentport.environmentport.events.NewPerceptEvent;
 import goal.core.runtime.service.environmentport.environmentport.events.StateChangeEvent;
+import goal.preferences.CorePreferences;
 import goal.tools.errorhandling.Resources;
 import goal.tools.errorhandling.Warning;
 import goal.tools.errorhandling.WarningStrings;
@@ -52,12 +58,37 @@ import goal.tools.errorhandling.WarningStrings;
  * <p>
  * This also handles events like newEntity and passes them on to the
  * {@link AgentService} if necessary.
+ * <p>
+ * If percepts are pushed (see {@link CorePreferences#getPushPercepts()}), the
+ * percepts of an agent are fetched from the environment on a thread of the port
+ * whenever they might have changed, and are kept in a {@link PerceptQueue}
+ * until the agent asks for them. The port fetches again as soon as an agent
+ * has emptied its queue, so an agent does not wait for the environment at the
+ * start of a cycle, but may see percepts that are (at most) one fetch old.
+ * Otherwise, the percepts of an agent are fetched again after it performs an
+ * action, or when the environment notifies it; all fetches are done on the
+ * same thread, so they never overlap.
  */
 public class EnvironmentPort implements EnvironmentListener, AgentListener {
 	private final EnvironmentInterfaceStandard environment;
 	private final String name;
 	private final Map<String, eis.iilang.Parameter> initialization;
 	private final List<EnvironmentPortObserver> observers = new LinkedList<>();
+	/**
+	 * Wakes up a (sleeping) agent when its percepts might have changed, by agent
+	 * name.
+	 */
+	private final Map<String, Runnable> wakeUps = new ConcurrentHashMap<>();
+	/**
+	 * The percepts that have been fetched for an agent (if percepts are pushed),
+	 * by agent name.
+	 */
+	private final Map<String, PerceptQueue> queues = new ConcurrentHashMap<>();
+	/**
+	 * Fetches the percepts for the queues; created when the first agent is
+	 * registered.
+	 */
+	private ExecutorService fetcher;
 
 	/**
 	 * <p>
@@ -138,6 +169,11 @@ public class EnvironmentPort implements EnvironmentListener, AgentListener {
 		} catch (Exception e) { // takedown protection
 		} finally {
 			this.environment.detachEnvironmentListener(this);
+			synchronized (this) {
+				if (this.fetcher != null) {
+					this.fetcher.shutdownNow();
+				}
+			}
 		}
 	}
 
@@ -188,6 +224,9 @@ public class EnvironmentPort implements EnvironmentListener, AgentListener {
 	public void registerAgent(String agentName) throws EnvironmentInterfaceException {
 		this.environment.registerAgent(agentName);
 		this.environment.attachAgentListener(agentName, this);
+		if (CorePreferences.getPushPercepts()) {
+			this.queues.put(agentName, new PerceptQueue());
+		}
 	}
 
 	/**
@@ -199,6 +238,8 @@ public class EnvironmentPort implements EnvironmentListener, AgentListener {
 	 * @throws EnvironmentInterfaceException
 	 */
 	public void freeAgent(String agentName) throws EnvironmentInterfaceException {
+		this.wakeUps.remove(agentName);
+		this.queues.remove(agentName);
 		this.environment.unregisterAgent(agentName);
 		this.environment.detachAgentListener(agentName, this);
 	}
@@ -215,13 +256,146 @@ public class EnvironmentPort implements EnvironmentListener, AgentListener {
 	 */
 	public void associateEntity(String agentName, String newEntity) throws EnvironmentInterfaceException {
 		this.environment.associateEntity(agentName, newEntity);
+		refresh(agentName);
 	}
 
+	/**
+	 * Performs the action, after which the percepts of the agent are fetched
+	 * again (if percepts are pushed) as they might have changed as a result; the
+	 * agent is only woken up when its percepts actually changed (see
+	 * {@link #fetch(String, PerceptQueue)}). Other agents are refreshed when the
+	 * environment notifies them (see {@link #handlePercept(String, Percept)}).
+	 */
 	public void performAction(String agentName, Action action) throws EnvironmentInterfaceException {
 		this.environment.performAction(agentName, action);
+		refresh(agentName);
+	}
+
+	/**
+	 * Sets what to do when the percepts of the agent might have changed; see
+	 * {@link #handlePercept(String, Percept)} and
+	 * {@link #fetch(String, PerceptQueue)}.
+	 *
+	 * @param agentName
+	 *            The agent.
+	 * @param wakeUp
+	 *            Wakes up the agent, or null to remove.
+	 */
+	public void setWakeUp(String agentName, Runnable wakeUp) {
+		if (wakeUp == null) {
+			this.wakeUps.remove(agentName);
+		} else {
+			this.wakeUps.put(agentName, wakeUp);
+		}
+	}
+
+	/**
+	 * Fetches the percepts of an agent on the thread of the port, if percepts
+	 * are pushed and a fetch is not already waiting.
+	 *
+	 * @param agentName
+	 *            The agent.
+	 */
+	private void refresh(final String agentName) {
+		final PerceptQueue queue = this.queues.get(agentName);
+		if (queue == null || !queue.schedule()) {
+			return;
+		}
+		try {
+			getFetcher().execute(() -> fetch(agentName, queue));
+		} catch (RejectedExecutionException e) {
+			// the port has been shut down
+		}
 	}
 
+	private synchronized ExecutorService getFetcher() {
+		if (this.fetcher == null) {
+			this.fetcher = Executors.newSingleThreadExecutor(r -> {
+				Thread thread = new Thread(r, "percepts of " + this.name);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+		return this.fetcher;
+	}
+
+	private void fetch(String agentName, PerceptQueue queue) {
+		queue.fetching();
+		offer(agentName, queue);
+		Runnable wakeUp = this.wakeUps.get(agentName);
+		if (wakeUp != null && !queue.isEmpty()) {
+			wakeUp.run();
+		}
+	}
+
+	private void offer(String agentName, PerceptQueue queue) {
+		try {
+			queue.offer(fetchPercepts(agentName));
+		} catch (EnvironmentInterfaceException e) {
+			queue.fail(e);
+		}
+	}
+
+	/**
+	 * Fetches the initial percepts of an agent on the thread of the port (after
+	 * any fetch that is already waiting), and waits for them.
+	 */
+	private void awaitInitial(final String agentName, final PerceptQueue queue)
+			throws EnvironmentInterfaceException {
+		try {
+			getFetcher().submit(() -> {
+				if (!queue.isFilled()) {
+					offer(agentName, queue);
+				}
+			}).get();
+		} catch (RejectedExecutionException | ExecutionException e) {
+			throw new EnvironmentInterfaceException("failed to fetch the initial percepts of " + agentName + ".", e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new EnvironmentInterfaceException(
+					"interrupted while fetching the initial percepts of " + agentName + ".", e);
+		}
+	}
+
+	private void refreshAll() {
+		for (String agentName : this.queues.keySet()) {
+			refresh(agentName);
+		}
+	}
+
+	private void wakeUpAll() {
+		for (Runnable wakeUp : this.wakeUps.values()) {
+			wakeUp.run();
+		}
+	}
+
+	/**
+	 * Returns the changes to the percepts of an agent since it last asked for
+	 * them. If percepts are pushed, these are taken from the queue of the agent
+	 * (after which the port fetches again); otherwise, they are fetched from the
+	 * environment.
+	 *
+	 * @param agentName
+	 *            The agent.
+	 * @return The changes to the percepts of the agent, merged over all its
+	 *         entities.
+	 * @throws EnvironmentInterfaceException
+	 */
 	public PerceptUpdate getPercepts(String agentName) throws EnvironmentInterfaceException {
+		PerceptQueue queue = this.queues.get(agentName);
+		if (queue == null) {
+			return fetchPercepts(agentName);
+		}
+		if (!queue.isFilled()) {
+			// nothing has been fetched yet; do not skip the initial percepts
+			awaitInitial(agentName, queue);
+		}
+		PerceptUpdate percepts = queue.drain();
+		refresh(agentName);
+		return percepts;
+	}
+
+	private PerceptUpdate fetchPercepts(String agentName) throws EnvironmentInterfaceException {
 		Map<String, PerceptUpdate> map = this.environment.getPercepts(agentName);
 		if (map.size() == 1) {
 			return map.values().iterator().next();
@@ -246,11 +420,18 @@ public class EnvironmentPort implements EnvironmentListener, AgentListener {
 	@Override
 	public void handlePercept(String agent, Percept percept) {
 		notifyObservers(new NewPerceptEvent(agent, percept));
+		refresh(agent);
+		Runnable wakeUp = this.wakeUps.get(agent);
+		if (wakeUp != null) {
+			wakeUp.run();
+		}
 	}
 
 	@Override
 	public void handleStateChange(EnvironmentState newState) {
 		notifyObservers(new StateChangeEvent(newState));
+		refreshAll();
+		wakeUpAll();
 	}
 
 	@Override
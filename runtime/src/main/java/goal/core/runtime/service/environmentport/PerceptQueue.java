@@ -0,0 +1,153 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime.service.environmentport;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import eis.PerceptUpdate;
+import eis.exceptions.EnvironmentInterfaceException;
+import eis.iilang.Percept;
+
+/**
+ * The percept updates for an agent that have been fetched from the environment
+ * but not yet processed by the agent. Updates are coalesced as they arrive: a
+ * percept that is added after it has been deleted (or the other way around)
+ * cancels out, so the agent receives a single update with the net changes
+ * since it last emptied the queue.
+ */
+public class PerceptQueue {
+	private final Set<Percept> added = new LinkedHashSet<>();
+	private final Set<Percept> deleted = new LinkedHashSet<>();
+	/**
+	 * The failure of the last fetch, if the agent has not been told yet.
+	 */
+	private EnvironmentInterfaceException failure;
+	/**
+	 * True once an update has been put into the queue.
+	 */
+	private boolean filled;
+	/**
+	 * True while a fetch has been scheduled but not yet started.
+	 */
+	private boolean pending;
+	private long updates;
+	private long cancelled;
+
+	/**
+	 * Puts an update into the queue, merging it with the waiting changes.
+	 *
+	 * @param update The update, as obtained from the environment.
+	 */
+	public synchronized void offer(PerceptUpdate update) {
+		for (Percept percept : update.getDeleteList()) {
+			if (this.added.remove(percept)) {
+				this.cancelled++;
+			} else {
+				this.deleted.add(percept);
+			}
+		}
+		for (Percept percept : update.getAddList()) {
+			if (this.deleted.remove(percept)) {
+				this.cancelled++;
+			} else {
+				this.added.add(percept);
+			}
+		}
+		this.updates++;
+		this.filled = true;
+	}
+
+	/**
+	 * Records that fetching the percepts failed; the failure is reported to the
+	 * agent when it empties the queue.
+	 *
+	 * @param failure The failure.
+	 */
+	public synchronized void fail(EnvironmentInterfaceException failure) {
+		this.failure = failure;
+	}
+
+	/**
+	 * Marks the queue as waiting for a fetch.
+	 *
+	 * @return False if a fetch was already waiting to start.
+	 */
+	public synchronized boolean schedule() {
+		if (this.pending) {
+			return false;
+		}
+		this.pending = true;
+		return true;
+	}
+
+	/**
+	 * Marks the start of a fetch; changes that are signalled from now on need a
+	 * new fetch.
+	 */
+	public synchronized void fetching() {
+		this.pending = false;
+	}
+
+	/**
+	 * @return True once an update has been put into the queue.
+	 */
+	public synchronized boolean isFilled() {
+		return this.filled;
+	}
+
+	/**
+	 * @return True if there are no changes waiting.
+	 */
+	public synchronized boolean isEmpty() {
+		return this.added.isEmpty() && this.deleted.isEmpty();
+	}
+
+	/**
+	 * Removes the waiting changes from the queue.
+	 *
+	 * @return The net changes since the queue was last emptied.
+	 * @throws EnvironmentInterfaceException If the last fetch failed.
+	 */
+	public synchronized PerceptUpdate drain() throws EnvironmentInterfaceException {
+		if (this.failure != null) {
+			EnvironmentInterfaceException failure = this.failure;
+			this.failure = null;
+			throw failure;
+		}
+		PerceptUpdate update = new PerceptUpdate(new ArrayList<>(this.added), new ArrayList<>(this.deleted));
+		this.added.clear();
+		this.deleted.clear();
+		return update;
+	}
+
+	/**
+	 * @return The number of updates that have been put into the queue.
+	 */
+	public synchronized long getUpdates() {
+		return this.updates;
+	}
+
+	/**
+	 * @return The number of changes that cancelled out an earlier change that
+	 *         was still waiting.
+	 */
+	public synchronized long getCancelled() {
+		return this.cancelled;
+	}
+}
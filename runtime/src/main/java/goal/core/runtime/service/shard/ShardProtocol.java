@@ -0,0 +1,230 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime.service.shard;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.msg.SentenceMood;
+
+/**
+ * The frames that the processes (shards) running a MAS send each other. A frame
+ * consists of its length (an int, excluding the length itself), a type (a byte)
+ * and a payload. Strings are written as modified UTF-8 (see
+ * {@link DataOutputStream#writeUTF(String)}), sets of agent ids as their size
+ * followed by the names.
+ * <p>
+ * The content of a message is sent as text, which the receiving process parses
+ * with the KR language of the receiving agent.
+ * </p>
+ */
+public final class ShardProtocol {
+	/**
+	 * An agent has been launched; payload: shard index, agent.
+	 */
+	public static final byte AGENT_ADDED = 1;
+	/**
+	 * An agent has been removed; payload: agent.
+	 */
+	public static final byte AGENT_REMOVED = 2;
+	/**
+	 * An agent subscribed to a channel; payload: agent, channel.
+	 */
+	public static final byte SUBSCRIBED = 3;
+	/**
+	 * An agent unsubscribed from a channel; payload: agent, channel.
+	 */
+	public static final byte UNSUBSCRIBED = 4;
+	/**
+	 * A message; payload: sender (empty if none), mood, all receivers, the
+	 * receivers in the receiving process, content.
+	 */
+	public static final byte MESSAGE = 5;
+
+	private static final SentenceMood[] MOODS = SentenceMood.values();
+
+	/**
+	 * Handles the frames that are read from a stream.
+	 */
+	public interface Handler {
+		void agentAdded(int shard, AgentId agent);
+
+		void agentRemoved(AgentId agent);
+
+		void agentSubscribed(AgentId agent, String channel);
+
+		void agentUnsubscribed(AgentId agent, String channel);
+
+		/**
+		 * @param sender    The sender, or null if unknown.
+		 * @param mood      The mood of the message.
+		 * @param receivers All receivers of the message.
+		 * @param deliverTo The receivers that run in this process.
+		 * @param content   The content of the message, as text.
+		 */
+		void message(AgentId sender, SentenceMood mood, Set<AgentId> receivers, Set<AgentId> deliverTo,
+				String content);
+	}
+
+	private ShardProtocol() {
+	}
+
+	public static byte[] agentAdded(int shard, AgentId agent) {
+		Frame frame = new Frame(AGENT_ADDED);
+		try {
+			frame.out.writeInt(shard);
+			frame.out.writeUTF(agent.toString());
+		} catch (IOException e) {
+			throw new IllegalStateException(e); // cannot happen in memory
+		}
+		return frame.toByteArray();
+	}
+
+	public static byte[] agentRemoved(AgentId agent) {
+		Frame frame = new Frame(AGENT_REMOVED);
+		try {
+			frame.out.writeUTF(agent.toString());
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return frame.toByteArray();
+	}
+
+	public static byte[] subscribed(AgentId agent, String channel) {
+		return channel(SUBSCRIBED, agent, channel);
+	}
+
+	public static byte[] unsubscribed(AgentId agent, String channel) {
+		return channel(UNSUBSCRIBED, agent, channel);
+	}
+
+	private static byte[] channel(byte type, AgentId agent, String channel) {
+		Frame frame = new Frame(type);
+		try {
+			frame.out.writeUTF(agent.toString());
+			frame.out.writeUTF(channel);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return frame.toByteArray();
+	}
+
+	public static byte[] message(AgentId sender, SentenceMood mood, Collection<AgentId> receivers,
+			Collection<AgentId> deliverTo, String content) {
+		Frame frame = new Frame(MESSAGE);
+		try {
+			frame.out.writeUTF(sender == null ? "" : sender.toString());
+			frame.out.writeByte(mood.ordinal());
+			writeIds(frame.out, receivers);
+			writeIds(frame.out, deliverTo);
+			// a content can be longer than writeUTF supports
+			byte[] text = content.getBytes("UTF-8");
+			frame.out.writeInt(text.length);
+			frame.out.write(text);
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return frame.toByteArray();
+	}
+
+	/**
+	 * Reads a single frame from a stream and passes it to a handler.
+	 *
+	 * @param in      The stream to read from.
+	 * @param handler The handler of the frame.
+	 * @throws IOException If the frame could not be read, or has an unknown type.
+	 */
+	public static void read(DataInputStream in, Handler handler) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		DataInputStream frame = new DataInputStream(new ByteArrayInputStream(bytes));
+		byte type = frame.readByte();
+		switch (type) {
+		case AGENT_ADDED:
+			int shard = frame.readInt();
+			handler.agentAdded(shard, new AgentId(frame.readUTF()));
+			break;
+		case AGENT_REMOVED:
+			handler.agentRemoved(new AgentId(frame.readUTF()));
+			break;
+		case SUBSCRIBED:
+			handler.agentSubscribed(new AgentId(frame.readUTF()), frame.readUTF());
+			break;
+		case UNSUBSCRIBED:
+			handler.agentUnsubscribed(new AgentId(frame.readUTF()), frame.readUTF());
+			break;
+		case MESSAGE:
+			String sender = frame.readUTF();
+			SentenceMood mood = MOODS[frame.readByte()];
+			Set<AgentId> receivers = readIds(frame);
+			Set<AgentId> deliverTo = readIds(frame);
+			byte[] text = new byte[frame.readInt()];
+			frame.readFully(text);
+			handler.message(sender.isEmpty() ? null : new AgentId(sender), mood, receivers, deliverTo,
+					new String(text, "UTF-8"));
+			break;
+		default:
+			throw new IOException("received a frame of unknown type " + type + ".");
+		}
+	}
+
+	private static void writeIds(DataOutputStream out, Collection<AgentId> ids) throws IOException {
+		out.writeInt(ids.size());
+		for (AgentId id : ids) {
+			out.writeUTF(id.toString());
+		}
+	}
+
+	private static Set<AgentId> readIds(DataInputStream in) throws IOException {
+		int size = in.readInt();
+		Set<AgentId> ids = new LinkedHashSet<>(size);
+		for (int i = 0; i < size; i++) {
+			ids.add(new AgentId(in.readUTF()));
+		}
+		return ids;
+	}
+
+	/**
+	 * A frame that is being written; reserves room for the length.
+	 */
+	private static class Frame extends ByteArrayOutputStream {
+		private final DataOutputStream out = new DataOutputStream(this);
+
+		Frame(byte type) {
+			super(64);
+			this.buf[4] = type;
+			this.count = 5;
+		}
+
+		@Override
+		public synchronized byte[] toByteArray() {
+			int length = this.count - 4;
+			this.buf[0] = (byte) (length >>> 24);
+			this.buf[1] = (byte) (length >>> 16);
+			this.buf[2] = (byte) (length >>> 8);
+			this.buf[3] = (byte) length;
+			return super.toByteArray();
+		}
+	}
+}
@@ -0,0 +1,391 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime.service.shard;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import goal.core.agent.Agent;
+import goal.core.agent.AgentRegistry;
+import goal.core.agent.GOALInterpreter;
+import goal.core.agent.RemoteRegistries;
+import goal.core.runtime.service.agent.AgentService;
+import goal.tools.errorhandling.Warning;
+import goal.tools.errorhandling.exceptions.GOALLaunchFailureException;
+import krTools.language.Update;
+import krTools.parser.Parser;
+import languageTools.parser.InputStreamPosition;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.msg.Message;
+import languageTools.program.agent.msg.SentenceMood;
+
+/**
+ * Divides the agents of a MAS among several processes (shards). Every process
+ * runs the same MAS, and launches the agents of the unconditional launch rules
+ * in the same order, so all processes reserve the same agent ids; an agent is
+ * placed in the process that is given by the hash of its id (see
+ * {@link #shardOf(AgentId)}). The ids of the agents that run elsewhere are
+ * registered as remote agents, and messages for them are sent to their process
+ * over a {@link ShardTransport}.
+ * <p>
+ * Agents that are launched for an entity run in the process that received the
+ * entity from its environment; they are announced to the other processes,
+ * which then route their messages to that process. Only the first process
+ * (index 0) loads the environment of the MAS.
+ * </p>
+ * <p>
+ * The processes do not wait for each other before launching their agents, so a
+ * message can arrive for an agent whose id has been reserved here but that has
+ * not registered yet, or whose id has not even been reserved here yet; such
+ * messages are kept until the agent registers (or is removed, or announced by
+ * another process). At most {@link #MAX_UNRESERVED} messages are kept for ids
+ * that have not been reserved, as these might never be.
+ * </p>
+ */
+public class ShardService implements RemoteRegistries, ShardProtocol.Handler {
+	/**
+	 * The maximum number of messages that are kept for agents whose ids have not
+	 * been reserved yet.
+	 */
+	public static final int MAX_UNRESERVED = 1024;
+	private final int index;
+	private final int count;
+	private final AgentRegistry<?> registry;
+	private final AgentService<?, ?> agentService;
+	private final ShardTransport transport;
+	/**
+	 * The process of the agents that have been announced by other processes;
+	 * overrides the placement by hash.
+	 */
+	private final Map<AgentId, Integer> locations = new ConcurrentHashMap<>();
+	/**
+	 * The messages for agents of this process that have not registered yet.
+	 * Guarded by itself.
+	 */
+	private final Map<AgentId, List<Pending>> pending = new HashMap<>();
+	/**
+	 * The number of pending messages for ids that had not been reserved when
+	 * they arrived. Guarded by {@link #pending}.
+	 */
+	private int unreserved;
+
+	/**
+	 * @param index        The index of this process in the list of addresses.
+	 * @param addresses    The addresses of all processes.
+	 * @param registry     The agent registry of this process.
+	 * @param agentService The agent service of this process.
+	 */
+	public ShardService(int index, List<InetSocketAddress> addresses, AgentRegistry<?> registry,
+			AgentService<?, ?> agentService) {
+		this.index = index;
+		this.count = addresses.size();
+		this.registry = registry;
+		this.agentService = agentService;
+		this.transport = new ShardTransport(index, addresses, this);
+	}
+
+	/**
+	 * Parses a list of addresses of the form host:port, separated by commas.
+	 *
+	 * @param shards The list of addresses.
+	 * @return The addresses.
+	 * @throws GOALLaunchFailureException If an address is not of the form
+	 *                                    host:port.
+	 */
+	public static List<InetSocketAddress> parseAddresses(String shards) throws GOALLaunchFailureException {
+		List<InetSocketAddress> addresses = new ArrayList<>();
+		for (String shard : shards.split(",")) {
+			String address = shard.trim();
+			int colon = address.lastIndexOf(':');
+			try {
+				addresses.add(new InetSocketAddress(address.substring(0, colon),
+						Integer.parseInt(address.substring(colon + 1))));
+			} catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+				throw new GOALLaunchFailureException("'" + address + "' is not a shard address of the form host:port.",
+						e);
+			}
+		}
+		return addresses;
+	}
+
+	/**
+	 * Connects this process to the others, and starts routing messages.
+	 *
+	 * @throws GOALLaunchFailureException If this process cannot listen on its
+	 *                                    address.
+	 */
+	public void start() throws GOALLaunchFailureException {
+		try {
+			this.transport.start();
+		} catch (IOException e) {
+			throw new GOALLaunchFailureException("shard " + this.index + " could not listen for the other shards.", e);
+		}
+		this.registry.setRemoteRegistries(this);
+	}
+
+	/**
+	 * Stops routing messages, and disconnects this process from the others.
+	 */
+	public void close() {
+		this.registry.setRemoteRegistries(null);
+		this.transport.close();
+	}
+
+	/**
+	 * @return The index of this process.
+	 */
+	public int getIndex() {
+		return this.index;
+	}
+
+	/**
+	 * @param agent An agent id.
+	 * @return The index of the process that (should) run the agent.
+	 */
+	public int shardOf(AgentId agent) {
+		Integer location = this.locations.get(agent);
+		return (location == null) ? Math.floorMod(agent.toString().hashCode(), this.count) : location;
+	}
+
+	/**
+	 * @param agent An agent id.
+	 * @return True iff the agent should be launched in this process.
+	 */
+	public boolean isPlacedHere(AgentId agent) {
+		return shardOf(agent) == this.index;
+	}
+
+	/* RemoteRegistries */
+
+	@Override
+	public void registered(AgentId agent) {
+		this.transport.broadcast(ShardProtocol.agentAdded(this.index, agent));
+		// delivered while holding the lock, so later messages cannot overtake them
+		// (messages that arrive in the meantime are kept as well; see keepPending)
+		synchronized (this.pending) {
+			for (Pending message : removePending(agent)) {
+				message(message.sender, message.mood, message.receivers, Collections.singleton(agent),
+						message.content);
+			}
+		}
+	}
+
+	@Override
+	public void unregistered(AgentId agent) {
+		synchronized (this.pending) {
+			removePending(agent);
+		}
+		this.transport.broadcast(ShardProtocol.agentRemoved(agent));
+	}
+
+	@Override
+	public void subscribed(AgentId agent, String channel) {
+		this.transport.broadcast(ShardProtocol.subscribed(agent, channel));
+	}
+
+	@Override
+	public void unsubscribed(AgentId agent, String channel) {
+		this.transport.broadcast(ShardProtocol.unsubscribed(agent, channel));
+	}
+
+	@Override
+	public void postMessage(Message message, Set<AgentId> receivers) {
+		List<Set<AgentId>> perShard = new ArrayList<>(this.count);
+		for (int i = 0; i < this.count; i++) {
+			perShard.add(null);
+		}
+		for (AgentId receiver : receivers) {
+			int shard = shardOf(receiver);
+			if (perShard.get(shard) == null) {
+				perShard.set(shard, new LinkedHashSet<>());
+			}
+			perShard.get(shard).add(receiver);
+		}
+		String content = message.getContent().toString();
+		for (int i = 0; i < this.count; i++) {
+			if (perShard.get(i) != null) {
+				this.transport.send(i, ShardProtocol.message(message.getSender(), message.getMood(),
+						message.getReceivers(), perShard.get(i), content));
+			}
+		}
+	}
+
+	/* ShardProtocol.Handler */
+
+	@Override
+	public void agentAdded(int shard, AgentId agent) {
+		this.locations.put(agent, shard);
+		this.registry.registerRemote(agent);
+		// messages that were kept for the agent are passed on to its process
+		synchronized (this.pending) {
+			for (Pending message : removePending(agent)) {
+				this.transport.send(shard, ShardProtocol.message(message.sender, message.mood, message.receivers,
+						Collections.singleton(agent), message.content));
+			}
+		}
+		this.agentService.handleAgentCreated(agent);
+	}
+
+	@Override
+	public void agentRemoved(AgentId agent) {
+		this.locations.remove(agent);
+		if (this.registry.isRemote(agent)) {
+			// also removes its subscriptions
+			this.registry.unregister(agent);
+		}
+		this.agentService.handleAgentRemoved(agent);
+	}
+
+	@Override
+	public void agentSubscribed(AgentId agent, String channel) {
+		this.registry.subscribe(agent, channel);
+	}
+
+	@Override
+	public void agentUnsubscribed(AgentId agent, String channel) {
+		this.registry.unsubscribe(agent, channel);
+	}
+
+	@Override
+	public void message(AgentId sender, SentenceMood mood, Set<AgentId> receivers, Set<AgentId> deliverTo,
+			String content) {
+		deliverTo = keepPending(sender, mood, receivers, deliverTo, content);
+		if (deliverTo.isEmpty()) {
+			return;
+		}
+		// the content is parsed with the KR language of (one of) the receivers
+		Agent<?> receiver = null;
+		for (AgentId id : deliverTo) {
+			if ((receiver = this.registry.getAgent(id)) != null) {
+				break;
+			}
+		}
+		if (receiver == null || !(receiver.getController() instanceof GOALInterpreter)) {
+			new Warning("failed to deliver the message '" + content + "' to " + deliverTo + ".").emit();
+			return;
+		}
+		Update update;
+		try {
+			Parser parser = ((GOALInterpreter<?>) receiver.getController()).getProgram().getKRInterface()
+					.getParser(new StringReader(content), new InputStreamPosition(0, 0, 0, 0, "shard " + sender));
+			update = parser.parseUpdate();
+			if (update == null || !parser.getErrors().isEmpty()) {
+				throw new IllegalArgumentException(parser.getErrors().toString());
+			}
+		} catch (Exception e) {
+			new Warning("failed to parse the message '" + content + "' from " + sender + ".", e).emit();
+			return;
+		}
+		Message message = new Message(update, mood);
+		message.setSender(sender);
+		message.setReceivers(receivers);
+		this.registry.deliver(message, deliverTo);
+	}
+
+	/**
+	 * Keeps a message for the agents that should run in this process but have not
+	 * registered yet, or for which messages are still kept (i.e. that are
+	 * registering right now), so that the message does not overtake those.
+	 *
+	 * @return The agents that the message can be delivered to (or that are
+	 *         unknown and could not be kept).
+	 */
+	private Set<AgentId> keepPending(AgentId sender, SentenceMood mood, Set<AgentId> receivers,
+			Set<AgentId> deliverTo, String content) {
+		Set<AgentId> now = null;
+		synchronized (this.pending) {
+			for (AgentId id : deliverTo) {
+				final boolean keep;
+				boolean reserved = true;
+				if (this.pending.containsKey(id)) {
+					keep = true;
+				} else if (this.registry.getAgent(id) != null || this.registry.isRemote(id) || !isPlacedHere(id)) {
+					keep = false;
+				} else if (this.registry.isKnown(id)) {
+					keep = true;
+				} else {
+					// not reserved (yet): kept only as long as there is room
+					reserved = false;
+					keep = this.unreserved < MAX_UNRESERVED;
+					if (keep) {
+						this.unreserved++;
+					}
+				}
+				if (keep) {
+					if (now == null) {
+						now = new LinkedHashSet<>(deliverTo);
+					}
+					now.remove(id);
+					this.pending.computeIfAbsent(id, key -> new ArrayList<>())
+							.add(new Pending(sender, mood, receivers, content, reserved));
+				}
+			}
+		}
+		return (now == null) ? deliverTo : now;
+	}
+
+	/**
+	 * Removes the messages that are kept for the agent. Should be called while
+	 * holding the lock on {@link #pending}.
+	 *
+	 * @return The messages, in the order in which they arrived.
+	 */
+	private List<Pending> removePending(AgentId agent) {
+		List<Pending> messages = this.pending.remove(agent);
+		if (messages == null) {
+			return Collections.emptyList();
+		}
+		for (Pending message : messages) {
+			if (!message.reserved) {
+				this.unreserved--;
+			}
+		}
+		return messages;
+	}
+
+	/**
+	 * A message that was received before its receiver registered.
+	 */
+	private static class Pending {
+		private final AgentId sender;
+		private final SentenceMood mood;
+		private final Set<AgentId> receivers;
+		private final String content;
+		/**
+		 * False if the id of the receiver had not been reserved when the message
+		 * arrived.
+		 */
+		private final boolean reserved;
+
+		Pending(AgentId sender, SentenceMood mood, Set<AgentId> receivers, String content, boolean reserved) {
+			this.sender = sender;
+			this.mood = mood;
+			this.receivers = receivers;
+			this.content = content;
+			this.reserved = reserved;
+		}
+	}
+}
@@ -0,0 +1,296 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime.service.shard;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import goal.tools.errorhandling.Warning;
+
+/**
+ * Connects the processes (shards) that run a MAS. Every process listens on its
+ * own address for frames of the other processes (see {@link ShardProtocol}),
+ * and opens a connection to each of the other processes for sending frames.
+ * <p>
+ * Frames are queued per receiving process and written by a thread of its own,
+ * so a sender never waits for the network. Frames that are queued while a
+ * connection is busy are written together, in order. When a connection is
+ * lost, frames are queued until it has been made again (see
+ * {@link #CONNECT_TIMEOUT}).
+ * </p>
+ */
+public class ShardTransport {
+	/**
+	 * The time (in milliseconds) to keep trying to connect to a process that has
+	 * not (yet) started, or that has been restarted.
+	 */
+	private static final long CONNECT_TIMEOUT = 30000;
+	private static final long CONNECT_RETRY = 100;
+	private static final byte[] CLOSE = new byte[0];
+
+	private final int index;
+	private final List<InetSocketAddress> addresses;
+	private final ShardProtocol.Handler handler;
+	private final List<Peer> peers = new ArrayList<>();
+	private final List<Socket> incoming = new CopyOnWriteArrayList<>();
+	private ServerSocket server;
+	private volatile boolean closed;
+
+	/**
+	 * @param index     The index of this process in the list of addresses.
+	 * @param addresses The addresses of all processes.
+	 * @param handler   Handles the frames that are received.
+	 */
+	public ShardTransport(int index, List<InetSocketAddress> addresses, ShardProtocol.Handler handler) {
+		this.index = index;
+		this.addresses = addresses;
+		this.handler = handler;
+		for (int i = 0; i < addresses.size(); i++) {
+			this.peers.add(i == index ? null : new Peer(i));
+		}
+	}
+
+	/**
+	 * Starts listening on the address of this process, and connecting to the
+	 * other processes.
+	 *
+	 * @throws IOException If the address of this process cannot be bound.
+	 */
+	public void start() throws IOException {
+		this.server = new ServerSocket();
+		this.server.setReuseAddress(true);
+		this.server.bind(this.addresses.get(this.index));
+		Thread acceptor = new Thread(this::accept, "shard " + this.index + " acceptor");
+		acceptor.setDaemon(true);
+		acceptor.start();
+		for (Peer peer : this.peers) {
+			if (peer != null) {
+				peer.start();
+			}
+		}
+	}
+
+	/**
+	 * @return The address that this process listens on.
+	 */
+	public InetSocketAddress getAddress() {
+		return (InetSocketAddress) this.server.getLocalSocketAddress();
+	}
+
+	/**
+	 * Sends a frame to a process.
+	 *
+	 * @param shard The index of the process.
+	 * @param frame The frame.
+	 */
+	public void send(int shard, byte[] frame) {
+		Peer peer = this.peers.get(shard);
+		if (peer != null && !peer.lost) {
+			peer.queue.add(frame);
+		}
+	}
+
+	/**
+	 * Sends a frame to all other processes.
+	 *
+	 * @param frame The frame.
+	 */
+	public void broadcast(byte[] frame) {
+		for (Peer peer : this.peers) {
+			if (peer != null && !peer.lost) {
+				peer.queue.add(frame);
+			}
+		}
+	}
+
+	/**
+	 * Writes the frames that have been queued, and closes all connections.
+	 */
+	public void close() {
+		this.closed = true;
+		for (Peer peer : this.peers) {
+			if (peer != null) {
+				peer.queue.add(CLOSE);
+			}
+		}
+		for (Peer peer : this.peers) {
+			if (peer != null) {
+				try {
+					peer.join(CONNECT_RETRY * 10);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+		try {
+			if (this.server != null) {
+				this.server.close();
+			}
+		} catch (IOException ignore) {
+		}
+		for (Socket socket : this.incoming) {
+			try {
+				socket.close();
+			} catch (IOException ignore) {
+			}
+		}
+	}
+
+	private void accept() {
+		while (!this.closed) {
+			try {
+				final Socket socket = this.server.accept();
+				socket.setTcpNoDelay(true);
+				this.incoming.add(socket);
+				Thread reader = new Thread(() -> read(socket), "shard " + this.index + " reader");
+				reader.setDaemon(true);
+				reader.start();
+			} catch (IOException e) {
+				if (!this.closed) {
+					new Warning("shard " + this.index + " stopped accepting connections.", e).emit();
+				}
+				return;
+			}
+		}
+	}
+
+	private void read(Socket socket) {
+		try {
+			DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			while (true) {
+				ShardProtocol.read(in, this.handler);
+			}
+		} catch (EOFException | SocketException e) {
+			// the other process closed the connection
+		} catch (Exception e) {
+			if (!this.closed) {
+				new Warning("shard " + this.index + " failed to read from " + socket.getRemoteSocketAddress() + ".", e)
+						.emit();
+			}
+		} finally {
+			this.incoming.remove(socket);
+			try {
+				socket.close();
+			} catch (IOException ignore) {
+			}
+		}
+	}
+
+	/**
+	 * The connection to another process, with the frames that still have to be
+	 * written to it.
+	 */
+	private class Peer extends Thread {
+		private final int shard;
+		private final BlockingQueue<byte[]> queue = new LinkedBlockingQueue<>();
+		/**
+		 * True if the connection has been closed (or could not be made).
+		 */
+		private volatile boolean lost;
+
+		Peer(int shard) {
+			super("shard " + ShardTransport.this.index + " to " + shard);
+			setDaemon(true);
+			this.shard = shard;
+		}
+
+		@Override
+		public void run() {
+			try {
+				while (true) {
+					try (Socket socket = connect()) {
+						if (socket == null) {
+							return;
+						}
+						write(socket.getOutputStream());
+						return;
+					} catch (IOException e) {
+						if (ShardTransport.this.closed) {
+							return;
+						}
+						// keep queueing, and send the frames after reconnecting
+						new Warning("shard " + ShardTransport.this.index + " lost its connection to shard "
+								+ this.shard + "; reconnecting.", e).emit();
+					}
+				}
+			} catch (InterruptedException e) {
+				// closing down
+			} finally {
+				this.lost = true;
+				this.queue.clear();
+			}
+		}
+
+		/**
+		 * Writes the queued frames until the transport is closed. The frames that
+		 * were being written when the connection fails are dropped, as it is unknown
+		 * which of them have been received.
+		 */
+		private void write(OutputStream socket) throws IOException, InterruptedException {
+			OutputStream out = new BufferedOutputStream(socket, 1 << 16);
+			while (true) {
+				byte[] frame = this.queue.take();
+				do {
+					if (frame == CLOSE) {
+						out.flush();
+						return;
+					}
+					out.write(frame);
+				} while ((frame = this.queue.poll()) != null);
+				out.flush();
+			}
+		}
+
+		private Socket connect() throws InterruptedException {
+			long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT;
+			while (true) {
+				Socket socket = new Socket();
+				try {
+					socket.setTcpNoDelay(true);
+					socket.connect(ShardTransport.this.addresses.get(this.shard));
+					return socket;
+				} catch (IOException e) {
+					try {
+						socket.close();
+					} catch (IOException ignore) {
+					}
+					if (ShardTransport.this.closed || System.currentTimeMillis() > deadline) {
+						new Warning("shard " + ShardTransport.this.index + " could not connect to shard "
+								+ this.shard + " at " + ShardTransport.this.addresses.get(this.shard)
+								+ "; messages for its agents are dropped.", e).emit();
+						return null;
+					}
+					TimeUnit.MILLISECONDS.sleep(CONNECT_RETRY);
+				}
+			}
+		}
+	}
+}
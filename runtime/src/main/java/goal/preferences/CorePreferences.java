@@ -21,6 +21,8 @@ import java.util.Collections;
 import java.util.Map;
 import java.util.TreeMap;
 
+import goal.core.agent.Mailbox.OverflowPolicy;
+
 public class CorePreferences {
 	public enum Pref {
 		/**
@@ -56,6 +58,63 @@ public class CorePreferences {
 		 * new agents copy environment run state (or run if no environment)
 		 */
 		agentCopyEnvState,
+		/**
+		 * evaluate mental state conditions as a single query where possible
+		 */
+		conjunctiveEvaluation,
+		/**
+		 * maximum number of cached query results per mental model (0 disables
+		 * caching)
+		 */
+		queryCacheSize,
+		/**
+		 * number of threads shared by all agents for executing their cycles (0 runs
+		 * each agent on its own thread)
+		 */
+		agentThreads,
+		/**
+		 * interval (ms) at which a sleeping agent checks for new percepts when it
+		 * has not been woken up (0 only checks when woken up)
+		 */
+		sleepPollInterval,
+		/**
+		 * time (ms) an agent may spend on a cycle before it has to give way to
+		 * other agents (0 means no limit)
+		 */
+		cycleBudget,
+		/**
+		 * the priorities (name=priority, comma separated) of agents, by agent
+		 * name or agent type; other agents have priority 1
+		 */
+		agentPriorities,
+		/**
+		 * the maximum number of messages in the mailbox of an agent (0 means no
+		 * limit)
+		 */
+		mailboxCapacity,
+		/**
+		 * what to do with a message for an agent with a full mailbox
+		 */
+		mailboxPolicy,
+		/**
+		 * the addresses (host:port, comma separated) of the processes among
+		 * which the agents of a MAS are divided (empty means a single process)
+		 */
+		shards,
+		/**
+		 * the index of this process in the list of shards
+		 */
+		shardIndex,
+		/**
+		 * let environments push percepts into a queue per agent instead of agents
+		 * pulling them at the start of each cycle
+		 */
+		pushPercepts,
+		/**
+		 * fetch and prepare the percepts for the next cycle of an agent while it
+		 * executes the current one
+		 */
+		perceptPipeline,
 		/** old RunPreferences */
 		breakOnGoalAchieved, globalBreakpoints, abortOnTestFailure, sequentialExecution;
 	}
@@ -80,6 +139,18 @@ public class CorePreferences {
 		init(Pref.globalBreakpoints, true);
 		init(Pref.abortOnTestFailure, false);
 		init(Pref.sequentialExecution, false);
+		init(Pref.conjunctiveEvaluation, false);
+		init(Pref.queryCacheSize, 0);
+		init(Pref.agentThreads, 0);
+		init(Pref.sleepPollInterval, 50);
+		init(Pref.cycleBudget, 0);
+		init(Pref.agentPriorities, "");
+		init(Pref.mailboxCapacity, 0);
+		init(Pref.mailboxPolicy, OverflowPolicy.DROP_OLDEST.name());
+		init(Pref.shards, "");
+		init(Pref.shardIndex, 0);
+		init(Pref.pushPercepts, false);
+		init(Pref.perceptPipeline, false);
 	}
 
 	public static Map<String, Object> getPrefs() {
@@ -179,6 +250,171 @@ public class CorePreferences {
 		return (Boolean) get(Pref.sequentialExecution);
 	}
 
+	/**
+	 * check if mental state conditions should be evaluated as a single
+	 * (conjunctive) query instead of literal by literal where possible.
+	 *
+	 * @return true if conditions should be evaluated as a single query. Default is
+	 *         false.
+	 */
+	public static boolean getConjunctiveEvaluation() {
+		return (Boolean) get(Pref.conjunctiveEvaluation);
+	}
+
+	/**
+	 * get the maximum number of query results that are cached per mental model,
+	 * such that repeating a query on an unmodified base within a cycle does not
+	 * require evaluating it again.
+	 *
+	 * @return the maximum number of cached query results. Default is 0 (no
+	 *         caching).
+	 */
+	public static int getQueryCacheSize() {
+		return (Integer) get(Pref.queryCacheSize);
+	}
+
+	/**
+	 * get the number of threads that are shared by all agents for executing their
+	 * reasoning cycles, each of which holds its own SWI Prolog engine. At most
+	 * half of the engines of SWI Prolog's engine pool (see
+	 * {@link goal.core.agent.AgentThreadPool#MAX_ENGINES}) are used this way; the
+	 * other half is reserved for the spare threads that replace blocked ones.
+	 *
+	 * @return the number of shared agent threads. Default is 0 (each agent runs on
+	 *         a thread and engine of its own).
+	 */
+	public static int getAgentThreads() {
+		return (Integer) get(Pref.agentThreads);
+	}
+
+	/**
+	 * get the interval at which a sleeping agent checks for new percepts. A
+	 * sleeping agent is woken up by new messages, timers, percepts that the
+	 * environment notifies it of, and actions performed in its environment, but
+	 * environments can also change their percepts without any notification.
+	 *
+	 * @return the interval in milliseconds. Default is 50; 0 means a sleeping
+	 *         agent only checks for new percepts when it is woken up.
+	 */
+	public static long getSleepPollInterval() {
+		return (Integer) get(Pref.sleepPollInterval);
+	}
+
+	/**
+	 * get the time an agent may spend on (a part of) a cycle before it has to
+	 * give way to the other agents. An agent that exceeds this budget continues
+	 * its cycle after the agents that are waiting have had their turn. This
+	 * check is not performed in sequential execution mode.
+	 *
+	 * @return the budget in milliseconds. Default is 0, meaning no limit.
+	 */
+	public static long getCycleBudget() {
+		return (Integer) get(Pref.cycleBudget);
+	}
+
+	/**
+	 * get the priority of an agent: the number of times the cycle budget (see
+	 * {@link #getCycleBudget()}) it may spend on a cycle. Priorities are set per
+	 * agent name or agent type, e.g. "explorer=2, bot_3=4"; a name takes
+	 * precedence over a type.
+	 *
+	 * @param name the name of the agent.
+	 * @param type the name of the agent definition that the agent was launched
+	 *             from.
+	 * @return the priority of the agent. Default is 1.
+	 */
+	public static int getAgentPriority(String name, String type) {
+		int byName = 0, byType = 0;
+		for (String entry : ((String) get(Pref.agentPriorities)).split(",")) {
+			String[] parts = entry.split("=");
+			if (parts.length != 2) {
+				continue;
+			}
+			int priority;
+			try {
+				priority = Integer.parseInt(parts[1].trim());
+			} catch (NumberFormatException e) {
+				continue;
+			}
+			String key = parts[0].trim();
+			if (key.equals(name)) {
+				byName = priority;
+			} else if (key.equals(type)) {
+				byType = priority;
+			}
+		}
+		return Math.max(1, (byName > 0) ? byName : byType);
+	}
+
+	/**
+	 * get the maximum number of messages that can wait in the mailbox of an
+	 * agent, i.e. that the agent has received but not yet processed.
+	 *
+	 * @return the capacity. Default is 0, meaning no limit.
+	 */
+	public static int getMailboxCapacity() {
+		return (Integer) get(Pref.mailboxCapacity);
+	}
+
+	/**
+	 * get what to do with a message that is sent to an agent with a full mailbox.
+	 *
+	 * @return the overflow policy. Default is {@link OverflowPolicy#DROP_OLDEST}.
+	 */
+	public static OverflowPolicy getMailboxPolicy() {
+		try {
+			return OverflowPolicy.valueOf((String) get(Pref.mailboxPolicy));
+		} catch (IllegalArgumentException | NullPointerException e) {
+			return OverflowPolicy.DROP_OLDEST;
+		}
+	}
+
+	/**
+	 * get the addresses of the processes (shards) among which the agents of a
+	 * MAS are divided. Each process runs the same MAS, but only launches its own
+	 * share of the agents (see {@link #getShardIndex()}); messages to agents in
+	 * other processes are sent over a socket.
+	 *
+	 * @return the addresses as host:port, comma separated. Default is empty,
+	 *         meaning that all agents run in this process.
+	 */
+	public static String getShards() {
+		return (String) get(Pref.shards);
+	}
+
+	/**
+	 * get the index of this process in the list of shards (see
+	 * {@link #getShards()}).
+	 *
+	 * @return the index, starting at 0. Default is 0.
+	 */
+	public static int getShardIndex() {
+		return (Integer) get(Pref.shardIndex);
+	}
+
+	/**
+	 * check if environments push the percepts of an agent into a queue as soon as
+	 * they might have changed, so that the agent only has to empty the queue at
+	 * the start of its cycle instead of asking the environment itself.
+	 *
+	 * @return true if percepts are pushed, false if agents pull them. Default is
+	 *         false.
+	 */
+	public static boolean getPushPercepts() {
+		return (Boolean) get(Pref.pushPercepts);
+	}
+
+	/**
+	 * check if the percepts for the next cycle of an agent are fetched (and
+	 * translated) on another thread as soon as the agent has performed an action,
+	 * i.e. while it executes the rest of the current cycle.
+	 *
+	 * @return true if percepts are fetched ahead. Default is false.
+	 */
+	public static boolean getPerceptPipeline() {
+		return (Boolean) get(Pref.perceptPipeline);
+	}
+
 	/**
 	 * if new or removed entities should be printed
 	 */
@@ -259,6 +495,100 @@ public class CorePreferences {
 		put(Pref.sequentialExecution, sequentialExecution);
 	}
 
+	/**
+	 * if mental state conditions should be evaluated as a single query where
+	 * possible
+	 */
+	public static void setConjunctiveEvaluation(boolean conjunctiveEvaluation) {
+		put(Pref.conjunctiveEvaluation, conjunctiveEvaluation);
+	}
+
+	/**
+	 * the maximum number of query results cached per mental model (0 disables
+	 * caching)
+	 */
+	public static void setQueryCacheSize(int queryCacheSize) {
+		put(Pref.queryCacheSize, queryCacheSize);
+	}
+
+	/**
+	 * the number of threads shared by all agents (0 runs each agent on its own
+	 * thread)
+	 */
+	public static void setAgentThreads(int agentThreads) {
+		put(Pref.agentThreads, agentThreads);
+	}
+
+	/**
+	 * the interval (ms) at which a sleeping agent checks for new percepts (0 only
+	 * checks when woken up)
+	 */
+	public static void setSleepPollInterval(int sleepPollInterval) {
+		put(Pref.sleepPollInterval, sleepPollInterval);
+	}
+
+	/**
+	 * the time (ms) an agent may spend on a cycle before it has to give way to
+	 * other agents (0 means no limit)
+	 */
+	public static void setCycleBudget(int cycleBudget) {
+		put(Pref.cycleBudget, cycleBudget);
+	}
+
+	/**
+	 * the priorities (name=priority, comma separated) of agents, by agent name or
+	 * agent type
+	 */
+	public static void setAgentPriorities(String agentPriorities) {
+		put(Pref.agentPriorities, agentPriorities);
+	}
+
+	/**
+	 * the maximum number of messages in the mailbox of an agent (0 means no
+	 * limit)
+	 */
+	public static void setMailboxCapacity(int mailboxCapacity) {
+		put(Pref.mailboxCapacity, mailboxCapacity);
+	}
+
+	/**
+	 * what to do with a message for an agent with a full mailbox
+	 */
+	public static void setMailboxPolicy(OverflowPolicy mailboxPolicy) {
+		put(Pref.mailboxPolicy, mailboxPolicy.name());
+	}
+
+	/**
+	 * the addresses (host:port, comma separated) of the processes among which the
+	 * agents of a MAS are divided (empty means a single process)
+	 */
+	public static void setShards(String shards) {
+		put(Pref.shards, shards);
+	}
+
+	/**
+	 * the index of this process in the list of shards
+	 */
+	public static void setShardIndex(int shardIndex) {
+		put(Pref.shardIndex, shardIndex);
+	}
+
+	/**
+	 * if environments push the percepts of an agent into a queue instead of the
+	 * agent pulling them at the start of each cycle
+	 */
+	public static void setPushPercepts(boolean pushPercepts) {
+		put(Pref.pushPercepts, pushPercepts);
+	}
+
+	/**
+	 * if the percepts for the next cycle of an agent are fetched on another
+	 * thread while it executes the current one
+	 */
+	public static void setPerceptPipeline(boolean perceptPipeline) {
+		put(Pref.perceptPipeline, perceptPipeline);
+	}
+
 	// 3 helper functions...
 	private static Object get(Pref pref) {
 		if (preferences == null) {
@@ -24,7 +24,40 @@ import goal.tools.profiler.InfoType;
 
 public class ProfilerPreferences {
 	public enum Pref {
-		profiling, profilingToFile, logNodeID
+		profiling, profilingToFile, logNodeID,
+		/**
+		 * profile by periodically sampling the call stacks of the agents instead
+		 * of by listening to all execution events
+		 */
+		sampling,
+		/**
+		 * the number of milliseconds between two samples
+		 */
+		samplingInterval,
+		/**
+		 * also write the (merged) profile of every agent type as flame graph
+		 * (collapsed stacks, speedscope and Chrome trace) to the log directory
+		 */
+		flameGraph,
+		/**
+		 * record the run with the JDK flight recorder (using the GOAL settings
+		 * profile) into the log directory
+		 */
+		flightRecording,
+		/**
+		 * keep runtime metrics (histograms) per agent and agent type, and
+		 * publish them through JMX
+		 */
+		metrics,
+		/**
+		 * the file to periodically write the metrics to (in the Prometheus text
+		 * format); empty for none
+		 */
+		metricsFile,
+		/**
+		 * the number of seconds between writes of the metrics file
+		 */
+		metricsInterval
 	}
 
 	private static Map<String, Object> preferences;
@@ -47,6 +80,13 @@ public class ProfilerPreferences {
 		init(Pref.profiling, false);
 		init(Pref.profilingToFile, false);
 		init(Pref.logNodeID, false);
+		init(Pref.sampling, false);
+		init(Pref.samplingInterval, 10);
+		init(Pref.flameGraph, false);
+		init(Pref.flightRecording, false);
+		init(Pref.metrics, false);
+		init(Pref.metricsFile, "");
+		init(Pref.metricsInterval, 10);
 		for (InfoType type : InfoType.values()) {
 			init(type, true);
 		}
@@ -79,6 +119,57 @@ public class ProfilerPreferences {
 		return (boolean) get(Pref.logNodeID);
 	}
 
+	/**
+	 * @return true iff profiles should be generated by sampling the call stacks
+	 *         of the agents (instead of from all execution events)
+	 */
+	public static boolean getSampling() {
+		return (boolean) get(Pref.sampling);
+	}
+
+	/**
+	 * @return the number of milliseconds between two samples
+	 */
+	public static int getSamplingInterval() {
+		return (int) get(Pref.samplingInterval);
+	}
+
+	/**
+	 * @return true iff the profiles should also be written as flame graphs
+	 */
+	public static boolean getFlameGraph() {
+		return (boolean) get(Pref.flameGraph);
+	}
+
+	/**
+	 * @return true iff the run should be recorded with the flight recorder
+	 */
+	public static boolean getFlightRecording() {
+		return (boolean) get(Pref.flightRecording);
+	}
+
+	/**
+	 * @return true iff runtime metrics should be kept and published through JMX
+	 */
+	public static boolean getMetrics() {
+		return (boolean) get(Pref.metrics);
+	}
+
+	/**
+	 * @return the file to write the metrics to (in the Prometheus text format),
+	 *         or the empty string if the metrics should not be written to a file
+	 */
+	public static String getMetricsFile() {
+		return (String) get(Pref.metricsFile);
+	}
+
+	/**
+	 * @return the number of seconds between writes of the metrics file
+	 */
+	public static int getMetricsInterval() {
+		return (int) get(Pref.metricsInterval);
+	}
+
 	/**
 	 * @param type
 	 *            the {@link InfoType} that might be selected for display
@@ -131,6 +222,76 @@ public class ProfilerPreferences {
 		put(Pref.logNodeID, enable);
 	}
 
+	/**
+	 * Set sampling (instead of event-driven) profiling on or off
+	 *
+	 * @param enable
+	 *            true to enable, false to disable.
+	 */
+	public static void setSampling(boolean enable) {
+		put(Pref.sampling, enable);
+	}
+
+	/**
+	 * Set the number of milliseconds between two samples
+	 *
+	 * @param millis
+	 *            the interval (at least 1).
+	 */
+	public static void setSamplingInterval(int millis) {
+		put(Pref.samplingInterval, millis);
+	}
+
+	/**
+	 * Set writing the profiles as flame graphs on or off
+	 *
+	 * @param enable
+	 *            true to enable, false to disable.
+	 */
+	public static void setFlameGraph(boolean enable) {
+		put(Pref.flameGraph, enable);
+	}
+
+	/**
+	 * Set recording the run with the flight recorder on or off
+	 *
+	 * @param enable
+	 *            true to enable, false to disable.
+	 */
+	public static void setFlightRecording(boolean enable) {
+		put(Pref.flightRecording, enable);
+	}
+
+	/**
+	 * Set keeping runtime metrics on or off
+	 *
+	 * @param enable
+	 *            true to enable, false to disable.
+	 */
+	public static void setMetrics(boolean enable) {
+		put(Pref.metrics, enable);
+	}
+
+	/**
+	 * Set the file to write the metrics to
+	 *
+	 * @param file
+	 *            the path of the file, or the empty string for none.
+	 */
+	public static void setMetricsFile(String file) {
+		put(Pref.metricsFile, file);
+	}
+
+	/**
+	 * Set the number of seconds between writes of the metrics file
+	 *
+	 * @param seconds
+	 *            the interval (at least 1).
+	 */
+	public static void setMetricsInterval(int seconds) {
+		put(Pref.metricsInterval, seconds);
+	}
+
 	private static Object get(Pref pref) {
 		if (preferences == null) {
 			Preferences.initializeAllPrefs();
@@ -23,11 +23,14 @@ import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.SortedSet;
 
+import goal.core.agent.AbstractAgentFactory;
 import goal.core.agent.AgentFactory;
 import goal.core.agent.GOALInterpreter;
 import goal.core.runtime.RuntimeManager;
 import goal.core.runtime.service.agent.AgentService;
 import goal.core.runtime.service.environment.EnvironmentService;
+import goal.core.runtime.service.shard.ShardService;
+import goal.preferences.CorePreferences;
 import goal.preferences.LoggingPreferences;
 import goal.tools.debugger.Debugger;
 import goal.tools.eclipse.RunTool;
@@ -243,6 +246,16 @@ public abstract class AbstractRun<DEBUGGER extends Debugger, CONTROLLER extends
 		EnvironmentService environmentService = new EnvironmentService(this.masProgram);
 		AgentFactory<DEBUGGER, CONTROLLER> agentFactory = buildAgentFactory();
 		AgentService<DEBUGGER, CONTROLLER> runtimeService = new AgentService<>(this.masProgram, agentFactory);
+		if (!CorePreferences.getShards().isEmpty() && agentFactory instanceof AbstractAgentFactory) {
+			// Divide the agents among the processes (shards) that run the MAS.
+			@SuppressWarnings("unchecked")
+			AbstractAgentFactory<DEBUGGER, CONTROLLER> factory = (AbstractAgentFactory<DEBUGGER, CONTROLLER>) agentFactory;
+			ShardService shards = new ShardService(CorePreferences.getShardIndex(),
+					ShardService.parseAddresses(CorePreferences.getShards()), factory.getRegistry(), runtimeService);
+			factory.setPlacement(shards::isPlacedHere);
+			runtimeService.setShards(shards);
+			shards.start();
+		}
 
 		this.runtimeManager = new RuntimeManager<>(runtimeService, environmentService);
 		if (LoggingPreferences.getEnableHistory()) {
@@ -16,6 +16,8 @@
  */
 package goal.tools.debugger;
 
+import java.util.Set;
+
 import events.Channel;
 import goal.core.agent.Controller;
 import goal.tools.debugger.SteppingDebugger.RunMode;
@@ -78,6 +80,14 @@ public interface Debugger {
 	public abstract void breakpoint(Channel channel, Object associateObject, SourceInfo associateSource, String message,
 			Object... args);
 
+	/**
+	 * The channels on which {@link #breakpoint} should be called; the agent
+	 * does not even create the events on other channels.
+	 *
+	 * @return The channels this debugger is interested in.
+	 */
+	public abstract Set<Channel> getChannels();
+
 	/**
 	 * Obtains the name of this {@link Debugger}. If this {@link Debugger} is
 	 * debugging an agent, it should be set the same name as the agent so that
@@ -16,6 +16,9 @@
  */
 package goal.tools.debugger;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 import events.Channel;
 import krTools.parser.SourceInfo;
 import languageTools.program.agent.AgentId;
@@ -41,6 +44,15 @@ public class NOPDebugger implements Debugger {
 		}
 	}
 
+	/**
+	 * A killed debugger only matters after the agent has terminated, so no
+	 * breakpoints are needed while it runs.
+	 */
+	@Override
+	public Set<Channel> getChannels() {
+		return EnumSet.noneOf(Channel.class);
+	}
+
 	@Override
 	public String getName() {
 		return this.id;
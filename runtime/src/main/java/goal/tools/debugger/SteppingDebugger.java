@@ -16,6 +16,7 @@
  */
 package goal.tools.debugger;
 
+import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Set;
@@ -187,6 +188,10 @@ public class SteppingDebugger implements Debugger {
 	 * If set to true, any encountered breakpoint will be ignored
 	 */
 	protected volatile boolean keepRunning = false;
+	/**
+	 * Wakes up the debugged agent upon a change in run mode (if set).
+	 */
+	private volatile Runnable wakeUp;
 	/**
 	 * If a source position is in this set, we break on it.
 	 */
@@ -252,6 +257,15 @@ public class SteppingDebugger implements Debugger {
 		this.global = true;
 	}
 
+	/**
+	 * Pauses, observers and user breakpoints can change at any time, so this
+	 * debugger needs all channels.
+	 */
+	@Override
+	public Set<Channel> getChannels() {
+		return EnumSet.allOf(Channel.class);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 *
@@ -287,9 +301,22 @@ public class SteppingDebugger implements Debugger {
 				// wake up any processes that have been paused.
 				notifyAll();
 			}
+			Runnable wakeUp = this.wakeUp;
+			if (wakeUp != null) {
+				wakeUp.run();
+			}
 		}
 	}
 
+	/**
+	 * @param wakeUp
+	 *            Wakes up the debugged agent when it is waiting (e.g. sleeping)
+	 *            upon a change in run mode.
+	 */
+	public void setWakeUp(Runnable wakeUp) {
+		this.wakeUp = wakeUp;
+	}
+
 	public boolean keepRunning() {
 		return this.keepRunning;
 	}
@@ -0,0 +1,321 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.tools.metrics;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import events.Channel;
+import events.ExecutionEventListener;
+import goal.tools.profiler.LatencyHistogram;
+import krTools.parser.SourceInfo;
+import languageTools.program.agent.msc.AGoalLiteral;
+import languageTools.program.agent.msc.BelLiteral;
+import languageTools.program.agent.msc.GoalALiteral;
+import languageTools.program.agent.msc.GoalLiteral;
+import languageTools.program.agent.msc.PerceptLiteral;
+import languageTools.program.agent.msc.SentLiteral;
+
+/**
+ * The runtime metrics of a single agent, or of all agents of a type. Values
+ * are recorded in fixed-size histograms, so recording is cheap and the memory
+ * used does not grow while the agent runs. Values are only recorded in the
+ * metrics of the agent itself, so agents of the same type do not contend for a
+ * histogram; the metrics of a type are merged from those of its agents when
+ * they are read.
+ * <p>
+ * The metrics are recorded by the thread of the agent, and can be read (e.g.
+ * through JMX) by any thread.
+ * </p>
+ */
+public class AgentMetrics implements AgentMetricsMBean {
+	private final String name;
+	private final AgentMetrics type;
+	private final Map<Metric, LatencyHistogram> histograms = new EnumMap<>(Metric.class);
+	/**
+	 * The query latencies per base of the mental state.
+	 */
+	private final ConcurrentMap<String, LatencyHistogram> queries = new ConcurrentHashMap<>();
+	/**
+	 * The metrics of the agents of this type (if these are the metrics of a
+	 * type); the values of agents that have been removed are kept in the
+	 * histograms of the type itself.
+	 */
+	private final Set<AgentMetrics> agents = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * @param name The name of the agent (or agent type).
+	 * @param type The metrics of the type of the agent, or null if these are the
+	 *             metrics of a type.
+	 */
+	public AgentMetrics(String name, AgentMetrics type) {
+		this.name = name;
+		this.type = type;
+		for (Metric metric : Metric.values()) {
+			this.histograms.put(metric, new LatencyHistogram());
+		}
+	}
+
+	/**
+	 * @return The name of the agent (or agent type).
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return The metrics of the type of the agent, or null if these are the
+	 *         metrics of a type.
+	 */
+	public AgentMetrics getType() {
+		return this.type;
+	}
+
+	/**
+	 * Records a value.
+	 *
+	 * @param metric The metric.
+	 * @param value  The value; in nanoseconds if the metric is a duration.
+	 */
+	public void record(Metric metric, long value) {
+		this.histograms.get(metric).record(value);
+	}
+
+	/**
+	 * Records the latency of a query.
+	 *
+	 * @param base  The base that was queried (e.g. "belief").
+	 * @param nanos The latency in nanoseconds.
+	 */
+	public void recordQuery(String base, long nanos) {
+		this.queries.computeIfAbsent(base, key -> new LatencyHistogram()).record(nanos);
+		this.histograms.get(Metric.QUERY).record(nanos);
+	}
+
+	/**
+	 * Adds the metrics of an agent to these metrics of its type.
+	 *
+	 * @param agent The metrics of the agent.
+	 */
+	void addAgent(AgentMetrics agent) {
+		this.agents.add(agent);
+	}
+
+	/**
+	 * Removes the metrics of an agent from these metrics of its type; the values
+	 * that it recorded are kept.
+	 *
+	 * @param agent The metrics of the agent.
+	 */
+	void removeAgent(AgentMetrics agent) {
+		if (this.agents.remove(agent)) {
+			for (Metric metric : Metric.values()) {
+				this.histograms.get(metric).add(agent.histograms.get(metric));
+			}
+			for (Map.Entry<String, LatencyHistogram> base : agent.queries.entrySet()) {
+				this.queries.computeIfAbsent(base.getKey(), key -> new LatencyHistogram()).add(base.getValue());
+			}
+		}
+	}
+
+	/**
+	 * @param metric A metric.
+	 * @return The histogram of the metric (for {@link Metric#QUERY}: over all
+	 *         bases); for a type, a copy that is merged from its agents.
+	 */
+	public LatencyHistogram get(Metric metric) {
+		if (this.agents.isEmpty()) {
+			return this.histograms.get(metric);
+		}
+		LatencyHistogram merged = new LatencyHistogram();
+		merged.add(this.histograms.get(metric));
+		for (AgentMetrics agent : this.agents) {
+			merged.add(agent.histograms.get(metric));
+		}
+		return merged;
+	}
+
+	/**
+	 * @return The query latencies per base of the mental state; for a type, a
+	 *         copy that is merged from its agents.
+	 */
+	public Map<String, LatencyHistogram> getQueryLatencies() {
+		if (this.agents.isEmpty()) {
+			return Collections.unmodifiableMap(this.queries);
+		}
+		Map<String, LatencyHistogram> merged = new TreeMap<>();
+		for (Map.Entry<String, LatencyHistogram> base : this.queries.entrySet()) {
+			merged.computeIfAbsent(base.getKey(), key -> new LatencyHistogram()).add(base.getValue());
+		}
+		for (AgentMetrics agent : this.agents) {
+			for (Map.Entry<String, LatencyHistogram> base : agent.queries.entrySet()) {
+				merged.computeIfAbsent(base.getKey(), key -> new LatencyHistogram()).add(base.getValue());
+			}
+		}
+		return Collections.unmodifiableMap(merged);
+	}
+
+	/**
+	 * Removes all recorded values (for a type: also those of its agents).
+	 */
+	public void reset() {
+		for (LatencyHistogram histogram : this.histograms.values()) {
+			histogram.reset();
+		}
+		this.queries.clear();
+		for (AgentMetrics agent : this.agents) {
+			agent.reset();
+		}
+	}
+
+	/**
+	 * @return A listener that records the rule condition and query latencies of
+	 *         the agent from its execution events. Should only be added to the
+	 *         event generator of the agent itself.
+	 */
+	public ExecutionEventListener createListener() {
+		return new ExecutionEventListener() {
+			private long ruleStart;
+			private long queryStart;
+
+			@Override
+			public void goalEvent(Channel channel, Object associateObject, SourceInfo associateSource, String message,
+					Object... args) {
+				switch (channel) {
+				case RULE_START:
+					this.ruleStart = System.nanoTime();
+					break;
+				case RULE_EVAL_CONDITION_DONE:
+					if (this.ruleStart != 0) {
+						record(Metric.RULE_CONDITION, System.nanoTime() - this.ruleStart);
+						this.ruleStart = 0;
+					}
+					break;
+				case DB_QUERY_START:
+					this.queryStart = System.nanoTime();
+					break;
+				case DB_QUERY_END:
+					if (this.queryStart != 0) {
+						recordQuery(getBase(associateObject), System.nanoTime() - this.queryStart);
+						this.queryStart = 0;
+					}
+					break;
+				default:
+					break;
+				}
+			}
+
+			@Override
+			public Set<Channel> getChannels() {
+				return EnumSet.of(Channel.RULE_START, Channel.RULE_EVAL_CONDITION_DONE, Channel.DB_QUERY_START,
+						Channel.DB_QUERY_END);
+			}
+		};
+	}
+
+	/**
+	 * @param literal The literal of a query.
+	 * @return The base that is queried for the literal.
+	 */
+	static String getBase(Object literal) {
+		if (literal instanceof BelLiteral) {
+			return "belief";
+		} else if (literal instanceof GoalLiteral || literal instanceof AGoalLiteral
+				|| literal instanceof GoalALiteral) {
+			return "goal";
+		} else if (literal instanceof PerceptLiteral) {
+			return "percept";
+		} else if (literal instanceof SentLiteral) {
+			return "message";
+		} else {
+			return "other";
+		}
+	}
+
+	/* AgentMetricsMBean */
+
+	@Override
+	public long getCycles() {
+		return get(Metric.CYCLE).getCount();
+	}
+
+	@Override
+	public double getCycleMeanMillis() {
+		return get(Metric.CYCLE).getMean();
+	}
+
+	@Override
+	public double getCycleP50Millis() {
+		return get(Metric.CYCLE).getPercentile(50);
+	}
+
+	@Override
+	public double getCycleP99Millis() {
+		return get(Metric.CYCLE).getPercentile(99);
+	}
+
+	@Override
+	public double getCycleMaxMillis() {
+		return get(Metric.CYCLE).getMax();
+	}
+
+	@Override
+	public double getRuleConditionP99Millis() {
+		return get(Metric.RULE_CONDITION).getPercentile(99);
+	}
+
+	@Override
+	public long getQueries() {
+		return get(Metric.QUERY).getCount();
+	}
+
+	@Override
+	public double getQueryP99Millis() {
+		return get(Metric.QUERY).getPercentile(99);
+	}
+
+	@Override
+	public long getPerceptsP99() {
+		return get(Metric.PERCEPTS).getValue(99);
+	}
+
+	@Override
+	public double getPerceptP99Millis() {
+		return get(Metric.PERCEPT_TIME).getPercentile(99);
+	}
+
+	@Override
+	public long getMailboxDepthMax() {
+		return get(Metric.MAILBOX_DEPTH).getMaxValue();
+	}
+
+	@Override
+	public long getActions() {
+		return get(Metric.ACTION).getCount();
+	}
+
+	@Override
+	public double getActionP99Millis() {
+		return get(Metric.ACTION).getPercentile(99);
+	}
+}
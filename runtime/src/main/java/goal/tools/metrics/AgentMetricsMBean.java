@@ -0,0 +1,49 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.tools.metrics;
+
+/**
+ * The attributes of the metrics of an agent (or agent type) that are published
+ * through JMX. Durations are in milliseconds.
+ */
+public interface AgentMetricsMBean {
+	long getCycles();
+
+	double getCycleMeanMillis();
+
+	double getCycleP50Millis();
+
+	double getCycleP99Millis();
+
+	double getCycleMaxMillis();
+
+	double getRuleConditionP99Millis();
+
+	long getQueries();
+
+	double getQueryP99Millis();
+
+	long getPerceptsP99();
+
+	double getPerceptP99Millis();
+
+	long getMailboxDepthMax();
+
+	long getActions();
+
+	double getActionP99Millis();
+}
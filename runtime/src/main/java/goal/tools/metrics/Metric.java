@@ -0,0 +1,84 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.tools.metrics;
+
+/**
+ * The metrics that are kept for every agent (and agent type). Durations are
+ * recorded in nanoseconds; the other metrics are counts.
+ */
+public enum Metric {
+	/**
+	 * The duration of a reasoning cycle (excluding sleeping).
+	 */
+	CYCLE("goal_cycle_seconds", "Duration of a reasoning cycle.", true),
+	/**
+	 * The time it takes to evaluate the condition of a rule.
+	 */
+	RULE_CONDITION("goal_rule_condition_seconds", "Evaluation time of a rule condition.", true),
+	/**
+	 * The latency of a query on a base of the mental state; kept per base.
+	 */
+	QUERY("goal_query_seconds", "Latency of a query on a base of the mental state.", true),
+	/**
+	 * The number of percepts (added and deleted) processed at the start of a
+	 * cycle.
+	 */
+	PERCEPTS("goal_percepts", "Number of percepts processed at the start of a cycle.", false),
+	/**
+	 * The time it takes to process the percepts at the start of a cycle.
+	 */
+	PERCEPT_TIME("goal_percept_seconds", "Processing time of the percepts at the start of a cycle.", true),
+	/**
+	 * The number of messages waiting in the mailbox at the end of a cycle.
+	 */
+	MAILBOX_DEPTH("goal_mailbox_depth", "Number of messages waiting at the end of a cycle.", false),
+	/**
+	 * The round-trip time of an action that is performed in the environment.
+	 */
+	ACTION("goal_action_seconds", "Round-trip time of an environment action.", true);
+
+	private final String name;
+	private final String help;
+	private final boolean duration;
+
+	private Metric(String name, String help, boolean duration) {
+		this.name = name;
+		this.help = help;
+		this.duration = duration;
+	}
+
+	/**
+	 * @return The name of the metric when exported.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/**
+	 * @return A description of the metric.
+	 */
+	public String getHelp() {
+		return this.help;
+	}
+
+	/**
+	 * @return True if the metric records durations (in nanoseconds).
+	 */
+	public boolean isDuration() {
+		return this.duration;
+	}
+}
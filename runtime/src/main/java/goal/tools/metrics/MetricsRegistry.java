@@ -0,0 +1,209 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.tools.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import goal.tools.errorhandling.Warning;
+
+/**
+ * Keeps the runtime metrics of the agents of a MAS (see {@link AgentMetrics}),
+ * per agent and per agent type. The metrics are published through JMX (domain
+ * "goal") as soon as they are created, and (if a file is given) written to a
+ * file in the Prometheus text format periodically, so a running MAS can be
+ * watched without attaching a debugger.
+ */
+public class MetricsRegistry {
+	private static final String DOMAIN = "goal";
+
+	private final Map<String, AgentMetrics> agents = new ConcurrentHashMap<>();
+	private final Map<String, AgentMetrics> types = new ConcurrentHashMap<>();
+	private final File file;
+	private final int interval;
+	private ScheduledExecutorService writer;
+
+	/**
+	 * @param file     The file to write the metrics to, or null for none.
+	 * @param interval The number of seconds between writes of the file.
+	 */
+	public MetricsRegistry(File file, int interval) {
+		this.file = file;
+		this.interval = Math.max(1, interval);
+	}
+
+	/**
+	 * Starts writing the metrics file (if any).
+	 */
+	public synchronized void start() {
+		if (this.file != null && this.writer == null) {
+			this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+				Thread thread = new Thread(r, "metrics writer");
+				thread.setDaemon(true);
+				return thread;
+			});
+			this.writer.scheduleWithFixedDelay(this::write, this.interval, this.interval, TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * Stops writing the metrics file (after writing it a last time), and removes
+	 * the metrics from JMX.
+	 */
+	public synchronized void close() {
+		if (this.writer != null) {
+			this.writer.shutdownNow();
+			this.writer = null;
+			write();
+		}
+		for (AgentMetrics metrics : this.agents.values()) {
+			unpublish("Agent", metrics.getName());
+		}
+		for (AgentMetrics metrics : this.types.values()) {
+			unpublish("AgentType", metrics.getName());
+		}
+	}
+
+	/**
+	 * Creates the metrics for an agent (replacing earlier metrics of an agent
+	 * with the same name).
+	 *
+	 * @param agent The name of the agent.
+	 * @param type  The name of the type of the agent.
+	 * @return The metrics of the agent.
+	 */
+	public AgentMetrics register(String agent, String type) {
+		AgentMetrics typeMetrics = this.types.computeIfAbsent(type, name -> {
+			AgentMetrics metrics = new AgentMetrics(name, null);
+			publish("AgentType", metrics);
+			return metrics;
+		});
+		AgentMetrics metrics = new AgentMetrics(agent, typeMetrics);
+		typeMetrics.addAgent(metrics);
+		AgentMetrics previous = this.agents.put(agent, metrics);
+		if (previous != null) {
+			previous.getType().removeAgent(previous);
+		}
+		publish("Agent", metrics);
+		return metrics;
+	}
+
+	/**
+	 * Removes the metrics of an agent, also from JMX; the values that it recorded
+	 * remain part of the metrics of its type.
+	 *
+	 * @param agent The name of the agent.
+	 */
+	public void unregister(String agent) {
+		AgentMetrics metrics = this.agents.remove(agent);
+		if (metrics != null) {
+			metrics.getType().removeAgent(metrics);
+			unpublish("Agent", agent);
+		}
+	}
+
+	/**
+	 * @param agent The name of an agent.
+	 * @return The metrics of the agent, or null if there are none.
+	 */
+	public AgentMetrics getAgent(String agent) {
+		return this.agents.get(agent);
+	}
+
+	/**
+	 * @param type The name of an agent type.
+	 * @return The metrics of the agent type, or null if there are none.
+	 */
+	public AgentMetrics getType(String type) {
+		return this.types.get(type);
+	}
+
+	/**
+	 * Writes all metrics in the Prometheus text format.
+	 *
+	 * @param out The writer to write to.
+	 * @throws IOException If writing fails.
+	 */
+	public void write(Writer out) throws IOException {
+		Collection<AgentMetrics> agents = new ArrayList<>(this.agents.values());
+		Collection<AgentMetrics> types = new ArrayList<>(this.types.values());
+		PrometheusFormat.write(agents, types, out);
+	}
+
+	/**
+	 * Writes the metrics file; the file is replaced at once, so a reader never
+	 * sees a partially written file.
+	 */
+	private void write() {
+		File temp = new File(this.file.getPath() + ".tmp");
+		try {
+			try (Writer out = new OutputStreamWriter(Files.newOutputStream(temp.toPath()), StandardCharsets.UTF_8)) {
+				write(out);
+			}
+			Files.move(temp.toPath(), this.file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException e) {
+			new Warning("failed to write the metrics to '" + this.file + "'.", e).emit();
+		}
+	}
+
+	private static ObjectName getObjectName(String kind, String name) throws JMException {
+		return new ObjectName(DOMAIN + ":type=" + kind + ",name=" + ObjectName.quote(name));
+	}
+
+	private static void publish(String kind, AgentMetrics metrics) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = getObjectName(kind, metrics.getName());
+			if (server.isRegistered(name)) {
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(metrics, name);
+		} catch (JMException e) {
+			new Warning("failed to publish the metrics of '" + metrics.getName() + "' through JMX.", e).emit();
+		}
+	}
+
+	private static void unpublish(String kind, String name) {
+		try {
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName object = getObjectName(kind, name);
+			if (server.isRegistered(object)) {
+				server.unregisterMBean(object);
+			}
+		} catch (JMException e) {
+			// nothing left to clean up
+		}
+	}
+}
@@ -0,0 +1,89 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.tools.metrics;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+
+import goal.tools.profiler.LatencyHistogram;
+
+/**
+ * Writes metrics in the Prometheus text exposition format. Every metric is
+ * written as a summary with the 50th, 90th, 99th and 100th percentile. The
+ * metrics of an agent are labelled with its name and type (scope "agent"), the
+ * metrics of an agent type with the type only (scope "type"), so aggregating
+ * over a scope never counts a value twice.
+ */
+public class PrometheusFormat {
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 1 };
+
+	private PrometheusFormat() {
+	}
+
+	/**
+	 * @param agents The metrics of the agents.
+	 * @param types  The metrics of the agent types.
+	 * @param out    The writer to write to.
+	 * @throws IOException If writing fails.
+	 */
+	public static void write(Collection<AgentMetrics> agents, Collection<AgentMetrics> types, Writer out)
+			throws IOException {
+		for (Metric metric : Metric.values()) {
+			out.write("# HELP " + metric.getName() + " " + metric.getHelp() + "\n");
+			out.write("# TYPE " + metric.getName() + " summary\n");
+			for (AgentMetrics agent : agents) {
+				String labels = "scope=\"agent\",agent=\"" + escape(agent.getName()) + "\""
+						+ ((agent.getType() == null) ? "" : ",type=\"" + escape(agent.getType().getName()) + "\"");
+				write(metric, agent, labels, out);
+			}
+			for (AgentMetrics type : types) {
+				write(metric, type, "scope=\"type\",type=\"" + escape(type.getName()) + "\"", out);
+			}
+		}
+	}
+
+	private static void write(Metric metric, AgentMetrics metrics, String labels, Writer out) throws IOException {
+		if (metric == Metric.QUERY) {
+			for (Map.Entry<String, LatencyHistogram> base : metrics.getQueryLatencies().entrySet()) {
+				write(metric, base.getValue(), labels + ",base=\"" + escape(base.getKey()) + "\"", out);
+			}
+		} else {
+			write(metric, metrics.get(metric), labels, out);
+		}
+	}
+
+	private static void write(Metric metric, LatencyHistogram histogram, String labels, Writer out)
+			throws IOException {
+		for (double quantile : QUANTILES) {
+			out.write(metric.getName() + "{" + labels + ",quantile=\"" + quantile + "\"} "
+					+ value(metric, histogram.getValue(quantile * 100)) + "\n");
+		}
+		out.write(metric.getName() + "_sum{" + labels + "} " + value(metric, histogram.getTotal()) + "\n");
+		out.write(metric.getName() + "_count{" + labels + "} " + histogram.getCount() + "\n");
+	}
+
+	private static String value(Metric metric, long value) {
+		return metric.isDuration() ? String.format(Locale.ROOT, "%.9f", value / 1e9) : Long.toString(value);
+	}
+
+	private static String escape(String label) {
+		return label.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+	}
+}
@@ -0,0 +1,267 @@
+package goal.tools.profiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.text.DateFormat;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+import goal.preferences.LoggingPreferences;
+import goal.tools.errorhandling.Warning;
+import goal.tools.logging.InfoLog;
+import krTools.parser.SourceInfo;
+
+/**
+ * Writes the tree of an {@link AgentProfile} (module, rule, condition/action,
+ * KR call; see {@link ProfileStatistic#getParent()}) as a flame graph. Three
+ * formats are supported: collapsed stacks (for flamegraph.pl and most other
+ * flame graph tools), speedscope JSON and Chrome trace JSON (for
+ * chrome://tracing or Perfetto). In all formats the root of every stack is the
+ * name of the profile (i.e. the agent type), and the time of a frame is its own
+ * time, i.e. its total time minus that of its children, in microseconds.
+ * {@link InfoType#GLOBAL} statistics are left out as they are not part of the
+ * tree.
+ */
+public class FlameGraph {
+	private final AgentProfile profile;
+	/**
+	 * All stacks in the profile (outermost frame first), in depth-first order.
+	 */
+	private final List<List<ProfileStatistic>> stacks = new LinkedList<>();
+
+	/**
+	 * @param profile
+	 *            the profile to write, e.g. one from
+	 *            {@link Profiles#getMergedProfile(String)}.
+	 */
+	public FlameGraph(AgentProfile profile) {
+		this.profile = profile;
+		for (ProfileStatistic root : getRoots()) {
+			addStacks(root, new LinkedList<>());
+		}
+	}
+
+	/**
+	 * Writes the profile in the collapsed stack format: one line per stack,
+	 * with the frames separated by semicolons followed by the own time of the
+	 * innermost frame.
+	 *
+	 * @param out
+	 *            the writer to write to.
+	 * @throws IOException
+	 *             if writing fails.
+	 */
+	public void writeCollapsed(Writer out) throws IOException {
+		for (List<ProfileStatistic> stack : this.stacks) {
+			long self = getSelfTime(stack.get(stack.size() - 1));
+			if (self > 0) {
+				StringBuilder line = new StringBuilder(getName(this.profile.getName()));
+				for (ProfileStatistic frame : stack) {
+					line.append(';').append(getName(frame.getDescription()));
+				}
+				out.write(line.append(' ').append(self).append('\n').toString());
+			}
+		}
+	}
+
+	/**
+	 * Writes the profile as a 'sampled' profile in the speedscope file format
+	 * (see https://www.speedscope.app/file-format-schema.json), where every
+	 * stack is a sample weighted by the own time of its innermost frame.
+	 *
+	 * @param out
+	 *            the writer to write to.
+	 * @throws IOException
+	 *             if writing fails.
+	 */
+	public void writeSpeedscope(Writer out) throws IOException {
+		Map<String, Integer> frames = new LinkedHashMap<>();
+		StringBuilder frameList = new StringBuilder();
+		StringBuilder samples = new StringBuilder();
+		StringBuilder weights = new StringBuilder();
+		long total = 0;
+		addFrame(frames, frameList, getName(this.profile.getName()), null);
+		for (List<ProfileStatistic> stack : this.stacks) {
+			long self = getSelfTime(stack.get(stack.size() - 1));
+			if (self <= 0) {
+				continue;
+			}
+			samples.append((samples.length() == 0) ? "[0" : ",[0");
+			for (ProfileStatistic frame : stack) {
+				samples.append(',').append(
+						addFrame(frames, frameList, getName(frame.getDescription()), frame.getSourceInfo()));
+			}
+			samples.append(']');
+			weights.append((weights.length() == 0) ? "" : ",").append(self);
+			total += self;
+		}
+		String name = quote(this.profile.getName());
+		out.write("{\"$schema\":\"https://www.speedscope.app/file-format-schema.json\",\"name\":" + name
+				+ ",\"exporter\":\"GOAL\",\"activeProfileIndex\":0,\"shared\":{\"frames\":[" + frameList
+				+ "]},\"profiles\":[{\"type\":\"sampled\",\"name\":" + name
+				+ ",\"unit\":\"microseconds\",\"startValue\":0,\"endValue\":" + total + ",\"samples\":[" + samples
+				+ "],\"weights\":[" + weights + "]}]}\n");
+	}
+
+	/**
+	 * Writes the profile in the Chrome trace event format. Every statistic is
+	 * a complete event lasting its total time; the children of a statistic are
+	 * laid out one after the other (largest first) from the start of their
+	 * parent.
+	 *
+	 * @param out
+	 *            the writer to write to.
+	 * @throws IOException
+	 *             if writing fails.
+	 */
+	public void writeTrace(Writer out) throws IOException {
+		out.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+		long start = 0;
+		boolean first = true;
+		for (ProfileStatistic root : getRoots()) {
+			first = writeTrace(root, start, first, out);
+			start += getTime(root);
+		}
+		out.write("]}\n");
+	}
+
+	private boolean writeTrace(ProfileStatistic stat, long start, boolean first, Writer out) throws IOException {
+		SourceInfo info = stat.getSourceInfo();
+		out.write((first ? "" : ",") + "{\"name\":" + quote(getName(stat.getDescription())) + ",\"cat\":"
+				+ quote(stat.getType().getDescription()) + ",\"ph\":\"X\",\"pid\":1,\"tid\":1,\"ts\":" + start
+				+ ",\"dur\":" + getTime(stat) + ",\"args\":{\"calls\":" + stat.getTotalNumber()
+				+ ((info == null) ? "" : ",\"source\":" + quote(info.toString())) + "}}");
+		long childStart = start;
+		for (ProfileStatistic child : sorted(stat.getChildren())) {
+			writeTrace(child, childStart, false, out);
+			childStart += getTime(child);
+		}
+		return false;
+	}
+
+	/**
+	 * Writes the profile in all formats to the log directory (see
+	 * {@link LoggingPreferences#getLogDirectory()}). Failures are reported as
+	 * a {@link Warning}.
+	 */
+	public void writeFiles() {
+		DateFormat format = new SimpleDateFormat("yy-MM-dd_HH.mm.ss");
+		String base = LoggingPreferences.getLogDirectory() + File.separator + this.profile.getName() + "_"
+				+ format.format(new Date()) + "_profile";
+		try {
+			try (Writer out = Files.newBufferedWriter(Paths.get(base + ".collapsed"), StandardCharsets.UTF_8)) {
+				writeCollapsed(out);
+			}
+			try (Writer out = Files.newBufferedWriter(Paths.get(base + ".speedscope.json"), StandardCharsets.UTF_8)) {
+				writeSpeedscope(out);
+			}
+			try (Writer out = Files.newBufferedWriter(Paths.get(base + ".trace.json"), StandardCharsets.UTF_8)) {
+				writeTrace(out);
+			}
+			new InfoLog("written flame graphs to " + base + ".*").emit();
+		} catch (IOException e) {
+			new Warning("failed writing flame graphs for '" + this.profile.getName() + "'.", e).emit();
+		}
+	}
+
+	/**
+	 * @return the statistics at the root of the tree, largest first.
+	 */
+	private List<ProfileStatistic> getRoots() {
+		List<ProfileStatistic> roots = new ArrayList<>();
+		for (Object key : this.profile.keySet()) {
+			ProfileStatistic stat = this.profile.get(key);
+			if (stat.getParent() == null && stat.getType() != InfoType.GLOBAL) {
+				roots.add(stat);
+			}
+		}
+		return sorted(roots);
+	}
+
+	private void addStacks(ProfileStatistic stat, List<ProfileStatistic> parents) {
+		List<ProfileStatistic> stack = new ArrayList<>(parents);
+		stack.add(stat);
+		this.stacks.add(stack);
+		for (ProfileStatistic child : sorted(stat.getChildren())) {
+			addStacks(child, stack);
+		}
+	}
+
+	private static List<ProfileStatistic> sorted(List<ProfileStatistic> stats) {
+		List<ProfileStatistic> sorted = new ArrayList<>(stats);
+		sorted.sort((s1, s2) -> Long.compare(s2.getTotalTime(), s1.getTotalTime()));
+		return sorted;
+	}
+
+	private static int addFrame(Map<String, Integer> frames, StringBuilder list, String name, SourceInfo info) {
+		String frame = "{\"name\":" + quote(name);
+		if (info != null && info.getSource() != null) {
+			frame += ",\"file\":" + quote(info.getSource()) + ",\"line\":" + info.getLineNumber();
+		}
+		frame += "}";
+		Integer index = frames.get(frame);
+		if (index == null) {
+			index = frames.size();
+			frames.put(frame, index);
+			list.append((index == 0) ? "" : ",").append(frame);
+		}
+		return index;
+	}
+
+	/**
+	 * @return the total time of a statistic in microseconds.
+	 */
+	private static long getTime(ProfileStatistic stat) {
+		return stat.getTotalTime() / 1000;
+	}
+
+	/**
+	 * @return the own time of a statistic (i.e. not spent in its children) in
+	 *         microseconds.
+	 */
+	private static long getSelfTime(ProfileStatistic stat) {
+		long self = stat.getTotalTime();
+		for (ProfileStatistic child : stat.getChildren()) {
+			self -= child.getTotalTime();
+		}
+		return Math.max(0, self / 1000);
+	}
+
+	/**
+	 * @return the name as a single line without semicolons, so that it can be
+	 *         used as frame in a collapsed stack.
+	 */
+	private static String getName(String name) {
+		return name.replaceAll("\\s+", " ").replace(';', ',').trim();
+	}
+
+	private static String quote(String value) {
+		StringBuilder quoted = new StringBuilder("\"");
+		for (char c : value.toCharArray()) {
+			switch (c) {
+			case '"':
+				quoted.append("\\\"");
+				break;
+			case '\\':
+				quoted.append("\\\\");
+				break;
+			default:
+				if (c < 0x20) {
+					quoted.append(String.format("\\u%04x", (int) c));
+				} else {
+					quoted.append(c);
+				}
+			}
+		}
+		return quoted.append('"').toString();
+	}
+}
@@ -0,0 +1,191 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.tools.profiler;
+
+/**
+ * Counts durations (in nanoseconds) in buckets of logarithmically increasing
+ * size, so percentiles can be obtained (with a relative error of at most about
+ * 6%) using a fixed, small amount of memory, independent of the number of
+ * durations that are recorded.
+ */
+public class LatencyHistogram {
+	/**
+	 * The number of buckets per power of two (must be a power of two itself).
+	 */
+	private static final int SUB_BUCKETS = 16;
+	private static final int SUB_BITS = Integer.numberOfTrailingZeros(SUB_BUCKETS);
+
+	private final long[] counts = new long[(64 - SUB_BITS + 1) * SUB_BUCKETS];
+	private long count;
+	private long total;
+	private long max;
+
+	/**
+	 * Records a duration.
+	 *
+	 * @param nanos
+	 *            The duration in nanoseconds; negative values count as 0.
+	 */
+	public synchronized void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		this.counts[index(nanos)]++;
+		this.count++;
+		this.total += nanos;
+		if (nanos > this.max) {
+			this.max = nanos;
+		}
+	}
+
+	/**
+	 * @return The number of recorded durations.
+	 */
+	public synchronized long getCount() {
+		return this.count;
+	}
+
+	/**
+	 * @return The average of the recorded durations in milliseconds.
+	 */
+	public synchronized double getMean() {
+		return (this.count == 0) ? 0 : (this.total / (double) this.count) / 1000000;
+	}
+
+	/**
+	 * @return The largest recorded duration in milliseconds.
+	 */
+	public synchronized double getMax() {
+		return this.max / 1000000.0;
+	}
+
+	/**
+	 * @param percentile
+	 *            A percentage (between 0 and 100).
+	 * @return The (approximate) duration in milliseconds that the given
+	 *         percentage of the recorded durations does not exceed.
+	 */
+	public double getPercentile(final double percentile) {
+		return getValue(percentile) / 1000000.0;
+	}
+
+	/**
+	 * @param percentile
+	 *            A percentage (between 0 and 100).
+	 * @return The (approximate) recorded value that the given percentage of
+	 *         the recorded values does not exceed, in the unit it was recorded
+	 *         in (so this also works for values that are not durations).
+	 */
+	public synchronized long getValue(final double percentile) {
+		if (this.count == 0) {
+			return 0;
+		}
+		final long rank = Math.max(1, (long) Math.ceil(this.count * Math.min(100, percentile) / 100));
+		long seen = 0;
+		for (int i = 0; i < this.counts.length; i++) {
+			seen += this.counts[i];
+			if (seen >= rank) {
+				return Math.min(upper(i), this.max);
+			}
+		}
+		return this.max;
+	}
+
+	/**
+	 * @return The sum of the recorded values, in the unit they were recorded
+	 *         in.
+	 */
+	public synchronized long getTotal() {
+		return this.total;
+	}
+
+	/**
+	 * @return The largest recorded value, in the unit it was recorded in.
+	 */
+	public synchronized long getMaxValue() {
+		return this.max;
+	}
+
+	/**
+	 * Adds the durations that have been recorded in another histogram.
+	 *
+	 * @param other
+	 *            The other histogram.
+	 */
+	public void add(final LatencyHistogram other) {
+		final long[] counts;
+		final long count, total, max;
+		synchronized (other) {
+			counts = other.counts.clone();
+			count = other.count;
+			total = other.total;
+			max = other.max;
+		}
+		synchronized (this) {
+			for (int i = 0; i < counts.length; i++) {
+				this.counts[i] += counts[i];
+			}
+			this.count += count;
+			this.total += total;
+			if (max > this.max) {
+				this.max = max;
+			}
+		}
+	}
+
+	/**
+	 * Removes all recorded durations.
+	 */
+	public synchronized void reset() {
+		for (int i = 0; i < this.counts.length; i++) {
+			this.counts[i] = 0;
+		}
+		this.count = 0;
+		this.total = 0;
+		this.max = 0;
+	}
+
+	@Override
+	public synchronized String toString() {
+		return String.format("p50 %.3fms, p90 %.3fms, p99 %.3fms, max %.3fms (%d samples)", getPercentile(50),
+				getPercentile(90), getPercentile(99), getMax(), this.count);
+	}
+
+	/**
+	 * Values below {@link #SUB_BUCKETS} get a bucket of their own; above that,
+	 * each power of two is divided into {@link #SUB_BUCKETS} buckets.
+	 */
+	private static int index(final long value) {
+		if (value < SUB_BUCKETS) {
+			return (int) value;
+		}
+		final int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+		return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+	}
+
+	/**
+	 * @return The largest value that falls into the bucket with the given index.
+	 */
+	private static long upper(final int index) {
+		if (index < SUB_BUCKETS) {
+			return index;
+		}
+		final int shift = index / SUB_BUCKETS - 1;
+		final long base = (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+		return base + (1L << shift) - 1;
+	}
+}
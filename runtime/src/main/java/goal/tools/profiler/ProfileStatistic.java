@@ -113,8 +113,7 @@ public class ProfileStatistic extends Statistic {
 		for (ProfileStatistic child1 : getChildren()) {
 			ProfileStatistic child2 = stat2.getChild(child1.associatedObject);
 			if (child2 == null) {
-				new ProfileStatistic(child1.sourceInfo, child1.type, child1.description, merge,
-						child1.associatedObject);
+				child1.copy(merge);
 			} else {
 				// recurse merge
 				child1.merge(child2, merge);
@@ -124,8 +123,7 @@ public class ProfileStatistic extends Statistic {
 		for (ProfileStatistic child2 : stat2.getChildren()) {
 			ProfileStatistic child1 = getChild(child2.associatedObject);
 			if (child1 == null) { // child appears only in stat2
-				new ProfileStatistic(child2.sourceInfo, child2.type, child2.description, merge,
-						child2.associatedObject);
+				child2.copy(merge);
 			}
 			// else we already merged in previous loop
 		}
@@ -133,6 +131,22 @@ public class ProfileStatistic extends Statistic {
 
 	}
 
+	/**
+	 * Copies this statistic, including its totals and children.
+	 *
+	 * @param newParent
+	 *            the parent for the copy.
+	 * @return the copy.
+	 */
+	private ProfileStatistic copy(ProfileStatistic newParent) {
+		ProfileStatistic copy = new ProfileStatistic(sourceInfo, type, description, newParent, associatedObject,
+				getTotalTime(), getTotalNumber());
+		for (ProfileStatistic child : children) {
+			child.copy(copy);
+		}
+		return copy;
+	}
+
 	/**
 	 * @param associatedObject
 	 *            the key to look for in the children
@@ -171,6 +185,13 @@ public class ProfileStatistic extends Statistic {
 		return this.sourceInfo;
 	}
 
+	/**
+	 * @return the {@link InfoType} of this statistic.
+	 */
+	public InfoType getType() {
+		return this.type;
+	}
+
 	/**
 	 * @return the current statistics as DataRow.
 	 */
@@ -2,7 +2,9 @@ package goal.tools.profiler;
 
 import java.util.Comparator;
 import java.util.Deque;
+import java.util.EnumSet;
 import java.util.LinkedList;
+import java.util.Set;
 
 import events.Channel;
 import events.ExecutionEventGenerator;
@@ -211,6 +213,16 @@ public class Profiler extends ExecutionEventListener {
 		return name;
 	}
 
+	@Override
+	public Set<Channel> getChannels() {
+		return EnumSet.of(Channel.REASONING_CYCLE_SEPARATOR, Channel.MODULE_ENTRY, Channel.MODULE_EXIT,
+				Channel.RULE_START, Channel.RULE_EXIT, Channel.RULE_EVAL_CONDITION_DONE, Channel.ACTIONCOMBO_START,
+				Channel.ACTIONCOMBO_END, Channel.ACTION_START, Channel.ACTION_END, Channel.DB_QUERY_START,
+				Channel.DB_QUERY_END, Channel.INSERT_START, Channel.INSERT_END, Channel.DELETE_START, Channel.DELETE_END,
+				Channel.ADOPT_START, Channel.ADOPT_END, Channel.DROP_START, Channel.DROP_END, Channel.MSQUERY_START,
+				Channel.MSQUERY_END);
+	}
+
 	@Override
 	public void goalEvent(Channel channel, Object associateObject, SourceInfo associateSource, String message,
 			Object... args) {
@@ -0,0 +1,179 @@
+package goal.tools.profiler;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import goal.core.executors.modules.ModuleExecutor;
+import goal.core.executors.stack.ActionComboStackExecutor;
+import goal.core.executors.stack.ActionStackExecutor;
+import goal.core.executors.stack.CallStack;
+import goal.core.executors.stack.RuleStackExecutor;
+import goal.core.executors.stack.StackExecutor;
+import goal.core.runtime.service.agent.NettoRunTime;
+import goal.preferences.ProfilerPreferences;
+import krTools.parser.SourceInfo;
+import languageTools.program.agent.Module;
+import languageTools.program.agent.actions.Action;
+import languageTools.program.agent.actions.ActionCombo;
+import languageTools.program.agent.rules.Rule;
+
+/**
+ * Profiler that periodically samples the {@link CallStack} of an agent instead
+ * of listening to its execution events (see {@link Profiler}). Every sample
+ * charges the time since the previous sample to the module, rule (condition)
+ * and action the agent is executing at that moment, so the agent itself does
+ * (almost) no extra work. The results are collected in an
+ * {@link AgentProfile} like those of the {@link Profiler}, where the number of
+ * calls is the number of samples that hit an object.
+ * <p>
+ * A single (daemon) thread samples all agents, at the interval given by
+ * {@link ProfilerPreferences#getSamplingInterval()}. KR calls are not visible
+ * on the call stack; their time is charged to the rule condition or action
+ * that made them.
+ * </p>
+ */
+public class SamplingProfiler {
+	/**
+	 * The profilers of the agents that are running.
+	 */
+	private static final List<SamplingProfiler> active = new CopyOnWriteArrayList<>();
+	private static ScheduledExecutorService sampler;
+
+	private final CallStack stack;
+	private final NettoRunTime time;
+	private final AgentProfile profile;
+	private long samples;
+	private long lastSample;
+
+	/**
+	 * @param stack
+	 *            the call stack of the agent
+	 * @param t
+	 *            the {@link NettoRunTime} of the agent
+	 * @param agentTypeName
+	 *            is the agent name as specified in the MAS file; see
+	 *            {@link Profiler#Profiler(NettoRunTime, String)}.
+	 */
+	public SamplingProfiler(CallStack stack, NettoRunTime t, String agentTypeName) {
+		this.stack = stack;
+		this.time = t;
+		this.profile = new AgentProfile(agentTypeName);
+	}
+
+	/**
+	 * Starts sampling the agent.
+	 */
+	public void start() {
+		synchronized (active) {
+			this.lastSample = System.nanoTime();
+			active.add(this);
+			if (sampler == null) {
+				sampler = Executors.newSingleThreadScheduledExecutor(r -> {
+					Thread thread = new Thread(r, "profile sampler");
+					thread.setDaemon(true);
+					return thread;
+				});
+				long interval = Math.max(1, ProfilerPreferences.getSamplingInterval());
+				sampler.scheduleAtFixedRate(SamplingProfiler::sampleAll, interval, interval, TimeUnit.MILLISECONDS);
+			}
+		}
+	}
+
+	/**
+	 * Informs us that the agent has been stopped; stops sampling it and adds
+	 * the totals to the profile.
+	 */
+	public void stop() {
+		synchronized (active) {
+			active.remove(this);
+			if (active.isEmpty() && sampler != null) {
+				sampler.shutdownNow();
+				sampler = null;
+			}
+		}
+		synchronized (this) {
+			ProfileStatistic runTime = new ProfileStatistic(null, InfoType.GLOBAL, "total run time", null,
+					"total run time");
+			runTime.add(this.time.get());
+			this.profile.put(runTime);
+			this.profile.put(new ProfileStatistic(null, InfoType.GLOBAL, "samples", null, "samples", 0, this.samples));
+		}
+	}
+
+	/**
+	 * @return the profile built from the samples so far.
+	 */
+	public AgentProfile getProfile() {
+		return this.profile;
+	}
+
+	/**
+	 * @return the number of samples that hit the agent while it was executing.
+	 */
+	public synchronized long getSamples() {
+		return this.samples;
+	}
+
+	private static void sampleAll() {
+		long now = System.nanoTime();
+		for (SamplingProfiler profiler : active) {
+			profiler.sample(now);
+		}
+	}
+
+	/**
+	 * Takes a sample of the call stack of the agent.
+	 *
+	 * @param now
+	 *            the time of the sample (see {@link System#nanoTime()}).
+	 */
+	synchronized void sample(long now) {
+		long weight = now - this.lastSample;
+		this.lastSample = now;
+		StackExecutor[] frames = this.stack.getFrames();
+		if (frames.length == 0) {
+			return; // the agent is not executing anything
+		}
+		this.samples++;
+		ProfileStatistic parent = null;
+		for (StackExecutor frame : frames) {
+			if (frame instanceof ModuleExecutor) {
+				Module module = ((ModuleExecutor) frame).getModule();
+				parent = charge(module, module.getDefinition(), InfoType.MODULE, parent, weight);
+			} else if (frame instanceof RuleStackExecutor) {
+				Rule rule = ((RuleStackExecutor) frame).getRule();
+				parent = charge(rule, rule.getSourceInfo(), InfoType.RULE, parent, weight);
+				if (frame == frames[frames.length - 1]) {
+					// a running rule is evaluating its condition
+					charge(rule.getCondition(), rule.getSourceInfo(), InfoType.RULE_CONDITION, parent, weight);
+				}
+			} else if (frame instanceof ActionComboStackExecutor) {
+				ActionCombo combo = ((ActionComboStackExecutor) frame).getAction();
+				parent = charge(combo, combo.getSourceInfo(), InfoType.RULE_ACTION, parent, weight);
+			} else if (frame instanceof ActionStackExecutor) {
+				Action<?> action = ((ActionStackExecutor) frame).getAction();
+				parent = charge(action, action.getSourceInfo(), InfoType.RULE_ACTION, parent, weight);
+			}
+		}
+	}
+
+	/**
+	 * Charges the time of a sample to an object.
+	 *
+	 * @return the statistic of the object.
+	 */
+	private ProfileStatistic charge(Object associateObject, SourceInfo info, InfoType type, ProfileStatistic parent,
+			long weight) {
+		ProfileStatistic stat = this.profile.get(associateObject);
+		if (stat == null) {
+			String name = associateObject.getClass().getSimpleName() + ":" + associateObject;
+			stat = new ProfileStatistic(info, type, name, parent, associateObject);
+			this.profile.put(stat);
+		}
+		stat.add(weight);
+		return stat;
+	}
+}
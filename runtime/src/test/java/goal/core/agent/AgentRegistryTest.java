@@ -0,0 +1,128 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import goal.preferences.DebugPreferences;
+import goal.tools.Run;
+import krTools.language.Update;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.msg.Message;
+import languageTools.program.agent.msg.SentenceMood;
+
+public class AgentRegistryTest {
+	private AgentRegistry<NOPController> registry;
+
+	@Before
+	public void setUp() throws Exception {
+		DebugPreferences.setDefault(Run.getDefaultPrefs());
+		this.registry = new AgentRegistry<>(null);
+	}
+
+	private Agent<NOPController> createAgent(String name) throws Exception {
+		Agent<NOPController> agent = new Agent<>(this.registry.getAgentid(name), new NoEnvironmentCapabilities(),
+				new NoLoggingCapabilities(), new NOPController(), null, 0);
+		this.registry.register(agent);
+		return agent;
+	}
+
+	@Test
+	public void testReservation() throws Exception {
+		AgentId first = this.registry.getAgentid("agent");
+		AgentId second = this.registry.getAgentid("agent");
+		assertFalse(first.equals(second));
+		assertTrue(this.registry.getRegisteredAgents().contains(first));
+		assertNull(this.registry.getAgent(first));
+	}
+
+	@Test
+	public void testSubscribe() throws Exception {
+		Agent<NOPController> agent = createAgent("agent");
+		assertTrue(this.registry.subscribe(agent.getId(), "channel"));
+		assertFalse(this.registry.subscribe(agent.getId(), "channel"));
+		Set<AgentId> subscribers = this.registry.getSubscribers("channel");
+		assertEquals(Collections.singleton(agent.getId()), subscribers);
+		// snapshots are not affected by later changes
+		assertTrue(this.registry.unsubscribe(agent.getId(), "channel"));
+		assertEquals(1, subscribers.size());
+		assertFalse(this.registry.isChannel("channel"));
+		assertTrue(this.registry.getSubscribers("channel").isEmpty());
+	}
+
+	@Test
+	public void testUnregister() throws Exception {
+		Agent<NOPController> agent = createAgent("agent");
+		this.registry.subscribe(agent.getId(), "channel");
+		this.registry.unregister(agent.getId());
+		assertNull(this.registry.getAgent(agent.getId()));
+		assertFalse(this.registry.isChannel("channel"));
+	}
+
+	@Test
+	public void testChannelDelivery() throws Exception {
+		Agent<NOPController> first = createAgent("first");
+		Agent<NOPController> second = createAgent("second");
+		this.registry.subscribe(first.getId(), "channel");
+		this.registry.subscribe(second.getId(), "channel");
+
+		Message message = new Message(mock(Update.class), SentenceMood.INDICATIVE);
+		message.setReceivers(this.registry.getSubscribers("channel"));
+		assertNull(this.registry.postMessage(message, Collections.singleton("channel")));
+
+		// all subscribers receive the same message
+		assertSame(message, first.getMessages().iterator().next());
+		assertSame(message, second.getMessages().iterator().next());
+		assertEquals(1, this.registry.getMessageCount("channel"));
+		assertEquals(2, this.registry.getDeliveryCount("channel"));
+		assertEquals(0, this.registry.getMessageCount("other"));
+	}
+
+	@Test
+	public void testChannelDeliveryCountsReceiversOnce() throws Exception {
+		Agent<NOPController> first = createAgent("first");
+		Agent<NOPController> second = createAgent("second");
+		Agent<NOPController> third = createAgent("third");
+		this.registry.subscribe(first.getId(), "one");
+		this.registry.subscribe(second.getId(), "one");
+		this.registry.subscribe(second.getId(), "two");
+		this.registry.subscribe(third.getId(), "two");
+
+		// the third agent is subscribed, but not selected as receiver
+		Message message = new Message(mock(Update.class), SentenceMood.INDICATIVE);
+		message.setReceivers(new HashSet<>(Arrays.asList(first.getId(), second.getId())));
+		assertNull(this.registry.postMessage(message, Arrays.asList("one", "two")));
+
+		assertEquals(1, this.registry.getMessageCount("one"));
+		assertEquals(1, this.registry.getMessageCount("two"));
+		assertEquals(2, this.registry.getDeliveryCount("one"));
+		assertEquals(0, this.registry.getDeliveryCount("two"));
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import goal.preferences.DebugPreferences;
+import goal.tools.Run;
+import goal.tools.adapt.FileLearner;
+import goal.tools.debugger.NOPDebugger;
+import goal.tools.profiler.Profiles;
+import languageTools.analyzer.FileRegistry;
+import languageTools.analyzer.mas.MASValidator;
+import languageTools.program.agent.AgentId;
+import languageTools.program.mas.AgentDefinition;
+import languageTools.program.mas.LaunchInstruction;
+import languageTools.program.mas.MASProgram;
+
+public class AgentThreadPoolTest {
+	private AgentThreadPool pool;
+	private GOALInterpreter<NOPDebugger> controller;
+	private Profiles profiles = mock(Profiles.class);
+
+	@Before
+	public void setUp() throws Exception {
+		DebugPreferences.setDefault(Run.getDefaultPrefs());
+		AgentThreadPool.configure(2);
+		String filename = "src/test/resources/goal/agents/fibonaci.mas2g";
+		FileRegistry registry = new FileRegistry();
+		MASValidator mas2g = new MASValidator(filename, registry);
+		mas2g.validate();
+		MASProgram program = mas2g.getProgram();
+		mas2g.process();
+
+		if (registry.hasAnyError()) {
+			throw new Exception(registry.getAllErrors().toString());
+		}
+
+		AgentId agentId = new AgentId(program.getAgentNames().iterator().next());
+		AgentDefinition agentDf = program.getAgentDefinition(agentId.toString());
+
+		this.pool = AgentThreadPool.getInstance(2);
+		AgentRegistry<GOALInterpreter<NOPDebugger>> agents = new AgentRegistry<>(null);
+		this.controller = new GOALInterpreter<>(agentDf, agents, new NOPDebugger(agentId),
+				FileLearner.createFileLearner(new LaunchInstruction(agentId.toString()), agentDf), this.profiles);
+		Agent<GOALInterpreter<NOPDebugger>> agent = new Agent<>(agentId, new NoEnvironmentCapabilities(),
+				new NoLoggingCapabilities(), this.controller, this.pool.createExecutor(agentId), 0);
+		agents.register(agent);
+	}
+
+	@After
+	public void tearDown() {
+		AgentThreadPool.configure(0);
+	}
+
+	@Test
+	public void testRunOnSharedThreads() throws Exception {
+		this.controller.run();
+		assertTrue(this.controller.isRunning());
+		this.controller.awaitTermination();
+		assertTrue(this.controller.isTerminated());
+		assertNull(this.controller.getUncaughtThrowable());
+	}
+
+	@Test
+	public void testTasksRunInOrder() throws Exception {
+		ExecutorService executor = this.pool.createExecutor(new AgentId("serial"));
+		final List<Integer> order = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			final int task = i;
+			executor.execute(() -> order.add(task));
+		}
+		executor.shutdown();
+		assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+		assertEquals(100, order.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals(i, (int) order.get(i));
+		}
+	}
+
+	@Test(expected = RejectedExecutionException.class)
+	public void testShutdownNow() throws Exception {
+		ExecutorService executor = this.pool.createExecutor(new AgentId("stopped"));
+		assertFalse(executor.isShutdown());
+		executor.shutdownNow();
+		assertTrue(executor.isShutdown());
+		executor.execute(() -> {
+		});
+	}
+}
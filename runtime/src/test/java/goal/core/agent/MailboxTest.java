@@ -0,0 +1,164 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import goal.core.agent.Mailbox.OverflowPolicy;
+import goal.preferences.DebugPreferences;
+import goal.tools.Run;
+import krTools.language.Update;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.msg.Message;
+import languageTools.program.agent.msg.SentenceMood;
+
+public class MailboxTest {
+	private final AgentId owner = new AgentId("owner");
+
+	@Before
+	public void setUp() {
+		DebugPreferences.setDefault(Run.getDefaultPrefs());
+	}
+
+	private static Message message(String sender) {
+		Message message = new Message(mock(Update.class), SentenceMood.INDICATIVE);
+		message.setSender(new AgentId(sender));
+		return message;
+	}
+
+	@Test
+	public void testUnbounded() {
+		Mailbox mailbox = new Mailbox(this.owner, 0, OverflowPolicy.DROP_NEWEST, () -> true);
+		for (int i = 0; i < 100; i++) {
+			assertTrue(mailbox.put(message("sender")));
+		}
+		assertEquals(100, mailbox.getDepth());
+		assertEquals(100, mailbox.drain().size());
+		assertEquals(0, mailbox.getDepth());
+		assertEquals(100, mailbox.getMaxDepth());
+		assertTrue(mailbox.drain().isEmpty());
+	}
+
+	@Test
+	public void testDuplicates() {
+		Mailbox mailbox = new Mailbox(this.owner, 1, OverflowPolicy.DROP_NEWEST, () -> true);
+		Message message = message("sender");
+		assertTrue(mailbox.put(message));
+		// an equal message is merged, even though the mailbox is full
+		assertTrue(mailbox.put(message));
+		assertEquals(1, mailbox.getDepth());
+		assertEquals(0, mailbox.getDropped());
+	}
+
+	@Test
+	public void testDropOldest() {
+		Mailbox mailbox = new Mailbox(this.owner, 2, OverflowPolicy.DROP_OLDEST, () -> true);
+		Message first = message("a");
+		Message second = message("b");
+		Message third = message("c");
+		mailbox.put(first);
+		mailbox.put(second);
+		assertTrue(mailbox.put(third));
+		Set<Message> messages = mailbox.drain();
+		assertFalse(messages.contains(first));
+		assertTrue(messages.contains(second) && messages.contains(third));
+		assertEquals(1, mailbox.getDropped());
+		assertEquals(3, mailbox.getReceived());
+	}
+
+	@Test
+	public void testDropNewest() {
+		Mailbox mailbox = new Mailbox(this.owner, 1, OverflowPolicy.DROP_NEWEST, () -> true);
+		Message first = message("a");
+		mailbox.put(first);
+		assertFalse(mailbox.put(message("b")));
+		assertTrue(mailbox.drain().contains(first));
+		assertEquals(1, mailbox.getDropped());
+	}
+
+	@Test
+	public void testLatestPerSender() {
+		Mailbox mailbox = new Mailbox(this.owner, 2, OverflowPolicy.LATEST_PER_SENDER, () -> true);
+		mailbox.put(message("a"));
+		Message other = message("b");
+		mailbox.put(other);
+		Message newer = message("a");
+		assertTrue(mailbox.put(newer));
+		// a sender without waiting messages cannot get in
+		assertFalse(mailbox.put(message("c")));
+		Set<Message> messages = mailbox.drain();
+		assertEquals(2, messages.size());
+		assertTrue(messages.contains(other) && messages.contains(newer));
+		assertEquals(1, mailbox.getCoalesced());
+		assertEquals(1, mailbox.getDropped());
+	}
+
+	@Test
+	public void testBlockSender() throws InterruptedException {
+		Mailbox mailbox = new Mailbox(this.owner, 1, OverflowPolicy.BLOCK_SENDER, () -> true);
+		mailbox.put(message("a"));
+		AtomicBoolean delivered = new AtomicBoolean();
+		Thread sender = new Thread(() -> delivered.set(mailbox.put(message("b"))));
+		sender.start();
+		Thread.sleep(20);
+		assertTrue(sender.isAlive());
+		assertEquals(1, mailbox.drain().size());
+		sender.join(5000);
+		assertTrue(delivered.get());
+		assertEquals(1, mailbox.getDepth());
+		// messages to oneself are dropped instead
+		assertFalse(mailbox.put(message("owner")));
+	}
+
+	@Test
+	public void testBlockSenderReleased() throws InterruptedException {
+		AtomicBoolean running = new AtomicBoolean(true);
+		Mailbox mailbox = new Mailbox(this.owner, 1, OverflowPolicy.BLOCK_SENDER, running::get);
+		mailbox.put(message("a"));
+		AtomicBoolean delivered = new AtomicBoolean(true);
+		Thread sender = new Thread(() -> delivered.set(mailbox.put(message("b"))));
+		sender.start();
+		Thread.sleep(20);
+		running.set(false);
+		mailbox.release();
+		sender.join(5000);
+		assertFalse(sender.isAlive());
+		assertFalse(delivered.get());
+	}
+
+	@Test
+	public void testBlockSenderTimeout() {
+		Mailbox mailbox = new Mailbox(this.owner, 1, OverflowPolicy.BLOCK_SENDER, () -> true, 20);
+		mailbox.put(message("a"));
+		long start = System.currentTimeMillis();
+		// the message is dropped once the sender waited too long
+		assertFalse(mailbox.put(message("b")));
+		assertTrue(System.currentTimeMillis() - start >= 20);
+		assertEquals(1, mailbox.getDropped());
+		assertEquals(1, mailbox.getTimedOut());
+		assertEquals(1, mailbox.getDepth());
+	}
+}
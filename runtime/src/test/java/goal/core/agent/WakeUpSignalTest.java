@@ -0,0 +1,94 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+public class WakeUpSignalTest {
+	@Test
+	public void testSignalBeforeWait() throws InterruptedException {
+		WakeUpSignal signal = new WakeUpSignal();
+		long seen = signal.getCount();
+		signal.signal();
+		// does not block, as the signal was given after obtaining the count
+		signal.await(seen, 0);
+		assertEquals(seen + 1, signal.getCount());
+	}
+
+	@Test
+	public void testTimeout() throws InterruptedException {
+		WakeUpSignal signal = new WakeUpSignal();
+		long start = System.currentTimeMillis();
+		signal.await(signal.getCount(), 20);
+		assertTrue(System.currentTimeMillis() - start >= 20);
+	}
+
+	@Test
+	public void testCondition() throws InterruptedException {
+		final WakeUpSignal signal = new WakeUpSignal();
+		final AtomicBoolean condition = new AtomicBoolean();
+		Thread waker = new Thread(() -> {
+			try {
+				Thread.sleep(20);
+			} catch (InterruptedException e) {
+				return;
+			}
+			signal.signal(); // without the condition holding
+			condition.set(true);
+			signal.signal();
+		});
+		waker.start();
+		signal.await(condition::get, 0);
+		assertTrue(condition.get());
+		waker.join();
+	}
+
+	@Test
+	public void testOnSignal() {
+		WakeUpSignal signal = new WakeUpSignal();
+		AtomicInteger runs = new AtomicInteger();
+		long seen = signal.getCount();
+		signal.onSignal(seen, runs::incrementAndGet);
+		assertEquals(0, runs.get());
+		signal.signal();
+		assertEquals(1, runs.get());
+		// the task only runs once
+		signal.signal();
+		assertEquals(1, runs.get());
+		// and right away if the signal was given after obtaining the count
+		signal.onSignal(seen, runs::incrementAndGet);
+		assertEquals(2, runs.get());
+	}
+
+	@Test
+	public void testForwardTo() {
+		WakeUpSignal signal = new WakeUpSignal();
+		WakeUpSignal other = new WakeUpSignal();
+		signal.forwardTo(other);
+		signal.signal();
+		assertEquals(1, other.getCount());
+		signal.forwardTo(null);
+		signal.signal();
+		assertEquals(1, other.getCount());
+	}
+}
@@ -0,0 +1,74 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimerWheelTest {
+	private TimerWheel wheel;
+
+	@Before
+	public void setUp() {
+		// a small wheel, so timers take several rounds
+		this.wheel = new TimerWheel(1, TimeUnit.MILLISECONDS, 8);
+	}
+
+	@Test
+	public void testOnce() throws InterruptedException {
+		final CountDownLatch fired = new CountDownLatch(1);
+		final long start = System.nanoTime();
+		TimerWheel.Timeout timeout = this.wheel.schedule(fired::countDown, 50, TimeUnit.MILLISECONDS);
+		assertTrue(fired.await(5, TimeUnit.SECONDS));
+		assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(50));
+		Thread.sleep(10);
+		assertTrue(timeout.isExpired());
+		assertFalse(timeout.cancel());
+		assertEquals(0, this.wheel.getSize());
+		assertEquals(1, this.wheel.getFired());
+		assertTrue(this.wheel.getMaxLag() >= this.wheel.getMeanLag());
+	}
+
+	@Test
+	public void testPeriodic() throws InterruptedException {
+		final CountDownLatch fired = new CountDownLatch(3);
+		TimerWheel.Timeout timeout = this.wheel.schedule(fired::countDown, 10, 10, TimeUnit.MILLISECONDS);
+		assertTrue(fired.await(5, TimeUnit.SECONDS));
+		assertEquals(1, this.wheel.getSize());
+		assertTrue(timeout.cancel());
+		assertTrue(timeout.isCancelled());
+		assertEquals(0, this.wheel.getSize());
+	}
+
+	@Test
+	public void testCancel() throws InterruptedException {
+		final AtomicInteger fired = new AtomicInteger();
+		TimerWheel.Timeout timeout = this.wheel.schedule(fired::incrementAndGet, 20, TimeUnit.MILLISECONDS);
+		assertTrue(timeout.cancel());
+		Thread.sleep(50);
+		assertEquals(0, fired.get());
+		assertEquals(0, this.wheel.getFired());
+	}
+}
@@ -24,9 +24,11 @@ import org.junit.Before;
 import org.junit.Test;
 
 import goal.core.agent.AbstractAgentFactory;
+import goal.core.agent.Agent;
 import goal.core.agent.AgentFactory;
 import goal.core.agent.GOALInterpreter;
 import goal.core.runtime.service.agent.events.AgentServiceEvent;
+import goal.preferences.CorePreferences;
 import goal.preferences.DebugPreferences;
 import goal.tools.Run;
 import goal.tools.adapt.Learner;
@@ -95,4 +97,26 @@ public class AgentServiceTest {
 		assertEquals(4, this.runtimeService.getAgents().size());
 		assertTrue(this.runtimeService.getAliveAgents().isEmpty());
 	}
-}
\ No newline at end of file
+
+	@Test
+	public void testPriority() throws Exception {
+		CorePreferences.setCycleBudget(10);
+		CorePreferences.setAgentPriorities("fibonaci_0=3");
+		try {
+			this.runtimeService.start();
+			this.runtimeService.shutDown();
+
+			for (Agent<GOALInterpreter<Debugger>> agent : this.runtimeService.getAgents()) {
+				long budget = agent.getController().getCycleBudget();
+				if (agent.getId().toString().equals("fibonaci_0")) {
+					assertEquals(3 * 10 * 1000000L, budget);
+				} else {
+					assertEquals(10 * 1000000L, budget);
+				}
+			}
+		} finally {
+			CorePreferences.setCycleBudget(0);
+			CorePreferences.setAgentPriorities("");
+		}
+	}
+}
@@ -0,0 +1,158 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime.service.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.junit.Test;
+
+import eis.PerceptUpdate;
+import eis.exceptions.EnvironmentInterfaceException;
+import eis.iilang.Action;
+import eis.iilang.Percept;
+import goal.core.agent.EnvironmentCapabilities;
+
+public class PerceptPipelineTest {
+	private final Percept a = new Percept("a");
+	private final Percept b = new Percept("b");
+
+	/**
+	 * An environment that returns the given updates one by one.
+	 */
+	private static class Updates implements EnvironmentCapabilities {
+		private final List<PerceptUpdate> updates;
+		private final CountDownLatch release;
+
+		Updates(CountDownLatch release, PerceptUpdate... updates) {
+			this.release = release;
+			this.updates = new ArrayList<>(Arrays.asList(updates));
+		}
+
+		@Override
+		public Double getReward() {
+			return null;
+		}
+
+		@Override
+		public void performAction(Action action) {
+		}
+
+		@Override
+		public synchronized PerceptUpdate getPercepts() throws EnvironmentInterfaceException {
+			try {
+				this.release.await();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			if (this.updates.isEmpty()) {
+				throw new EnvironmentInterfaceException("no more percepts");
+			}
+			return this.updates.remove(0);
+		}
+
+		@Override
+		public void setWakeUp(Runnable wakeUp) {
+		}
+
+		@Override
+		public void dispose() {
+		}
+	}
+
+	@Test
+	public void testNothingFetched() throws EnvironmentInterfaceException {
+		PerceptPipeline pipeline = new PerceptPipeline(new Updates(new CountDownLatch(0)), percepts -> {
+		});
+		assertNull(pipeline.take());
+		assertEquals(0, pipeline.getHandovers());
+	}
+
+	@Test
+	public void testTakeWaitsAndPrepares() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		List<Collection<Percept>> prepared = Collections.synchronizedList(new ArrayList<>());
+		PerceptPipeline pipeline = new PerceptPipeline(
+				new Updates(release, new PerceptUpdate(Arrays.asList(this.a, this.b), new ArrayList<>())),
+				prepared::add);
+		pipeline.prefetch();
+		release.countDown();
+
+		PerceptUpdate update = pipeline.take();
+		assertEquals(Arrays.asList(this.a, this.b), update.getAddList());
+		assertEquals(Collections.singletonList(Arrays.asList(this.a, this.b)), prepared);
+		assertEquals(1, pipeline.getHandovers());
+		assertNull(pipeline.take());
+	}
+
+	@Test
+	public void testCoalesce() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		PerceptPipeline pipeline = new PerceptPipeline(
+				new Updates(release, new PerceptUpdate(Arrays.asList(this.a, this.b), new ArrayList<>()),
+						new PerceptUpdate(new ArrayList<>(), Arrays.asList(this.a))),
+				percepts -> {
+				});
+		// two actions within a single cycle
+		pipeline.prefetch();
+		pipeline.prefetch();
+		release.countDown();
+
+		PerceptUpdate update = pipeline.take();
+		if (update.getAddList().size() == 2) {
+			// the second action came before the first fetch started
+			pipeline.prefetch();
+			update = pipeline.take();
+			assertEquals(Collections.emptyList(), update.getAddList());
+			assertEquals(Collections.singletonList(this.a), update.getDeleteList());
+		} else {
+			assertEquals(Collections.singletonList(this.b), update.getAddList());
+			assertEquals(Collections.emptyList(), update.getDeleteList());
+		}
+	}
+
+	@Test
+	public void testReset() throws Exception {
+		PerceptPipeline pipeline = new PerceptPipeline(new Updates(new CountDownLatch(0),
+				new PerceptUpdate(Arrays.asList(this.a), new ArrayList<>())), percepts -> {
+				});
+		pipeline.prefetch();
+		pipeline.reset();
+		assertNull(pipeline.take());
+	}
+
+	@Test
+	public void testFailure() {
+		PerceptPipeline pipeline = new PerceptPipeline(new Updates(new CountDownLatch(0)), percepts -> {
+		});
+		pipeline.prefetch();
+		try {
+			pipeline.take();
+			fail("the failed fetch should be reported");
+		} catch (EnvironmentInterfaceException e) {
+			assertEquals("no more percepts", e.getMessage());
+		}
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime.service.agent;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.Test;
+
+import goal.core.agent.NOPController;
+
+public class TurnSchedulerTest {
+	private static final int ROUNDS = 100;
+
+	/**
+	 * A controller that acts (i.e. records its name) whenever it gets the turn.
+	 */
+	private static class TurnTaker extends NOPController {
+		private final String name;
+		private final List<String> log;
+		private final Thread thread;
+		private volatile boolean idle;
+
+		TurnTaker(final String name, final List<String> log) {
+			this.name = name;
+			this.log = log;
+			this.running = true;
+			this.thread = new Thread(this::act, name);
+			this.thread.start();
+		}
+
+		private void act() {
+			try {
+				while (true) {
+					getWakeUpSignal().await(() -> !isRunning() || hasTurn(), 0);
+					if (!isRunning()) {
+						return;
+					}
+					takeTurn();
+					this.log.add(this.name);
+					endTurn();
+				}
+			} catch (InterruptedException e) {
+				return;
+			}
+		}
+
+		@Override
+		public boolean isIdle() {
+			return this.idle;
+		}
+
+		void stop() throws InterruptedException {
+			terminate();
+			this.thread.join();
+		}
+	}
+
+	@Test
+	public void testOrder() throws InterruptedException {
+		final List<String> log = Collections.synchronizedList(new ArrayList<String>());
+		final TurnTaker a = new TurnTaker("a", log);
+		final TurnTaker b = new TurnTaker("b", log);
+		final TurnScheduler scheduler = new TurnScheduler();
+		for (int i = 0; i < ROUNDS; i++) {
+			scheduler.round(Arrays.asList(a, b));
+		}
+		a.stop();
+		b.stop();
+
+		assertEquals(2 * ROUNDS, log.size());
+		for (int i = 0; i < ROUNDS; i++) {
+			assertEquals("a", log.get(2 * i));
+			assertEquals("b", log.get(2 * i + 1));
+		}
+		assertEquals(2 * ROUNDS, scheduler.getTurns());
+		assertTrue(scheduler.getMaxLatency() >= scheduler.getMeanLatency());
+		assertTrue(scheduler.getMeanDuration() >= scheduler.getMeanLatency());
+	}
+
+	@Test
+	public void testIdle() throws InterruptedException {
+		final TurnTaker a = new TurnTaker("a", new ArrayList<String>());
+		final TurnTaker b = new TurnTaker("b", new ArrayList<String>());
+		a.idle = true;
+		b.idle = true;
+		final TurnScheduler scheduler = new TurnScheduler(50);
+		final long start = System.currentTimeMillis();
+		while (System.currentTimeMillis() - start < 500) {
+			scheduler.round(Arrays.asList(a, b));
+		}
+		final long elapsed = System.currentTimeMillis() - start;
+		a.stop();
+		b.stop();
+
+		// about one round per poll interval instead of spinning
+		assertTrue(scheduler.getTurns() <= 2 * (elapsed / 50 + 1));
+		assertEquals(scheduler.getTurns() / 2, scheduler.getIdleRounds());
+	}
+
+	@Test
+	public void testWokenUpWhenIdle() throws InterruptedException {
+		final TurnTaker a = new TurnTaker("a", new ArrayList<String>());
+		a.idle = true;
+		final Thread waker = new Thread(() -> {
+			try {
+				Thread.sleep(50);
+			} catch (InterruptedException e) {
+				return;
+			}
+			a.getWakeUpSignal().signal();
+		});
+		// without a poll interval, only continues when the agent is woken up
+		final long start = System.currentTimeMillis();
+		waker.start();
+		new TurnScheduler().round(Collections.singletonList(a));
+		assertTrue(System.currentTimeMillis() - start >= 50);
+		waker.join();
+		a.stop();
+	}
+
+	@Test
+	public void testTerminatedDuringTurn() throws InterruptedException {
+		final TurnTaker a = new TurnTaker("a", new ArrayList<String>());
+		a.stop();
+		// does not wait for an agent that is no longer running
+		new TurnScheduler().turn(a);
+	}
+}
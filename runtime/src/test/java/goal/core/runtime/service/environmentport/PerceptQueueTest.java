@@ -0,0 +1,90 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime.service.environmentport;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import eis.PerceptUpdate;
+import eis.exceptions.EnvironmentInterfaceException;
+import eis.iilang.Percept;
+
+public class PerceptQueueTest {
+	private final Percept a = new Percept("a");
+	private final Percept b = new Percept("b");
+	private final Percept c = new Percept("c");
+
+	private static PerceptUpdate update(Percept[] added, Percept... deleted) {
+		return new PerceptUpdate(Arrays.asList(added), Arrays.asList(deleted));
+	}
+
+	@Test
+	public void testCoalesce() throws EnvironmentInterfaceException {
+		PerceptQueue queue = new PerceptQueue();
+		assertFalse(queue.isFilled());
+		queue.offer(update(new Percept[] { this.a, this.b }));
+		queue.offer(update(new Percept[] { this.c }, this.a));
+		assertTrue(queue.isFilled());
+
+		PerceptUpdate update = queue.drain();
+		assertEquals(Arrays.asList(this.b, this.c), update.getAddList());
+		assertEquals(Collections.emptyList(), update.getDeleteList());
+		assertEquals(2, queue.getUpdates());
+		assertEquals(1, queue.getCancelled());
+		assertTrue(queue.isEmpty());
+	}
+
+	@Test
+	public void testDeleteThenAdd() throws EnvironmentInterfaceException {
+		PerceptQueue queue = new PerceptQueue();
+		queue.offer(update(new Percept[0], this.a, this.b));
+		queue.offer(update(new Percept[] { this.a }));
+		PerceptUpdate update = queue.drain();
+		assertEquals(Collections.emptyList(), update.getAddList());
+		assertEquals(Arrays.asList(this.b), update.getDeleteList());
+	}
+
+	@Test
+	public void testFailure() throws EnvironmentInterfaceException {
+		PerceptQueue queue = new PerceptQueue();
+		queue.offer(update(new Percept[] { this.a }));
+		queue.fail(new EnvironmentInterfaceException("failed"));
+		try {
+			queue.drain();
+		} catch (EnvironmentInterfaceException e) {
+			// the failure is reported once
+			assertEquals(Arrays.asList(this.a), queue.drain().getAddList());
+			return;
+		}
+		throw new AssertionError("the failure was not reported");
+	}
+
+	@Test
+	public void testSchedule() {
+		PerceptQueue queue = new PerceptQueue();
+		assertTrue(queue.schedule());
+		assertFalse(queue.schedule());
+		queue.fetching();
+		assertTrue(queue.schedule());
+	}
+}
@@ -0,0 +1,129 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime.service.shard;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.Test;
+
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.msg.SentenceMood;
+
+public class ShardProtocolTest {
+	/**
+	 * Records the frames that it handles as strings.
+	 */
+	static class Recorder implements ShardProtocol.Handler {
+		final List<String> frames = new ArrayList<>();
+		AgentId sender = new AgentId("unset");
+
+		@Override
+		public synchronized void agentAdded(int shard, AgentId agent) {
+			this.frames.add("added " + shard + " " + agent);
+			notifyAll();
+		}
+
+		@Override
+		public synchronized void agentRemoved(AgentId agent) {
+			this.frames.add("removed " + agent);
+			notifyAll();
+		}
+
+		@Override
+		public synchronized void agentSubscribed(AgentId agent, String channel) {
+			this.frames.add("subscribed " + agent + " " + channel);
+			notifyAll();
+		}
+
+		@Override
+		public synchronized void agentUnsubscribed(AgentId agent, String channel) {
+			this.frames.add("unsubscribed " + agent + " " + channel);
+			notifyAll();
+		}
+
+		@Override
+		public synchronized void message(AgentId sender, SentenceMood mood, Set<AgentId> receivers,
+				Set<AgentId> deliverTo, String content) {
+			this.sender = sender;
+			this.frames.add("message " + mood.name() + " " + receivers + " " + deliverTo + " " + content);
+			notifyAll();
+		}
+
+		synchronized void await(int frames) throws InterruptedException {
+			long deadline = System.currentTimeMillis() + 5000;
+			while (this.frames.size() < frames && System.currentTimeMillis() < deadline) {
+				wait(100);
+			}
+		}
+	}
+
+	private static Set<AgentId> ids(String... names) {
+		Set<AgentId> ids = new LinkedHashSet<>();
+		for (String name : names) {
+			ids.add(new AgentId(name));
+		}
+		return ids;
+	}
+
+	@Test
+	public void testRoundTrip() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		out.write(ShardProtocol.agentAdded(2, new AgentId("a")));
+		out.write(ShardProtocol.agentRemoved(new AgentId("b")));
+		out.write(ShardProtocol.subscribed(new AgentId("c"), "news"));
+		out.write(ShardProtocol.unsubscribed(new AgentId("c"), "news"));
+		out.write(ShardProtocol.message(new AgentId("d"), SentenceMood.IMPERATIVE, ids("e", "f"), ids("f"),
+				"at(\u00e9t\u00e9, 3)"));
+
+		Recorder recorder = new Recorder();
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(out.toByteArray()));
+		for (int i = 0; i < 5; i++) {
+			ShardProtocol.read(in, recorder);
+		}
+		assertEquals(Arrays.asList("added 2 a", "removed b", "subscribed c news", "unsubscribed c news",
+				"message IMPERATIVE [e, f] [f] at(\u00e9t\u00e9, 3)"), recorder.frames);
+		assertEquals(new AgentId("d"), recorder.sender);
+		assertEquals(-1, in.read());
+	}
+
+	@Test
+	public void testNoSender() throws IOException {
+		Recorder recorder = new Recorder();
+		ShardProtocol.read(
+				new DataInputStream(new ByteArrayInputStream(
+						ShardProtocol.message(null, SentenceMood.INDICATIVE, ids("a"), ids("a"), "p"))),
+				recorder);
+		assertNull(recorder.sender);
+	}
+
+	@Test(expected = IOException.class)
+	public void testUnknownType() throws IOException {
+		ShardProtocol.read(new DataInputStream(new ByteArrayInputStream(new byte[] { 0, 0, 0, 1, 42 })),
+				new Recorder());
+	}
+}
@@ -0,0 +1,108 @@
+/**
+ * The GOAL Runtime Environment. Copyright (C) 2015 Koen Hindriks.
+ *
+ * This program is free software: you can redistribute it and/or modify it under
+ * the terms of the GNU General Public License as published by the Free Software
+ * Foundation, either version 3 of the License, or (at your option) any later
+ * version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS
+ * FOR A PARTICULAR PURPOSE. See the GNU General Public License for more
+ * details.
+ *
+ * You should have received a copy of the GNU General Public License along with
+ * this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package goal.core.runtime.service.shard;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import goal.core.runtime.service.shard.ShardProtocolTest.Recorder;
+import goal.preferences.DebugPreferences;
+import goal.tools.Run;
+import languageTools.program.agent.AgentId;
+import languageTools.program.agent.msg.SentenceMood;
+
+public class ShardTransportTest {
+	private final List<ShardTransport> transports = new ArrayList<>();
+	private final List<Recorder> recorders = new ArrayList<>();
+
+	@Before
+	public void setUp() throws IOException {
+		DebugPreferences.setDefault(Run.getDefaultPrefs());
+		List<InetSocketAddress> addresses = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			try (ServerSocket free = new ServerSocket(0)) {
+				addresses.add(new InetSocketAddress(InetAddress.getLoopbackAddress(), free.getLocalPort()));
+			}
+		}
+		for (int i = 0; i < addresses.size(); i++) {
+			Recorder recorder = new Recorder();
+			this.recorders.add(recorder);
+			this.transports.add(new ShardTransport(i, addresses, recorder));
+		}
+		for (ShardTransport transport : this.transports) {
+			transport.start();
+		}
+	}
+
+	@After
+	public void tearDown() {
+		for (ShardTransport transport : this.transports) {
+			transport.close();
+		}
+	}
+
+	@Test
+	public void testSendInOrder() throws InterruptedException {
+		for (int i = 0; i < 100; i++) {
+			this.transports.get(0).send(2, ShardProtocol.message(new AgentId("a"), SentenceMood.INDICATIVE,
+					Collections.singleton(new AgentId("b")), Collections.singleton(new AgentId("b")), "p(" + i + ")"));
+		}
+		Recorder recorder = this.recorders.get(2);
+		recorder.await(100);
+		assertEquals(100, recorder.frames.size());
+		for (int i = 0; i < 100; i++) {
+			assertEquals("message INDICATIVE [b] [b] p(" + i + ")", recorder.frames.get(i));
+		}
+		assertEquals(0, this.recorders.get(1).frames.size());
+	}
+
+	@Test
+	public void testBroadcast() throws InterruptedException {
+		this.transports.get(1).broadcast(ShardProtocol.agentAdded(1, new AgentId("agent")));
+		this.recorders.get(0).await(1);
+		this.recorders.get(2).await(1);
+		assertEquals(Arrays.asList("added 1 agent"), this.recorders.get(0).frames);
+		assertEquals(Arrays.asList("added 1 agent"), this.recorders.get(2).frames);
+		assertEquals(0, this.recorders.get(1).frames.size());
+	}
+
+	@Test
+	public void testPlacement() {
+		ShardService first = new ShardService(0, Arrays.asList(new InetSocketAddress(0), new InetSocketAddress(0)),
+				null, null);
+		ShardService second = new ShardService(1,
+				Arrays.asList(new InetSocketAddress(0), new InetSocketAddress(0)), null, null);
+		for (int i = 0; i < 20; i++) {
+			AgentId agent = new AgentId("agent" + i);
+			// every agent is placed in exactly one process
+			assertEquals(true, first.isPlacedHere(agent) ^ second.isPlacedHere(agent));
+			assertEquals(first.shardOf(agent), second.shardOf(agent));
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package goal.tools.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.junit.Test;
+
+public class MetricsRegistryTest {
+	private static final long MS = 1000000;
+
+	@Test
+	public void testAgentsAndTypes() throws Exception {
+		MetricsRegistry registry = new MetricsRegistry(null, 1);
+		AgentMetrics a = registry.register("a", "worker");
+		AgentMetrics b = registry.register("b", "worker");
+		a.record(Metric.CYCLE, 2 * MS);
+		b.record(Metric.CYCLE, 4 * MS);
+		a.recordQuery("belief", MS);
+		b.record(Metric.MAILBOX_DEPTH, 7);
+
+		assertEquals(1, a.getCycles());
+		AgentMetrics worker = registry.getType("worker");
+		assertEquals(2, worker.getCycles());
+		assertEquals(4, worker.getCycleMaxMillis(), 0.01);
+		assertEquals(1, worker.getQueries());
+		assertEquals(7, worker.getMailboxDepthMax());
+
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		ObjectName name = new ObjectName("goal:type=Agent,name=" + ObjectName.quote("b"));
+		assertEquals(1L, server.getAttribute(name, "Cycles"));
+		registry.close();
+		assertTrue(!server.isRegistered(name));
+	}
+
+	@Test
+	public void testUnregister() throws Exception {
+		MetricsRegistry registry = new MetricsRegistry(null, 1);
+		AgentMetrics a = registry.register("a", "worker");
+		registry.register("b", "worker").record(Metric.CYCLE, MS);
+		a.record(Metric.CYCLE, 3 * MS);
+		a.recordQuery("goal", MS);
+		registry.unregister("a");
+
+		assertNull(registry.getAgent("a"));
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		assertTrue(!server.isRegistered(new ObjectName("goal:type=Agent,name=" + ObjectName.quote("a"))));
+		// the values of the removed agent remain part of its type
+		AgentMetrics worker = registry.getType("worker");
+		assertEquals(2, worker.getCycles());
+		assertEquals(3, worker.getCycleMaxMillis(), 0.01);
+		assertEquals(1, worker.getQueryLatencies().get("goal").getCount());
+		registry.close();
+	}
+
+	@Test
+	public void testPrometheusFormat() throws Exception {
+		MetricsRegistry registry = new MetricsRegistry(null, 1);
+		AgentMetrics a = registry.register("a\"1", "worker");
+		a.record(Metric.PERCEPTS, 3);
+		a.recordQuery("goal", 2 * MS);
+
+		StringWriter out = new StringWriter();
+		registry.write(out);
+		String text = out.toString();
+		assertTrue(text.contains("# TYPE goal_percepts summary\n"));
+		assertTrue(text.contains("goal_percepts{scope=\"agent\",agent=\"a\\\"1\",type=\"worker\",quantile=\"0.5\"} 3\n"));
+		assertTrue(text.contains("goal_percepts_count{scope=\"type\",type=\"worker\"} 1\n"));
+		assertTrue(text.contains(
+				"goal_query_seconds_sum{scope=\"agent\",agent=\"a\\\"1\",type=\"worker\",base=\"goal\"} 0.002000000\n"));
+		registry.close();
+	}
+
+	@Test
+	public void testFile() throws Exception {
+		File file = File.createTempFile("metrics", ".prom");
+		try {
+			MetricsRegistry registry = new MetricsRegistry(file, 60);
+			registry.start();
+			registry.register("a", "worker").record(Metric.ACTION, MS);
+			// closing writes the file a last time
+			registry.close();
+			String text = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+			assertTrue(text.contains("goal_action_seconds_count{scope=\"agent\",agent=\"a\",type=\"worker\"} 1\n"));
+		} finally {
+			file.delete();
+		}
+	}
+}
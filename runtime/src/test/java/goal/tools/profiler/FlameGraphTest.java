@@ -0,0 +1,66 @@
+package goal.tools.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class FlameGraphTest {
+	private FlameGraph graph;
+
+	@Before
+	public void setUp() {
+		AgentProfile profile = new AgentProfile("agent");
+		ProfileStatistic module = new ProfileStatistic(null, InfoType.MODULE, "main", null, "main");
+		ProfileStatistic rule = new ProfileStatistic(null, InfoType.RULE, "if bel(a;\nb) then go", module, "rule");
+		ProfileStatistic condition = new ProfileStatistic(null, InfoType.RULE_CONDITION, "bel(a)", rule, "cond");
+		ProfileStatistic total = new ProfileStatistic(null, InfoType.GLOBAL, "total run time", null, "total");
+		module.add(10000000);
+		rule.add(6000000);
+		condition.add(4000000);
+		total.add(20000000);
+		profile.put(module);
+		profile.put(rule);
+		profile.put(condition);
+		profile.put(total);
+		this.graph = new FlameGraph(profile);
+	}
+
+	@Test
+	public void testCollapsed() throws IOException {
+		StringWriter out = new StringWriter();
+		this.graph.writeCollapsed(out);
+
+		assertEquals("agent;main 4000\nagent;main;if bel(a, b) then go 2000\n"
+				+ "agent;main;if bel(a, b) then go;bel(a) 4000\n", out.toString());
+	}
+
+	@Test
+	public void testSpeedscope() throws IOException {
+		StringWriter out = new StringWriter();
+		this.graph.writeSpeedscope(out);
+
+		String json = out.toString();
+		assertTrue(json.contains("\"frames\":[{\"name\":\"agent\"},{\"name\":\"main\"},"
+				+ "{\"name\":\"if bel(a, b) then go\"},{\"name\":\"bel(a)\"}]"));
+		assertTrue(json.contains("\"samples\":[[0,1],[0,1,2],[0,1,2,3]],\"weights\":[4000,2000,4000]"));
+		assertTrue(json.contains("\"endValue\":10000"));
+	}
+
+	@Test
+	public void testTrace() throws IOException {
+		StringWriter out = new StringWriter();
+		this.graph.writeTrace(out);
+
+		String json = out.toString();
+		assertTrue(json.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[{\"name\":\"main\""));
+		assertTrue(json.contains("\"name\":\"bel(a)\",\"cat\":\"rule condition\",\"ph\":\"X\",\"pid\":1,\"tid\":1,"
+				+ "\"ts\":0,\"dur\":4000"));
+		assertFalse(json.contains("total run time"));
+	}
+}
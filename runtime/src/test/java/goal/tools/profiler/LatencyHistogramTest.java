@@ -0,0 +1,45 @@
+package goal.tools.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+	private static final double MS = 1000000;
+
+	@Test
+	public void testPercentiles() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			histogram.record((long) (i * MS));
+		}
+		assertEquals(1000, histogram.getCount());
+		assertEquals(500.5, histogram.getMean(), 0.001);
+		assertEquals(1000, histogram.getMax(), 0.001);
+		assertEquals(500, histogram.getPercentile(50), 500 * 0.07);
+		assertEquals(900, histogram.getPercentile(90), 900 * 0.07);
+		assertEquals(990, histogram.getPercentile(99), 990 * 0.07);
+		assertEquals(1000, histogram.getPercentile(100), 0.001);
+		// percentiles never exceed the maximum
+		assertTrue(histogram.getPercentile(99.9) <= histogram.getMax());
+	}
+
+	@Test
+	public void testSmallValues() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(-5);
+		histogram.record(3);
+		assertEquals(0, histogram.getPercentile(50), 0);
+		assertEquals(3 / MS, histogram.getPercentile(100), 0);
+	}
+
+	@Test
+	public void testReset() {
+		LatencyHistogram histogram = new LatencyHistogram();
+		histogram.record(Long.MAX_VALUE);
+		histogram.reset();
+		assertEquals(0, histogram.getCount());
+		assertEquals(0, histogram.getPercentile(99), 0);
+	}
+}
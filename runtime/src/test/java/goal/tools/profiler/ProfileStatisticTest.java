@@ -95,4 +95,26 @@ public class ProfileStatisticTest {
 		assertEquals(this.desc2, merge.getChildren().get(1).getDescription());
 		assertEquals(merge, merge.getChildren().get(1).getParent());
 	}
+
+	@Test
+	public void testMergeKeepsTotalsOfDifferentChilds() {
+		ProfileStatistic root1 = new ProfileStatistic(this.sourceInfo, InfoType.KR_CALL, this.rootdesc, null,
+				this.rootdesc);
+		ProfileStatistic root2 = new ProfileStatistic(this.sourceInfo, InfoType.KR_CALL, this.rootdesc, null,
+				this.rootdesc);
+		ProfileStatistic stat2 = new ProfileStatistic(this.sourceInfo, InfoType.KR_CALL, this.desc2, root2, this.desc2);
+		ProfileStatistic child2 = new ProfileStatistic(this.sourceInfo, InfoType.KR_CALL, this.desc, stat2, this.desc);
+
+		stat2.add(55);
+		child2.add(33);
+
+		ProfileStatistic merge = root1.merge(root2, null);
+
+		ProfileStatistic newstat = merge.getChildren().get(0);
+		assertEquals(55, newstat.getTotalTime());
+		assertEquals(1, newstat.getTotalNumber());
+		assertEquals(1, newstat.getChildren().size());
+		assertEquals(33, newstat.getChildren().get(0).getTotalTime());
+		assertEquals(newstat, newstat.getChildren().get(0).getParent());
+	}
 }
@@ -0,0 +1,77 @@
+package goal.tools.profiler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import goal.core.executors.modules.ModuleExecutor;
+import goal.core.executors.stack.CallStack;
+import goal.core.executors.stack.RuleStackExecutor;
+import goal.core.runtime.service.agent.NettoRunTime;
+import languageTools.program.agent.Module;
+import languageTools.program.agent.msc.MentalStateCondition;
+import languageTools.program.agent.rules.Rule;
+
+public class SamplingProfilerTest {
+	private CallStack stack;
+	private SamplingProfiler profiler;
+	private Module module;
+	private Rule rule;
+	private MentalStateCondition condition;
+	private RuleStackExecutor ruleExecutor;
+
+	@Before
+	public void setUp() {
+		this.stack = new CallStack();
+		this.profiler = new SamplingProfiler(this.stack, new NettoRunTime(), "agent");
+
+		this.module = mock(Module.class);
+		ModuleExecutor moduleExecutor = mock(ModuleExecutor.class);
+		when(moduleExecutor.getModule()).thenReturn(this.module);
+
+		this.condition = mock(MentalStateCondition.class);
+		this.rule = mock(Rule.class);
+		when(this.rule.getCondition()).thenReturn(this.condition);
+		this.ruleExecutor = mock(RuleStackExecutor.class);
+		when(this.ruleExecutor.getRule()).thenReturn(this.rule);
+
+		this.stack.push(moduleExecutor);
+		this.stack.push(this.ruleExecutor);
+	}
+
+	@Test
+	public void testIdleNotSampled() {
+		this.profiler.sample(1000);
+
+		assertEquals(0, this.profiler.getSamples());
+		assertEquals(0, this.stack.getFrames().length);
+		assertNull(this.profiler.getProfile().get(this.module));
+	}
+
+	@Test
+	public void testSampleRunningRule() {
+		doAnswer(invocation -> {
+			assertEquals(2, this.stack.getFrames().length);
+			this.profiler.sample(1000);
+			this.profiler.sample(1500);
+			return null;
+		}).when(this.ruleExecutor).popped();
+		this.stack.pop();
+
+		assertEquals(2, this.profiler.getSamples());
+		ProfileStatistic moduleStat = this.profiler.getProfile().get(this.module);
+		ProfileStatistic ruleStat = this.profiler.getProfile().get(this.rule);
+		ProfileStatistic conditionStat = this.profiler.getProfile().get(this.condition);
+		assertEquals(1500, moduleStat.getTotalTime());
+		assertEquals(2, moduleStat.getTotalNumber());
+		assertEquals(moduleStat, ruleStat.getParent());
+		assertEquals(1500, ruleStat.getTotalTime());
+		assertEquals(ruleStat, conditionStat.getParent());
+		assertEquals(1500, conditionStat.getTotalTime());
+	}
+}